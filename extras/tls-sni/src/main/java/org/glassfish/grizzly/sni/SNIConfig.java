@@ -98,6 +98,25 @@ public class SNIConfig {
         return new SNIConfig(NULL_SERVER_CONFIG, host, false);
     }
     
+    /**
+     * @return the server-side SNI configuration to be cached, whose
+     *          {@link SSLEngineConfigurator} is a copy of this one, which
+     *          configures {@link SSLEngine}s using the precomputed
+     *          SSLParameters. The {@link SSLEngineConfigurator} subclasses
+     *          are kept as they are, because the copy would lose their
+     *          customizations.
+     */
+    SNIConfig toCachedServerConfig() {
+        if (sslEngineConfigurator == null
+                || sslEngineConfigurator.getClass() != SSLEngineConfigurator.class
+                || sslEngineConfigurator.isUseSSLParametersTemplate()) {
+            return this;
+        }
+        
+        return new SNIConfig(sslEngineConfigurator.copy()
+                .setUseSSLParametersTemplate(true), host, false);
+    }
+    
     private SNIConfig(final SSLEngineConfigurator engineConfig,
             final String host, final boolean isClientConfig) {
         this.sslEngineConfigurator = engineConfig;
@@ -42,6 +42,8 @@ package org.glassfish.grizzly.sni;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLEngine;
 import org.glassfish.grizzly.Buffer;
@@ -75,6 +77,9 @@ import org.glassfish.grizzly.utils.JdkVersion;
  * because the host name information could be obtained from the {@link Connection#getPeerAddress()}.
  * However {@link SNIClientConfigResolver} could be used to customize the host name.
  * 
+ * The server-side {@link SNIConfig}s could be cached per host name, see
+ * {@link #setServerSSLConfigCacheSize(int)}.
+ * 
  * @author Alexey Stashok
  */
 public class SNIFilter extends SSLFilter {
@@ -88,8 +93,16 @@ public class SNIFilter extends SSLFilter {
     private static final int SSLV3_RECORD_HEADER_SIZE = 5; // SSLv3 record header
     private static final int CLIENT_HELLO_HST = 0x1;
     
-    private SNIServerConfigResolver serverResolver;
+    // the SNIConfig cached for the host names resolved to the default config
+    private static final SNIConfig DEFAULT_SERVER_CONFIG =
+            SNIConfig.newServerConfig(null);
+    
+    private volatile SNIServerConfigResolver serverResolver;
     private SNIClientConfigResolver clientResolver;
+    
+    private volatile int serverConfigCacheSize;
+    // the cache is replaced, once the resolver or the cache size is changed
+    private volatile ServerConfigCache serverConfigCache;
 
     public SNIFilter() {
     }
@@ -137,6 +150,52 @@ public class SNIFilter extends SSLFilter {
      */
     public void setServerSSLConfigResolver(final SNIServerConfigResolver resolver) {
         this.serverResolver = resolver;
+        resetServerConfigCache();
+    }
+
+    /**
+     * @return the maximum number of host names, whose server-side
+     *          {@link SNIConfig}s are cached, <tt>0</tt> means the cache is
+     *          disabled
+     * @since 2.4.3
+     */
+    public int getServerSSLConfigCacheSize() {
+        return serverConfigCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of host names, whose {@link SNIConfig}s
+     * returned by the {@link SNIServerConfigResolver} are cached, so the
+     * resolver is called once per host name, and not for every new
+     * {@link Connection}. The least recently used host names are evicted
+     * from the cache, once it's full.
+     * The cached {@link SSLEngineConfigurator}s are copies of the resolved
+     * ones, which configure {@link SSLEngine}s using the
+     * {@link SSLEngineConfigurator#setUseSSLParametersTemplate(boolean) precomputed SSLParameters},
+     * the {@link SSLEngineConfigurator} subclasses are cached as they are.
+     * 
+     * The cache is dropped, once the {@link SNIServerConfigResolver} is changed.
+     * It mustn't be enabled, if the resolver result depends on anything
+     * besides the host name, for example the {@link Connection} addresses.
+     * 
+     * @param serverConfigCacheSize the maximum number of the cached host
+     *          names, <tt>0</tt> (default) to disable the cache
+     * @since 2.4.3
+     */
+    public void setServerSSLConfigCacheSize(final int serverConfigCacheSize) {
+        if (serverConfigCacheSize < 0) {
+            throw new IllegalArgumentException("The cache size can't be negative");
+        }
+        
+        this.serverConfigCacheSize = serverConfigCacheSize;
+        resetServerConfigCache();
+    }
+
+    private void resetServerConfigCache() {
+        final SNIServerConfigResolver resolver = serverResolver;
+        serverConfigCache = resolver != null && serverConfigCacheSize > 0
+                ? new ServerConfigCache(resolver, serverConfigCacheSize)
+                : null;
     }
 
     /**
@@ -267,11 +326,7 @@ public class SNIFilter extends SSLFilter {
                 // extract SNI host name
                 final String hostName = getHostName(input, len);
                 final SNIConfig sniConfig =
-                        localResolver.resolve(c, hostName);
-
-                if (sniConfig != null && sniConfig.isClientConfig) {
-                    throw new IllegalStateException("SNIConfig has to represent server config, not a client one");
-                }
+                        resolveServerConfig(localResolver, c, hostName);
                 
                 final SSLEngineConfigurator configurator =
                         sniConfig != null && sniConfig.sslEngineConfigurator != null ?
@@ -292,6 +347,46 @@ public class SNIFilter extends SSLFilter {
         return super.handleRead(ctx);
     }
 
+    /**
+     * Returns the server-side {@link SNIConfig} for the host name, from the
+     * cache if it's enabled for the resolver.
+     */
+    private SNIConfig resolveServerConfig(
+            final SNIServerConfigResolver resolver,
+            final Connection c, final String hostName) {
+        final ServerConfigCache cache = serverConfigCache;
+        if (cache == null || cache.resolver != resolver) {
+            return checkServerConfig(resolver.resolve(c, hostName));
+        }
+
+        SNIConfig sniConfig;
+        synchronized (cache) {
+            sniConfig = cache.get(hostName);
+        }
+        
+        if (sniConfig == null) {
+            final SNIConfig resolved =
+                    checkServerConfig(resolver.resolve(c, hostName));
+            sniConfig = resolved != null
+                    ? resolved.toCachedServerConfig()
+                    : DEFAULT_SERVER_CONFIG;
+            
+            synchronized (cache) {
+                cache.put(hostName, sniConfig);
+            }
+        }
+        
+        return sniConfig;
+    }
+    
+    private static SNIConfig checkServerConfig(final SNIConfig sniConfig) {
+        if (sniConfig != null && sniConfig.isClientConfig) {
+            throw new IllegalStateException("SNIConfig has to represent server config, not a client one");
+        }
+        
+        return sniConfig;
+    }
+    
     private String getHostName(final Buffer input, final int len) {
         int current = SSLV3_RECORD_HEADER_SIZE;
         
@@ -370,6 +465,32 @@ public class SNIFilter extends SSLFilter {
                 ((major << 8) | minor & 0xff) >= MIN_TLS_VERSION;
     }
     
+    /**
+     * LRU cache of the server-side {@link SNIConfig}s per host name, filled
+     * by the given {@link SNIServerConfigResolver}. Has to be accessed
+     * synchronized on the cache.
+     */
+    private static final class ServerConfigCache
+            extends LinkedHashMap<String, SNIConfig> {
+        private static final long serialVersionUID = 1L;
+        
+        private final transient SNIServerConfigResolver resolver;
+        private final int maxSize;
+
+        private ServerConfigCache(final SNIServerConfigResolver resolver,
+                final int maxSize) {
+            super(16, 0.75f, true);
+            this.resolver = resolver;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                final Map.Entry<String, SNIConfig> eldest) {
+            return size() > maxSize;
+        }
+    }
+    
     private static final class SNIAwareTransportFilterWrapper
             extends SSLTransportFilterWrapper {
 
@@ -42,7 +42,10 @@ package org.glassfish.grizzly.sni;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.attributes.Attribute;
@@ -156,6 +159,100 @@ public class SNITest {
         }
     }
     
+    @Test
+    public void testServerConfigCache() throws Exception {
+        final String sniHostValue = "sni-test.com";
+        final String msg = "Hello world!";
+        
+        if (!JDK7_OR_HIGHER) {
+            return;
+        }
+        
+        final SSLEngineConfigurator sslServerEngineConfig = 
+                    new SSLEngineConfigurator(
+                            createSSLContextConfigurator().createSSLContext(),
+                    false, false, false);
+        final SSLEngineConfigurator sslClientEngineConfig = 
+                    new SSLEngineConfigurator(
+                            createSSLContextConfigurator().createSSLContext(),
+                    true, false, false);
+        
+        final AtomicInteger resolveCounter = new AtomicInteger();
+        final SNIServerConfigResolver serverResolver =
+                new SNIServerConfigResolver() {
+
+            @Override
+            public SNIConfig resolve(Connection connection, String hostname) {
+                assertEquals(sniHostValue, hostname);
+                resolveCounter.incrementAndGet();
+                
+                return SNIConfig.newServerConfig(sslServerEngineConfig);
+            }
+        };
+        
+        final SNIFilter sniFilter = new SNIFilter();
+        sniFilter.setServerSSLConfigCacheSize(16);
+        sniFilter.setServerSSLConfigResolver(serverResolver);
+        sniFilter.setClientSSLConfigResolver(new SNIClientConfigResolver() {
+
+            @Override
+            public SNIConfig resolve(Connection connection) {
+                return SNIConfig.newClientConfig(sniHostValue,
+                        sslClientEngineConfig);
+            }
+        });
+
+        final BlockingQueue<String> resultQueue =
+                new LinkedTransferQueue<String>();
+        final FilterChain chain = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(sniFilter)
+                .add(new StringFilter())
+                .add(new BaseFilter() {
+
+                    @Override
+                    public NextAction handleRead(final FilterChainContext ctx)
+                            throws IOException {
+                        resultQueue.offer((String) ctx.getMessage());
+                        return ctx.getInvokeAction();
+                    }
+
+                })
+                .build();
+        
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setProcessor(chain)
+                .build();
+        
+        try {
+            transport.bind(PORT);
+            transport.start();
+            
+            for (int i = 0; i < 3; i++) {
+                final Connection c = transport.connect("localhost", PORT).get();
+                c.write(msg);
+                assertEquals(msg, resultQueue.poll(10, TimeUnit.SECONDS));
+                c.closeSilently();
+            }
+            
+            // the same host name is resolved once
+            assertEquals(1, resolveCounter.get());
+            
+            // the cache is dropped, once the resolver is changed
+            sniFilter.setServerSSLConfigResolver(serverResolver);
+            for (int i = 0; i < 2; i++) {
+                final Connection c = transport.connect("localhost", PORT).get();
+                c.write(msg);
+                assertEquals(msg, resultQueue.poll(10, TimeUnit.SECONDS));
+                c.closeSilently();
+            }
+            
+            assertEquals(2, resolveCounter.get());
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+    
     private static SSLContextConfigurator createSSLContextConfigurator() {
         SSLContextConfigurator sslContextConfigurator =
                 new SSLContextConfigurator();
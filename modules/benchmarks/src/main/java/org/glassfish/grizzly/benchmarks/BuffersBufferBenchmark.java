@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.BuffersBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BuffersBuffer} reads and writes, which cross the boundaries of the
+ * underlying buffers, and composite buffer assembly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuffersBufferBenchmark {
+
+    @Param({"2", "8", "32"})
+    int buffersCount;
+
+    @Param({"256"})
+    int bufferSize;
+
+    MemoryManager mm;
+
+    Buffer[] components;
+
+    BuffersBuffer composite;
+
+    byte[] bulk;
+
+    @Setup
+    public void setup() {
+        mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+        components = new Buffer[buffersCount];
+        for (int i = 0; i < buffersCount; i++) {
+            final byte[] data = new byte[bufferSize];
+            for (int j = 0; j < bufferSize; j++) {
+                data[j] = (byte) (i + j);
+            }
+            components[i] = Buffers.wrap(mm, data);
+        }
+
+        composite = BuffersBuffer.create(mm, components.clone());
+        bulk = new byte[composite.remaining()];
+    }
+
+    @Benchmark
+    public byte[] bulkGet() {
+        composite.position(0);
+        composite.get(bulk);
+        return bulk;
+    }
+
+    @Benchmark
+    public BuffersBuffer bulkPut() {
+        composite.position(0);
+        composite.put(bulk);
+        return composite;
+    }
+
+    @Benchmark
+    public int indexedGet() {
+        int sum = 0;
+        for (int i = 0, len = composite.limit(); i < len; i++) {
+            sum += composite.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long relativeGetLong() {
+        long sum = 0;
+        composite.position(0);
+        while (composite.remaining() >= 8) {
+            sum += composite.getLong();
+        }
+        return sum;
+    }
+
+    /**
+     * Composite assembly the way decoders do it with {@link Buffers#appendBuffers}.
+     */
+    @Benchmark
+    public int appendBuffers() {
+        Buffer result = components[0].duplicate();
+        for (int i = 1; i < buffersCount; i++) {
+            result = Buffers.appendBuffers(mm, result, components[i].duplicate());
+        }
+        final int remaining = result.remaining();
+        if (result.isComposite()) {
+            ((BuffersBuffer) result).dispose();
+        }
+        return remaining;
+    }
+}
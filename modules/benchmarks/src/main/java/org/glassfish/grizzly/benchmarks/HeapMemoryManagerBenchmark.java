@@ -0,0 +1,121 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link HeapMemoryManager} allocations served from the worker thread's
+ * {@link org.glassfish.grizzly.memory.ThreadLocalPool}.
+ *
+ * The benchmark threads are {@link org.glassfish.grizzly.threadpool.DefaultWorkerThread}s
+ * (see {@link WorkerThreadExecutor}), otherwise the thread-local pool
+ * is bypassed and every allocation goes to the Java heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Djmh.executor=CUSTOM",
+        "-Djmh.executor.class=org.glassfish.grizzly.benchmarks.WorkerThreadExecutor"})
+@State(Scope.Thread)
+public class HeapMemoryManagerBenchmark {
+
+    @Param({"64", "1024", "8192"})
+    int size;
+
+    MemoryManager mm;
+
+    byte[] payload;
+
+    @Setup
+    public void setup() {
+        mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+        if (!(mm instanceof HeapMemoryManager)) {
+            throw new IllegalStateException("HeapMemoryManager is expected, but got " + mm);
+        }
+        payload = new byte[size / 2];
+    }
+
+    @Benchmark
+    public void allocateDispose(final Blackhole bh) {
+        final Buffer buffer = mm.allocate(size);
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+
+    /**
+     * The typical read path: allocate a large chunk, fill part of it and
+     * give the rest back to the pool.
+     */
+    @Benchmark
+    public void allocateAtLeastTrimDispose(final Blackhole bh) {
+        final Buffer buffer = mm.allocateAtLeast(size);
+        buffer.put(payload);
+        buffer.trim();
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+
+    @Benchmark
+    public void reallocateDispose(final Blackhole bh) {
+        Buffer buffer = mm.allocate(size / 2);
+        buffer = mm.reallocate(buffer, size);
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+}
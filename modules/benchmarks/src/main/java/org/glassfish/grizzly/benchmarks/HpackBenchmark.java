@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http2.hpack.Decoder;
+import org.glassfish.grizzly.http2.hpack.DecodingCallback;
+import org.glassfish.grizzly.http2.hpack.Encoder;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HPACK {@link Encoder} and {@link Decoder} throughput for a typical
+ * HTTP/2 request header block.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HpackBenchmark {
+
+    private static final int TABLE_SIZE = 4096;
+
+    private static final String[][] HEADERS = {
+            {":method", "GET"},
+            {":scheme", "https"},
+            {":authority", "api.example.com"},
+            {":path", "/api/v1/accounts/12345/orders?limit=50&offset=100"},
+            {"accept", "application/json, text/plain, */*"},
+            {"accept-encoding", "gzip, deflate, br"},
+            {"accept-language", "en-US,en;q=0.9,de;q=0.8"},
+            {"user-agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/66.0.3359.181 Safari/537.36"},
+            {"cookie", "_ga=GA1.2.1234567890.1526000000; JSESSIONID=0123456789ABCDEF0123456789ABCDEF"},
+            {"x-request-id", "6f1f4e5c-0d4b-4b0a-9a64-3d4c1f3c9f2a"},
+            {"x-b3-traceid", "80f198ee56343ba864fe8b2a57d3eff7"},
+    };
+
+    Encoder encoder;
+
+    Decoder decoder;
+
+    Buffer encodeBuffer;
+
+    Buffer headerBlock;
+
+    final CountingCallback callback = new CountingCallback();
+
+    @Setup
+    public void setup() {
+        final MemoryManager mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+        encoder = new Encoder(TABLE_SIZE);
+        decoder = new Decoder(TABLE_SIZE);
+        encodeBuffer = mm.allocate(8192);
+
+        headerBlock = mm.allocate(8192);
+        encodeHeaders(new Encoder(TABLE_SIZE), headerBlock);
+        headerBlock.flip();
+    }
+
+    @Benchmark
+    public int encode() {
+        encodeBuffer.clear();
+        encodeHeaders(encoder, encodeBuffer);
+        return encodeBuffer.position();
+    }
+
+    @Benchmark
+    public int decode() {
+        headerBlock.rewind();
+        callback.count = 0;
+        decoder.decode(headerBlock, true, callback);
+        return callback.count;
+    }
+
+    private static void encodeHeaders(final Encoder encoder, final Buffer buffer) {
+        for (String[] header : HEADERS) {
+            encoder.header(header[0], header[1]);
+            if (!encoder.encode(buffer)) {
+                throw new IllegalStateException("Header block buffer is too small");
+            }
+        }
+    }
+
+    private static final class CountingCallback extends DecodingCallback {
+        int count;
+
+        @Override
+        public void onDecoded(final CharSequence name, final CharSequence value) {
+            count += name.length() + value.length();
+        }
+    }
+}
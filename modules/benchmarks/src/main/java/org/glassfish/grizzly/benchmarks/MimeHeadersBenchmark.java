@@ -0,0 +1,152 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MimeHeaders} name lookups, the way the server filters and a handler
+ * typically do them, mostly by {@link Header}, including the lookups of
+ * absent headers. {@link #lookups()} runs them over the same headers, and
+ * {@link #addLookupRecycle()} over the headers of each request: added the
+ * way {@link org.glassfish.grizzly.http.HttpCodecFilter} adds the parsed
+ * ones, looked up and recycled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MimeHeadersBenchmark {
+
+    private static final Charset ASCII = Charset.forName("ASCII");
+
+    private static final String[] COMMON_NAMES = {
+        "host", "user-agent", "accept", "accept-encoding", "accept-language",
+        "connection", "cookie", "x-request-id"
+    };
+
+    @Param({"8", "32", "96"})
+    int headerCount;
+
+    byte[][] names;
+
+    byte[][] values;
+
+    final MimeHeaders headers = new MimeHeaders();
+
+    final MimeHeaders requestHeaders = new MimeHeaders();
+
+    @Setup
+    public void setup() {
+        headers.setMaxNumHeaders(MimeHeaders.MAX_NUM_HEADERS_UNBOUNDED);
+        requestHeaders.setMaxNumHeaders(MimeHeaders.MAX_NUM_HEADERS_UNBOUNDED);
+        names = new byte[headerCount][];
+        values = new byte[headerCount][];
+        for (int i = 0; i < headerCount; i++) {
+            final String name = i < COMMON_NAMES.length
+                    ? COMMON_NAMES[i]
+                    : "x-trace-attribute-" + i;
+            names[i] = name.getBytes(ASCII);
+            values[i] = ("value-" + i).getBytes(ASCII);
+        }
+        addHeaders(headers);
+    }
+
+    @Benchmark
+    public int lookups() {
+        return lookup(headers);
+    }
+
+    @Benchmark
+    public int addLookupRecycle() {
+        final MimeHeaders h = requestHeaders;
+        addHeaders(h);
+        final int found = lookup(h);
+        h.recycle();
+
+        return found;
+    }
+
+    private void addHeaders(final MimeHeaders h) {
+        for (int i = 0; i < headerCount; i++) {
+            final byte[] name = names[i];
+            final byte[] value = values[i];
+            h.addValue(name, 0, name.length).setBytes(value, 0, value.length);
+        }
+    }
+
+    private static int lookup(final MimeHeaders h) {
+        int found = 0;
+        found += length(h.getValue(Header.Host));
+        found += length(h.getValue(Header.ContentLength));
+        found += length(h.getValue(Header.TransferEncoding));
+        found += length(h.getValue(Header.Connection));
+        found += length(h.getValue(Header.Expect));
+        found += length(h.getValue(Header.AcceptEncoding));
+        found += length(h.getValue(Header.Cookie));
+        found += length(h.getValue(Header.IfModifiedSince));
+        found += length(h.getValue("X-Request-ID"));
+        found += length(h.getValue("Authorization"));
+
+        return found;
+    }
+
+    private static int length(final DataChunk value) {
+        return value != null ? value.getLength() : -1;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link PooledMemoryManager} allocate/release round trips, both uncontended
+ * and with several threads sharing the same pool slices, with and without
+ * the per-thread magazines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PooledMemoryManagerBenchmark {
+
+    @Param({"false", "true"})
+    boolean direct;
+
+    /**
+     * Sizes cover the 4k, 8k and 16k pools and a composite allocation,
+     * which spans several pooled buffers.
+     */
+    @Param({"1024", "8192", "65536"})
+    int size;
+
+    /**
+     * 0 - the shared pool slices only, otherwise the per-thread magazine size.
+     */
+    @Param({"0", "32"})
+    int magazineSize;
+
+    PooledMemoryManager mm;
+
+    @Setup
+    public void setup() {
+        mm = new PooledMemoryManager(
+                PooledMemoryManager.DEFAULT_BASE_BUFFER_SIZE,
+                PooledMemoryManager.DEFAULT_NUMBER_OF_POOLS,
+                PooledMemoryManager.DEFAULT_GROWTH_FACTOR,
+                Runtime.getRuntime().availableProcessors(),
+                PooledMemoryManager.DEFAULT_HEAP_USAGE_PERCENTAGE,
+                PooledMemoryManager.DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                direct, magazineSize);
+    }
+
+    @Benchmark
+    public void allocateRelease(final Blackhole bh) {
+        final Buffer buffer = mm.allocate(size);
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+
+    @Benchmark
+    public void allocateAtLeastRelease(final Blackhole bh) {
+        final Buffer buffer = mm.allocateAtLeast(size);
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void allocateReleaseContended(final Blackhole bh) {
+        final Buffer buffer = mm.allocate(size);
+        bh.consume(buffer);
+        buffer.dispose();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.nio.transport.UDPNIOServerConnection;
+import org.glassfish.grizzly.nio.transport.UDPNIOTransport;
+import org.glassfish.grizzly.nio.transport.UDPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loopback {@link UDPNIOTransport} receive throughput, in datagrams, with
+ * different {@link UDPNIOTransport#setReadBatchSize(int) read batch sizes}.
+ *
+ * Every invocation sends a burst of datagrams from a plain
+ * {@link DatagramChannel} and waits until the server side
+ * {@link org.glassfish.grizzly.filterchain.FilterChain} has seen all of them.
+ * If a datagram is dropped, the invocation gives up waiting after a second
+ * and the counters are resynchronized, so the loss shows up as a throughput
+ * drop rather than a hang.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UDPNIOTransportBenchmark {
+
+    private static final int BURST = 64;
+
+    @Param({"1", "16", "64"})
+    int readBatchSize;
+
+    @Param({"64", "1024"})
+    int datagramSize;
+
+    UDPNIOTransport transport;
+    DatagramChannel client;
+    ByteBuffer payload;
+
+    final AtomicLong received = new AtomicLong();
+    long expected;
+
+    @Setup
+    public void setup() throws IOException {
+        transport = UDPNIOTransportBuilder.newInstance()
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setReadBatchSize(readBatchSize)
+                .build();
+        transport.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(final FilterChainContext ctx) {
+                        final Buffer buffer = ctx.getMessage();
+                        buffer.tryDispose();
+                        received.incrementAndGet();
+                        return ctx.getStopAction();
+                    }
+                }).build());
+
+        final UDPNIOServerConnection serverConnection =
+                transport.bind(new InetSocketAddress("127.0.0.1", 0));
+        transport.start();
+
+        client = DatagramChannel.open();
+        client.connect((InetSocketAddress) serverConnection.getLocalAddress());
+
+        payload = ByteBuffer.allocateDirect(datagramSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        transport.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long receiveBurst() throws IOException {
+        for (int i = 0; i < BURST; i++) {
+            payload.clear();
+            client.write(payload);
+        }
+
+        expected += BURST;
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long count;
+        while ((count = received.get()) < expected
+                && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+
+        expected = count;
+        return count;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmarks;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.ThreadLocalPool;
+import org.glassfish.grizzly.memory.ThreadLocalPoolProvider;
+import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
+
+/**
+ * JMH executor, which runs benchmark threads as Grizzly
+ * {@link DefaultWorkerThread}s, so {@link MemoryManager}s, which rely on
+ * a {@link ThreadLocalPool}, are measured the way they work in the worker
+ * thread pool.
+ *
+ * Enabled per benchmark with
+ * <tt>-Djmh.executor=CUSTOM -Djmh.executor.class=org.glassfish.grizzly.benchmarks.WorkerThreadExecutor</tt>.
+ */
+public final class WorkerThreadExecutor extends ThreadPoolExecutor {
+
+    /**
+     * JMH contract: the constructor takes the max number of threads
+     * and the thread name prefix.
+     */
+    public WorkerThreadExecutor(final int maxThreads, final String prefix) {
+        super(maxThreads, maxThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new WorkerThreadFactory(prefix));
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        WorkerThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final MemoryManager mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+            final ThreadLocalPool pool = mm instanceof ThreadLocalPoolProvider
+                    ? ((ThreadLocalPoolProvider) mm).createThreadLocalPool()
+                    : null;
+
+            final DefaultWorkerThread thread = new DefaultWorkerThread(
+                    Grizzly.DEFAULT_ATTRIBUTE_BUILDER,
+                    prefix + '-' + counter.incrementAndGet(), pool, r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.filterchain;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.benchmarks.StandaloneConnection;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DefaultFilterChain} traversal
+ * cost with N filters, which just pass the message to the next filter.
+ * Reads are stopped by the last filter, writes leave the chain without
+ * reaching any transport, so the numbers reflect the chain's own overhead.
+ *
+ * The <tt>noop</tt> filters don't override any handler, so the chain skips
+ * them, the <tt>readOnly</tt> filters override just
+ * {@link Filter#handleRead(FilterChainContext)}, so they are invoked on
+ * read and skipped on write, like a decoding only filter in a deep
+ * SSL/HTTP/HTTP2/WebSocket chain.
+ *
+ * The benchmark lives in the filterchain package to drive
+ * {@link FilterChainContext#setOperation(FilterChainContext.Operation)}
+ * the way the transport does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterChainBenchmark {
+
+    @Param({"1", "4", "16"})
+    int filtersCount;
+
+    @Param({"noop", "readOnly"})
+    String filterKind;
+
+    FilterChain filterChain;
+
+    Connection connection;
+
+    Buffer message;
+
+    @Setup
+    public void setup() {
+        final FilterChainBuilder builder = FilterChainBuilder.stateless();
+        for (int i = 0; i < filtersCount; i++) {
+            builder.add("noop".equals(filterKind)
+                    ? new NoopFilter()
+                    : new ReadOnlyFilter());
+        }
+        builder.add(new CountingFilter());
+
+        filterChain = builder.build();
+        connection = new StandaloneConnection();
+        message = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, "ping");
+    }
+
+    @Benchmark
+    public Object read() {
+        return execute(FilterChainContext.Operation.READ);
+    }
+
+    /**
+     * Downstream traversal, from the last filter to the first one.
+     */
+    @Benchmark
+    public Object write() {
+        return execute(FilterChainContext.Operation.WRITE);
+    }
+
+    private Object execute(final FilterChainContext.Operation operation) {
+        final FilterChainContext ctx =
+                filterChain.obtainFilterChainContext(connection);
+        ctx.setOperation(operation);
+        ctx.setMessage(message);
+        filterChain.execute(ctx);
+        final Object result = ctx.getMessage();
+        ctx.completeAndRecycle();
+        return result;
+    }
+
+    private static final class NoopFilter extends BaseFilter {
+    }
+
+    private static final class ReadOnlyFilter extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            return ctx.getInvokeAction();
+        }
+    }
+
+    private static final class CountingFilter extends BaseFilter {
+        private long counter;
+
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            counter++;
+            return ctx.getStopAction();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selector thread cost of a select, which returns N ready keys, with the
+ * JDK selected key set and with {@link SelectedKeySet}. The keys are walked
+ * the same way {@link SelectorRunner} does, using always writable pipe sinks.
+ *
+ * The benchmark lives in the nio package to access {@link SelectedKeySet}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SelectedKeySetBenchmark {
+
+    @Param({"16", "256", "1024"})
+    int keysCount;
+
+    @Param({"false", "true"})
+    boolean arraySelectedKeys;
+
+    Selector selector;
+    Pipe[] pipes;
+
+    @Setup
+    public void setup() throws IOException {
+        selector = Selector.open();
+        if (arraySelectedKeys && SelectedKeySet.install(selector) == null) {
+            throw new IllegalStateException(
+                    "Array-backed selected key set is not supported by this JDK");
+        }
+
+        pipes = new Pipe[keysCount];
+        for (int i = 0; i < keysCount; i++) {
+            pipes[i] = Pipe.open();
+            pipes[i].sink().configureBlocking(false);
+            pipes[i].sink().register(selector, SelectionKey.OP_WRITE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Pipe pipe : pipes) {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+        selector.close();
+    }
+
+    @Benchmark
+    public int selectAndIterate() throws IOException {
+        selector.selectNow();
+
+        final Set<SelectionKey> readyKeySet = selector.selectedKeys();
+        int readyOps = 0;
+
+        if (readyKeySet instanceof SelectedKeySet) {
+            final SelectedKeySet keyArray = (SelectedKeySet) readyKeySet;
+            for (int i = 0; i < keyArray.size(); i++) {
+                readyOps += keyArray.get(i).readyOps();
+            }
+        } else {
+            final Iterator<SelectionKey> it = readyKeySet.iterator();
+            while (it.hasNext()) {
+                readyOps += it.next().readyOps();
+            }
+        }
+
+        readyKeySet.clear();
+        return readyOps;
+    }
+}
@@ -132,6 +132,19 @@ public interface ConnectionProbe {
      */
     void onIOEventDisableEvent(Connection connection, IOEvent ioEvent);
 
+    /**
+     * Method will be called, when the adaptive receive buffer sizer has
+     * picked the size of the buffer for the next read on the
+     * {@link Connection}.
+     * The default implementation does nothing.
+     *
+     * @param connection {@link Connection}, the event belongs to.
+     * @param size the buffer size in bytes.
+     *
+     * @since 2.4.3
+     */
+    default void onReceiveBufferSizeEvent(Connection connection, int size) {}
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -207,6 +220,12 @@ public interface ConnectionProbe {
         @Override
         public void onIOEventDisableEvent(Connection connection, IOEvent ioEvent) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onReceiveBufferSizeEvent(Connection connection, int size) {}
+
     } // END Adapter
 
 }
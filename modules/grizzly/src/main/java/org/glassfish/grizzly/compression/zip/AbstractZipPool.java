@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of zlib objects ({@link java.util.zip.Deflater}s or
+ * {@link java.util.zip.Inflater}s), which hold native memory until they
+ * are explicitly ended.
+ * <p>
+ * Released objects are reset and kept for reuse, as long as the pool
+ * isn't full, otherwise they are ended right away, so the native memory
+ * doesn't have to wait for the finalizer.
+ *
+ * @param <E> the pooled object type
+ * @since 2.4.3
+ */
+public abstract class AbstractZipPool<E> {
+    /**
+     * The default maximum number of the pooled objects.
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE =
+            Math.max(16, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final int maxPoolSize;
+    private final ArrayBlockingQueue<E> pool;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    protected AbstractZipPool(final int maxPoolSize) {
+        if (maxPoolSize < 0) {
+            throw new IllegalArgumentException("maxPoolSize can't be negative");
+        }
+
+        this.maxPoolSize = maxPoolSize;
+        this.pool = maxPoolSize > 0
+                ? new ArrayBlockingQueue<E>(maxPoolSize)
+                : null;
+    }
+
+    /**
+     * Takes an object from the pool, or creates a new one if the pool is
+     * empty.
+     *
+     * @return the pooled or newly created object
+     */
+    public E acquire() {
+        final E object = pool != null ? pool.poll() : null;
+        if (object != null) {
+            hits.incrementAndGet();
+            return object;
+        }
+
+        misses.incrementAndGet();
+        return create();
+    }
+
+    /**
+     * Returns the object to the pool, the object must not be used afterwards.
+     * If the pool is full - the object is ended.
+     *
+     * @param object the object to return
+     */
+    public void release(final E object) {
+        if (object == null) {
+            return;
+        }
+
+        if (pool != null) {
+            reset(object);
+            if (pool.offer(object)) {
+                return;
+            }
+        }
+
+        end(object);
+    }
+
+    /**
+     * Ends all the pooled objects.
+     */
+    public void clear() {
+        if (pool != null) {
+            E object;
+            while ((object = pool.poll()) != null) {
+                end(object);
+            }
+        }
+    }
+
+    /**
+     * @return the maximum number of the pooled objects
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @return the current number of the pooled objects
+     */
+    public int getPoolSize() {
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * @return the number of the {@link #acquire()} calls, served by a
+     *         pooled object
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of the {@link #acquire()} calls, which had to
+     *         create a new object
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    protected abstract E create();
+
+    protected abstract void reset(E object);
+
+    protected abstract void end(E object);
+}
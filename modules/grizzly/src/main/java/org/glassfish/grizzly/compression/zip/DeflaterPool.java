@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.zip.Deflater;
+
+/**
+ * Pool of the raw (<tt>nowrap</tt>) {@link Deflater}s, used to compress
+ * the GZIP payload, all of which have the same compression level and
+ * strategy.
+ *
+ * @see GZipEncoder
+ * @since 2.4.3
+ */
+public class DeflaterPool extends AbstractZipPool<Deflater> {
+    private final int level;
+    private final int strategy;
+
+    /**
+     * Creates a pool of {@link Deflater}s with the default compression level
+     * and strategy.
+     */
+    public DeflaterPool() {
+        this(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY,
+                DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Creates a pool of {@link Deflater}s.
+     *
+     * @param level the compression level (-1 for the default, or 0-9)
+     * @param strategy the compression strategy, one of
+     *        {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or
+     *        {@link Deflater#HUFFMAN_ONLY}
+     * @param maxPoolSize the maximum number of the pooled {@link Deflater}s,
+     *        0 disables the pooling
+     */
+    public DeflaterPool(final int level, final int strategy,
+            final int maxPoolSize) {
+        super(maxPoolSize);
+
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        if (strategy != Deflater.DEFAULT_STRATEGY
+                && strategy != Deflater.FILTERED
+                && strategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+        }
+
+        this.level = level;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return the compression level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the compression strategy
+     */
+    public int getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected Deflater create() {
+        final Deflater deflater = new Deflater(level, true);
+        if (strategy != Deflater.DEFAULT_STRATEGY) {
+            deflater.setStrategy(strategy);
+        }
+
+        return deflater;
+    }
+
+    @Override
+    protected void reset(final Deflater deflater) {
+        // level and strategy are kept
+        deflater.reset();
+    }
+
+    @Override
+    protected void end(final Deflater deflater) {
+        deflater.end();
+    }
+}
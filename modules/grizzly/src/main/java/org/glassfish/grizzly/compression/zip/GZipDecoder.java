@@ -76,13 +76,57 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
     private final static int FCOMMENT	= 16;	// File comment
 
     private final int bufferSize;
+    
+    private final InflaterPool inflaterPool;
 
     public GZipDecoder() {
         this(512);
     }
 
     public GZipDecoder(int bufferSize) {
+        this(bufferSize, new InflaterPool());
+    }
+
+    /**
+     * Constructs <tt>GZipDecoder</tt>, which decompresses the data using
+     * {@link Inflater}s taken from the passed {@link InflaterPool}.
+     *
+     * @param bufferSize the output buffer size
+     * @param inflaterPool the {@link InflaterPool}, which may be shared
+     *        by several decoders
+     * @since 2.4.3
+     */
+    public GZipDecoder(int bufferSize, InflaterPool inflaterPool) {
+        if (inflaterPool == null) {
+            throw new IllegalArgumentException("inflaterPool can't be null");
+        }
+        
         this.bufferSize = bufferSize;
+        this.inflaterPool = inflaterPool;
+    }
+
+    /**
+     * @return the {@link InflaterPool} the {@link Inflater}s are taken from
+     * @since 2.4.3
+     */
+    public InflaterPool getInflaterPool() {
+        return inflaterPool;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link Inflater} of an unfinished stream is returned to the pool.
+     */
+    @Override
+    public void release(AttributeStorage storage) {
+        final GZipInputState state = (GZipInputState) stateAttr.get(storage);
+        if (state != null && state.getInflater() != null) {
+            inflaterPool.release(state.getInflater());
+            state.setInflater(null);
+        }
+        
+        super.release(storage);
     }
 
 
@@ -135,6 +179,11 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
             if (decodeTrailer(input, state)) {
                 state.setDecodeStatus(DecodeStatus.DONE);
                 state.setInitialized(false);
+                
+                // the member is decoded, the next one (if any) takes
+                // an inflater from the pool again
+                inflaterPool.release(state.getInflater());
+                state.setInflater(null);
             }
         }
 
@@ -233,17 +282,19 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
     private boolean initializeInput(final Buffer buffer,
             final GZipInputState state) {
 
-        Inflater inflater = state.getInflater();
-        if (inflater == null) {
-            inflater = new Inflater(true);
-            final CRC32 crc32 = new CRC32();
+        if (state.getInflater() == null) {
+            state.setInflater(inflaterPool.acquire());
+            
+            CRC32 crc32 = state.getCrc32();
+            if (crc32 == null) {
+                crc32 = new CRC32();
+                state.setCrc32(crc32);
+            }
             crc32.reset();
-            state.setInflater(inflater);
-            state.setCrc32(crc32);
-        } else if (state.getDecodeStatus() == DecodeStatus.DONE) {
+        }
+        
+        if (state.getDecodeStatus() == DecodeStatus.DONE) {
             state.setDecodeStatus(DecodeStatus.INITIAL);
-            inflater.reset();
-            state.getCrc32().reset();
         }
         if (!parseHeader(buffer, state)) {
             return false;
@@ -67,6 +67,8 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
     private static final int TRAILER_SIZE = 8;
 
     private final int bufferSize;
+    
+    private final DeflaterPool deflaterPool;
 
     private static final Buffer header;
 
@@ -91,7 +93,34 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
     }
 
     public GZipEncoder(int bufferSize) {
+        this(bufferSize, new DeflaterPool());
+    }
+
+    /**
+     * Constructs <tt>GZipEncoder</tt>, which compresses the data using
+     * {@link Deflater}s taken from the passed {@link DeflaterPool}.
+     * The pool, and so the compression level and strategy, may be shared
+     * by several encoders.
+     *
+     * @param bufferSize the output buffer size
+     * @param deflaterPool the {@link DeflaterPool}
+     * @since 2.4.3
+     */
+    public GZipEncoder(int bufferSize, DeflaterPool deflaterPool) {
+        if (deflaterPool == null) {
+            throw new IllegalArgumentException("deflaterPool can't be null");
+        }
+        
         this.bufferSize = bufferSize;
+        this.deflaterPool = deflaterPool;
+    }
+
+    /**
+     * @return the {@link DeflaterPool} the {@link Deflater}s are taken from
+     * @since 2.4.3
+     */
+    public DeflaterPool getDeflaterPool() {
+        return deflaterPool;
     }
 
 
@@ -130,7 +159,7 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         final GZipOutputState state = (GZipOutputState) obtainStateObject(storage);
 
         if (!state.isInitialized) {
-            state.initialize();
+            state.initialize(deflaterPool);
         }
 
         Buffer encodedBuffer = null;
@@ -196,11 +225,26 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
                         resultBuffer, trailer);
             }
 
-            state.reset();
+            state.reset(deflaterPool);
         }
 
         return resultBuffer;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link Deflater} of an unfinished stream is returned to the pool.
+     */
+    @Override
+    public void release(AttributeStorage storage) {
+        final GZipOutputState state = (GZipOutputState) stateAttr.get(storage);
+        if (state != null && state.isInitialized) {
+            state.reset(deflaterPool);
+        }
+        
+        super.release(storage);
+    }
     
     private Buffer getHeader() {
         final Buffer headerToWrite = header.duplicate();
@@ -319,8 +363,8 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
          */
         private Deflater deflater;
 
-        private void initialize() {
-            final Deflater newDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private void initialize(final DeflaterPool deflaterPool) {
+            final Deflater newDeflater = deflaterPool.acquire();
             final CRC32 newCrc32 = new CRC32();
             newCrc32.reset();
             deflater = newDeflater;
@@ -328,10 +372,12 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
             isInitialized = true;
         }
         
-        private void reset() {
+        private void reset(final DeflaterPool deflaterPool) {
             isInitialized = false;
             isHeaderWritten = false;
-            deflater.end(); // ensure we don't leak memory in native compression library
+            // the pool either keeps the deflater or ends it, so we don't leak
+            // memory in native compression library
+            deflaterPool.release(deflater);
             crc32 = null;
             deflater = null;
         }
@@ -77,6 +77,21 @@ public class GZipFilter extends BaseFilter {
         this.encoder = new GZipEncoder(outBufferSize);
     }
 
+    /**
+     * Construct <tt>GZipFilter</tt> using specific buffer sizes and
+     * {@link java.util.zip.Inflater}/{@link java.util.zip.Deflater} pools.
+     * @param inBufferSize input buffer size
+     * @param outBufferSize output buffer size
+     * @param inflaterPool {@link InflaterPool} used to decode the data
+     * @param deflaterPool {@link DeflaterPool} used to encode the data
+     * @since 2.4.3
+     */
+    public GZipFilter(int inBufferSize, int outBufferSize,
+            InflaterPool inflaterPool, DeflaterPool deflaterPool) {
+        this.decoder = new GZipDecoder(inBufferSize, inflaterPool);
+        this.encoder = new GZipEncoder(outBufferSize, deflaterPool);
+    }
+
     /**
      * Method perform the clean up of GZIP encoding/decoding state on a closed
      * {@link Connection}.
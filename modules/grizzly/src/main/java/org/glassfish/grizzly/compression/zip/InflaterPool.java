@@ -0,0 +1,85 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.zip.Inflater;
+
+/**
+ * Pool of the raw (<tt>nowrap</tt>) {@link Inflater}s, used to decompress
+ * the GZIP payload.
+ *
+ * @see GZipDecoder
+ * @since 2.4.3
+ */
+public class InflaterPool extends AbstractZipPool<Inflater> {
+
+    /**
+     * Creates a pool of {@link Inflater}s with the default maximum size.
+     */
+    public InflaterPool() {
+        this(DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Creates a pool of {@link Inflater}s.
+     *
+     * @param maxPoolSize the maximum number of the pooled {@link Inflater}s,
+     *        0 disables the pooling
+     */
+    public InflaterPool(final int maxPoolSize) {
+        super(maxPoolSize);
+    }
+
+    @Override
+    protected Inflater create() {
+        return new Inflater(true);
+    }
+
+    @Override
+    protected void reset(final Inflater inflater) {
+        inflater.reset();
+    }
+
+    @Override
+    protected void end(final Inflater inflater) {
+        inflater.end();
+    }
+}
@@ -43,6 +43,8 @@ package org.glassfish.grizzly.filterchain;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,6 +57,7 @@ import org.glassfish.grizzly.filterchain.FilterChainContext.Operation;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.LeakDetector;
 import org.glassfish.grizzly.utils.Exceptions;
 import org.glassfish.grizzly.utils.Futures;
 import org.glassfish.grizzly.utils.NullaryFunction;
@@ -72,6 +75,18 @@ public final class DefaultFilterChain extends ListFacadeFilterChain {
 
     private final FiltersStateFactory filtersStateFactory =
             new FiltersStateFactory();
+
+    /**
+     * The index of the {@link Filter}s to be invoked per operation,
+     * built on first use and dropped once the chain is modified.
+     */
+    private volatile FilterIndexTable filterIndexTable;
+
+    /**
+     * The number of the chain modifications, a {@link FilterIndexTable}
+     * built for another value is stale.
+     */
+    private volatile int modCount;
     
     /**
      * Logger
@@ -222,7 +237,11 @@ public final class DefaultFilterChain extends ListFacadeFilterChain {
                         invokeAction.getAppender());
             }
 
-            i = executor.getNextFilter(ctx);
+            // skip the Filters, which don't handle the operation.
+            // The table is obtained on every step, because the Filter
+            // might have modified the chain.
+            i = obtainFilterIndexTable().nextFilterIdx(ctx.getOperation(),
+                    executor.isUpstream(), executor.getNextFilter(ctx), end);
             ctx.setFilterIdx(i);
         }
 
@@ -280,6 +299,9 @@ public final class DefaultFilterChain extends ListFacadeFilterChain {
                 LOGGER.log(Level.FINE, "Execute filter. filter={0} context={1}",
                         new Object[]{currentFilter, ctx});
             }
+            // record the hand-off, if the message is a tracked pooled Buffer
+            LeakDetector.touch(ctx.getMessage(), currentFilter);
+            
             // execute the task
             nextNextAction = executor.execute(currentFilter, ctx);
 
@@ -489,6 +511,60 @@ public final class DefaultFilterChain extends ListFacadeFilterChain {
         return new DefaultFilterChain(filters.subList(fromIndex, toIndex));
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        onModified();
+    }
+
+    @Override
+    public Iterator<Filter> iterator() {
+        return listIterator();
+    }
+
+    @Override
+    public ListIterator<Filter> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<Filter> listIterator(final int index) {
+        return new IndexTableResetIterator(super.listIterator(index));
+    }
+
+    @Override
+    protected void notifyChangedExcept(final Filter filter) {
+        onModified();
+        super.notifyChangedExcept(filter);
+    }
+
+    /**
+     * Drops the {@link FilterIndexTable}, must be called after the chain
+     * is modified.
+     */
+    private void onModified() {
+        modCount++;
+        filterIndexTable = null;
+    }
+
+    /**
+     * Returns the {@link FilterIndexTable} for the current chain, building
+     * it, if the chain was modified since the table was built.
+     * The modification counter is read before the filters, so a table built
+     * concurrently with a modification, and stored after it, is recognized
+     * as stale next time, even if the chain size didn't change.
+     */
+    private FilterIndexTable obtainFilterIndexTable() {
+        final int currentModCount = modCount;
+        FilterIndexTable indexTable = filterIndexTable;
+        if (indexTable == null || indexTable.modCount() != currentModCount) {
+            indexTable = new FilterIndexTable(filters, currentModCount);
+            filterIndexTable = indexTable;
+        }
+
+        return indexTable;
+    }
+
     @SuppressWarnings("unchecked")
     private FiltersState obtainFiltersState(final Connection connection) {
         return (FiltersState) connection.obtainProcessorState(this, filtersStateFactory);
@@ -761,4 +837,64 @@ public final class DefaultFilterChain extends ListFacadeFilterChain {
             return context;
         }
     }
+
+    /**
+     * {@link ListIterator}, which drops the {@link FilterIndexTable}, when
+     * the chain is modified using the iterator.
+     */
+    private final class IndexTableResetIterator implements ListIterator<Filter> {
+        private final ListIterator<Filter> it;
+
+        private IndexTableResetIterator(final ListIterator<Filter> it) {
+            this.it = it;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Filter next() {
+            return it.next();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return it.hasPrevious();
+        }
+
+        @Override
+        public Filter previous() {
+            return it.previous();
+        }
+
+        @Override
+        public int nextIndex() {
+            return it.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return it.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            it.remove();
+            onModified();
+        }
+
+        @Override
+        public void set(final Filter filter) {
+            it.set(filter);
+            onModified();
+        }
+
+        @Override
+        public void add(final Filter filter) {
+            it.add(filter);
+            onModified();
+        }
+    }
 }
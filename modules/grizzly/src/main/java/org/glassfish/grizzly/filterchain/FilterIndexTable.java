@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.filterchain;
+
+import java.util.List;
+import org.glassfish.grizzly.filterchain.FilterChainContext.Operation;
+
+/**
+ * Per {@link Operation} index of the {@link Filter}s, which have to be
+ * invoked to process the operation.
+ *
+ * A {@link BaseFilter}, which doesn't override the operation's handler method,
+ * always returns {@link FilterChainContext#getInvokeAction()} and can't have
+ * a remainder stored, so calling it is a no-op and the chain can jump right
+ * to the next {@link Filter}, which does override the handler.
+ * Filters, which don't extend {@link BaseFilter}, are always invoked.
+ *
+ * The table is a snapshot of the {@link FilterChain} and has to be rebuilt,
+ * once the chain is modified.
+ *
+ * @since 2.4.3
+ */
+final class FilterIndexTable {
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final int size;
+
+    /**
+     * The chain modification counter the table was built for.
+     */
+    private final int modCount;
+
+    /**
+     * [operation][idx] - the index of the first Filter to be invoked at or
+     * after idx, or size if there is no such a Filter.
+     */
+    private final int[][] upstream;
+
+    /**
+     * [operation][idx + 1] - the index of the first Filter to be invoked at or
+     * before idx, or -1 if there is no such a Filter.
+     */
+    private final int[][] downstream;
+
+    FilterIndexTable(final List<Filter> filters, final int modCount) {
+        this.modCount = modCount;
+        size = filters.size();
+        upstream = new int[OPERATIONS.length][];
+        downstream = new int[OPERATIONS.length][];
+
+        for (Operation operation : OPERATIONS) {
+            final boolean[] isInvoked = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                isInvoked[i] = isInvoked(filters.get(i), operation);
+            }
+
+            final int[] up = new int[size + 1];
+            up[size] = size;
+            for (int i = size - 1; i >= 0; i--) {
+                up[i] = isInvoked[i] ? i : up[i + 1];
+            }
+
+            final int[] down = new int[size + 1];
+            down[0] = -1;
+            for (int i = 0; i < size; i++) {
+                down[i + 1] = isInvoked[i] ? i : down[i];
+            }
+
+            upstream[operation.ordinal()] = up;
+            downstream[operation.ordinal()] = down;
+        }
+    }
+
+    /**
+     * @return the chain modification counter the table was built for
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Returns the index of the first {@link Filter} starting from
+     * <tt>idx</tt> (inclusive), which has to be invoked to process the
+     * operation, or <tt>end</tt> if there is no such a {@link Filter}
+     * before the <tt>end</tt>.
+     *
+     * @param operation the operation
+     * @param isUpstream <tt>true</tt>, if the chain is traversed upstream
+     * @param idx the index of the next {@link Filter} in the chain
+     * @param end the chain end index (exclusive)
+     */
+    int nextFilterIdx(final Operation operation, final boolean isUpstream,
+            final int idx, final int end) {
+        if (idx < 0 || idx >= size || idx == end) {
+            return idx;
+        }
+
+        if (isUpstream) {
+            final int next = upstream[operation.ordinal()][idx];
+            return next < end ? next : end;
+        }
+
+        final int next = downstream[operation.ordinal()][idx + 1];
+        return next > end ? next : end;
+    }
+
+    private static boolean isInvoked(final Filter filter,
+            final Operation operation) {
+        if (!(filter instanceof BaseFilter)) {
+            return true;
+        }
+
+        try {
+            switch (operation) {
+                case ACCEPT:
+                    return isOverridden(filter, "handleAccept");
+                case CONNECT:
+                    return isOverridden(filter, "handleConnect");
+                case READ:
+                    return isOverridden(filter, "handleRead");
+                case WRITE:
+                    return isOverridden(filter, "handleWrite");
+                case CLOSE:
+                    return isOverridden(filter, "handleClose");
+                case EVENT:
+                    return filter.getClass().getMethod("handleEvent",
+                            FilterChainContext.class, FilterChainEvent.class)
+                            .getDeclaringClass() != BaseFilter.class;
+                default:
+                    return true;
+            }
+        } catch (Exception e) {
+            // can't introspect the Filter - always invoke it
+            return true;
+        }
+    }
+
+    private static boolean isOverridden(final Filter filter,
+            final String methodName) throws NoSuchMethodException {
+        return filter.getClass().getMethod(methodName, FilterChainContext.class)
+                .getDeclaringClass() != BaseFilter.class;
+    }
+}
@@ -456,6 +456,9 @@ public class Buffers {
             return buffer1;
         }
 
+        LeakDetector.touch(buffer1, "Buffers.appendBuffers");
+        LeakDetector.touch(buffer2, "Buffers.appendBuffers");
+
         if (buffer1.order() != buffer2.order()) {
             LOGGER.fine("Appending buffers with different ByteOrder."
                     + "The result Buffer's order will be the same as the first Buffer's ByteOrder");
@@ -1681,6 +1681,15 @@ public final class BuffersBuffer extends CompositeBuffer {
         return false;
     }
     
+    /**
+     * Touches the composing {@link Buffer}s, see {@link LeakDetector#touch(Object, Object)}.
+     */
+    void touch(final Object hint) {
+        for (int i = 0; i < buffersSize; i++) {
+            LeakDetector.touch(buffers[i], hint);
+        }
+    }
+    
     // --------------------------------------------------------- Private Methods
 
 
@@ -0,0 +1,313 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+
+/**
+ * Detects pooled {@link Buffer}s, which got garbage collected without being
+ * disposed, so they never returned to their pool.
+ * 
+ * The tracked buffers record the allocation stack trace and the last
+ * {@link #MAX_RECORDS} places they've been {@link #touch(Object, Object) touched}
+ * at (for example the {@link org.glassfish.grizzly.filterchain.Filter}s they've
+ * been passed to), which are logged together with the leak report.
+ * The detection level is configured per {@link PooledMemoryManager}, see
+ * {@link PooledMemoryManager#setLeakDetectionLevel(LeakDetector.Level)}.
+ * 
+ * @since 2.4.3
+ */
+public final class LeakDetector {
+    private static final Logger LOGGER = Grizzly.logger(LeakDetector.class);
+
+    /**
+     * The default leak detection level. Could be set using the
+     * <tt>org.glassfish.grizzly.memory.LeakDetector.level</tt> system property,
+     * the value is one of <tt>disabled</tt> (default), <tt>sampled</tt> or
+     * <tt>paranoid</tt>.
+     */
+    public static final Level DEFAULT_LEVEL = Level.valueOf(System.getProperty(
+            LeakDetector.class.getName() + ".level",
+            Level.DISABLED.name()).toUpperCase());
+
+    /**
+     * In the {@link Level#SAMPLED} mode one of <tt>SAMPLING_INTERVAL</tt>
+     * allocated buffers is tracked (128 by default). Could be set using the
+     * <tt>org.glassfish.grizzly.memory.LeakDetector.sampling-interval</tt>
+     * system property.
+     */
+    public static final int SAMPLING_INTERVAL = Math.max(1, Integer.getInteger(
+            LeakDetector.class.getName() + ".sampling-interval", 128));
+
+    /**
+     * The max number of touch records kept per tracked buffer (4 by default).
+     * Could be set using the
+     * <tt>org.glassfish.grizzly.memory.LeakDetector.max-records</tt>
+     * system property.
+     */
+    public static final int MAX_RECORDS = Math.max(0, Integer.getInteger(
+            LeakDetector.class.getName() + ".max-records", 4));
+
+    /**
+     * The leak detection levels.
+     */
+    public enum Level {
+        /**
+         * No buffers are tracked.
+         */
+        DISABLED,
+        /**
+         * One of {@link #SAMPLING_INTERVAL} allocated buffers is tracked, which
+         * is cheap enough to be left enabled in production.
+         */
+        SAMPLED,
+        /**
+         * Every allocated buffer is tracked.
+         */
+        PARANOID
+    }
+    
+    // true, if at least one LeakDetector has been enabled,
+    // lets touch() skip the type checks otherwise
+    private static volatile boolean isEverEnabled;
+    
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    
+    // the trackers have to be strongly reachable, until they're enqueued
+    private final Set<Tracker> trackers =
+            Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+    
+    private final DefaultMonitoringConfig<MemoryProbe> monitoringConfig;
+    
+    private volatile Level level;
+
+    LeakDetector(final Level level,
+            final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
+        this.monitoringConfig = monitoringConfig;
+        setLevel(level);
+    }
+
+    /**
+     * Records the current stack trace and the <tt>hint</tt> for the pooled
+     * {@link Buffer} (or all the pooled {@link Buffer}s composing
+     * the {@link CompositeBuffer}), if it's tracked by a {@link LeakDetector}.
+     * The records are reported, if the {@link Buffer} leaks.
+     * 
+     * @param message the {@link Buffer}, other objects are ignored
+     * @param hint the object describing the current place
+     */
+    public static void touch(final Object message, final Object hint) {
+        if (!isEverEnabled) {
+            return;
+        }
+        
+        if (message instanceof PooledMemoryManager.PoolBuffer) {
+            ((PooledMemoryManager.PoolBuffer) message).touch(hint);
+        } else if (message instanceof BuffersBuffer) {
+            ((BuffersBuffer) message).touch(hint);
+        }
+    }
+    
+    Level getLevel() {
+        return level;
+    }
+
+    void setLevel(final Level level) {
+        if (level == null) {
+            throw new IllegalArgumentException("level can't be null");
+        }
+        
+        if (level != Level.DISABLED) {
+            isEverEnabled = true;
+        }
+        
+        this.level = level;
+    }
+    
+    /**
+     * Starts tracking the allocated {@link Buffer}, if it's sampled according
+     * to the current level, and reports the leaked buffers.
+     * 
+     * @return the {@link Tracker}, or <tt>null</tt>, if the buffer is not tracked
+     */
+    Tracker track(final Buffer buffer) {
+        final Level l = level;
+        if (l == Level.DISABLED ||
+                (l == Level.SAMPLED && ThreadLocalRandom.current()
+                        .nextInt(SAMPLING_INTERVAL) != 0)) {
+            return null;
+        }
+        
+        reportLeaks();
+        
+        final Tracker tracker = new Tracker(buffer, this);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * Reports the tracked {@link Buffer}s, which have been garbage collected
+     * without being returned to the pool.
+     */
+    void reportLeaks() {
+        Tracker tracker;
+        while ((tracker = (Tracker) queue.poll()) != null) {
+            if (trackers.remove(tracker)) {
+                final String records = tracker.toString();
+                if (LOGGER.isLoggable(java.util.logging.Level.SEVERE)) {
+                    LOGGER.log(java.util.logging.Level.SEVERE,
+                            LogMessages.SEVERE_GRIZZLY_MEMORY_BUFFER_LEAK(
+                                    tracker.size, records));
+                }
+                
+                ProbeNotifier.notifyBufferLeaked(monitoringConfig,
+                        tracker.size, records);
+            }
+        }
+    }
+    
+    /**
+     * Tracks a single pooled {@link Buffer} from its allocation
+     * until it's returned to the pool.
+     */
+    static final class Tracker extends PhantomReference<Object> {
+        private final LeakDetector detector;
+        private final int size;
+        private final Record allocationRecord;
+        
+        // the last touch records, guarded by itself
+        private final ArrayDeque<Record> records;
+        
+        private Tracker(final Buffer buffer, final LeakDetector detector) {
+            super(buffer, detector.queue);
+            this.detector = detector;
+            size = buffer.capacity();
+            allocationRecord = new Record(null);
+            records = new ArrayDeque<Record>(MAX_RECORDS);
+        }
+        
+        void touch(final Object hint) {
+            if (MAX_RECORDS == 0) {
+                return;
+            }
+            
+            final Record record = new Record(hint);
+            synchronized (records) {
+                if (records.size() == MAX_RECORDS) {
+                    records.removeFirst();
+                }
+                
+                records.addLast(record);
+            }
+        }
+        
+        /**
+         * Stops tracking, the buffer is returned to the pool.
+         */
+        void close() {
+            detector.trackers.remove(this);
+            clear();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(1024);
+            synchronized (records) {
+                sb.append("\nRecent access records: ").append(records.size());
+                int i = records.size();
+                for (Iterator<Record> it = records.descendingIterator();
+                        it.hasNext();) {
+                    sb.append("\n#").append(i--).append(':');
+                    it.next().appendTo(sb);
+                }
+            }
+            
+            sb.append("\nCreated at:");
+            allocationRecord.appendTo(sb);
+            return sb.toString();
+        }
+    } // END Tracker
+    
+    private static final class Record extends Throwable {
+        private static final long serialVersionUID = 1L;
+        
+        private final String hint;
+
+        private Record(final Object hint) {
+            this.hint = hint != null ? hint.toString() : null;
+        }
+        
+        private void appendTo(final StringBuilder sb) {
+            if (hint != null) {
+                sb.append("\n\tHint: ").append(hint);
+            }
+            
+            final StackTraceElement[] elements = getStackTrace();
+            // skip the LeakDetector and PooledMemoryManager frames
+            int i = 0;
+            while (i < elements.length && isInternal(elements[i])) {
+                i++;
+            }
+            
+            for (; i < elements.length; i++) {
+                sb.append("\n\t").append(elements[i]);
+            }
+        }
+        
+        private static boolean isInternal(final StackTraceElement element) {
+            final String className = element.getClassName();
+            return className.startsWith(LeakDetector.class.getName()) ||
+                    className.startsWith(PooledMemoryManager.class.getName());
+        }
+    } // END Record
+}
@@ -67,6 +67,43 @@ public interface MemoryProbe {
      */
     void onBufferReleaseToPoolEvent(int size);
 
+    /**
+     * Called by {@link MemoryManager}, when buffer gets allocated from the
+     * calling thread's local cache, without accessing the shared pool.
+     * The event is always accompanied by {@link #onBufferAllocateFromPoolEvent(int)},
+     * so the ratio of the two is the thread cache hit rate.
+     * The default implementation does nothing.
+     *
+     * @param size buffer size
+     *
+     * @since 2.4.3
+     */
+    default void onBufferAllocateFromThreadCacheEvent(int size) {}
+
+    /**
+     * Called by {@link MemoryManager}, when buffer gets released into the
+     * calling thread's local cache, without accessing the shared pool.
+     * The event is always accompanied by {@link #onBufferReleaseToPoolEvent(int)}.
+     * The default implementation does nothing.
+     *
+     * @param size buffer size
+     *
+     * @since 2.4.3
+     */
+    default void onBufferReleaseToThreadCacheEvent(int size) {}
+
+    /**
+     * Called by {@link MemoryManager}, when a pooled buffer was garbage
+     * collected without being released to the pool, see {@link LeakDetector}.
+     * The default implementation does nothing.
+     *
+     * @param size buffer size
+     * @param accessRecords the buffer allocation and recent access stack traces
+     *
+     * @since 2.4.3
+     */
+    default void onBufferLeakEvent(int size, String accessRecords) {}
+
 
     // ---------------------------------------------------------- Nested Classes
 
@@ -100,5 +137,23 @@ public interface MemoryProbe {
         @Override
         public void onBufferReleaseToPoolEvent(int size) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onBufferAllocateFromThreadCacheEvent(int size) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onBufferReleaseToThreadCacheEvent(int size) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onBufferLeakEvent(int size, String accessRecords) {}
+
     } // END Adapter
 }
@@ -48,6 +48,8 @@ import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.LockSupport;
 
@@ -68,6 +70,7 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>The percentage of the heap that this manager will use when populating the pools</li>
  *     <li>The percentage of buffers to be pre-allocated during MemoryManager initialization</li>
  *     <li>The flag indicating whether direct or heap based {@link Buffer}s will be allocated</li>
+ *     <li>The size of the per-thread buffer cache (magazine)</li>
  * </ul>
  *
  * If no explicit configuration is provided, the following defaults will be used:
@@ -79,12 +82,23 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
  *     <li>Percentage of heap: 3% ({@link #DEFAULT_HEAP_USAGE_PERCENTAGE})</li>
  *     <li>Percentage of buffers to be pre-allocated: 100% ({@link #DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE})</li>
  *     <li>Heap based {@link Buffer}s will be allocated</li>
+ *     <li>Magazine size: 0 ({@link #DEFAULT_MAGAZINE_SIZE}), i.e. no per-thread buffer cache</li>
  * </ul>
  *
+ * The buffers, which are not disposed and as the result never returned to the pool, could be detected
+ * using the {@link LeakDetector}, see {@link #setLeakDetectionLevel(LeakDetector.Level)}.
+ *
  * The main advantage of this manager over {@link org.glassfish.grizzly.memory.HeapMemoryManager} or
  * {@link org.glassfish.grizzly.memory.ByteBufferManager} is that this implementation doesn't use ThreadLocal pools
  * and as such, doesn't suffer from the memory fragmentation/reallocation cycle that can impact the ThreadLocal versions.
  *
+ * Optionally, each pool may be fronted by a small per-thread cache of fixed size buffers: two magazines, which
+ * serve allocations and take released buffers without touching the shared pool slices, and are exchanged with
+ * the slices in bulk, when both magazines get empty or full. The magazine size is the number of base size buffers
+ * a magazine holds; for the every next pool it's divided by 2^growthFactor, so a magazine holds the same amount
+ * of memory in all the pools. The buffers kept in the magazines are not reported by the pools' element counts,
+ * and the buffers cached by a thread are left to the garbage collector once the thread terminates.
+ *
  * @since 2.3.11
  */
 public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware {
@@ -101,6 +115,16 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
     private static final long BACK_OFF_DELAY = Long.getLong(
             PooledMemoryManager.class + ".back-off-delay", 0L);
+
+    /**
+     * The default magazine size, used by the constructors, which don't take it
+     * as a parameter. Could be set using the
+     * <tt>org.glassfish.grizzly.memory.PooledMemoryManager.magazine-size</tt>
+     * system property, 0 (default) disables per-thread buffer caching.
+     */
+    public static final int DEFAULT_MAGAZINE_SIZE = Integer.getInteger(
+            PooledMemoryManager.class.getName() + ".magazine-size", 0);
+
     /**
      * Basic monitoring support.  Concrete implementations of this class need
      * only to implement the {@link #createJmxManagementObject()}  method
@@ -116,6 +140,10 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
             };
 
+    // detects the buffers, which were never returned to the pool
+    private final LeakDetector leakDetector =
+            new LeakDetector(LeakDetector.DEFAULT_LEVEL, monitoringConfig);
+
     // number of pools with different buffer sizes
     private final Pool[] pools;
 
@@ -182,6 +210,34 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             final float percentOfHeap,
             final float percentPreallocated,
             final boolean isDirect) {
+        this(baseBufferSize, numberOfPools, growthFactor, numberOfPoolSlices,
+                percentOfHeap, percentPreallocated, isDirect,
+                DEFAULT_MAGAZINE_SIZE);
+    }
+    
+    /**
+     * Creates a new <code>PooledMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param baseBufferSize the base size of the buffer for the 1st pool, every next pool n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+     * @param numberOfPools the number of pools, responsible for allocation of buffers of a pool-specific size
+     * @param growthFactor the buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next allocated pool
+     * @param numberOfPoolSlices the number of pool slices that every pool will stripe allocation requests across
+     * @param percentOfHeap percentage of the heap that will be used when populating the pools
+     * @param percentPreallocated percentage of buffers to be pre-allocated during MemoryManager initialization
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     * @param magazineSize the number of base size buffers every thread may cache per pool magazine, 0 disables per-thread caching
+     *
+     * @since 2.4.3
+     */
+    public PooledMemoryManager(
+            final int baseBufferSize,
+            final int numberOfPools,
+            final int growthFactor,
+            final int numberOfPoolSlices,
+            final float percentOfHeap,
+            final float percentPreallocated,
+            final boolean isDirect,
+            final int magazineSize) {
         if (baseBufferSize <= 0) {
             throw new IllegalArgumentException("baseBufferSize must be greater than zero");
         }
@@ -209,6 +265,10 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         if (percentPreallocated < 0.0f || percentPreallocated > 1.0f) {
             throw new IllegalArgumentException("percentPreallocated must be greater or equal to zero and less or equal to 1");
         }
+        
+        if (magazineSize < 0) {
+            throw new IllegalArgumentException("magazineSize must be greater or equal to zero");
+        }
 
         final long heapSize = Runtime.getRuntime().maxMemory();
         final long memoryPerSubPool = (long) (heapSize * percentOfHeap / numberOfPools);
@@ -217,7 +277,8 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         for (int i = 0, bufferSize = baseBufferSize; i < numberOfPools; i++, bufferSize <<= growthFactor) {
             pools[i] = new Pool(bufferSize, memoryPerSubPool,
                     numberOfPoolSlices, percentPreallocated, isDirect,
-                    monitoringConfig);
+                    magazineSize >> (i * growthFactor),
+                    leakDetector, monitoringConfig);
         }
         maxPooledBufferSize = pools[numberOfPools - 1].bufferSize;
     }
@@ -364,6 +425,30 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     }
 
 
+    /**
+     * @return the {@link LeakDetector.Level} of the pooled {@link Buffer}s leak
+     *         detection
+     *
+     * @since 2.4.3
+     */
+    public LeakDetector.Level getLeakDetectionLevel() {
+        return leakDetector.getLevel();
+    }
+
+    /**
+     * Sets the {@link LeakDetector.Level} of the pooled {@link Buffer}s leak
+     * detection. By default it's {@link LeakDetector#DEFAULT_LEVEL}.
+     * The leaks are logged and reported to the {@link MemoryProbe}s.
+     *
+     * @param level the {@link LeakDetector.Level}
+     *
+     * @since 2.4.3
+     */
+    public void setLeakDetectionLevel(final LeakDetector.Level level) {
+        leakDetector.setLevel(level);
+    }
+
+
     // ----------------------------------------------- Methods from WrapperAware
 
 
@@ -460,39 +545,26 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         return ((valueToCheck & (valueToCheck - 1)) == 0);
     }
 
-    /*
-     * Propagates right-most one bit to the right.  Each shift right
-     * will set all of the bits between the original and new position to one.
-     *
-     * Ex.  If the value is 16, i.e.:
-     *     0x0000 0000 0000 0000 0000 0000 0001 0000
-     * the result of this call will be:
-     *     0x0000 0000 0000 0000 0000 0000 0001 1111
-     * or 31.
-     *
-     * In our case, we're using the result of this method as a
-     * mask.
-     *
-     * Part of this algorithm came from HD Figure 15-5.
-     */
-    private static int fillHighestOneBitRight(int value) {
-        value |= (value >> 1);
-        value |= (value >> 2);
-        value |= (value >> 4);
-        value |= (value >> 8);
-        value |= (value >> 16);
-        return value;
-    }
-
     static final class Pool {
         private final PoolSlice[] slices;
         private final int bufferSize;
+        
+        // per-thread magazines, null if thread caching is disabled
+        private final ThreadLocal<ThreadCache> threadCache;
+        
+        private final LeakDetector leakDetector;
+        
+        // MemoryProbe configuration.
+        private final DefaultMonitoringConfig<MemoryProbe> monitoringConfig;
 
         public Pool(final int bufferSize, final long memoryPerSubPool,
                 final int numberOfPoolSlices, final float percentPreallocated,
-                final boolean isDirect,
+                final boolean isDirect, final int magazineSize,
+                final LeakDetector leakDetector,
                 final DefaultMonitoringConfig<MemoryProbe> monitoringConfig) {
             this.bufferSize = bufferSize;
+            this.leakDetector = leakDetector;
+            this.monitoringConfig = monitoringConfig;
             slices = new PoolSlice[numberOfPoolSlices];
             final long memoryPerSlice = memoryPerSubPool / numberOfPoolSlices;
             
@@ -500,6 +572,20 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
                 slices[i] = new PoolSlice(this, memoryPerSlice, bufferSize,
                         percentPreallocated, isDirect, monitoringConfig);
             }
+            
+            if (magazineSize > 0) {
+                // a magazine should never keep more buffers than a slice could
+                final int capacity = Math.min(Math.max(1, magazineSize),
+                        slices[0].getMaxElementsCount());
+                threadCache = new ThreadLocal<ThreadCache>() {
+                    @Override
+                    protected ThreadCache initialValue() {
+                        return new ThreadCache(capacity);
+                    }
+                };
+            } else {
+                threadCache = null;
+            }
         }
 
         public int elementsCount() {
@@ -524,13 +610,102 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         }
         
         public Buffer allocate() {
+            if (threadCache != null) {
+                return allocateCached(threadCache.get());
+            }
+            
             final PoolSlice slice = getSlice();
             PoolBuffer b = slice.poll();
             if (b == null) {
                 b = slice.allocate();
             }
             
-            return b.prepare();
+            return prepare(b);
+        }
+
+        /**
+         * Returns the {@link PoolBuffer} back to this <tt>Pool</tt>: to the
+         * calling thread's magazines, if thread caching is enabled, or to the
+         * buffer's own {@link PoolSlice} otherwise.
+         */
+        void release(final PoolBuffer b) {
+            if (threadCache == null) {
+                b.owner().offer(b);
+                return;
+            }
+            
+            final ThreadCache cache = threadCache.get();
+            if (cache.isLoadedFull()) {
+                if (!cache.isPreviousEmpty()) {
+                    // both magazines are full - flush the previous one
+                    // to a pool slice, the buffers which don't fit are dropped
+                    getSlice().offer(cache.previous, cache.previousCount);
+                    cache.clearPrevious();
+                    cache.swap();
+                    cache.push(b);
+                    ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
+                            bufferSize);
+                    return;
+                }
+                
+                cache.swap();
+            }
+            
+            cache.push(b);
+            ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
+                    bufferSize);
+            ProbeNotifier.notifyBufferReleasedToThreadCache(monitoringConfig,
+                    bufferSize);
+        }
+        
+        /**
+         * @return the number of buffers cached by the calling thread
+         */
+        int threadCacheElementsCount() {
+            if (threadCache == null) {
+                return 0;
+            }
+            
+            final ThreadCache cache = threadCache.get();
+            return cache.loadedCount + cache.previousCount;
+        }
+        
+        private Buffer prepare(final PoolBuffer b) {
+            b.prepare();
+            
+            final LeakDetector.Tracker tracker = leakDetector.track(b);
+            if (tracker != null) {
+                b.tracker(tracker);
+            }
+            
+            return b;
+        }
+        
+        private Buffer allocateCached(final ThreadCache cache) {
+            if (cache.isLoadedEmpty()) {
+                if (cache.isPreviousEmpty()) {
+                    // both magazines are empty - refill the loaded one
+                    // from a pool slice
+                    final PoolSlice slice = getSlice();
+                    cache.loadedCount = slice.poll(cache.loaded,
+                            cache.loaded.length);
+                    if (cache.loadedCount == 0) {
+                        return prepare(slice.allocate());
+                    }
+                    
+                    ProbeNotifier.notifyBufferAllocatedFromPool(
+                            monitoringConfig, bufferSize);
+                    return prepare(cache.pop());
+                }
+                
+                cache.swap();
+            }
+            
+            ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
+                    bufferSize);
+            ProbeNotifier.notifyBufferAllocatedFromThreadCache(monitoringConfig,
+                    bufferSize);
+            return prepare(cache.pop());
         }
 
         @Override
@@ -560,16 +735,20 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
     }
 
     /*
-     *   This array backed by this pool can only support
-     *   2^30-1 elements instead of the usual 2^32-1.
-     *   This is because we use bit 30 to store information about the read
-     *   and write pointer 'wrapping' status.  Without these bits, it's
-     *   difficult to tell if the array is full or empty when both read and
-     *   write pointers are equal.
-     *   The pool is considered full when read and write pointers
-     *   refer to the same index and the aforementioned bits are equal.
-     *   The same logic is applied to determine if the pool is empty, except
-     *   the bits are not equal.
+     *   The poll and offer pointers are ever-increasing sequence numbers,
+     *   which are mapped to the array index (see {@link #index(long)}),
+     *   so they never wrap, and a thread, which was preempted between
+     *   reading and updating a pointer, can't mistake a pointer, which went
+     *   around the array, for the value it has read.
+     *   Every array element is accompanied by its own sequence number, which
+     *   tells whether the element is ready to be polled or offered at the
+     *   given pointer value: it's equal to the pointer, when the element is
+     *   empty and could be offered, and to the pointer + 1, when the element is
+     *   full and could be polled. The pointer is advanced only over the ready
+     *   elements, so a thread never waits for a specific element, which might
+     *   be lapped by other threads, after it has advanced the pointer; it may
+     *   only wait for the element at the current pointer position, when
+     *   the element is being offered (polled) by another thread.
      */
     static final class PoolSlice {
 
@@ -579,21 +758,17 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // Array index stride.
         private static final int STRIDE = 1 << LOG2_STRIDE;
 
-        // Apply this mask to obtain the first 30 bits of an integer
-        // less the bits for wrap and offset.
-        private static final int MASK = 0x3FFFFFFF;
-
-        // Apply this mask to get/set the wrap status bit.
-        private static final int WRAP_BIT_MASK = 0x40000000;
-
         // Using an AtomicReferenceArray to ensure proper visibility of items
         // within the pool which will be shared across threads.
-        private final PaddedAtomicReferenceArray<PoolBuffer> pool1, pool2;
+        private final PaddedAtomicReferenceArray<PoolBuffer> pool;
+        
+        // The sequence numbers of the pool elements.
+        private final AtomicLongArray sequences;
 
         // Maintain two different pointers for reading/writing to reduce
         // contention.
-        private final PaddedAtomicInteger pollIdx;
-        private final PaddedAtomicInteger offerIdx;
+        private final PaddedAtomicLong pollIdx;
+        private final PaddedAtomicLong offerIdx;
 
         // The Pool this slice belongs to
         private final Pool owner;
@@ -637,26 +812,23 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             maxPoolSize = ((initialSize + (STRIDE - 1)) & ~(STRIDE - 1));
             stridesInPool = maxPoolSize >> LOG2_STRIDE; // maxPoolSize / STRIDE
             
-            // poolSize must be less than or equal to 2^30 - 1.
-            if (maxPoolSize >= WRAP_BIT_MASK) {
-                throw new IllegalStateException(
-                        "Cannot manage a pool larger than 2^30-1");
-            }
-
-            pool1 = new PaddedAtomicReferenceArray<>(maxPoolSize);
+            pool = new PaddedAtomicReferenceArray<>(maxPoolSize);
+            sequences = new AtomicLongArray(maxPoolSize);
             
             final int preallocatedBufs = Math.min(maxPoolSize,
                     (int) (percentPreallocated * maxPoolSize));
             
-            int idx = 0;
+            for (int i = 0; i < preallocatedBufs; i++) {
+                pool.lazySet(index(i), allocate().free(true));
+                sequences.lazySet(index(i), i + 1);
+            }
             
-            for (int i = 0; i < preallocatedBufs; i++, idx = nextIndex(idx)) {
-                pool1.lazySet(idx, allocate().free(true));
+            for (int i = preallocatedBufs; i < maxPoolSize; i++) {
+                sequences.lazySet(index(i), i);
             }
-            pool2 = new PaddedAtomicReferenceArray<>(maxPoolSize);
             
-            pollIdx = new PaddedAtomicInteger(0);
-            offerIdx = new PaddedAtomicInteger(idx);
+            pollIdx = new PaddedAtomicLong(0);
+            offerIdx = new PaddedAtomicLong(preallocatedBufs);
         }
 
 
@@ -664,96 +836,169 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
 
         public final PoolBuffer poll() {
-            int pollIdx;
+            long pollIdx;
             for (;;) {
                 pollIdx = this.pollIdx.get();
-                final int offerIdx = this.offerIdx.get();
                 
-                // weak isEmpty check, might return false positives
-                if (isEmpty(pollIdx, offerIdx)) {
-                    return null;
+                final long seq = sequences.get(index(pollIdx));
+                if (seq != pollIdx + 1) {
+                    if (seq <= pollIdx) {
+                        if (isEmpty(pollIdx)) {
+                            return null;
+                        }
+                        
+                        // give offer at this index time to complete...
+                        Thread.yield();
+                    }
+                    
+                    continue;
                 }
                 
-                final int nextPollIdx = nextIndex(pollIdx);
-                if (this.pollIdx.compareAndSet(pollIdx, nextPollIdx)) {
+                if (this.pollIdx.compareAndSet(pollIdx, pollIdx + 1)) {
                     break;
                 }
                 
                 LockSupport.parkNanos(BACK_OFF_DELAY);
             }
             
-            final int unmaskedPollIdx = unmask(pollIdx);
-            final AtomicReferenceArray<PoolBuffer> pool = pool(pollIdx);
+            final PoolBuffer pb = take(pollIdx);
+            ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
+                                                        bufferSize);
+            return pb;
+        }
+
+        public final boolean offer(final PoolBuffer b) {
+            long offerIdx;
             for (;;) {
-                // unmask the current read value to the actual array index.
-                final PoolBuffer pb = pool.getAndSet(unmaskedPollIdx, null);
-                if (pb != null) {
-                    ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
-                                                                bufferSize);
-                    return pb;
+                offerIdx = this.offerIdx.get();
+                
+                final long seq = sequences.get(index(offerIdx));
+                if (seq != offerIdx) {
+                    if (seq < offerIdx) {
+                        if (isFull(offerIdx)) {
+                            return false;
+                        }
+                        
+                        // give poll at this index time to complete...
+                        Thread.yield();
+                    }
+                    
+                    continue;
                 }
                 
-                // give offer at this index time to complete...
-                Thread.yield();
+                if (this.offerIdx.compareAndSet(offerIdx, offerIdx + 1)) {
+                    break;
+                }
+                
+                LockSupport.parkNanos(BACK_OFF_DELAY);
             }
+            
+            put(offerIdx, b);
+            ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
+                                                     bufferSize);
+            return true;
         }
 
-        public final boolean offer(final PoolBuffer b) {
-            int offerIdx;
+        /**
+         * Polls up to <tt>count</tt> buffers at once, claiming them with
+         * a single pointer update. Unlike {@link #poll()}, doesn't notify
+         * {@link MemoryProbe}s.
+         *
+         * @return the number of buffers stored into the <tt>dst</tt> array
+         */
+        final int poll(final PoolBuffer[] dst, final int count) {
+            long pollIdx;
+            int n;
             for (;;) {
-                offerIdx = this.offerIdx.get();
-                final int pollIdx = this.pollIdx.get();
+                pollIdx = this.pollIdx.get();
+                
+                n = 0;
+                while (n < count &&
+                        sequences.get(index(pollIdx + n)) == pollIdx + n + 1) {
+                    n++;
+                }
                 
-                // weak isFull check, might return false positives
-                if (isFull(pollIdx, offerIdx)) {
-                    return false;
+                if (n == 0) {
+                    if (sequences.get(index(pollIdx)) <= pollIdx) {
+                        if (isEmpty(pollIdx)) {
+                            return 0;
+                        }
+                        
+                        Thread.yield();
+                    }
+                    
+                    continue;
                 }
-                final int nextOfferIndex = nextIndex(offerIdx);
-                if (this.offerIdx.compareAndSet(offerIdx, nextOfferIndex)) {
+                
+                if (this.pollIdx.compareAndSet(pollIdx, pollIdx + n)) {
                     break;
                 }
                 
                 LockSupport.parkNanos(BACK_OFF_DELAY);
             }
             
-            final int unmaskedOfferIdx = unmask(offerIdx);
-            final AtomicReferenceArray<PoolBuffer> pool = pool(offerIdx);
+            for (int i = 0; i < n; i++) {
+                dst[i] = take(pollIdx + i);
+            }
+            
+            return n;
+        }
+        
+        /**
+         * Offers up to <tt>count</tt> buffers at once, claiming the space with
+         * a single pointer update. Unlike {@link #offer(PoolBuffer)}, doesn't
+         * notify {@link MemoryProbe}s.
+         *
+         * @return the number of buffers taken from the <tt>src</tt> array
+         */
+        final int offer(final PoolBuffer[] src, final int count) {
+            long offerIdx;
+            int n;
             for (;;) {
-                // unmask the current write value to the actual array index.
-                if (pool.compareAndSet(unmaskedOfferIdx, null, b)) {
-                    ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
-                                                             bufferSize);
-
-                    return true;
+                offerIdx = this.offerIdx.get();
+                
+                n = 0;
+                while (n < count &&
+                        sequences.get(index(offerIdx + n)) == offerIdx + n) {
+                    n++;
                 }
-                // give poll at this index time to complete...
-                Thread.yield();
+                
+                if (n == 0) {
+                    if (sequences.get(index(offerIdx)) < offerIdx) {
+                        if (isFull(offerIdx)) {
+                            return 0;
+                        }
+                        
+                        Thread.yield();
+                    }
+                    
+                    continue;
+                }
+                
+                if (this.offerIdx.compareAndSet(offerIdx, offerIdx + n)) {
+                    break;
+                }
+                
+                LockSupport.parkNanos(BACK_OFF_DELAY);
+            }
+            
+            for (int i = 0; i < n; i++) {
+                put(offerIdx + i, src[i]);
             }
+            
+            return n;
         }
-
+        
         public final int elementsCount() {
             return elementsCount(pollIdx.get(), offerIdx.get());
         }
 
         /*
-         * There are two cases to consider.
-         *  1) When both indexes are on the same array.
-         *  2) When index are on different arrays (i.e., the wrap bit is set
-         *     on the index value).
-         *
-         *  When both indexes are on the same array, then to calculate
-         *  the number of elements, we have to 'de-virtualize' the indexes
-         *  and simply subtract the result.
-         *
-         *  When the indexes are on different arrays, the result of subtracting
-         *  the 'de-virtualized' indexes will be negative.  We then have to
-         *  add the result of and-ing the maxPoolSize with a mask consisting
-         *  of the first 31 bits being all ones.
+         * The pointers are read separately, so the result is only
+         * an estimation under concurrent access.
          */
-        private int elementsCount(final int ridx, final int widx) {
-            return unstride(unmask(widx)) - unstride(unmask(ridx)) +
-                    (maxPoolSize & fillHighestOneBitRight(
-                            (ridx ^ widx) & WRAP_BIT_MASK));
+        private int elementsCount(final long ridx, final long widx) {
+            return (int) Math.max(0, Math.min(maxPoolSize, widx - ridx));
         }
 
         /**
@@ -794,55 +1039,50 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // ----------------------------------------------------- Private Methods
 
 
-        private static boolean isFull(final int pollIdx, final int offerIdx) {
-            return (pollIdx ^ offerIdx) == WRAP_BIT_MASK;
-        }
-
-        private static boolean isEmpty(final int pollIdx, final int offerIdx) {
-            return pollIdx == offerIdx;
-        }
-
-        private AtomicReferenceArray<PoolBuffer> pool(final int idx) {
-            return (idx & WRAP_BIT_MASK) == 0 ? pool1 : pool2;
-        }
-
-        private int nextIndex(final int currentIdx) {
-            final int arrayIndex = unmask(currentIdx);
-            if (arrayIndex + STRIDE < maxPoolSize) {
-                // add stride and return
-                return currentIdx + STRIDE;
-            } else {
-                final int offset = arrayIndex - maxPoolSize + STRIDE + 1;
-                
-                return offset == STRIDE ?
-                    // we reached the end on the current array,
-                    // set lower 30 bits to zero and flip the wrap bit.
-                    WRAP_BIT_MASK ^ (currentIdx & WRAP_BIT_MASK) :
-                    // otherwise we stay on the same array, just flip the index
-                    // considering the current offset
-                    offset | (currentIdx & WRAP_BIT_MASK);
-            }
+        /*
+         * The element at the poll pointer is empty: either the pool is empty,
+         * or the element has been claimed by an offer, which is in progress.
+         */
+        private boolean isEmpty(final long pollIdx) {
+            return offerIdx.get() <= pollIdx;
         }
-
+        
         /*
-         * Return lower 30 bits, i.e., the actual array index.
+         * The element at the offer pointer is full: either the pool is full,
+         * or the element has been claimed by a poll, which is in progress.
          */
-        private static int unmask(final int val) {
-            return val & MASK;
+        private boolean isFull(final long offerIdx) {
+            return offerIdx - pollIdx.get() >= maxPoolSize;
         }
-
+        
         /*
-         * Return only the wrapping bit.
+         * The element at the pointer has been claimed by the caller,
+         * so no other thread could access it until its sequence is updated.
          */
-        private static int getWrappingBit(final int val) {
-            return val & WRAP_BIT_MASK;
+        private PoolBuffer take(final long pollIdx) {
+            final int idx = index(pollIdx);
+            final PoolBuffer pb = pool.get(idx);
+            pool.lazySet(idx, null);
+            sequences.lazySet(idx, pollIdx + maxPoolSize);
+            return pb;
         }
-
+        
+        private void put(final long offerIdx, final PoolBuffer b) {
+            final int idx = index(offerIdx);
+            pool.lazySet(idx, b);
+            sequences.lazySet(idx, offerIdx + 1);
+        }
+        
         /*
-         * Calculate the index value without stride and offset.
+         * Maps the pointer to the array index, so the consecutive pointers
+         * are STRIDE elements apart: 0, 16, 32, ..., 1, 17, 33, ...
          */
-        private int unstride(final int idx) {
-            return (idx >> LOG2_STRIDE) + (idx & (STRIDE - 1)) * stridesInPool;
+        private int index(final long idx) {
+            // (idx % maxPoolSize) % stridesInPool == idx % stridesInPool,
+            // (idx % maxPoolSize) / stridesInPool == (idx / stridesInPool) % STRIDE
+            final long strideIdx = idx / stridesInPool;
+            final int offset = (int) (idx - strideIdx * stridesInPool);
+            return (offset << LOG2_STRIDE) + ((int) strideIdx & (STRIDE - 1));
         }
         
         @Override
@@ -850,36 +1090,32 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             return toString(pollIdx.get(), offerIdx.get());
         }
 
-        private String toString(final int ridx, final int widx) {
+        private String toString(final long ridx, final long widx) {
             return "BufferSlice[" + Integer.toHexString(hashCode()) + "] {" +
                                 "buffer size=" + bufferSize +
                                 ", elements in pool=" + elementsCount(ridx, widx) +
-                                ", poll index=" + unmask(ridx) +
-                                ", poll wrap bit=" + (fillHighestOneBitRight(
-                    getWrappingBit(ridx)) & 1) +
-                                ", offer index=" + unmask(widx) +
-                                ", offer wrap bit=" + (fillHighestOneBitRight(
-                    getWrappingBit(widx)) & 1) +
+                                ", poll index=" + ridx +
+                                ", offer index=" + widx +
                                 ", maxPoolSize=" + maxPoolSize +
                                 '}';
         }
 
         /*
-         * We pad the default AtomicInteger implementation as the offer/poll
+         * We pad the default AtomicLong implementation as the offer/poll
          * pointers will be highly contended.  The padding ensures that
-         * each AtomicInteger is within it's own cacheline thus reducing
+         * each AtomicLong is within it's own cacheline thus reducing
          * false sharing.
          */
         @SuppressWarnings("UnusedDeclaration")
-        static final class PaddedAtomicInteger extends AtomicInteger {
+        static final class PaddedAtomicLong extends AtomicLong {
             private long p0, p1, p2, p3, p4, p5, p6, p7 = 7L;
 
 
-            PaddedAtomicInteger(int initialValue) {
+            PaddedAtomicLong(long initialValue) {
                 super(initialValue);
             }
 
-        } // END PaddedAtomicInteger
+        } // END PaddedAtomicLong
 
         /*
          * Padded in order to avoid false sharing when the arrays used by AtomicReferenceArray
@@ -900,6 +1136,60 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
 
     } // END BufferPool
 
+    /*
+     * A pair of magazines (the loaded one, which serves allocations and
+     * releases, and the previous one), cached per thread and pool.
+     * Accessed by the owner thread only.
+     */
+    private static final class ThreadCache {
+        private PoolBuffer[] loaded;
+        private int loadedCount;
+        
+        private PoolBuffer[] previous;
+        private int previousCount;
+
+        private ThreadCache(final int capacity) {
+            loaded = new PoolBuffer[capacity];
+            previous = new PoolBuffer[capacity];
+        }
+        
+        private boolean isLoadedEmpty() {
+            return loadedCount == 0;
+        }
+        
+        private boolean isLoadedFull() {
+            return loadedCount == loaded.length;
+        }
+        
+        private boolean isPreviousEmpty() {
+            return previousCount == 0;
+        }
+        
+        private PoolBuffer pop() {
+            final PoolBuffer b = loaded[--loadedCount];
+            loaded[loadedCount] = null;
+            return b;
+        }
+        
+        private void push(final PoolBuffer b) {
+            loaded[loadedCount++] = b;
+        }
+        
+        private void swap() {
+            final PoolBuffer[] tmpMagazine = loaded;
+            final int tmpCount = loadedCount;
+            loaded = previous;
+            loadedCount = previousCount;
+            previous = tmpMagazine;
+            previousCount = tmpCount;
+        }
+        
+        private void clearPrevious() {
+            Arrays.fill(previous, 0, previousCount, null);
+            previousCount = 0;
+        }
+    } // END ThreadCache
+
 
     interface PoolBuffer extends Buffer {
         PoolBuffer prepare();
@@ -907,6 +1197,10 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         PoolBuffer free(boolean free);
 
         PoolSlice owner();
+        
+        void tracker(LeakDetector.Tracker tracker);
+        
+        void touch(Object hint);
     }
     
     private static final class PoolHeapBuffer extends HeapBuffer
@@ -928,6 +1222,9 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // non-null in any 'child' buffers created from the original.
         protected final PoolHeapBuffer source;
 
+        // the LeakDetector tracker, if the buffer is tracked
+        private LeakDetector.Tracker tracker;
+
         
         // ------------------------------------------------------------ Constructors
 
@@ -1001,6 +1298,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             this.free = free;
             return this;
         }
+
+        @Override
+        public void tracker(final LeakDetector.Tracker tracker) {
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void touch(final Object hint) {
+            final LeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch(hint);
+            }
+        }
         
         // ------------------------------------------ Methods from HeapBuffer
 
@@ -1080,7 +1390,12 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             // clear
             clear();
             
-            owner.offer(this);
+            if (tracker != null) {
+                tracker.close();
+                tracker = null;
+            }
+            
+            owner.owner.release(this);
         }
         
         // ----------------------------------------------------- Protected Methods
@@ -1149,6 +1464,9 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
         // non-null in any 'child' buffers created from the original.
         protected final PoolByteBufferWrapper source;
 
+        // the LeakDetector tracker, if the buffer is tracked
+        private LeakDetector.Tracker tracker;
+
         // Used for the special case of the split() method.  This maintains
         // the original wrapper from the pool which must ultimately be returned.
         private final ByteBuffer origVisible;
@@ -1227,6 +1545,19 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             this.free = free;
             return this;
         }
+
+        @Override
+        public void tracker(final LeakDetector.Tracker tracker) {
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void touch(final Object hint) {
+            final LeakDetector.Tracker t = source.tracker;
+            if (t != null) {
+                t.touch(hint);
+            }
+        }
         
         // ------------------------------------------ Methods from ByteBufferWrapper
         
@@ -1296,7 +1627,13 @@ public class PooledMemoryManager implements MemoryManager<Buffer>, WrapperAware
             // should be called on "source" only
             visible = origVisible;
             visible.clear();
-            owner.offer(this);
+            
+            if (tracker != null) {
+                tracker.close();
+                tracker = null;
+            }
+            
+            owner.owner.release(this);
         }
     } // END PoolBuffer    
 }
@@ -101,4 +101,56 @@ final class ProbeNotifier {
         }
     }
 
+    /**
+     * Notify registered {@link MemoryProbe}s about the "allocated from thread cache" event.
+     *
+     * @param size buffer size
+     */
+    static void notifyBufferAllocatedFromThreadCache(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferAllocateFromThreadCacheEvent(size);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link MemoryProbe}s about the "release to thread cache" event.
+     *
+     * @param size buffer size
+     */
+    static void notifyBufferReleasedToThreadCache(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferReleaseToThreadCacheEvent(size);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link MemoryProbe}s about the "buffer leak" event.
+     *
+     * @param size buffer size
+     * @param accessRecords the buffer allocation and recent access stack traces
+     */
+    static void notifyBufferLeaked(
+            final DefaultMonitoringConfig<MemoryProbe> config,
+            final int size, final String accessRecords) {
+
+        final MemoryProbe[] probes = config.getProbesUnsafe();
+        if (probes != null) {
+            for (MemoryProbe probe : probes) {
+                probe.onBufferLeakEvent(size, accessRecords);
+            }
+        }
+    }
+
 }
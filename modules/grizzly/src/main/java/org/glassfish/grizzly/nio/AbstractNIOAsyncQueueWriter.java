@@ -254,7 +254,8 @@ public abstract class AbstractNIOAsyncQueueWriter
                 return;
             }
 
-            if (isCurrent && isAllowDirectWrite) {
+            if (isCurrent && isAllowDirectWrite
+                    && !nioConnection.isWritesCorked()) {
 
                 // If we can write directly - do it w/o creating queue record (simple)
                 final RecordWriteResult writeResult = write0(nioConnection, queueRecord);
@@ -296,9 +297,13 @@ public abstract class AbstractNIOAsyncQueueWriter
 
             if (isCurrent) { //current but not finished.
                 writeTaskQueue.setCurrentElement(queueRecord);
-                onReadyToWrite(nioConnection);
+                // if the output is corked - the record will be written on uncork
+                if (!nioConnection.deferCorkedWrite(pendingBytes)) {
+                    onReadyToWrite(nioConnection);
+                }
             } else {
                 writeTaskQueue.offer(queueRecord);
+                nioConnection.checkCorkedWrites(pendingBytes);
             }
         } catch (IOException e) {
             if (isLogFine) {
@@ -310,6 +315,7 @@ public abstract class AbstractNIOAsyncQueueWriter
             onWriteFailure(nioConnection, queueRecord, e);
         } finally {
             reentrants.dec();
+            checkWriteQueueWatermarks(nioConnection);
         }
     }
     
@@ -393,6 +399,8 @@ public abstract class AbstractNIOAsyncQueueWriter
                 }
                 
                 isComplete = (writeTaskQueue.releaseSpace(bytesReleased) == 0);
+                
+                checkWriteQueueWatermarks(nioConnection);
             }
 
             if (isLogFine) {
@@ -429,6 +437,15 @@ public abstract class AbstractNIOAsyncQueueWriter
         return AsyncResult.COMPLETE;
     }
 
+    private static void checkWriteQueueWatermarks(
+            final NIOConnection nioConnection) {
+        try {
+            nioConnection.checkWriteQueueWatermarks();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Write queue flow control failed", e);
+        }
+    }
+
     private static void finishQueueRecord(final NIOConnection nioConnection,
             final AsyncWriteQueueRecord queueRecord) {
         final boolean isLogFine = LOGGER.isLoggable(Level.FINEST);
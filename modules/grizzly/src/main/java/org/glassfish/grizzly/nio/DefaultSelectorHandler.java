@@ -70,8 +70,18 @@ public class DefaultSelectorHandler implements SelectorHandler {
             Boolean.getBoolean(DefaultSelectorHandler.class.getName() + ".force-selector-spin-detection") ||
             (System.getProperty("os.name").equalsIgnoreCase("linux"));
     
+    /**
+     * If <tt>true</tt>, <tt>DefaultSelectorHandler</tt>s created with the
+     * default settings install an array-backed selected key set into
+     * the {@link Selector}s.
+     */
+    public static final boolean IS_ARRAY_SELECTED_KEYS =
+            Boolean.getBoolean(DefaultSelectorHandler.class.getName() + ".array-selected-keys");
+    
     protected final long selectTimeout;
 
+    protected final boolean isArraySelectedKeys;
+
     // Selector spin workaround artifacts
 
     /**
@@ -87,7 +97,21 @@ public class DefaultSelectorHandler implements SelectorHandler {
     }
 
     public DefaultSelectorHandler(final long selectTimeout, final TimeUnit timeunit) {
+        this(selectTimeout, timeunit, IS_ARRAY_SELECTED_KEYS);
+    }
+
+    /**
+     * @param selectTimeout the select timeout
+     * @param timeunit the select timeout {@link TimeUnit}
+     * @param isArraySelectedKeys if <tt>true</tt>, the {@link Selector}'s
+     *        selected key set will be replaced with an array-backed one, which
+     *        is iterated without garbage. If the JDK doesn't allow that,
+     *        the original selected key set is used.
+     */
+    public DefaultSelectorHandler(final long selectTimeout, final TimeUnit timeunit,
+            final boolean isArraySelectedKeys) {
         this.selectTimeout = TimeUnit.MILLISECONDS.convert(selectTimeout, timeunit);
+        this.isArraySelectedKeys = isArraySelectedKeys;
     }
 
     @Override
@@ -107,6 +131,12 @@ public class DefaultSelectorHandler implements SelectorHandler {
         final boolean hasPostponedTasks =
                 !selectorRunner.getPostponedTasks().isEmpty();
         
+        if (isArraySelectedKeys
+                && !(selector.selectedKeys() instanceof SelectedKeySet)) {
+            // the Selector is new, or it has been switched by the spin workaround
+            SelectedKeySet.install(selector);
+        }
+        
         // The selector.select(...) returns the *new* SelectionKey count,
         // so it may return 0 even in the case, when there are unprocessed, but
         // ready SelectionKeys in the Selector's selected key set.
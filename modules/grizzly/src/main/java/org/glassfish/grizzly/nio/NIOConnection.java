@@ -55,6 +55,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -138,6 +139,35 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
                     CloseReason.class, "closeReason");
     private volatile CloseReason closeReason;
     private volatile GrizzlyFuture<CloseReason> closeFuture;
+
+    // Write cork state: the output is not corked, corked or corked and
+    // there is a queued write to be flushed on uncork.
+    private static final int WRITES_UNCORKED = 0;
+    private static final int WRITES_CORKED = 1;
+    private static final int WRITES_CORKED_PENDING = 2;
+    private static final AtomicIntegerFieldUpdater<NIOConnection> writeCorkStateUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(NIOConnection.class,
+                    "writeCorkState");
+    private volatile int writeCorkState;
+    private volatile int maxCorkedBytes;
+
+    // Write queue flow control: the reads of the flowControlTarget are paused
+    // while the async write queue is over the high watermark.
+    private volatile int writeQueueHighWatermark = -1;
+    private volatile int writeQueueLowWatermark;
+    private volatile NIOConnection flowControlTarget;
+    private final AtomicBoolean isWriteQueueOverHighWatermark = new AtomicBoolean();
+
+    // the number of pauseReads() calls, which haven't been resumed yet
+    private static final AtomicIntegerFieldUpdater<NIOConnection> readPauseCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(NIOConnection.class,
+                    "readPauseCount");
+    private volatile int readPauseCount;
+    
+    // OP_READ has been disabled via disableIOEvent(READ), for example by the
+    // IOStrategy while a read event is processed; resumeReads() leaves it to
+    // the matching enableIOEvent(READ)
+    private volatile boolean isReadDisabled;
     
     protected volatile boolean isBlocking;
     protected volatile boolean isStandalone;        
@@ -385,6 +415,269 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
         return asyncWriteQueue;
     }
 
+    /**
+     * Corks the connection output: the data written asynchronously is queued
+     * rather than written to the channel right away. The queued data is
+     * flushed, as one gathering write if the transport supports it, once
+     * {@link #uncorkWrites()} is called or more than <tt>maxCorkedBytes</tt>
+     * are queued.
+     * The queued data counts against the async write queue limit, so
+     * {@link org.glassfish.grizzly.WriteHandler} notifications work as usual.
+     * 
+     * @param maxCorkedBytes the max number of bytes to be queued, before
+     *        the output is flushed
+     * @since 2.4.3
+     */
+    public void corkWrites(final int maxCorkedBytes) {
+        this.maxCorkedBytes = maxCorkedBytes;
+        writeCorkStateUpdater.compareAndSet(this, WRITES_UNCORKED, WRITES_CORKED);
+    }
+
+    /**
+     * Uncorks the connection output and flushes the data queued while it was
+     * corked.
+     * 
+     * @see #corkWrites(int)
+     * @since 2.4.3
+     */
+    public void uncorkWrites() throws IOException {
+        if (writeCorkStateUpdater.getAndSet(this, WRITES_UNCORKED)
+                == WRITES_CORKED_PENDING) {
+            simulateIOEvent(IOEvent.WRITE);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt>, if the connection output is corked
+     * @see #corkWrites(int)
+     * @since 2.4.3
+     */
+    public boolean isWritesCorked() {
+        return writeCorkState != WRITES_UNCORKED;
+    }
+
+    /**
+     * Called by the async write queue, which made a record current, but didn't
+     * write it. Returns <tt>true</tt>, if the record has to stay queued till
+     * the output is uncorked, or <tt>false</tt>, if the output has to be
+     * flushed as usual.
+     */
+    boolean deferCorkedWrite(final int pendingBytes) {
+        return writeCorkState == WRITES_CORKED
+                && !isCorkedQueueFull(pendingBytes)
+                && writeCorkStateUpdater.compareAndSet(this,
+                        WRITES_CORKED, WRITES_CORKED_PENDING);
+    }
+
+    /**
+     * Called by the async write queue, which queued a record behind the current
+     * one. Flushes the queue, if it was deferred and <tt>pendingBytes</tt>
+     * exceed the cork limit.
+     */
+    void checkCorkedWrites(final int pendingBytes) throws IOException {
+        if (writeCorkState == WRITES_CORKED_PENDING
+                && isCorkedQueueFull(pendingBytes)
+                && writeCorkStateUpdater.compareAndSet(this,
+                        WRITES_CORKED_PENDING, WRITES_CORKED)) {
+            simulateIOEvent(IOEvent.WRITE);
+        }
+    }
+
+    private boolean isCorkedQueueFull(final int pendingBytes) {
+        final int maxQueueSize = maxAsyncWriteQueueSize;
+        return pendingBytes > maxCorkedBytes
+                || (maxQueueSize > 0 && pendingBytes >= maxQueueSize);
+    }
+
+    /**
+     * Pauses the connection reads: OP_READ is disabled and isn't enabled
+     * again, including by the {@link org.glassfish.grizzly.IOStrategy},
+     * until every <tt>pauseReads()</tt> call is matched by a
+     * {@link #resumeReads()} call.
+     * The pause is tracked separately from {@link #disableIOEvent(IOEvent)}:
+     * if OP_READ has been disabled, for example by the IOStrategy while it
+     * processes a read event, resuming the reads doesn't enable it, the
+     * matching {@link #enableIOEvent(IOEvent)} does.
+     * 
+     * @throws IOException
+     * @since 2.4.3
+     */
+    public void pauseReads() throws IOException {
+        if (readPauseCountUpdater.getAndIncrement(this) == 0) {
+            if (!isReadDisabled) {
+                notifyIOEventDisabled(this, IOEvent.READ);
+            }
+            
+            updateReadInterest();
+        }
+    }
+
+    /**
+     * Resumes the connection reads paused by {@link #pauseReads()}.
+     * 
+     * @throws IOException
+     * @since 2.4.3
+     */
+    public void resumeReads() throws IOException {
+        for (;;) {
+            final int count = readPauseCount;
+            if (count == 0) {
+                return;
+            }
+            
+            if (readPauseCountUpdater.compareAndSet(this, count, count - 1)) {
+                if (count == 1) {
+                    if (!isReadDisabled && isOpen()) {
+                        notifyIOEventEnabled(this, IOEvent.READ);
+                    }
+                    
+                    updateReadInterest();
+                }
+                
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return <tt>true</tt>, if the connection reads are paused
+     * @see #pauseReads()
+     * @since 2.4.3
+     */
+    public boolean isReadsPaused() {
+        return readPauseCount > 0;
+    }
+
+    /**
+     * Enables the async write queue flow control: once the queue grows to
+     * <tt>highWatermark</tt> bytes, the reads of the <tt>readsToPause</tt>
+     * connection are paused, and once the queue drains to
+     * <tt>lowWatermark</tt> bytes the reads are resumed.
+     * The connection, whose reads are paused, may be this connection
+     * (the peer can't be written as fast as it sends), or a linked one,
+     * for example the inbound connection of a proxy, which writes to this
+     * connection.
+     * <p>
+     * The paused reads are resumed, once this connection is closed.
+     * 
+     * @param highWatermark the queue size (in bytes), which pauses the reads
+     * @param lowWatermark the queue size (in bytes), which resumes the reads
+     * @param readsToPause the connection, whose reads are paused, or
+     *        <tt>null</tt> for this connection
+     * @throws IOException
+     * @since 2.4.3
+     */
+    public void setWriteQueueWatermarks(final int highWatermark,
+            final int lowWatermark, final Connection<?> readsToPause)
+            throws IOException {
+        if (highWatermark <= 0 || lowWatermark < 0
+                || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Invalid watermarks: high="
+                    + highWatermark + " low=" + lowWatermark);
+        }
+        
+        if (readsToPause != null && !(readsToPause instanceof NIOConnection)) {
+            throw new IllegalArgumentException(
+                    "Unsupported connection type: " + readsToPause);
+        }
+        
+        clearWriteQueueWatermarks();
+        
+        flowControlTarget = readsToPause != null
+                ? (NIOConnection) readsToPause
+                : this;
+        writeQueueLowWatermark = lowWatermark;
+        writeQueueHighWatermark = highWatermark;
+        
+        checkWriteQueueWatermarks();
+    }
+
+    /**
+     * Disables the async write queue flow control, resuming the reads it
+     * has paused.
+     * 
+     * @throws IOException
+     * @see #setWriteQueueWatermarks(int, int, org.glassfish.grizzly.Connection)
+     * @since 2.4.3
+     */
+    public void clearWriteQueueWatermarks() throws IOException {
+        final NIOConnection target = flowControlTarget;
+        writeQueueHighWatermark = -1;
+        flowControlTarget = null;
+        
+        if (target != null
+                && isWriteQueueOverHighWatermark.compareAndSet(true, false)) {
+            target.resumeReads();
+        }
+    }
+
+    /**
+     * @return the async write queue size (in bytes), which pauses the reads,
+     *         or <tt>-1</tt> if the flow control is disabled
+     * @see #setWriteQueueWatermarks(int, int, org.glassfish.grizzly.Connection)
+     * @since 2.4.3
+     */
+    public int getWriteQueueHighWatermark() {
+        return writeQueueHighWatermark;
+    }
+
+    /**
+     * @return the async write queue size (in bytes), which resumes the reads
+     * @see #setWriteQueueWatermarks(int, int, org.glassfish.grizzly.Connection)
+     * @since 2.4.3
+     */
+    public int getWriteQueueLowWatermark() {
+        return writeQueueLowWatermark;
+    }
+
+    /**
+     * Called by the async write queue, once its size has changed. Pauses or
+     * resumes the flow control target reads, if the queue size has crossed
+     * a watermark.
+     */
+    void checkWriteQueueWatermarks() throws IOException {
+        final int highWatermark = writeQueueHighWatermark;
+        if (highWatermark < 0) {
+            return;
+        }
+        
+        final int lowWatermark = writeQueueLowWatermark;
+        final NIOConnection target = flowControlTarget;
+        if (target == null) {
+            return;
+        }
+        
+        for (;;) {
+            // the queue is checked again after each pause/resume, because
+            // it might have been drained/filled concurrently
+            final int queueSize = asyncWriteQueue.spaceInBytes();
+            
+            if (queueSize >= highWatermark) {
+                if (!isWriteQueueOverHighWatermark.compareAndSet(false, true)) {
+                    return;
+                }
+                
+                target.pauseReads();
+                
+                if (flowControlTarget != target) {
+                    // the flow control has been reconfigured concurrently
+                    if (isWriteQueueOverHighWatermark.compareAndSet(true, false)) {
+                        target.resumeReads();
+                    }
+                    return;
+                }
+            } else if (queueSize <= lowWatermark) {
+                if (!isWriteQueueOverHighWatermark.compareAndSet(true, false)) {
+                    return;
+                }
+                
+                target.resumeReads();
+            } else {
+                return;
+            }
+        }
+    }
+
     @Override
     public AttributeHolder getAttributes() {
         return attributes;
@@ -619,6 +912,7 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
                                 reason.getCause()));
             }
             
+            releaseFlowControlTarget();
             preClose();
             notifyCloseListeners(reason);
             notifyProbesClose(this);
@@ -782,6 +1076,20 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
         }
     }
 
+    /**
+     * Notify registered {@link ConnectionProbe}s about the receive buffer size event.
+     */
+    protected static void notifyProbesReceiveBufferSize(NIOConnection connection,
+        int size) {
+        final ConnectionProbe[] probes =
+            connection.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (ConnectionProbe probe : probes) {
+                probe.onReceiveBufferSizeEvent(connection, size);
+            }
+        }
+    }
+
     /**
      * Notify registered {@link ConnectionProbe}s about the write event.
      */
@@ -895,6 +1203,16 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
         }
     }
 
+    private void releaseFlowControlTarget() {
+        if (flowControlTarget != null) {
+            try {
+                clearWriteQueueWatermarks();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Error resuming the paused reads", e);
+            }
+        }
+    }
+
     protected void preClose() {
         // Check if connection init event (like CONNECT or ACCEPT) has been sent
         if (connectCloseSemaphoreUpdater.getAndSet(this, NOTIFICATION_CLOSED_COMPLETE) ==
@@ -947,16 +1265,43 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
             return;
         }
         
+        if (isOpRead) {
+            isReadDisabled = false;
+            
+            if (readPauseCount > 0) {
+                // resumeReads() will register OP_READ
+                return;
+            }
+        }
+        
         notifyIOEventEnabled(this, ioEvent);
         
         // if OP_READ was enabled at least once - isInitialReadRequired should be false
         isInitialReadRequired = isInitialReadRequired && !isOpRead;
         
+        if (isOpRead) {
+            updateReadInterest();
+            return;
+        }
+        
         final SelectorHandler selectorHandler = transport.getSelectorHandler();
         selectorHandler.registerKeyInterest(selectorRunner, selectionKey,
             interest);
     }
 
+    /**
+     * Updates OP_READ interest according to the read pause count and the
+     * {@link #disableIOEvent(IOEvent)} state on the selector thread. The state
+     * and the interest can't be changed atomically together, but every update
+     * runs on the selector thread after the state change it follows, so the
+     * last update sees the last state, no matter which threads pause and
+     * resume the reads.
+     */
+    private void updateReadInterest() {
+        transport.getSelectorHandler().execute(selectorRunner,
+                readInterestUpdater, null);
+    }
+
     private final SelectorHandler.Task writeSimulatorRunnable =
             new SelectorHandler.Task() {
 
@@ -967,6 +1312,25 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
                 }
             };
     
+    private final SelectorHandler.Task readInterestUpdater =
+            new SelectorHandler.Task() {
+
+                @Override
+                public boolean run() throws IOException {
+                    final SelectorHandler selectorHandler =
+                            transport.getSelectorHandler();
+                    if (readPauseCount > 0 || isReadDisabled) {
+                        selectorHandler.deregisterKeyInterest(selectorRunner,
+                                selectionKey, SelectionKey.OP_READ);
+                    } else if (!isCloseScheduled.get() && closeReason == null) {
+                        selectorHandler.registerKeyInterest(selectorRunner,
+                                selectionKey, SelectionKey.OP_READ);
+                    }
+                    
+                    return true;
+                }
+            };
+    
     private final SelectorHandler.Task readSimulatorRunnable =
             new SelectorHandler.Task() {
 
@@ -984,6 +1348,10 @@ public abstract class NIOConnection implements Connection<SocketAddress> {
             return;
         }
 
+        if (ioEvent == IOEvent.READ) {
+            isReadDisabled = true;
+        }
+        
         notifyIOEventDisabled(this, ioEvent);
 
         final SelectorHandler selectorHandler = transport.getSelectorHandler();
@@ -68,9 +68,11 @@ import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorIO;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorPool;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorsEnabledTransport;
+import org.glassfish.grizzly.strategies.AffinityWorkerThreadIOStrategy;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
 import org.glassfish.grizzly.threadpool.AbstractThreadPool;
+import org.glassfish.grizzly.threadpool.AffinityThreadPool;
 import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.grizzly.utils.Futures;
@@ -284,7 +286,7 @@ public abstract class NIOTransport extends AbstractTransport
         selectorRunners = new SelectorRunner[selectorRunnersCount];
         
         for (int i = 0; i < selectorRunnersCount; i++) {
-            final SelectorRunner runner = SelectorRunner.create(this);
+            final SelectorRunner runner = SelectorRunner.create(this, i);
             runner.start();
             selectorRunners[i] = runner;
         }
@@ -475,8 +477,14 @@ public abstract class NIOTransport extends AbstractTransport
                                 getThreadPoolMonitoringConfig().getProbes());
                     }
                     workerPoolConfig.setMemoryManager(memoryManager);
-                    setWorkerThreadPool0(GrizzlyExecutorService.createInstance(
-                            workerPoolConfig));
+                    if (strategy instanceof AffinityWorkerThreadIOStrategy) {
+                        // a worker group per SelectorRunner
+                        setWorkerThreadPool0(new AffinityThreadPool(
+                                workerPoolConfig.copy(), selectorRunnersCnt));
+                    } else {
+                        setWorkerThreadPool0(GrizzlyExecutorService.createInstance(
+                                workerPoolConfig));
+                    }
                 }
             }
 
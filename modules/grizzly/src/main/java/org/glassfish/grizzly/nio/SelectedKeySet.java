@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Array-backed selected key set, which is installed into the JDK
+ * {@link Selector} implementation instead of its own <tt>HashSet</tt>,
+ * so the {@link SelectorRunner} can walk the selected keys by index
+ * and clear them without iterator garbage or hashing.
+ * <p>
+ * The set relies on the fact, that selected keys are always cleared
+ * before the next select, so {@link #contains(Object)} and
+ * {@link #remove(Object)} always return <tt>false</tt>, even for a key,
+ * which is in the set. So the set is not a general purpose {@link java.util.Set}
+ * and must not be used to check whether a key has been selected.
+ */
+final class SelectedKeySet extends AbstractSet<SelectionKey> {
+    private static final Logger LOGGER = Grizzly.logger(SelectedKeySet.class);
+    
+    private static final Field SELECTED_KEYS_FIELD;
+    private static final Field PUBLIC_SELECTED_KEYS_FIELD;
+    
+    static {
+        Field selectedKeysField = null;
+        Field publicSelectedKeysField = null;
+        
+        try {
+            final Class<?> selectorImplClass = Class.forName(
+                    "sun.nio.ch.SelectorImpl", false,
+                    SelectedKeySet.class.getClassLoader());
+            
+            selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE,
+                    "Array-backed selected key set is not supported", t);
+            
+            selectedKeysField = null;
+            publicSelectedKeysField = null;
+        }
+        
+        SELECTED_KEYS_FIELD = selectedKeysField;
+        PUBLIC_SELECTED_KEYS_FIELD = publicSelectedKeysField;
+        isSupported = selectedKeysField != null;
+    }
+    
+    private static volatile boolean isSupported;
+    
+    private SelectionKey[] keys = new SelectionKey[1024];
+    private int size;
+    
+    /**
+     * Installs a new <tt>SelectedKeySet</tt> into the {@link Selector}.
+     * 
+     * @param selector {@link Selector}
+     * @return the installed <tt>SelectedKeySet</tt>, or <tt>null</tt>,
+     *          if the {@link Selector} implementation doesn't allow that
+     */
+    static SelectedKeySet install(final Selector selector) {
+        if (!isSupported ||
+                !SELECTED_KEYS_FIELD.getDeclaringClass().isInstance(selector)) {
+            return null;
+        }
+        
+        final SelectedKeySet keySet = new SelectedKeySet();
+        try {
+            SELECTED_KEYS_FIELD.set(selector, keySet);
+            PUBLIC_SELECTED_KEYS_FIELD.set(selector, keySet);
+            
+            return keySet;
+        } catch (Throwable t) {
+            // don't try again
+            isSupported = false;
+            LOGGER.log(Level.FINE,
+                    "Can't install array-backed selected key set", t);
+            return null;
+        }
+    }
+    
+    @Override
+    public boolean add(final SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+        
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        
+        keys[size++] = key;
+        return true;
+    }
+
+    /**
+     * @param index the key index
+     * @return the selected key at the given index
+     */
+    SelectionKey get(final int index) {
+        return keys[index];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        // the Selector removes deregistered keys at the beginning of select,
+        // when the set is empty already
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        // release the references, so cancelled keys could be collected
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public SelectionKey next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                
+                return keys[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
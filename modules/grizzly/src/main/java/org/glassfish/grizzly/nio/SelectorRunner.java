@@ -80,6 +80,7 @@ public final class SelectorRunner implements Runnable {
     private final static String THREAD_MARKER = " SelectorRunner";
     
     private final NIOTransport transport;
+    private final int index;
     private final AtomicReference<State> stateHolder;
     
     private final Queue<SelectorHandlerTask> pendingTasks;
@@ -98,6 +99,8 @@ public final class SelectorRunner implements Runnable {
     private int lastSelectedKeysCount;
     private Set<SelectionKey> readyKeySet;
     private Iterator<SelectionKey> iterator;
+    private SelectedKeySet readyKeyArray;
+    private int readyKeyIndex;
     private SelectionKey key = null;
     private int keyReadyOps;
 
@@ -106,15 +109,29 @@ public final class SelectorRunner implements Runnable {
 
     public static SelectorRunner create(final NIOTransport transport)
             throws IOException {
+        return create(transport, 0);
+    }
+
+    /**
+     * @param transport the {@link NIOTransport}
+     * @param index the index of the runner among the transport's
+     *      {@link SelectorRunner}s
+     * @return the new {@link SelectorRunner}
+     * @throws IOException if the {@link Selector} can't be opened
+     * @since 2.4.3
+     */
+    public static SelectorRunner create(final NIOTransport transport,
+            final int index) throws IOException {
         return new SelectorRunner(transport,
-                Selectors.newSelector(transport.getSelectorProvider()));
+                Selectors.newSelector(transport.getSelectorProvider()), index);
     }
     
     volatile boolean hasPendingTasks;
     
     private SelectorRunner(final NIOTransport transport,
-            final Selector selector) {
+            final Selector selector, final int index) {
         this.transport = transport;
+        this.index = index;
         this.selector = selector;
         stateHolder = new AtomicReference<State>(State.STOPPED);
 
@@ -171,6 +188,15 @@ public final class SelectorRunner implements Runnable {
         dumbVolatile++;
     }
 
+    /**
+     * @return the index of this runner among the transport's
+     *      {@link SelectorRunner}s
+     * @since 2.4.3
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public Thread getRunnerThread() {
         if (dumbVolatile != 0) {
             return selectorRunnerThread;
@@ -344,12 +370,19 @@ public final class SelectorRunner implements Runnable {
             lastSelectedKeysCount = readyKeySet.size();
             
             if (lastSelectedKeysCount != 0) {
-                iterator = readyKeySet.iterator();
+                if (readyKeySet instanceof SelectedKeySet) {
+                    readyKeyArray = (SelectedKeySet) readyKeySet;
+                    readyKeyIndex = 0;
+                } else {
+                    iterator = readyKeySet.iterator();
+                }
+                
                 if (!iterateKeys()) return false;
                 readyKeySet.clear();
             }
 
             readyKeySet = null;
+            readyKeyArray = null;
             iterator = null;
             selectorHandler.postSelect(this);
         } catch (ClosedSelectorException e) {
@@ -375,22 +408,40 @@ public final class SelectorRunner implements Runnable {
     }
 
     private boolean iterateKeys() {
+        final SelectedKeySet keyArray = readyKeyArray;
+        
+        if (keyArray != null) {
+            while (readyKeyIndex < keyArray.size()) {
+                if (!iterateKey(keyArray.get(readyKeyIndex++))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
         final Iterator<SelectionKey> it = iterator;
 
         while (it.hasNext()) {
-            try {
-                key = it.next();
-                keyReadyOps = key.readyOps();
-                if (!iterateKeyEvents()) {
-                    return false;
-                }
-            } catch (IOException e) {
-                keyReadyOps = 0;
-                dropConnectionDueToException(key, "Unexpected IOException. Channel " + key.channel() + " will be closed.", e, Level.WARNING, Level.FINE);
-            } catch (CancelledKeyException e) {
-                keyReadyOps = 0;
-                dropConnectionDueToException(key, "Unexpected CancelledKeyException. Channel " + key.channel() + " will be closed.", e, Level.FINE, Level.FINE);
+            if (!iterateKey(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean iterateKey(final SelectionKey selectionKey) {
+        try {
+            key = selectionKey;
+            keyReadyOps = key.readyOps();
+            if (!iterateKeyEvents()) {
+                return false;
             }
+        } catch (IOException e) {
+            keyReadyOps = 0;
+            dropConnectionDueToException(key, "Unexpected IOException. Channel " + key.channel() + " will be closed.", e, Level.WARNING, Level.FINE);
+        } catch (CancelledKeyException e) {
+            keyReadyOps = 0;
+            dropConnectionDueToException(key, "Unexpected CancelledKeyException. Channel " + key.channel() + " will be closed.", e, Level.FINE, Level.FINE);
         }
         return true;
     }
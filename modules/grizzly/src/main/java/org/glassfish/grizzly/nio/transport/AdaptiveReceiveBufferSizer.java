@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the size of the {@link org.glassfish.grizzly.Buffer}, which
+ * {@link TCPNIOTransport} allocates for the next read on a
+ * {@link TCPNIOConnection}, basing on the sizes of the recent reads on
+ * the connection.
+ * 
+ * The size grows quickly, if the reads fill the allocated buffer
+ * completely, and shrinks slowly, if two reads in a row are noticeably
+ * smaller than the buffer, always staying within the
+ * [minimum; maximum] bounds. So the mostly idle connections, which receive
+ * small requests, don't hold big buffers, while bulk transfers still read
+ * big chunks.
+ * 
+ * If the sizer is not set on the {@link TCPNIOTransport}, the connection's
+ * read buffer size is used for every read.
+ * 
+ * The sizer keeps no per-connection state itself, so the same instance can be
+ * shared by transports.
+ *
+ * @since 2.4.3
+ */
+public final class AdaptiveReceiveBufferSizer {
+    public static final int DEFAULT_MINIMUM = 64;
+    public static final int DEFAULT_INITIAL = 1024;
+    public static final int DEFAULT_MAXIMUM = 65536;
+    
+    private static final int INDEX_INCREMENT = 4;
+    private static final int INDEX_DECREMENT = 1;
+    
+    private static final int[] SIZE_TABLE;
+    
+    static {
+        final List<Integer> sizeTable = new ArrayList<Integer>();
+        // fine grained steps for the small sizes, then doubling
+        for (int i = 16; i < 512; i += 16) {
+            sizeTable.add(i);
+        }
+
+        for (int i = 512; i > 0; i <<= 1) {
+            sizeTable.add(i);
+        }
+
+        SIZE_TABLE = new int[sizeTable.size()];
+        for (int i = 0; i < SIZE_TABLE.length; i++) {
+            SIZE_TABLE[i] = sizeTable.get(i);
+        }
+    }
+    
+    private final int minimum;
+    private final int initial;
+    private final int maximum;
+    
+    private final int minIndex;
+    private final int initialIndex;
+    private final int maxIndex;
+    
+    /**
+     * Creates the sizer with the default bounds: {@value #DEFAULT_MINIMUM},
+     * {@value #DEFAULT_INITIAL} and {@value #DEFAULT_MAXIMUM} bytes.
+     */
+    public AdaptiveReceiveBufferSizer() {
+        this(DEFAULT_MINIMUM, DEFAULT_INITIAL, DEFAULT_MAXIMUM);
+    }
+
+    /**
+     * Creates the sizer with the given bounds.
+     * 
+     * @param minimum the minimum buffer size
+     * @param initial the buffer size for the first read on a connection
+     * @param maximum the maximum buffer size
+     */
+    public AdaptiveReceiveBufferSizer(final int minimum, final int initial,
+            final int maximum) {
+        if (minimum <= 0) {
+            throw new IllegalArgumentException("minimum: " + minimum);
+        }
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+        
+        this.minimum = minimum;
+        this.initial = initial;
+        this.maximum = maximum;
+
+        minIndex = sizeIndex(minimum);
+        initialIndex = sizeIndex(initial);
+        maxIndex = sizeIndex(maximum);
+    }
+
+    /**
+     * @return the minimum buffer size
+     */
+    public int getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * @return the buffer size for the first read on a connection
+     */
+    public int getInitial() {
+        return initial;
+    }
+
+    /**
+     * @return the maximum buffer size
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+    
+    /**
+     * @param connection the {@link TCPNIOConnection}
+     * @return the buffer size for the next read on the connection
+     */
+    int nextReadSize(final TCPNIOConnection connection) {
+        int index = connection.receiveSizeIndex;
+        if (index < 0) {
+            index = initialIndex;
+            connection.receiveSizeIndex = index;
+        }
+        
+        return size(index);
+    }
+    
+    /**
+     * Adjusts the connection's next read size according to the number of
+     * bytes the last read returned.
+     * 
+     * @param connection the {@link TCPNIOConnection}
+     * @param read the number of bytes read
+     */
+    void onRead(final TCPNIOConnection connection, final int read) {
+        final int index = connection.receiveSizeIndex;
+        if (index < 0) {
+            return;
+        }
+        
+        if (read <= SIZE_TABLE[Math.max(index - INDEX_DECREMENT, 0)]) {
+            if (connection.receiveSizeDecrease) {
+                connection.receiveSizeIndex =
+                        Math.max(index - INDEX_DECREMENT, minIndex);
+                connection.receiveSizeDecrease = false;
+            } else {
+                connection.receiveSizeDecrease = true;
+            }
+        } else if (read >= size(index)) {
+            connection.receiveSizeIndex =
+                    Math.min(index + INDEX_INCREMENT, maxIndex);
+            connection.receiveSizeDecrease = false;
+        } else {
+            connection.receiveSizeDecrease = false;
+        }
+    }
+
+    /**
+     * The table sizes are clamped by the bounds, which may not be the table
+     * values themselves.
+     */
+    private int size(final int index) {
+        return Math.max(minimum, Math.min(maximum, SIZE_TABLE[index]));
+    }
+    
+    /**
+     * @return the index of the smallest table size, which is bigger than or
+     *      equal to the given size
+     */
+    private static int sizeIndex(final int size) {
+        for (int i = 0; i < SIZE_TABLE.length; i++) {
+            if (SIZE_TABLE[i] >= size) {
+                return i;
+            }
+        }
+        
+        return SIZE_TABLE.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveReceiveBufferSizer{" + "minimum=" + minimum
+                + ", initial=" + initial + ", maximum=" + maximum + '}';
+    }
+}
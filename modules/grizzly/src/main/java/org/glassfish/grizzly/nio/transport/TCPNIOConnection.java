@@ -72,6 +72,10 @@ public class TCPNIOConnection extends NIOConnection {
     private int readBufferSize = -1;
     private int writeBufferSize = -1;
 
+    // AdaptiveReceiveBufferSizer state
+    int receiveSizeIndex = -1;
+    boolean receiveSizeDecrease;
+
     private AtomicReference<ConnectResultHandler> connectHandlerRef;
 
     public TCPNIOConnection(TCPNIOTransport transport,
@@ -302,6 +306,14 @@ public class TCPNIOConnection extends NIOConnection {
         checkEmptyRead(size);
     }
 
+    /**
+     * Method will be called, when {@link AdaptiveReceiveBufferSizer} picked
+     * the buffer size for the next read.
+     */
+    final void onReceiveBufferSize(final int size) {
+        notifyProbesReceiveBufferSize(this, size);
+    }
+
     @Override
     protected void enableInitialOpRead() throws IOException {
         super.enableInitialOpRead();
@@ -128,6 +128,17 @@ public final class TCPNIOTransport extends NIOTransport implements
      * The socket keepAlive mode.
      */
     boolean isKeepAlive = DEFAULT_KEEP_ALIVE;
+    /**
+     * The adaptive read buffer sizer, if <tt>null</tt> - the connection read
+     * buffer size is used for every read.
+     */
+    private volatile AdaptiveReceiveBufferSizer receiveBufferSizer;
+    /**
+     * The max number of bytes written during a READ event processing, which
+     * are queued and flushed together, once the event is processed,
+     * if <tt>0</tt> - every write is flushed right away.
+     */
+    private volatile int writeCorkSize;
 
     private final Filter defaultTransportFilter;
     final RegisterChannelCompletionHandler selectorRegistrationHandler;
@@ -464,6 +475,65 @@ public final class TCPNIOTransport extends NIOTransport implements
         notifyProbesConfigChanged(this);
     }
 
+    /**
+     * @return the {@link AdaptiveReceiveBufferSizer}, which picks
+     *      the buffer size for the next read on a connection, or
+     *      <tt>null</tt>, if the connection read buffer size is used for every
+     *      read
+     * @since 2.4.3
+     */
+    public AdaptiveReceiveBufferSizer getReceiveBufferSizer() {
+        return receiveBufferSizer;
+    }
+
+    /**
+     * Sets the {@link AdaptiveReceiveBufferSizer}, which picks the buffer size
+     * for the next read on a connection, basing on the recent reads.
+     * If <tt>null</tt> (default), the connection read buffer size is used for
+     * every read.
+     * 
+     * @param receiveBufferSizer the {@link AdaptiveReceiveBufferSizer}
+     * @since 2.4.3
+     */
+    public void setReceiveBufferSizer(
+            final AdaptiveReceiveBufferSizer receiveBufferSizer) {
+        this.receiveBufferSizer = receiveBufferSizer;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * @return the max number of bytes written during a READ event processing,
+     *      which are queued and flushed together, once the event is processed,
+     *      or <tt>0</tt>, if every write is flushed right away
+     * @since 2.4.3
+     */
+    public int getWriteCorkSize() {
+        return writeCorkSize;
+    }
+
+    /**
+     * Sets the max number of bytes written during a READ event processing,
+     * which are queued and flushed together, once the event is processed.
+     * This way several responses, written while processing one read, for
+     * example pipelined HTTP responses, reach the network by one gathering
+     * write instead of a write per response.
+     * The output is flushed earlier, if more than <tt>writeCorkSize</tt>
+     * bytes are queued, or the event processing gets suspended.
+     * If <tt>0</tt> (default), every write is flushed right away.
+     * 
+     * @param writeCorkSize the max number of bytes to be queued
+     * @see NIOConnection#corkWrites(int)
+     * @since 2.4.3
+     */
+    public void setWriteCorkSize(final int writeCorkSize) {
+        if (writeCorkSize < 0) {
+            throw new IllegalArgumentException("writeCorkSize can't be negative");
+        }
+
+        this.writeCorkSize = writeCorkSize;
+        notifyProbesConfigChanged(this);
+    }
+
     public boolean isTcpNoDelay() {
         return tcpNoDelay;
     }
@@ -56,6 +56,8 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
     protected int serverConnectionBackLog = TCPNIOTransport.DEFAULT_SERVER_CONNECTION_BACKLOG;
     protected int serverSocketSoTimeout = TCPNIOTransport.DEFAULT_SERVER_SOCKET_SO_TIMEOUT;
     protected boolean tcpNoDelay = TCPNIOTransport.DEFAULT_TCP_NO_DELAY;
+    protected AdaptiveReceiveBufferSizer receiveBufferSizer;
+    protected int writeCorkSize;
 
     // ------------------------------------------------------------ Constructors
 
@@ -157,6 +159,47 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         return getThis();
     }
 
+    /**
+     * @see TCPNIOTransport#getReceiveBufferSizer()
+     *
+     * @since 2.4.3
+     */
+    public AdaptiveReceiveBufferSizer getReceiveBufferSizer() {
+        return receiveBufferSizer;
+    }
+
+    /**
+     * @see TCPNIOTransport#setReceiveBufferSizer(AdaptiveReceiveBufferSizer)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * @since 2.4.3
+     */
+    public TCPNIOTransportBuilder setReceiveBufferSizer(
+            AdaptiveReceiveBufferSizer receiveBufferSizer) {
+        this.receiveBufferSizer = receiveBufferSizer;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#getWriteCorkSize()
+     *
+     * @since 2.4.3
+     */
+    public int getWriteCorkSize() {
+        return writeCorkSize;
+    }
+
+    /**
+     * @see TCPNIOTransport#setWriteCorkSize(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     * @since 2.4.3
+     */
+    public TCPNIOTransportBuilder setWriteCorkSize(final int writeCorkSize) {
+        this.writeCorkSize = writeCorkSize;
+        return getThis();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -168,6 +211,8 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         transport.setServerConnectionBackLog(serverConnectionBackLog);
         transport.setTcpNoDelay(tcpNoDelay);
         transport.setServerSocketSoTimeout(serverSocketSoTimeout);
+        transport.setReceiveBufferSizer(receiveBufferSizer);
+        transport.setWriteCorkSize(writeCorkSize);
         return transport;
     }
 
@@ -56,6 +56,63 @@ import org.glassfish.grizzly.memory.Buffers;
  * @author Alexey Stashok
  */
 public final class TCPNIOTransportFilter extends BaseFilter {
+    /**
+     * Uncorks the connection output, once the READ event processing is
+     * completed or suspended.
+     */
+    private static final IOEventLifeCycleListener UNCORK_LISTENER =
+            new IOEventLifeCycleListener.Adapter() {
+
+        @Override
+        public void onContextSuspend(final Context context) throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onContextManualIOEventControl(final Context context)
+                throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onComplete(final Context context, final Object data)
+                throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onLeave(final Context context) throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onTerminate(final Context context) throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onReregister(final Context context) throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onError(final Context context, final Object description)
+                throws IOException {
+            uncork(context);
+        }
+
+        @Override
+        public void onNotRun(final Context context) throws IOException {
+            uncork(context);
+        }
+
+        // The listener is not removed here: the listeners are being iterated.
+        // It is dropped with the Context, uncorking again is a no-op.
+        private void uncork(final Context context) throws IOException {
+            ((TCPNIOConnection) context.getConnection()).uncorkWrites();
+        }
+    };
+
     private final TCPNIOTransport transport;
 
     TCPNIOTransportFilter(final TCPNIOTransport transport) {
@@ -102,9 +159,29 @@ public final class TCPNIOTransportFilter extends BaseFilter {
             ctx.setAddressHolder(connection.peerSocketAddressHolder);
         }
 
+        if (!isBlocking) {
+            corkWrites(ctx, connection);
+        }
+
         return ctx.getInvokeAction();
     }
 
+    /**
+     * Corks the connection output till the READ event is processed, if
+     * the transport is configured to do that.
+     */
+    private void corkWrites(final FilterChainContext ctx,
+            final TCPNIOConnection connection) {
+        final int writeCorkSize = transport.getWriteCorkSize();
+        if (writeCorkSize > 0) {
+            final Context context = ctx.getInternalContext();
+            if (!context.hasLifeCycleListener(UNCORK_LISTENER)) {
+                connection.corkWrites(writeCorkSize);
+                context.addLifeCycleListener(UNCORK_LISTENER);
+            }
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public NextAction handleWrite(final FilterChainContext ctx)
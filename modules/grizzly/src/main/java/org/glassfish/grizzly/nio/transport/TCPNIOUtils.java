@@ -223,10 +223,22 @@ public class TCPNIOUtils {
         Throwable error = null;
         Buffer buffer = null;
         
+        final AdaptiveReceiveBufferSizer receiveBufferSizer =
+                ((TCPNIOTransport) connection.getTransport())
+                        .getReceiveBufferSizer();
+        
         try {
-            final int receiveBufferSize =
-                    Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
-                            connection.getReadBufferSize());
+            final int receiveBufferSize;
+            if (receiveBufferSizer == null) {
+                receiveBufferSize = Math.min(
+                        TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+                        connection.getReadBufferSize());
+            } else {
+                receiveBufferSize = Math.min(
+                        TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+                        receiveBufferSizer.nextReadSize(connection));
+                connection.onReceiveBufferSize(receiveBufferSize);
+            }
         
             if (!memoryManager.willAllocateDirect(receiveBufferSize)) {
                 final DirectByteBufferRecord ioRecord = 
@@ -256,6 +268,10 @@ public class TCPNIOUtils {
         if (read > 0) {
             buffer.position(read);
             buffer.allowBufferDispose(true);
+            
+            if (receiveBufferSizer != null) {
+                receiveBufferSizer.onRead(connection, read);
+            }
         } else {
             if (buffer != null) {
                 buffer.dispose();
@@ -58,6 +58,8 @@ import java.util.logging.Logger;
 import org.glassfish.grizzly.*;
 import org.glassfish.grizzly.asyncqueue.*;
 import org.glassfish.grizzly.filterchain.Filter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.FilterChainEnabledTransport;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.localization.LogMessages;
@@ -83,6 +85,12 @@ public final class UDPNIOTransport extends NIOTransport
 
     static final Logger LOGGER = Grizzly.logger(UDPNIOTransport.class);
     private static final String DEFAULT_TRANSPORT_NAME = "UDPNIOTransport";
+    /**
+     * Default max number of datagrams read per READ event.
+     *
+     * @since 2.4.3
+     */
+    public static final int DEFAULT_READ_BATCH_SIZE = 1;
     /**
      * The Server connections.
      */
@@ -105,6 +113,11 @@ public final class UDPNIOTransport extends NIOTransport
     private final UDPNIOBindingHandler bindingHandler =
             new UDPNIOBindingHandler(this);
 
+    /**
+     * Max number of datagrams read per READ event.
+     */
+    private volatile int readBatchSize = DEFAULT_READ_BATCH_SIZE;
+
 
     public UDPNIOTransport() {
         this(DEFAULT_TRANSPORT_NAME);
@@ -465,6 +478,38 @@ public final class UDPNIOTransport extends NIOTransport
         }
     }
 
+    /**
+     * @return the max number of datagrams, which are read and passed
+     *      through the {@link FilterChain} per READ event, before the
+     *      connection goes back to the {@link java.nio.channels.Selector}
+     * @since 2.4.3
+     */
+    public int getReadBatchSize() {
+        return readBatchSize;
+    }
+
+    /**
+     * Sets the max number of datagrams, which are read and passed through
+     * the {@link FilterChain} per READ event, before the connection goes back
+     * to the {@link java.nio.channels.Selector}.
+     * The datagrams are read one by one, as long as the channel has them
+     * available, and each of them is processed by the {@link FilterChain}
+     * using its own {@link FilterChainContext} in the arrival order.
+     * The default value is {@value #DEFAULT_READ_BATCH_SIZE}, which means
+     * one datagram per READ event.
+     *
+     * @param readBatchSize the max number of datagrams read per READ event
+     * @since 2.4.3
+     */
+    public void setReadBatchSize(final int readBatchSize) {
+        if (readBatchSize < 1) {
+            throw new IllegalArgumentException("readBatchSize can't be less than 1");
+        }
+
+        this.readBatchSize = readBatchSize;
+        notifyProbesConfigChanged(this);
+    }
+
     private int readConnected(final UDPNIOConnection connection, Buffer buffer,
             final ReadResult<Buffer, SocketAddress> currentResult) throws IOException {
         final int read;
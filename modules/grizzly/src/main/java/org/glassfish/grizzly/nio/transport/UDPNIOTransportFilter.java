@@ -48,9 +48,11 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.ProcessorExecutor;
 import org.glassfish.grizzly.ReadResult;
 import org.glassfish.grizzly.asyncqueue.WritableMessage;
 import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.FilterChainEvent;
 import org.glassfish.grizzly.filterchain.NextAction;
@@ -105,12 +107,41 @@ public final class UDPNIOTransportFilter extends BaseFilter {
         }
 
         if (readResult.getReadSize() > 0) {
-            final Buffer buffer = readResult.getMessage();
+            Buffer buffer = readResult.getMessage();
             buffer.trim();
-            final Holder<SocketAddress> addressHolder =
+            Holder<SocketAddress> addressHolder =
                     readResult.getSrcAddressHolder();
             readResult.recycle();
 
+            if (!isBlocking && inBuffer == null) {
+                // Batched read: drain more datagrams w/o going back to the
+                // Selector, each previous datagram is passed through the rest
+                // of the chain as soon as the next one is available, the last
+                // one is passed using this FilterChainContext.
+                final int readBatchSize = transport.getReadBatchSize();
+                for (int i = 1; i < readBatchSize && connection.isOpen(); i++) {
+                    final ReadResult<Buffer, SocketAddress> nextReadResult =
+                            ReadResult.create(connection);
+                    transport.read(connection, null, nextReadResult);
+
+                    if (nextReadResult.getReadSize() <= 0) {
+                        nextReadResult.recycle();
+                        break;
+                    }
+
+                    final Buffer nextBuffer = nextReadResult.getMessage();
+                    nextBuffer.trim();
+                    final Holder<SocketAddress> nextAddressHolder =
+                            nextReadResult.getSrcAddressHolder();
+                    nextReadResult.recycle();
+
+                    passDatagram(ctx, buffer, addressHolder);
+
+                    buffer = nextBuffer;
+                    addressHolder = nextAddressHolder;
+                }
+            }
+
             ctx.setMessage(buffer);
             ctx.setAddressHolder(addressHolder);
 
@@ -125,6 +156,23 @@ public final class UDPNIOTransportFilter extends BaseFilter {
         return ctx.getInvokeAction();
     }
 
+    /**
+     * Passes the datagram through the rest of the {@link FilterChain} using
+     * a copy of the READ {@link FilterChainContext}.
+     * The copy doesn't have the {@link org.glassfish.grizzly.IOEventLifeCycleListener}s,
+     * so the READ interest is still managed by the original context only.
+     */
+    private static void passDatagram(final FilterChainContext ctx,
+            final Buffer buffer, final Holder<SocketAddress> addressHolder) {
+        final FilterChainContext datagramContext = ctx.copy();
+        datagramContext.getInternalContext().removeAllLifeCycleListeners();
+        datagramContext.setMessage(buffer);
+        datagramContext.setAddressHolder(addressHolder);
+        datagramContext.setFilterIdx(ctx.getFilterIdx() + 1);
+
+        ProcessorExecutor.execute(datagramContext.getInternalContext());
+    }
+
     @Override
     public NextAction handleWrite(final FilterChainContext ctx)
             throws IOException {
@@ -59,9 +59,11 @@ import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSession;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.Context;
 import org.glassfish.grizzly.FileTransfer;
 import org.glassfish.grizzly.Grizzly;
@@ -84,6 +86,10 @@ import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringAware;
+import org.glassfish.grizzly.monitoring.MonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringUtils;
 import org.glassfish.grizzly.ssl.SSLConnectionContext.Allocator;
 import org.glassfish.grizzly.ssl.SSLConnectionContext.SslResult;
 import org.glassfish.grizzly.utils.Futures;
@@ -95,7 +101,8 @@ import static org.glassfish.grizzly.ssl.SSLUtils.*;
  *
  * @author Alexey Stashok
  */
-public class SSLBaseFilter extends BaseFilter {
+public class SSLBaseFilter extends BaseFilter
+        implements MonitoringAware<SSLProbe> {
     private static final Logger LOGGER = Grizzly.logger(SSLBaseFilter.class);
     protected static final MessageCloner<Buffer> COPY_CLONER = new OnWriteCopyCloner();
 
@@ -112,13 +119,35 @@ public class SSLBaseFilter extends BaseFilter {
         }
     };
     
+    /**
+     * Allocates the wrapped (network) data buffers from the {@link Connection}'s
+     * {@link MemoryManager}, so with a direct memory manager they are written
+     * to the channel without an extra copy and returned to the pool once written.
+     * {@link SSLEngine} can't wrap into a composite buffer, so if the memory
+     * manager can't serve the size with a single buffer - the thread-local
+     * cached output buffer is used instead.
+     */
     private static final Allocator OUTPUT_BUFFER_ALLOCATOR =
             new Allocator() {
         @Override
         public Buffer grow(final SSLConnectionContext sslCtx,
             final Buffer oldBuffer, final int newSize) {
             
-            return allocateOutputBuffer(newSize);
+            final MemoryManager mm = sslCtx.getConnection().getMemoryManager();
+            
+            Buffer newBuffer = mm.allocateAtLeast(newSize);
+            if (newBuffer.isComposite()) {
+                newBuffer.dispose();
+                newBuffer = allocateOutputBuffer(newSize);
+            }
+            
+            if (oldBuffer != null) {
+                oldBuffer.flip();
+                newBuffer.put(oldBuffer);
+                oldBuffer.dispose();
+            }
+            
+            return newBuffer;
         }
     };
     
@@ -130,6 +159,21 @@ public class SSLBaseFilter extends BaseFilter {
             Collections.newSetFromMap(new ConcurrentHashMap<>(2));
     
     private long handshakeTimeoutMillis = -1;
+    
+    private volatile SSLHandshakeExecutor handshakeExecutor;
+    
+    /**
+     * TLS handshake probes
+     */
+    protected final DefaultMonitoringConfig<SSLProbe> monitoringConfig =
+            new DefaultMonitoringConfig<SSLProbe>(SSLProbe.class) {
+
+        @Override
+        public Object createManagementObject() {
+            return createJmxManagementObject();
+        }
+
+    };
         
     private SSLTransportFilterWrapper optimizedTransportFilter;
     
@@ -233,6 +277,39 @@ public class SSLBaseFilter extends BaseFilter {
         }
     }
 
+    /**
+     * @return the {@link SSLHandshakeExecutor}, which runs the {@link SSLEngine}
+     * delegated tasks, or <tt>null</tt> if the tasks are run by the thread,
+     * which drives the handshake (default). If the filter hasn't been given
+     * its own executor, the executor of the server {@link SSLEngineConfigurator}
+     * is returned.
+     * @since 2.4.3
+     */
+    public SSLHandshakeExecutor getHandshakeExecutor() {
+        final SSLHandshakeExecutor executor = handshakeExecutor;
+        return executor != null
+                ? executor
+                : serverSSLEngineConfigurator.getHandshakeExecutor();
+    }
+
+    /**
+     * Sets the {@link SSLHandshakeExecutor}, which runs the {@link SSLEngine}
+     * delegated tasks of the non-blocking handshakes.
+     * The {@link FilterChainContext} is suspended, while the tasks are run,
+     * and resumed by the executor thread, once they are complete, so the
+     * selector and worker threads don't execute the expensive handshake
+     * computations.
+     * 
+     * @param handshakeExecutor the {@link SSLHandshakeExecutor}, or
+     *        <tt>null</tt> to use the executor of the server
+     *        {@link SSLEngineConfigurator}
+     * @since 2.4.3
+     */
+    public void setHandshakeExecutor(
+            final SSLHandshakeExecutor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
     /**
      * Completely disables renegotiation.
      *
@@ -242,6 +319,22 @@ public class SSLBaseFilter extends BaseFilter {
         this.renegotiationDisabled = renegotiationDisabled;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @since 2.4.3
+     */
+    @Override
+    public MonitoringConfig<SSLProbe> getMonitoringConfig() {
+        return monitoringConfig;
+    }
+
+    protected Object createJmxManagementObject() {
+        return MonitoringUtils.loadJmxObject(
+                "org.glassfish.grizzly.ssl.jmx.SSLBaseFilter", this,
+                SSLBaseFilter.class);
+    }
+
     protected SSLTransportFilterWrapper getOptimizedTransportFilter(
             final TransportFilter childFilter) {
         if (optimizedTransportFilter == null ||
@@ -324,16 +417,33 @@ public class SSLBaseFilter extends BaseFilter {
             }
 
             final Buffer buffer;
-            buffer = ((handshakeTimeoutMillis >= 0)
-                         ? doHandshakeSync(sslCtx,
-                                           ctx,
-                                           (Buffer) ctx.getMessage(),
-                                           handshakeTimeoutMillis)
-                         : makeInputRemainder(sslCtx,
-                                              ctx,
-                                              doHandshakeStep(sslCtx,
-                                                              ctx,
-                                                              (Buffer) ctx.getMessage())));
+            if (handshakeTimeoutMillis >= 0) {
+                buffer = doHandshakeSync(sslCtx,
+                                         ctx,
+                                         (Buffer) ctx.getMessage(),
+                                         handshakeTimeoutMillis);
+            } else {
+                final SSLHandshakeExecutor executor = getHandshakeExecutor();
+                final boolean offloadTasks = executor != null
+                        && ctx.getInternalContext().getIoEvent() == IOEvent.READ
+                        && !ctx.getTransportContext().isBlocking();
+                
+                sslCtx.setOffloadDelegatedTasks(offloadTasks);
+                try {
+                    buffer = makeInputRemainder(sslCtx,
+                                                ctx,
+                                                doHandshakeStep(sslCtx,
+                                                                ctx,
+                                                                (Buffer) ctx.getMessage()));
+                } finally {
+                    sslCtx.setOffloadDelegatedTasks(false);
+                }
+                
+                if (offloadTasks &&
+                        sslEngine.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+                    return offloadDelegatedTasks(sslCtx, ctx, executor, buffer);
+                }
+            }
         
             final boolean hasRemaining = buffer != null && buffer.hasRemaining();
             
@@ -705,6 +815,12 @@ public class SSLBaseFilter extends BaseFilter {
                         if (isLoggingFinest) {
                             LOGGER.log(Level.FINEST, "NEED_TASK Engine: {0}", sslEngine);
                         }
+                        
+                        if (sslCtx.isOffloadDelegatedTasks()) {
+                            // the tasks will be run by the SSLHandshakeExecutor
+                            break _exitWhile;
+                        }
+                        
                         executeDelegatedTask(sslEngine);
                         handshakeStatus = sslEngine.getHandshakeStatus();
                         break;
@@ -926,6 +1042,67 @@ public class SSLBaseFilter extends BaseFilter {
         }
     }
 
+    /**
+     * Suspends the {@link FilterChainContext} and runs the {@link SSLEngine}
+     * delegated tasks on the {@link SSLHandshakeExecutor}. Once the tasks are
+     * complete the context is resumed and the handshake continues from this
+     * filter with the not yet processed handshake data.
+     * 
+     * The {@link IOEvent#READ} is disabled meanwhile, so no other read
+     * may drive the handshake concurrently. The {@link org.glassfish.grizzly.IOStrategy}
+     * re-enables it, once the resumed context is complete.
+     */
+    private NextAction offloadDelegatedTasks(final SSLConnectionContext sslCtx,
+                                             final FilterChainContext ctx,
+                                             final SSLHandshakeExecutor executor,
+                                             final Buffer remainder)
+            throws IOException {
+        
+        final Connection connection = ctx.getConnection();
+        final NextAction suspendAction = ctx.getSuspendAction();
+        
+        connection.disableIOEvent(IOEvent.READ);
+        ctx.setMessage(remainder);
+        ctx.suspend();
+        
+        final CompletionHandler<SSLEngine> resumeHandler =
+                new EmptyCompletionHandler<SSLEngine>() {
+
+            @Override
+            public void completed(final SSLEngine sslEngine) {
+                ctx.resume();
+            }
+
+            @Override
+            public void failed(final Throwable throwable) {
+                final IOException ioe = throwable instanceof IOException
+                        ? (IOException) throwable
+                        : new SSLHandshakeException(throwable.getMessage());
+                if (ioe != throwable) {
+                    ioe.initCause(throwable);
+                }
+                
+                notifyHandshakeFailed(connection, ioe);
+                
+                final Buffer message = ctx.getMessage();
+                ctx.setMessage(null);
+                if (message != null) {
+                    message.tryDispose();
+                }
+                
+                connection.closeWithReason(ioe);
+                ctx.resume(ctx.getStopAction());
+            }
+        };
+        
+        if (!executor.execute(sslCtx.getSslEngine(), resumeHandler)) {
+            resumeHandler.failed(new SSLHandshakeException(
+                    "The handshake has been rejected by " + executor));
+        }
+        
+        return suspendAction;
+    }
+
     protected SSLConnectionContext obtainSslConnectionContext(
             final Connection connection) {
         SSLConnectionContext sslCtx = SSL_CTX_ATTR.get(connection);
@@ -1011,6 +1188,14 @@ public class SSLBaseFilter extends BaseFilter {
                 listener.onStart(connection);
             }
         }
+        
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            obtainSslConnectionContext(connection).onHandshakeStart();
+            for (SSLProbe probe : probes) {
+                probe.onHandshakeStartEvent(this, connection);
+            }
+        }
     }
     
     protected void notifyHandshakeComplete(final Connection<?> connection,
@@ -1021,6 +1206,20 @@ public class SSLBaseFilter extends BaseFilter {
                 listener.onComplete(connection);
             }
         }
+        
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            final SSLConnectionContext sslCtx =
+                    obtainSslConnectionContext(connection);
+            final SSLSession session = sslEngine.getSession();
+            final boolean resumed = sslCtx.isResumedSession(session);
+            final long durationNanos = sslCtx.onHandshakeComplete();
+            
+            for (SSLProbe probe : probes) {
+                probe.onHandshakeCompleteEvent(this, connection, session,
+                        resumed, durationNanos);
+            }
+        }
     }
 
     protected void notifyHandshakeFailed(final Connection connection,
@@ -1030,6 +1229,14 @@ public class SSLBaseFilter extends BaseFilter {
                 listener.onFailure(connection, t);
             }
         }
+        
+        final SSLProbe[] probes = monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            obtainSslConnectionContext(connection).onHandshakeComplete();
+            for (SSLProbe probe : probes) {
+                probe.onHandshakeFailedEvent(this, connection, t);
+            }
+        }
     }
     
     // ----------------------------------------------------------- Inner Classes
@@ -81,6 +81,13 @@ public final class SSLConnectionContext {
         BUFFER_SIZE_COEF = coeff;
     }
     
+    /**
+     * The max number of TLS records {@link #wrapAll(Buffer, Allocator)} packs
+     * into one network buffer.
+     */
+    private static final int MAX_WRAP_RECORDS = Math.max(1, Integer.getInteger(
+            SSLConnectionContext.class.getName() + ".max-wrap-records", 4));
+    
     final ByteBufferArray outputByteBufferArray =
             ByteBufferArray.create();
     
@@ -99,6 +106,10 @@ public final class SSLConnectionContext {
     
     private final Connection connection;
     private FilterChain newConnectionFilterChain;
+    private boolean offloadDelegatedTasks;
+    
+    private long handshakeStartNanos = -1;
+    private long handshakeStartMillis;
 
     public SSLConnectionContext(Connection connection) {
         this.connection = connection;
@@ -148,6 +159,48 @@ public final class SSLConnectionContext {
         this.newConnectionFilterChain = newConnectionFilterChain;
     }
 
+    /**
+     * @return <tt>true</tt>, if the current handshake step has to stop on
+     * {@link javax.net.ssl.SSLEngineResult.HandshakeStatus#NEED_TASK} and
+     * leave the delegated tasks to the {@link SSLHandshakeExecutor}
+     */
+    boolean isOffloadDelegatedTasks() {
+        return offloadDelegatedTasks;
+    }
+
+    void setOffloadDelegatedTasks(final boolean offloadDelegatedTasks) {
+        this.offloadDelegatedTasks = offloadDelegatedTasks;
+    }
+
+    /**
+     * Remembers the handshake start time for the {@link SSLProbe}s.
+     */
+    void onHandshakeStart() {
+        handshakeStartNanos = System.nanoTime();
+        handshakeStartMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the handshake duration in nanoseconds, or <tt>-1</tt>
+     * if the handshake start hasn't been observed
+     */
+    long onHandshakeComplete() {
+        final long startNanos = handshakeStartNanos;
+        handshakeStartNanos = -1;
+        
+        return startNanos != -1 ? System.nanoTime() - startNanos : -1;
+    }
+
+    /**
+     * {@link SSLEngine} doesn't tell if the handshake has resumed an existing
+     * session, so the session is considered resumed, if it had been created
+     * before the handshake started.
+     */
+    boolean isResumedSession(final SSLSession session) {
+        return handshakeStartNanos != -1
+                && session.getCreationTime() < handshakeStartMillis;
+    }
+
     Buffer resetLastOutputBuffer() {
         final Buffer tmp = lastOutputBuffer;
         lastOutputBuffer = null;
@@ -233,6 +286,12 @@ public final class SSLConnectionContext {
         return new SslResult(output, sslEngineResult);
     }
 
+    /**
+     * Wraps all the input into as few network buffers as possible: the output
+     * buffer is sized for up to {@link #MAX_WRAP_RECORDS} TLS records, and
+     * the records are wrapped one after another into it, while it has room
+     * for one more.
+     */
     Buffer wrapAll(final Buffer input,
             final Allocator allocator) throws SSLException {
         final MemoryManager memoryManager = connection.getMemoryManager();
@@ -243,33 +302,35 @@ public final class SSLConnectionContext {
         final int inputArraySize = bba.size();
         
         Buffer output = null;
+        Buffer netBuffer = null;
         SslResult result = null;
         try {
-            result = wrap(input, inputArray, inputArraySize, null, allocator);
-            
-            if (result.isError()) {
-                throw result.getError();
-            }
-            
-            output = result.getOutput();
-            output.trim();
-            
-            if (input.hasRemaining()) {
-                do {
-                    result = wrap(input, inputArray, inputArraySize,
-                            null, allocator);
-                    
-                    if (result.isError()) {
-                        throw result.getError();
-                    }
-                    
-                    final Buffer newOutput = result.getOutput();
-                    newOutput.trim();
-                    
-                    output = Buffers.appendBuffers(memoryManager, output,
-                            newOutput);
-                } while (input.hasRemaining());
-            }
+            do {
+                final int recordSize = (int) ((float) netBufferSize * BUFFER_SIZE_COEF);
+                
+                if (netBuffer == null) {
+                    final int records = Math.min(MAX_WRAP_RECORDS,
+                            input.remaining() / appBufferSize + 1);
+                    netBuffer = allocator.grow(this, null, records * recordSize);
+                }
+                
+                result = wrap(input, inputArray, inputArraySize,
+                        netBuffer, allocator);
+                netBuffer = result.getOutput();
+                
+                if (result.isError()) {
+                    throw result.getError();
+                }
+                
+                if (!input.hasRemaining() || netBuffer.remaining() < recordSize) {
+                    netBuffer.trim();
+                    output = output == null
+                            ? netBuffer
+                            : Buffers.appendBuffers(memoryManager,
+                                    output, netBuffer, true);
+                    netBuffer = null;
+                }
+            } while (input.hasRemaining());
             
             return output;
         } finally {
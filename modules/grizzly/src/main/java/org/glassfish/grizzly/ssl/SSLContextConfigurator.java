@@ -57,6 +57,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import org.glassfish.grizzly.Grizzly;
 
@@ -121,6 +122,12 @@ public class SSLContextConfigurator {
 
     private String securityProtocol = "TLS";
 
+    private int sessionCacheSize = -1;
+    private int sessionTimeout = -1;
+    private boolean sessionCacheShared;
+    
+    private volatile SSLContext sharedSSLContext;
+
     /**
      * Default constructor. Reads configuration properties from
      * {@link System#getProperties()}. Calls {@link #SSLContextConfigurator(boolean)} with
@@ -151,6 +158,7 @@ public class SSLContextConfigurator {
      *            <em>Trust</em> store provider to set.
      */
     public void setTrustStoreProvider(String trustStoreProvider) {
+        sharedSSLContext = null;
         this.trustStoreProvider = trustStoreProvider;
     }
 
@@ -161,6 +169,7 @@ public class SSLContextConfigurator {
      *            <em>Key</em> store provider to set.
      */
     public void setKeyStoreProvider(String keyStoreProvider) {
+        sharedSSLContext = null;
         this.keyStoreProvider = keyStoreProvider;
     }
 
@@ -171,6 +180,7 @@ public class SSLContextConfigurator {
      *            Type of <em>trust</em> store to set.
      */
     public void setTrustStoreType(String trustStoreType) {
+        sharedSSLContext = null;
         this.trustStoreType = trustStoreType;
     }
 
@@ -181,6 +191,7 @@ public class SSLContextConfigurator {
      *            Type of <em>key</em> store to set.
      */
     public void setKeyStoreType(String keyStoreType) {
+        sharedSSLContext = null;
         this.keyStoreType = keyStoreType;
     }
 
@@ -191,6 +202,7 @@ public class SSLContextConfigurator {
      *            Password of <em>trust</em> store to set.
      */
     public void setTrustStorePass(String trustStorePass) {
+        sharedSSLContext = null;
         this.trustStorePass = trustStorePass.toCharArray();
     }
 
@@ -201,6 +213,7 @@ public class SSLContextConfigurator {
      *            Password of <em>key</em> store to set.
      */
     public void setKeyStorePass(String keyStorePass) {
+        sharedSSLContext = null;
         this.keyStorePass = keyStorePass.toCharArray();
     }
 
@@ -211,6 +224,7 @@ public class SSLContextConfigurator {
      *            Password of <em>key</em> store to set.
      */
     public void setKeyStorePass(char[] keyStorePass) {
+        sharedSSLContext = null;
         this.keyStorePass = keyStorePass;
     }
 
@@ -221,6 +235,7 @@ public class SSLContextConfigurator {
      *            Password of <em>key</em> to set.
      */
     public void setKeyPass(String keyPass) {
+        sharedSSLContext = null;
         this.keyPass = keyPass.toCharArray();
     }
 
@@ -231,6 +246,7 @@ public class SSLContextConfigurator {
      *            Password of <em>key</em> to set.
      */
     public void setKeyPass(char[] keyPass) {
+        sharedSSLContext = null;
         this.keyPass = keyPass;
     }
 
@@ -244,6 +260,7 @@ public class SSLContextConfigurator {
      *            File name of trust store.
      */
     public void setTrustStoreFile(String trustStoreFile) {
+        sharedSSLContext = null;
         this.trustStoreFile = trustStoreFile;
         this.trustStoreBytes = null;
     }
@@ -257,6 +274,7 @@ public class SSLContextConfigurator {
      *            trust store payload.
      */
     public void setTrustStoreBytes(byte[] trustStoreBytes) {
+        sharedSSLContext = null;
         this.trustStoreBytes = trustStoreBytes;
         this.trustStoreFile = null;
     }
@@ -271,6 +289,7 @@ public class SSLContextConfigurator {
      *            File name of key store.
      */
     public void setKeyStoreFile(String keyStoreFile) {
+        sharedSSLContext = null;
         this.keyStoreFile = keyStoreFile;
         this.keyStoreBytes = null;
     }
@@ -284,6 +303,7 @@ public class SSLContextConfigurator {
      *            key store payload.
      */
     public void setKeyStoreBytes(byte[] keyStoreBytes) {
+        sharedSSLContext = null;
         this.keyStoreBytes = keyStoreBytes;
         this.keyStoreFile = null;
     }
@@ -296,6 +316,7 @@ public class SSLContextConfigurator {
      */
     public void setTrustManagerFactoryAlgorithm(
             String trustManagerFactoryAlgorithm) {
+        sharedSSLContext = null;
         this.trustManagerFactoryAlgorithm = trustManagerFactoryAlgorithm;
     }
 
@@ -306,6 +327,7 @@ public class SSLContextConfigurator {
      *            the key manager factory algorithm.
      */
     public void setKeyManagerFactoryAlgorithm(String keyManagerFactoryAlgorithm) {
+        sharedSSLContext = null;
         this.keyManagerFactoryAlgorithm = keyManagerFactoryAlgorithm;
     }
 
@@ -316,9 +338,86 @@ public class SSLContextConfigurator {
      * @param securityProtocol Protocol for {@link javax.net.ssl.SSLContext#getProtocol()}.
      */
     public void setSecurityProtocol(String securityProtocol) {
+        sharedSSLContext = null;
         this.securityProtocol = securityProtocol;
     }
 
+    /**
+     * @return the max number of the server sessions kept in the
+     *         {@link SSLContext} session cache, <code>-1</code> means the
+     *         JSSE default.
+     *
+     * @since 2.4.3
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Sets the max number of the server sessions kept in the {@link SSLContext}
+     * session cache, see {@link javax.net.ssl.SSLSessionContext#setSessionCacheSize(int)}.
+     *
+     * @param sessionCacheSize the cache size, <code>0</code> means no limit,
+     *            <code>-1</code> means the JSSE default.
+     *
+     * @since 2.4.3
+     */
+    public void setSessionCacheSize(final int sessionCacheSize) {
+        sharedSSLContext = null;
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * @return the time in seconds a cached server session may be resumed,
+     *         <code>-1</code> means the JSSE default.
+     *
+     * @since 2.4.3
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Sets the time in seconds a cached server session may be resumed,
+     * see {@link javax.net.ssl.SSLSessionContext#setSessionTimeout(int)}.
+     *
+     * @param sessionTimeout the session timeout in seconds, <code>0</code>
+     *            means no limit, <code>-1</code> means the JSSE default.
+     *
+     * @since 2.4.3
+     */
+    public void setSessionTimeout(final int sessionTimeout) {
+        sharedSSLContext = null;
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * @return <code>true</code> if {@link #createSSLContext(boolean)} returns
+     *         the same {@link SSLContext}, and so the same session cache, to
+     *         all its callers.
+     *
+     * @since 2.4.3
+     */
+    public boolean isSessionCacheShared() {
+        return sessionCacheShared;
+    }
+
+    /**
+     * If <code>true</code>, {@link #createSSLContext(boolean)} creates the
+     * {@link SSLContext} once and returns it to all its callers, until the
+     * configuration changes. The {@link SSLEngineConfigurator}s (and so the
+     * listeners) created from this configurator then share one server
+     * session cache, and a client may resume its session on any of them.
+     *
+     * @param sessionCacheShared <code>true</code> to share the {@link SSLContext}
+     *
+     * @since 2.4.3
+     */
+    public void setSessionCacheShared(final boolean sessionCacheShared) {
+        sharedSSLContext = null;
+        this.sessionCacheShared = sessionCacheShared;
+    }
+
     /**
      * Validates {@link SSLContextConfigurator} configuration.
      *
@@ -469,6 +568,10 @@ public class SSLContextConfigurator {
      * a {@link GenericStoreException}
      * will be raised containing the root cause of the failure.
      *
+     * If the session cache is shared (see {@link #setSessionCacheShared(boolean)}),
+     * the {@link SSLContext} is created by the first call and returned by the
+     * subsequent ones.
+     *
      * @param throwException <code>true</code> if an exception should be raised upon failure.
      *
      * @return a new {@link SSLContext}
@@ -479,6 +582,25 @@ public class SSLContextConfigurator {
      * @since 2.3.28
      */
     public SSLContext createSSLContext(final boolean throwException) {
+        if (!sessionCacheShared) {
+            return createNewSSLContext(throwException);
+        }
+        
+        SSLContext sslContext = sharedSSLContext;
+        if (sslContext == null) {
+            synchronized (this) {
+                sslContext = sharedSSLContext;
+                if (sslContext == null) {
+                    sslContext = createNewSSLContext(throwException);
+                    sharedSSLContext = sslContext;
+                }
+            }
+        }
+        
+        return sslContext;
+    }
+
+    private SSLContext createNewSSLContext(final boolean throwException) {
         SSLContext sslContext = null;
 
         try {
@@ -611,6 +733,17 @@ public class SSLContextConfigurator {
                     .getKeyManagers() : null,
                     trustManagerFactory != null ? trustManagerFactory
                             .getTrustManagers() : null, null);
+            
+            final SSLSessionContext sessionContext =
+                    sslContext.getServerSessionContext();
+            if (sessionContext != null) {
+                if (sessionCacheSize >= 0) {
+                    sessionContext.setSessionCacheSize(sessionCacheSize);
+                }
+                if (sessionTimeout >= 0) {
+                    sessionContext.setSessionTimeout(sessionTimeout);
+                }
+            }
         } catch (KeyManagementException e) {
             LOGGER.log(Level.FINE, "Key management error.", e);
             if (throwException) {
@@ -627,6 +760,7 @@ public class SSLContextConfigurator {
     }
 
     public void retrieve(Properties props) {
+        sharedSSLContext = null;
         trustStoreProvider = props.getProperty(TRUST_STORE_PROVIDER);
         keyStoreProvider = props.getProperty(KEY_STORE_PROVIDER);
 
@@ -45,6 +45,7 @@ import java.util.Arrays;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
 import org.glassfish.grizzly.Grizzly;
 
 /**
@@ -89,6 +90,19 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
      * Has the enabled Cipher configured.
      */
     private boolean isCipherConfigured = false;
+    /**
+     * Executor for the {@link SSLEngine} delegated tasks.
+     */
+    protected SSLHandshakeExecutor handshakeExecutor;
+    /**
+     * Configure {@link SSLEngine}s using precomputed {@link SSLParameters}.
+     */
+    protected boolean useSSLParametersTemplate;
+    /**
+     * The precomputed {@link SSLParameters}, <tt>null</tt> if they have to be
+     * (re)computed.
+     */
+    private volatile SSLParameters sslParametersTemplate;
     
     /**
      * Create SSL Engine configuration basing on passed {@link SSLContext}.
@@ -172,6 +186,9 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
         this.isCipherConfigured = pattern.isCipherConfigured;
         this.isProtocolConfigured = pattern.isProtocolConfigured;
+        this.handshakeExecutor = pattern.handshakeExecutor;
+        this.useSSLParametersTemplate = pattern.useSSLParametersTemplate;
+        this.sslParametersTemplate = pattern.sslParametersTemplate;
     }
 
     protected SSLEngineConfigurator() {
@@ -224,6 +241,24 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
      * @return configured {@link SSLEngine}.
      */
     public SSLEngine configure(final SSLEngine sslEngine) {
+        if (useSSLParametersTemplate) {
+            SSLParameters template = sslParametersTemplate;
+            if (template == null) {
+                template = createSSLParametersTemplate();
+                sslParametersTemplate = template;
+            }
+
+            // the client mode has to be set first, because it may reset
+            // the default protocols
+            sslEngine.setUseClientMode(clientMode);
+            sslEngine.setSSLParameters(template);
+            return sslEngine;
+        }
+        
+        return configureEngine(sslEngine);
+    }
+
+    private SSLEngine configureEngine(final SSLEngine sslEngine) {
         if (enabledCipherSuites != null) {
             if (!isCipherConfigured) {
                 enabledCipherSuites = configureEnabledCiphers(sslEngine,
@@ -253,6 +288,23 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
         return sslEngine;
     }
+
+    /**
+     * Configures a fresh {@link SSLEngine} the usual way and takes its
+     * {@link SSLParameters} as the template. The SNI server names and
+     * matchers are left unset, so the ones the {@link SSLEngine} has been
+     * created with (for example out of the peer host) are kept.
+     */
+    private SSLParameters createSSLParametersTemplate() {
+        final SSLEngine sslEngine = configureEngine(
+                getSslContext().createSSLEngine());
+        
+        final SSLParameters template = sslEngine.getSSLParameters();
+        template.setServerNames(null);
+        template.setSNIMatchers(null);
+        
+        return template;
+    }
     
     /**
      * Will {@link SSLEngine} be configured to work in client mode.
@@ -274,6 +326,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
      */
     public SSLEngineConfigurator setClientMode(boolean clientMode) {
         this.clientMode = clientMode;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -284,6 +337,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
     public SSLEngineConfigurator setNeedClientAuth(boolean needClientAuth) {
         this.needClientAuth = needClientAuth;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -293,6 +347,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
     public SSLEngineConfigurator setWantClientAuth(boolean wantClientAuth) {
         this.wantClientAuth = wantClientAuth;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -319,6 +374,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
         this.enabledCipherSuites = enabledCipherSuites != null
                 ? Arrays.copyOf(enabledCipherSuites, enabledCipherSuites.length)
                 : null;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -345,6 +401,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
         this.enabledProtocols = enabledProtocols != null
                 ? Arrays.copyOf(enabledProtocols, enabledProtocols.length)
                 : null;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -354,6 +411,7 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
     public SSLEngineConfigurator setCipherConfigured(boolean isCipherConfigured) {
         this.isCipherConfigured = isCipherConfigured;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -363,6 +421,71 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
 
     public SSLEngineConfigurator setProtocolConfigured(boolean isProtocolConfigured) {
         this.isProtocolConfigured = isProtocolConfigured;
+        sslParametersTemplate = null;
+        return this;
+    }
+
+    /**
+     * @return the {@link SSLHandshakeExecutor}, which runs the delegated tasks
+     * of the {@link SSLEngine}s, or <tt>null</tt> if the tasks are run by the
+     * thread, which drives the handshake.
+     */
+    public SSLHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    /**
+     * Sets the {@link SSLHandshakeExecutor}, which runs the delegated tasks of
+     * the {@link SSLEngine}s, while the handshake is resumed asynchronously.
+     * The executor is used by an {@link SSLBaseFilter}, which has this
+     * configurator as its server configurator, and hasn't been given its own
+     * executor.
+     * 
+     * @param handshakeExecutor the {@link SSLHandshakeExecutor}, or
+     *        <tt>null</tt> to run the tasks on the thread, which drives the
+     *        handshake
+     * @return this SSLEngineConfigurator
+     * @since 2.4.3
+     */
+    public SSLEngineConfigurator setHandshakeExecutor(
+            final SSLHandshakeExecutor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+        return this;
+    }
+
+    /**
+     * @return <tt>true</tt>, if {@link SSLEngine}s are configured using
+     * {@link SSLParameters} precomputed once per configurator, or
+     * <tt>false</tt>, if each {@link SSLEngine} is configured property by
+     * property.
+     * @since 2.4.3
+     */
+    public boolean isUseSSLParametersTemplate() {
+        return useSSLParametersTemplate;
+    }
+
+    /**
+     * Sets whether {@link SSLEngine}s should be configured using
+     * {@link SSLParameters} precomputed once per configurator.
+     * <p>
+     * When enabled, the enabled cipher suites and protocols are validated
+     * against the supported ones, and together with the client
+     * authentication settings frozen into an {@link SSLParameters} template
+     * on the first {@link #configure(javax.net.ssl.SSLEngine)} call. Every
+     * {@link SSLEngine} is then configured with a single
+     * {@link SSLEngine#setSSLParameters(javax.net.ssl.SSLParameters)} call.
+     * Changing the configurator settings using its setters recomputes the
+     * template, changing the protected fields directly doesn't.
+     *
+     * @param useSSLParametersTemplate <tt>true</tt> to configure
+     *        {@link SSLEngine}s using the precomputed {@link SSLParameters}
+     * @return this SSLEngineConfigurator
+     * @since 2.4.3
+     */
+    public SSLEngineConfigurator setUseSSLParametersTemplate(
+            final boolean useSSLParametersTemplate) {
+        this.useSSLParametersTemplate = useSSLParametersTemplate;
+        sslParametersTemplate = null;
         return this;
     }
 
@@ -461,6 +584,8 @@ public class SSLEngineConfigurator implements SSLEngineFactory {
         sb.append(", wantClientAuth=").append(wantClientAuth);
         sb.append(", isProtocolConfigured=").append(isProtocolConfigured);
         sb.append(", isCipherConfigured=").append(isCipherConfigured);
+        sb.append(", handshakeExecutor=").append(handshakeExecutor);
+        sb.append(", useSSLParametersTemplate=").append(useSSLParametersTemplate);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,286 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.ssl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLEngine;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+/**
+ * Bounded executor, which runs {@link SSLEngine} delegated tasks (the
+ * expensive key exchange and certificate verification steps of a handshake)
+ * off the thread, which drives the handshake.
+ * 
+ * At most <tt>maxConcurrentHandshakes</tt> delegated task batches run at the
+ * same time, and at most <tt>maxQueuedHandshakes</tt> more wait for a thread.
+ * Handshakes submitted beyond that are rejected, so a storm of new
+ * connections can neither take over the selector threads nor queue up
+ * unbounded work.
+ * 
+ * The executor may be shared by several {@link SSLBaseFilter}s, see
+ * {@link SSLBaseFilter#setHandshakeExecutor(SSLHandshakeExecutor)} and
+ * {@link SSLEngineConfigurator#setHandshakeExecutor(SSLHandshakeExecutor)}.
+ * 
+ * @since 2.4.3
+ */
+public class SSLHandshakeExecutor {
+    private final int maxConcurrentHandshakes;
+    private final int maxQueuedHandshakes;
+    
+    private final ExecutorService executorService;
+    
+    private final AtomicInteger pendingHandshakes = new AtomicInteger();
+    private final AtomicInteger activeHandshakes = new AtomicInteger();
+    
+    private final AtomicLong completedHandshakes = new AtomicLong();
+    private final AtomicLong rejectedHandshakes = new AtomicLong();
+    
+    private final AtomicLong totalQueueTimeNanos = new AtomicLong();
+    private final AtomicLong maxQueueTimeNanos = new AtomicLong();
+
+    /**
+     * Creates the executor with its own thread pool of
+     * <tt>maxConcurrentHandshakes</tt> threads.
+     * 
+     * @param maxConcurrentHandshakes the max number of handshakes, whose
+     *        delegated tasks are executed at the same time
+     * @param maxQueuedHandshakes the max number of handshakes waiting for
+     *        a free thread
+     */
+    public SSLHandshakeExecutor(final int maxConcurrentHandshakes,
+            final int maxQueuedHandshakes) {
+        if (maxConcurrentHandshakes < 1) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentHandshakes can't be less than 1");
+        }
+        
+        if (maxQueuedHandshakes < 0) {
+            throw new IllegalArgumentException(
+                    "maxQueuedHandshakes can't be negative");
+        }
+        
+        this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+        this.maxQueuedHandshakes = maxQueuedHandshakes;
+        
+        executorService = GrizzlyExecutorService.createInstance(
+                ThreadPoolConfig.defaultConfig()
+                .setPoolName("Grizzly-SSL-handshake")
+                .setCorePoolSize(maxConcurrentHandshakes)
+                .setMaxPoolSize(maxConcurrentHandshakes)
+                .setQueueLimit(-1)
+                .setDaemon(true));
+    }
+
+    /**
+     * Runs all the delegated tasks of the {@link SSLEngine} on the executor
+     * and notifies the {@link CompletionHandler} once they are complete.
+     * 
+     * @param sslEngine the {@link SSLEngine} in the <tt>NEED_TASK</tt> state
+     * @param completionHandler notified with the {@link SSLEngine} when the
+     *        tasks are complete, or with the error, thrown by a task
+     * @return <tt>false</tt> if the handshake has been rejected, because the
+     *         concurrency and queue limits have been reached or the executor
+     *         has been shut down, in this case the {@link CompletionHandler}
+     *         is not notified
+     */
+    public boolean execute(final SSLEngine sslEngine,
+            final CompletionHandler<SSLEngine> completionHandler) {
+        
+        final int maxPending = maxConcurrentHandshakes + maxQueuedHandshakes;
+        int pending;
+        do {
+            pending = pendingHandshakes.get();
+            if (pending >= maxPending) {
+                rejectedHandshakes.incrementAndGet();
+                return false;
+            }
+        } while (!pendingHandshakes.compareAndSet(pending, pending + 1));
+        
+        final long submitTime = System.nanoTime();
+        
+        try {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    onDequeued(System.nanoTime() - submitTime);
+                    
+                    Throwable error = null;
+                    try {
+                        SSLUtils.executeDelegatedTask(sslEngine);
+                    } catch (Throwable t) {
+                        error = t;
+                    } finally {
+                        activeHandshakes.decrementAndGet();
+                        pendingHandshakes.decrementAndGet();
+                        completedHandshakes.incrementAndGet();
+                    }
+                    
+                    if (error == null) {
+                        completionHandler.completed(sslEngine);
+                    } else {
+                        completionHandler.failed(error);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingHandshakes.decrementAndGet();
+            rejectedHandshakes.incrementAndGet();
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Shuts down the executor's thread pool. Handshakes submitted after that
+     * are rejected.
+     */
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @return the max number of handshakes, whose delegated tasks are executed
+     *         at the same time
+     */
+    public int getMaxConcurrentHandshakes() {
+        return maxConcurrentHandshakes;
+    }
+
+    /**
+     * @return the max number of handshakes waiting for a free thread
+     */
+    public int getMaxQueuedHandshakes() {
+        return maxQueuedHandshakes;
+    }
+
+    /**
+     * @return the number of handshakes, whose delegated tasks are being
+     *         executed at the moment
+     */
+    public int getActiveHandshakes() {
+        return activeHandshakes.get();
+    }
+
+    /**
+     * @return the number of handshakes waiting for a free thread
+     */
+    public int getQueuedHandshakes() {
+        return Math.max(0, pendingHandshakes.get() - activeHandshakes.get());
+    }
+
+    /**
+     * @return the number of handshakes, whose delegated tasks have been
+     *         executed
+     */
+    public long getCompletedHandshakes() {
+        return completedHandshakes.get();
+    }
+
+    /**
+     * @return the number of handshakes rejected because of the concurrency
+     *         and queue limits
+     */
+    public long getRejectedHandshakes() {
+        return rejectedHandshakes.get();
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the total time handshakes have waited for a free thread
+     */
+    public long getTotalQueueTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(totalQueueTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the longest time a handshake has waited for a free thread
+     */
+    public long getMaxQueueTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxQueueTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the average time a handshake has waited for a free thread
+     */
+    public long getAverageQueueTime(final TimeUnit timeUnit) {
+        final long dequeued = completedHandshakes.get() + activeHandshakes.get();
+        return dequeued == 0
+                ? 0
+                : timeUnit.convert(totalQueueTimeNanos.get() / dequeued,
+                                   TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SSLHandshakeExecutor");
+        sb.append("{maxConcurrentHandshakes=").append(maxConcurrentHandshakes);
+        sb.append(", maxQueuedHandshakes=").append(maxQueuedHandshakes);
+        sb.append(", activeHandshakes=").append(getActiveHandshakes());
+        sb.append(", queuedHandshakes=").append(getQueuedHandshakes());
+        sb.append(", completedHandshakes=").append(getCompletedHandshakes());
+        sb.append(", rejectedHandshakes=").append(getRejectedHandshakes());
+        sb.append('}');
+        return sb.toString();
+    }
+    
+    private void onDequeued(final long queueTimeNanos) {
+        activeHandshakes.incrementAndGet();
+        totalQueueTimeNanos.addAndGet(queueTimeNanos);
+        
+        long max;
+        while (queueTimeNanos > (max = maxQueueTimeNanos.get())) {
+            if (maxQueueTimeNanos.compareAndSet(max, queueTimeNanos)) {
+                break;
+            }
+        }
+    }
+}
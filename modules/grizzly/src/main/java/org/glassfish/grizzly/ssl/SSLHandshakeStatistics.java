@@ -0,0 +1,302 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.ssl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import org.glassfish.grizzly.Connection;
+
+/**
+ * {@link SSLProbe}, which aggregates the TLS handshake statistics of the
+ * {@link SSLBaseFilter}s it's registered on: full vs. abbreviated (resumed)
+ * handshake counts, the handshake duration histogram, the negotiated
+ * protocol and cipher suite distribution and the failures by reason.
+ * 
+ * <pre>
+ *     final SSLHandshakeStatistics stats = new SSLHandshakeStatistics();
+ *     sslFilter.getMonitoringConfig().addProbes(stats);
+ * </pre>
+ * 
+ * @since 2.4.3
+ */
+public class SSLHandshakeStatistics extends SSLProbe.Adapter {
+    
+    /**
+     * The upper bounds (inclusive) of the handshake duration histogram
+     * buckets in milliseconds, the last bucket counts the handshakes, which
+     * took longer than the last bound.
+     */
+    private static final long[] HISTOGRAM_BOUNDS_MILLIS =
+            {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+    
+    private final AtomicLong fullHandshakes = new AtomicLong();
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+    private final AtomicLong failedHandshakes = new AtomicLong();
+    
+    private final AtomicLong timedHandshakes = new AtomicLong();
+    private final AtomicLong totalDurationNanos = new AtomicLong();
+    private final AtomicLong maxDurationNanos = new AtomicLong();
+    private final AtomicLongArray histogram =
+            new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+    
+    private final ConcurrentMap<String, AtomicLong> protocols =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> cipherSuites =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> failureReasons =
+            new ConcurrentHashMap<>();
+
+    
+    // ---------------------------------------------------- Methods from SSLProbe
+
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onHandshakeCompleteEvent(final SSLBaseFilter filter,
+            final Connection connection, final SSLSession session,
+            final boolean resumed, final long durationNanos) {
+        
+        if (resumed) {
+            resumedHandshakes.incrementAndGet();
+        } else {
+            fullHandshakes.incrementAndGet();
+        }
+        
+        if (durationNanos >= 0) {
+            timedHandshakes.incrementAndGet();
+            totalDurationNanos.addAndGet(durationNanos);
+            
+            long max;
+            while (durationNanos > (max = maxDurationNanos.get())) {
+                if (maxDurationNanos.compareAndSet(max, durationNanos)) {
+                    break;
+                }
+            }
+            
+            histogram.incrementAndGet(bucketOf(
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        }
+        
+        if (session != null) {
+            increment(protocols, session.getProtocol());
+            increment(cipherSuites, session.getCipherSuite());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onHandshakeFailedEvent(final SSLBaseFilter filter,
+            final Connection connection, final Throwable error) {
+        failedHandshakes.incrementAndGet();
+        increment(failureReasons, reasonOf(error));
+    }
+
+    
+    // ---------------------------------------------------------- Public Methods
+
+    
+    /**
+     * @return the number of full handshakes
+     */
+    public long getFullHandshakes() {
+        return fullHandshakes.get();
+    }
+
+    /**
+     * @return the number of abbreviated handshakes, which resumed an existing
+     *  session
+     */
+    public long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    /**
+     * @return the number of failed handshakes
+     */
+    public long getFailedHandshakes() {
+        return failedHandshakes.get();
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the average handshake duration
+     */
+    public long getAverageHandshakeTime(final TimeUnit timeUnit) {
+        final long count = timedHandshakes.get();
+        return count == 0
+                ? 0
+                : timeUnit.convert(totalDurationNanos.get() / count,
+                                   TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit {@link TimeUnit}
+     * @return the longest handshake duration
+     */
+    public long getMaxHandshakeTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxDurationNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the upper bounds (inclusive) of the
+     *  {@link #getHandshakeTimeHistogram()} buckets in milliseconds
+     */
+    public static long[] getHandshakeTimeHistogramBounds() {
+        return HISTOGRAM_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * @return the number of handshakes per duration bucket, the element
+     *  <tt>i</tt> counts the handshakes, which took longer than the bound
+     *  <tt>i - 1</tt> and not longer than the bound <tt>i</tt> of
+     *  {@link #getHandshakeTimeHistogramBounds()}, the last element counts
+     *  the handshakes, which took longer than the last bound
+     */
+    public long[] getHandshakeTimeHistogram() {
+        final long[] snapshot = new long[histogram.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = histogram.get(i);
+        }
+        
+        return snapshot;
+    }
+
+    /**
+     * @return the number of complete handshakes per negotiated protocol
+     */
+    public Map<String, Long> getProtocols() {
+        return snapshot(protocols);
+    }
+
+    /**
+     * @return the number of complete handshakes per negotiated cipher suite
+     */
+    public Map<String, Long> getCipherSuites() {
+        return snapshot(cipherSuites);
+    }
+
+    /**
+     * @return the number of failed handshakes per failure reason, which is
+     *  the class name of the error, followed by the error message for
+     *  {@link SSLException}s (they carry the TLS alert)
+     */
+    public Map<String, Long> getFailureReasons() {
+        return snapshot(failureReasons);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SSLHandshakeStatistics");
+        sb.append("{fullHandshakes=").append(getFullHandshakes());
+        sb.append(", resumedHandshakes=").append(getResumedHandshakes());
+        sb.append(", failedHandshakes=").append(getFailedHandshakes());
+        sb.append(", averageHandshakeTimeMillis=")
+                .append(getAverageHandshakeTime(TimeUnit.MILLISECONDS));
+        sb.append(", protocols=").append(getProtocols());
+        sb.append(", failureReasons=").append(getFailureReasons());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    
+    // --------------------------------------------------------- Private Methods
+
+    
+    private static int bucketOf(final long millis) {
+        for (int i = 0; i < HISTOGRAM_BOUNDS_MILLIS.length; i++) {
+            if (millis <= HISTOGRAM_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        
+        return HISTOGRAM_BOUNDS_MILLIS.length;
+    }
+    
+    private static String reasonOf(final Throwable error) {
+        if (error == null) {
+            return "unknown";
+        }
+        
+        return error instanceof SSLException && error.getMessage() != null
+                ? error.getClass().getName() + ": " + error.getMessage()
+                : error.getClass().getName();
+    }
+    
+    private static void increment(final ConcurrentMap<String, AtomicLong> counters,
+            final String key) {
+        if (key == null) {
+            return;
+        }
+        
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        
+        counter.incrementAndGet();
+    }
+    
+    private static Map<String, Long> snapshot(
+            final ConcurrentMap<String, AtomicLong> counters) {
+        final Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        
+        return snapshot;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.ssl;
+
+import javax.net.ssl.SSLSession;
+import org.glassfish.grizzly.Connection;
+
+/**
+ * Monitoring probe providing callbacks that may be invoked by
+ * {@link SSLBaseFilter} during the TLS handshakes.
+ *
+ * @since 2.4.3
+ */
+public interface SSLProbe {
+
+    /**
+     * Method will be called, when the {@link Connection} starts the TLS
+     * handshake.
+     *
+     * @param filter the {@link SSLBaseFilter} being monitored
+     * @param connection {@link Connection}, the event belongs to.
+     */
+    void onHandshakeStartEvent(SSLBaseFilter filter, Connection connection);
+
+    /**
+     * Method will be called, when the TLS handshake is complete.
+     *
+     * @param filter the {@link SSLBaseFilter} being monitored
+     * @param connection {@link Connection}, the event belongs to.
+     * @param session the negotiated {@link SSLSession}
+     * @param resumed <tt>true</tt>, if the handshake has been abbreviated,
+     *  because an existing session has been resumed, or <tt>false</tt>,
+     *  if it has been a full handshake
+     * @param durationNanos the handshake duration in nanoseconds, or
+     *  <tt>-1</tt> if its start hasn't been observed by the filter
+     */
+    void onHandshakeCompleteEvent(SSLBaseFilter filter, Connection connection,
+            SSLSession session, boolean resumed, long durationNanos);
+
+    /**
+     * Method will be called, when the TLS handshake fails.
+     *
+     * @param filter the {@link SSLBaseFilter} being monitored
+     * @param connection {@link Connection}, the event belongs to.
+     * @param error the failure reason
+     */
+    void onHandshakeFailedEvent(SSLBaseFilter filter, Connection connection,
+            Throwable error);
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * {@link SSLProbe} adapter that provides no-op implementations for
+     * all interface methods allowing easy extension by the developer.
+     */
+    @SuppressWarnings("UnusedDeclaration")
+    class Adapter implements SSLProbe {
+
+
+        // ------------------------------------------------ Methods from SSLProbe
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onHandshakeStartEvent(SSLBaseFilter filter,
+                Connection connection) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onHandshakeCompleteEvent(SSLBaseFilter filter,
+                Connection connection, SSLSession session, boolean resumed,
+                long durationNanos) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onHandshakeFailedEvent(SSLBaseFilter filter,
+                Connection connection, Throwable error) {}
+
+    } // END Adapter
+}
@@ -0,0 +1,512 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.strategies;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringAware;
+import org.glassfish.grizzly.monitoring.MonitoringConfig;
+
+/**
+ * {@link org.glassfish.grizzly.IOStrategy}, which processes READ events
+ * either in the selector thread, like {@link SameThreadIOStrategy}, or in
+ * the worker thread pool, like {@link WorkerThreadIOStrategy}, depending on
+ * the measured event processing time.
+ * 
+ * The strategy keeps exponentially weighted moving averages of the READ
+ * event processing (service) time and of the share of this time, when
+ * the processing thread was blocked (waited rather than ran on CPU;
+ * sampled using the current thread CPU time, if the JVM supports it).
+ * Connections start in the selector thread and move to the worker thread
+ * pool, once the average service time or blocking ratio exceeds the
+ * worker thread thresholds. They move back, once both averages fall below
+ * the lower selector thread thresholds, so the decision doesn't flap,
+ * when the averages are around a single threshold.
+ * 
+ * The statistics are kept either per {@link Connection} or per
+ * {@link org.glassfish.grizzly.Transport}, see {@link Scope}. In the latter
+ * case, the strategy instance must not be shared between transports.
+ * 
+ * The decisions are reported to the {@link AdaptiveIOStrategyProbe}s,
+ * registered via {@link #getMonitoringConfig()}.
+ *
+ * @since 2.4.3
+ */
+public final class AdaptiveIOStrategy extends AbstractIOStrategy
+        implements MonitoringAware<AdaptiveIOStrategyProbe> {
+
+    /**
+     * The scope of the event processing statistics.
+     */
+    public enum Scope {
+        /**
+         * Each {@link Connection} is measured and switched separately.
+         */
+        CONNECTION,
+        /**
+         * All the connections of the {@link org.glassfish.grizzly.Transport}
+         * (typically a listener) share the statistics and the decision.
+         */
+        TRANSPORT
+    }
+    
+    private static final Logger logger = Grizzly.logger(AdaptiveIOStrategy.class);
+
+    /**
+     * The default average service time, above which the READ events are
+     * moved to the worker thread pool.
+     */
+    public static final long DEFAULT_WORKER_THREAD_SERVICE_TIME_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(100);
+    
+    /**
+     * The default average service time, below which the READ events are
+     * moved back to the selector thread.
+     */
+    public static final long DEFAULT_SAME_THREAD_SERVICE_TIME_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(20);
+    
+    /**
+     * The default average blocking ratio, above which the READ events are
+     * moved to the worker thread pool.
+     */
+    public static final float DEFAULT_WORKER_THREAD_BLOCKING_RATIO = 0.5f;
+    
+    /**
+     * The default average blocking ratio, below which the READ events are
+     * moved back to the selector thread.
+     */
+    public static final float DEFAULT_SAME_THREAD_BLOCKING_RATIO = 0.1f;
+    
+    // the service time EWMA weight is 1/16, so a single event contributes
+    // only 1/16 of its service time; there is no outlier filtering though,
+    // so an event, which is longer than 16x the threshold, does switch
+    private static final int SERVICE_TIME_EWMA_SHIFT = 4;
+    // the blocking ratio is sampled less often, so its EWMA weight is 1/4
+    private static final int BLOCKING_EWMA_SHIFT = 2;
+    // the blocking ratio is sampled every 16th event
+    private static final int BLOCKING_SAMPLE_MASK = 0xF;
+    // the blocking ratio fixed point scale
+    private static final int BLOCKING_SCALE = 1024;
+    
+    private static final ThreadMXBean THREAD_MX_BEAN;
+    private static final boolean IS_CPU_TIME_SUPPORTED;
+    
+    static {
+        ThreadMXBean threadMXBean = null;
+        boolean isCpuTimeSupported = false;
+        try {
+            threadMXBean = ManagementFactory.getThreadMXBean();
+            isCpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported()
+                    && threadMXBean.isThreadCpuTimeEnabled();
+        } catch (Throwable ignored) {
+        }
+        
+        THREAD_MX_BEAN = threadMXBean;
+        IS_CPU_TIME_SUPPORTED = isCpuTimeSupported;
+    }
+    
+    private static final Attribute<Stats> STATS_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+                    AdaptiveIOStrategy.class.getName() + ".stats");
+    
+    private final Scope scope;
+    private final Stats transportStats;
+    
+    private volatile long workerThreadServiceTimeNanos =
+            DEFAULT_WORKER_THREAD_SERVICE_TIME_NANOS;
+    private volatile long sameThreadServiceTimeNanos =
+            DEFAULT_SAME_THREAD_SERVICE_TIME_NANOS;
+    private volatile int workerThreadBlockingRatio =
+            toFixedPoint(DEFAULT_WORKER_THREAD_BLOCKING_RATIO);
+    private volatile int sameThreadBlockingRatio =
+            toFixedPoint(DEFAULT_SAME_THREAD_BLOCKING_RATIO);
+    
+    private final DefaultMonitoringConfig<AdaptiveIOStrategyProbe> monitoringConfig =
+            new DefaultMonitoringConfig<AdaptiveIOStrategyProbe>(
+                    AdaptiveIOStrategyProbe.class);
+    
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * Creates the strategy, which keeps the statistics per {@link Connection}.
+     */
+    public AdaptiveIOStrategy() {
+        this(Scope.CONNECTION);
+    }
+
+    /**
+     * Creates the strategy with the given statistics scope.
+     * 
+     * @param scope the statistics {@link Scope}
+     */
+    public AdaptiveIOStrategy(final Scope scope) {
+        if (scope == null) {
+            throw new IllegalArgumentException("scope can't be null");
+        }
+        
+        this.scope = scope;
+        transportStats = scope == Scope.TRANSPORT ? new Stats() : null;
+    }
+
+    
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the statistics {@link Scope}
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Sets the average service time thresholds.
+     * 
+     * @param workerThreadServiceTime the average service time, above which
+     *      the READ events are moved to the worker thread pool
+     * @param sameThreadServiceTime the average service time, below which
+     *      the READ events are moved back to the selector thread
+     * @param timeUnit the {@link TimeUnit}
+     */
+    public void setServiceTimeThresholds(final long workerThreadServiceTime,
+            final long sameThreadServiceTime, final TimeUnit timeUnit) {
+        if (sameThreadServiceTime > workerThreadServiceTime) {
+            throw new IllegalArgumentException(
+                    "sameThreadServiceTime > workerThreadServiceTime");
+        }
+        
+        workerThreadServiceTimeNanos = timeUnit.toNanos(workerThreadServiceTime);
+        sameThreadServiceTimeNanos = timeUnit.toNanos(sameThreadServiceTime);
+    }
+
+    /**
+     * @param timeUnit the {@link TimeUnit}
+     * @return the average service time, above which the READ events are moved
+     *      to the worker thread pool
+     */
+    public long getWorkerThreadServiceTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(workerThreadServiceTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the {@link TimeUnit}
+     * @return the average service time, below which the READ events are moved
+     *      back to the selector thread
+     */
+    public long getSameThreadServiceTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(sameThreadServiceTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the average blocking ratio thresholds.
+     * 
+     * @param workerThreadBlockingRatio the average blocking ratio, above which
+     *      the READ events are moved to the worker thread pool
+     * @param sameThreadBlockingRatio the average blocking ratio, below which
+     *      the READ events are moved back to the selector thread
+     */
+    public void setBlockingRatioThresholds(final float workerThreadBlockingRatio,
+            final float sameThreadBlockingRatio) {
+        if (sameThreadBlockingRatio < 0 || workerThreadBlockingRatio > 1 ||
+                sameThreadBlockingRatio > workerThreadBlockingRatio) {
+            throw new IllegalArgumentException("Invalid blocking ratio thresholds: " +
+                    workerThreadBlockingRatio + ", " + sameThreadBlockingRatio);
+        }
+        
+        this.workerThreadBlockingRatio = toFixedPoint(workerThreadBlockingRatio);
+        this.sameThreadBlockingRatio = toFixedPoint(sameThreadBlockingRatio);
+    }
+
+    /**
+     * @return the average blocking ratio, above which the READ events are moved
+     *      to the worker thread pool
+     */
+    public float getWorkerThreadBlockingRatio() {
+        return toFloat(workerThreadBlockingRatio);
+    }
+
+    /**
+     * @return the average blocking ratio, below which the READ events are moved
+     *      back to the selector thread
+     */
+    public float getSameThreadBlockingRatio() {
+        return toFloat(sameThreadBlockingRatio);
+    }
+
+    /**
+     * @param connection the {@link Connection}, ignored if the statistics are
+     *      kept per {@link org.glassfish.grizzly.Transport}
+     * @return <tt>true</tt> if the READ events are currently processed in
+     *      the worker thread pool
+     */
+    public boolean isWorkerThread(final Connection connection) {
+        final Stats stats = peekStats(connection);
+        return stats != null && stats.workerThread;
+    }
+
+    /**
+     * @param connection the {@link Connection}, ignored if the statistics are
+     *      kept per {@link org.glassfish.grizzly.Transport}
+     * @param timeUnit the {@link TimeUnit}
+     * @return the average READ event service time
+     */
+    public long getServiceTime(final Connection connection,
+            final TimeUnit timeUnit) {
+        final Stats stats = peekStats(connection);
+        return stats != null
+                ? timeUnit.convert(stats.serviceTimeNanos, TimeUnit.NANOSECONDS)
+                : 0;
+    }
+
+    /**
+     * @param connection the {@link Connection}, ignored if the statistics are
+     *      kept per {@link org.glassfish.grizzly.Transport}
+     * @return the average READ event blocking ratio, from 0 to 1
+     */
+    public float getBlockingRatio(final Connection connection) {
+        final Stats stats = peekStats(connection);
+        return stats != null ? toFloat(stats.blockingRatio) : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitoringConfig<AdaptiveIOStrategyProbe> getMonitoringConfig() {
+        return monitoringConfig;
+    }
+
+
+    // ------------------------------------------------- Methods from IOStrategy
+
+
+    @Override
+    public boolean executeIoEvent(final Connection connection,
+            final IOEvent ioEvent, final boolean isIoEventEnabled)
+            throws IOException {
+
+        final Stats stats = obtainStats(connection);
+        final Executor threadPool = stats.workerThread ?
+                connection.getTransport().getWorkerThreadPool() :
+                null;
+        
+        if (ioEvent != IOEvent.READ) {
+            return threadPool != null
+                    ? WorkerThreadIOStrategy.getInstance().executeIoEvent(
+                            connection, ioEvent, isIoEventEnabled)
+                    : SameThreadIOStrategy.getInstance().executeIoEvent(
+                            connection, ioEvent, isIoEventEnabled);
+        }
+        
+        if (threadPool != null) {
+            if (isIoEventEnabled) {
+                connection.disableIOEvent(ioEvent);
+            }
+            
+            threadPool.execute(new WorkerThreadRunnable(this, stats, connection));
+            return true;
+        }
+        
+        final boolean sampleCpuTime = sampleCpuTime(stats);
+        final long cpuTimeStart = sampleCpuTime ? currentThreadCpuTime() : 0;
+        final long start = System.nanoTime();
+        try {
+            return SameThreadIOStrategy.getInstance().executeIoEvent(
+                    connection, ioEvent, isIoEventEnabled);
+        } finally {
+            onProcessed(stats, connection, start, sampleCpuTime, cpuTimeStart);
+        }
+    }
+
+    @Override
+    public Executor getThreadPoolFor(final Connection connection,
+            final IOEvent ioEvent) {
+        final Stats stats = peekStats(connection);
+        return stats != null && stats.workerThread ?
+                super.getThreadPoolFor(connection, ioEvent) :
+                null;
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private Stats obtainStats(final Connection connection) {
+        if (transportStats != null) {
+            return transportStats;
+        }
+        
+        Stats stats = STATS_ATTR.get(connection);
+        if (stats == null) {
+            stats = new Stats();
+            STATS_ATTR.set(connection, stats);
+        }
+        
+        return stats;
+    }
+
+    private Stats peekStats(final Connection connection) {
+        return transportStats != null
+                ? transportStats
+                : STATS_ATTR.get(connection);
+    }
+    
+    private static boolean sampleCpuTime(final Stats stats) {
+        return IS_CPU_TIME_SUPPORTED &&
+                (stats.eventsCount++ & BLOCKING_SAMPLE_MASK) == 0;
+    }
+    
+    private static long currentThreadCpuTime() {
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+    
+    private void onProcessed(final Stats stats, final Connection connection,
+            final long start, final boolean sampleCpuTime,
+            final long cpuTimeStart) {
+        
+        final long serviceTime = System.nanoTime() - start;
+        
+        // the concurrent updates of the transport statistics may be lost,
+        // which is fine for the estimation
+        long serviceTimeAvg = stats.serviceTimeNanos;
+        serviceTimeAvg += (serviceTime - serviceTimeAvg) >> SERVICE_TIME_EWMA_SHIFT;
+        stats.serviceTimeNanos = serviceTimeAvg;
+        
+        int blockingRatioAvg = stats.blockingRatio;
+        if (sampleCpuTime && serviceTime > 0) {
+            final long cpuTime = currentThreadCpuTime() - cpuTimeStart;
+            // the events, which are shorter than the selector thread
+            // threshold, can't stall the selector, no matter whether they
+            // waited or were just preempted
+            final int blockingRatio =
+                    serviceTime < sameThreadServiceTimeNanos || cpuTime >= serviceTime
+                    ? 0
+                    : (int) ((serviceTime - cpuTime) * BLOCKING_SCALE / serviceTime);
+            blockingRatioAvg += (blockingRatio - blockingRatioAvg) >> BLOCKING_EWMA_SHIFT;
+            stats.blockingRatio = blockingRatioAvg;
+        }
+        
+        if (!stats.workerThread) {
+            if (serviceTimeAvg > workerThreadServiceTimeNanos
+                    || blockingRatioAvg > workerThreadBlockingRatio) {
+                switchDispatch(stats, connection, true);
+            }
+        } else if (serviceTimeAvg < sameThreadServiceTimeNanos
+                && blockingRatioAvg < sameThreadBlockingRatio) {
+            switchDispatch(stats, connection, false);
+        }
+    }
+
+    private void switchDispatch(final Stats stats, final Connection connection,
+            final boolean workerThread) {
+        stats.workerThread = workerThread;
+        
+        final AdaptiveIOStrategyProbe[] probes =
+                monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (AdaptiveIOStrategyProbe probe : probes) {
+                probe.onDispatchChangeEvent(this, connection, workerThread,
+                        stats.serviceTimeNanos, toFloat(stats.blockingRatio));
+            }
+        }
+    }
+    
+    private static int toFixedPoint(final float ratio) {
+        return (int) (ratio * BLOCKING_SCALE);
+    }
+
+    private static float toFloat(final int ratio) {
+        return (float) ratio / BLOCKING_SCALE;
+    }
+    
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * The READ event processing statistics.
+     */
+    private static final class Stats {
+        private volatile long serviceTimeNanos;
+        private volatile int blockingRatio;
+        private volatile boolean workerThread;
+        private int eventsCount;
+    }
+    
+    private static final class WorkerThreadRunnable implements Runnable {
+        private final AdaptiveIOStrategy strategy;
+        private final Stats stats;
+        private final Connection connection;
+        
+        private WorkerThreadRunnable(final AdaptiveIOStrategy strategy,
+                final Stats stats, final Connection connection) {
+            this.strategy = strategy;
+            this.stats = stats;
+            this.connection = connection;
+        }
+
+        @Override
+        public void run() {
+            final boolean sampleCpuTime = sampleCpuTime(stats);
+            final long cpuTimeStart = sampleCpuTime ? currentThreadCpuTime() : 0;
+            final long start = System.nanoTime();
+            try {
+                fireIOEvent(connection, IOEvent.READ,
+                        ENABLE_INTEREST_LIFECYCLE_LISTENER, logger);
+            } finally {
+                strategy.onProcessed(stats, connection, start,
+                        sampleCpuTime, cpuTimeStart);
+            }
+        }        
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.strategies;
+
+import org.glassfish.grizzly.Connection;
+
+/**
+ * Monitoring probe providing callbacks that may be invoked by
+ * {@link AdaptiveIOStrategy}.
+ *
+ * @since 2.4.3
+ */
+public interface AdaptiveIOStrategyProbe {
+
+    /**
+     * <p>
+     * This event may be fired when {@link AdaptiveIOStrategy} decides to
+     * switch the READ event processing from the selector thread to
+     * the worker thread pool or back.
+     * </p>
+     *
+     * @param strategy the {@link AdaptiveIOStrategy} being monitored
+     * @param connection the {@link Connection}, whose event processing
+     *  statistics triggered the switch. If the strategy statistics are kept
+     *  per {@link org.glassfish.grizzly.Transport}, the decision applies to
+     *  all the transport connections.
+     * @param workerThread <tt>true</tt> if the events are going to be
+     *  processed in the worker thread pool, or <tt>false</tt> if in the
+     *  selector thread
+     * @param serviceTimeNanos the average event processing time in nanoseconds
+     * @param blockingRatio the average share of the event processing time,
+     *  when the thread wasn't running on CPU, from 0 to 1
+     */
+    void onDispatchChangeEvent(AdaptiveIOStrategy strategy,
+            Connection connection, boolean workerThread,
+            long serviceTimeNanos, float blockingRatio);
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    /**
+     * {@link AdaptiveIOStrategyProbe} adapter that provides no-op
+     * implementations for all interface methods allowing easy extension by
+     * the developer.
+     */
+    @SuppressWarnings("UnusedDeclaration")
+    class Adapter implements AdaptiveIOStrategyProbe {
+
+
+        // -------------------------------- Methods from AdaptiveIOStrategyProbe
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDispatchChangeEvent(AdaptiveIOStrategy strategy,
+                Connection connection, boolean workerThread,
+                long serviceTimeNanos, float blockingRatio) {}
+
+    } // END Adapter
+}
@@ -0,0 +1,425 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed thread pool, which splits its workers into groups, typically one
+ * group per {@link org.glassfish.grizzly.nio.SelectorRunner}, and gives every
+ * worker its own task queue.
+ * 
+ * Tasks submitted via {@link #execute(Runnable, int, Object)} are queued to
+ * the worker of the given group, which is picked by the affinity key hash,
+ * so the tasks with the same affinity key (for example the same
+ * {@link org.glassfish.grizzly.Connection}) are preferably processed by the
+ * same thread. An idle worker steals tasks from the other workers of its
+ * group first, and then from the other groups.
+ * 
+ * The {@link ThreadPoolConfig#getQueue()} is not used, the queue limit, if
+ * set, applies to every worker queue.
+ *
+ * @since 2.4.3
+ */
+public class AffinityThreadPool extends AbstractThreadPool {
+
+    private final AffinityWorker[][] groups;
+    private final AffinityWorker[] allWorkers;
+    private final int queueLimit;
+    
+    private final AtomicInteger roundRobinCounter = new AtomicInteger();
+    // the number of parked workers
+    private final AtomicInteger idleCount = new AtomicInteger();
+    
+    private final Queue<Runnable> queueView = new WorkerQueuesView();
+
+    /**
+     * @param config the {@link ThreadPoolConfig} to configure this pool,
+     *      {@link ThreadPoolConfig#getMaxPoolSize()} threads are started.
+     * @param groupsCount the number of worker groups, if it's bigger than
+     *      the pool size - every group gets exactly one worker.
+     */
+    public AffinityThreadPool(final ThreadPoolConfig config,
+            final int groupsCount) {
+        super(config);
+        if (groupsCount < 1) {
+            throw new IllegalArgumentException("groupsCount < 1");
+        }
+        
+        queueLimit = config.getQueueLimit();
+        
+        final int poolSize = config.getMaxPoolSize();
+        final int groupsNum = Math.min(groupsCount, poolSize);
+        
+        groups = new AffinityWorker[groupsNum][];
+        allWorkers = new AffinityWorker[poolSize];
+        
+        int index = 0;
+        for (int i = 0; i < groupsNum; i++) {
+            final int groupSize = poolSize / groupsNum +
+                    (i < poolSize % groupsNum ? 1 : 0);
+            final AffinityWorker[] group = new AffinityWorker[groupSize];
+            for (int j = 0; j < groupSize; j++) {
+                final AffinityWorker worker = new AffinityWorker(i);
+                group[j] = worker;
+                allWorkers[index++] = worker;
+            }
+            
+            groups[i] = group;
+        }
+        
+        synchronized (stateLock) {
+            for (AffinityWorker worker : allWorkers) {
+                startWorker(worker);
+            }
+        }
+
+        ProbeNotifier.notifyThreadPoolStarted(this);
+        super.onMaxNumberOfThreadsReached();
+    }
+
+    /**
+     * @return the number of worker groups.
+     */
+    public int getGroupsCount() {
+        return groups.length;
+    }
+    
+    /**
+     * Returns the aggregated view of the worker queues.
+     * The returned {@link Queue} is weakly consistent: its size and content
+     * are a sum of the worker queue snapshots.
+     */
+    @Override
+    public Queue<Runnable> getQueue() {
+        return queueView;
+    }
+
+    /**
+     * Executes the task on one of the pool workers, the workers are picked in
+     * round-robin fashion.
+     * 
+     * @param command the task
+     */
+    @Override
+    public void execute(final Runnable command) {
+        final AffinityWorker[] workersLocal = allWorkers;
+        final int idx = (roundRobinCounter.getAndIncrement() & 0x7fffffff)
+                % workersLocal.length;
+        execute0(workersLocal[idx], command);
+    }
+    
+    /**
+     * Executes the task on the worker of the given group, picked by the
+     * affinity key hash. The task might be stolen by the other worker, if
+     * the preferred one is busy.
+     * 
+     * @param command the task
+     * @param group the worker group index, the groups are picked by the
+     *      index modulo the number of groups
+     * @param affinityKey the object, whose tasks are preferably processed by
+     *      the same worker
+     */
+    public void execute(final Runnable command, final int group,
+            final Object affinityKey) {
+        final AffinityWorker[] groupWorkers =
+                groups[(group & 0x7fffffff) % groups.length];
+        
+        final AffinityWorker worker;
+        if (groupWorkers.length == 1) {
+            worker = groupWorkers[0];
+        } else {
+            final int h = affinityKey.hashCode();
+            worker = groupWorkers[((h ^ (h >>> 16)) & 0x7fffffff)
+                    % groupWorkers.length];
+        }
+        
+        execute0(worker, command);
+    }
+
+    /**
+     * Wakes up all the workers, so they could see the pool is not running
+     * anymore and exit as soon as their queues are empty.
+     */
+    @Override
+    protected void poisonAll() {
+        for (AffinityWorker worker : allWorkers) {
+            LockSupport.unpark(worker.t);
+        }
+    }
+
+    private void execute0(final AffinityWorker worker, final Runnable command) {
+        if (command == null) { // must nullcheck to ensure queuesize is valid
+            throw new IllegalArgumentException("Runnable task is null");
+        }
+        
+        if (!running) {
+            throw new RejectedExecutionException("ThreadPool is not running");
+        }
+
+        if (queueLimit >= 0 && worker.queueSize.get() >= queueLimit) {
+            onTaskQueueOverflow();
+        }
+        
+        final int queueDepth = worker.offer(command);
+        
+        // doublecheck the pool is still running
+        if (!running && worker.remove(command)) {
+            throw new RejectedExecutionException("ThreadPool is not running");
+        }
+
+        onTaskQueued(command);
+        ProbeNotifier.notifyWorkerQueueDepth(this, worker.t, queueDepth);
+        
+        signal(worker);
+    }
+    
+    /**
+     * Wakes up the worker, which is going to process the task, just queued
+     * to the target worker.
+     */
+    private void signal(final AffinityWorker target) {
+        if (target.parked) {
+            LockSupport.unpark(target.t);
+            return;
+        }
+        
+        if (idleCount.get() == 0) {
+            return;
+        }
+        
+        // the target worker is busy, wake up an idle worker, which will
+        // steal the task, preferably from the same group
+        for (AffinityWorker worker : groups[target.group]) {
+            if (worker.parked) {
+                LockSupport.unpark(worker.t);
+                return;
+            }
+        }
+        
+        for (AffinityWorker worker : allWorkers) {
+            if (worker.parked) {
+                LockSupport.unpark(worker.t);
+                return;
+            }
+        }
+    }
+    
+    private final class AffinityWorker extends Worker {
+        private final int group;
+        
+        private final Queue<Runnable> queue =
+                new ConcurrentLinkedQueue<Runnable>();
+        private final AtomicInteger queueSize = new AtomicInteger();
+        
+        private volatile boolean parked;
+
+        private AffinityWorker(final int group) {
+            this.group = group;
+        }
+        
+        @Override
+        protected Runnable getTask() {
+            while (true) {
+                Runnable r = poll();
+                if (r != null) {
+                    return r;
+                }
+                
+                if ((r = steal()) != null) {
+                    return r;
+                }
+                
+                if (!running) {
+                    return null;
+                }
+                
+                parked = true;
+                idleCount.incrementAndGet();
+                try {
+                    // recheck after publishing the parked state,
+                    // the submitters check it after queueing the task
+                    if ((r = poll()) != null || (r = steal()) != null) {
+                        return r;
+                    }
+                    
+                    if (!running) {
+                        return null;
+                    }
+                    
+                    LockSupport.park(this);
+                } finally {
+                    parked = false;
+                    idleCount.decrementAndGet();
+                }
+                
+                Thread.interrupted();
+            }
+        }
+
+        private int offer(final Runnable task) {
+            queue.offer(task);
+            return queueSize.incrementAndGet();
+        }
+        
+        private Runnable poll() {
+            final Runnable r = queue.poll();
+            if (r != null) {
+                queueSize.decrementAndGet();
+            }
+            
+            return r;
+        }
+        
+        private boolean remove(final Runnable task) {
+            if (queue.remove(task)) {
+                queueSize.decrementAndGet();
+                return true;
+            }
+            
+            return false;
+        }
+
+        private Runnable steal() {
+            final AffinityWorker[] groupWorkers = groups[group];
+            Runnable r = stealFrom(groupWorkers);
+            if (r == null) {
+                final AffinityWorker[][] groupsLocal = groups;
+                final int groupsNum = groupsLocal.length;
+                for (int i = 1; i < groupsNum && r == null; i++) {
+                    r = stealFrom(groupsLocal[(group + i) % groupsNum]);
+                }
+            }
+            
+            if (r != null) {
+                ProbeNotifier.notifyTaskStolen(AffinityThreadPool.this, r);
+            }
+            
+            return r;
+        }
+        
+        private Runnable stealFrom(final AffinityWorker[] victims) {
+            for (AffinityWorker victim : victims) {
+                if (victim != this && victim.queueSize.get() > 0) {
+                    final Runnable r = victim.poll();
+                    if (r != null) {
+                        return r;
+                    }
+                }
+            }
+            
+            return null;
+        }
+    }
+    
+    /**
+     * The {@link Queue} view of all the worker queues, used by the
+     * {@link AbstractThreadPool} and {@link GrizzlyExecutorService} to drain
+     * the pool.
+     */
+    private final class WorkerQueuesView extends AbstractQueue<Runnable> {
+
+        @Override
+        public boolean offer(final Runnable task) {
+            final AffinityWorker[] workersLocal = allWorkers;
+            final AffinityWorker worker = workersLocal[
+                    (roundRobinCounter.getAndIncrement() & 0x7fffffff)
+                    % workersLocal.length];
+            worker.offer(task);
+            signal(worker);
+            
+            return true;
+        }
+
+        @Override
+        public Runnable poll() {
+            for (AffinityWorker worker : allWorkers) {
+                final Runnable r = worker.poll();
+                if (r != null) {
+                    return r;
+                }
+            }
+            
+            return null;
+        }
+
+        @Override
+        public Runnable peek() {
+            for (AffinityWorker worker : allWorkers) {
+                final Runnable r = worker.queue.peek();
+                if (r != null) {
+                    return r;
+                }
+            }
+            
+            return null;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (AffinityWorker worker : allWorkers) {
+                size += worker.queueSize.get();
+            }
+            
+            return size;
+        }
+        
+        @Override
+        public Iterator<Runnable> iterator() {
+            final List<Runnable> snapshot = new ArrayList<Runnable>();
+            for (AffinityWorker worker : allWorkers) {
+                snapshot.addAll(worker.queue);
+            }
+            
+            return Collections.unmodifiableList(snapshot).iterator();
+        }
+    }
+}
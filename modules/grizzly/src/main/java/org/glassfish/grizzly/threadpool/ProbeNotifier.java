@@ -212,4 +212,39 @@ final class ProbeNotifier {
             }
         }
     }
+
+    /**
+     * Notify registered {@link ThreadPoolProbe}s about the "worker queue depth" event.
+     *
+     * @param threadPool the {@link AbstractThreadPool} being monitored
+     * @param worker the worker thread, which owns the queue
+     * @param queueDepth the number of tasks in the worker queue
+     */
+    static void notifyWorkerQueueDepth(final AbstractThreadPool threadPool,
+            final Thread worker, final int queueDepth) {
+
+        final ThreadPoolProbe[] probes = threadPool.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (ThreadPoolProbe probe : probes) {
+                probe.onWorkerQueueDepthEvent(threadPool, worker, queueDepth);
+            }
+        }
+    }
+
+    /**
+     * Notify registered {@link ThreadPoolProbe}s about the "task stolen" event.
+     *
+     * @param threadPool the {@link AbstractThreadPool} being monitored
+     * @param task the stolen unit of work
+     */
+    static void notifyTaskStolen(final AbstractThreadPool threadPool,
+            final Runnable task) {
+
+        final ThreadPoolProbe[] probes = threadPool.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (ThreadPoolProbe probe : probes) {
+                probe.onTaskStealEvent(threadPool, task);
+            }
+        }
+    }
 }
@@ -159,6 +159,37 @@ public interface ThreadPoolProbe {
      * @param threadPool the {@link AbstractThreadPool} being monitored
      */
     void onTaskQueueOverflowEvent(AbstractThreadPool threadPool);
+
+    /**
+     * <p>
+     * This event may be fired when a task has been queued to the queue of
+     * a particular worker thread, like {@link AffinityThreadPool} does.
+     * The default implementation does nothing.
+     * </p>
+     *
+     * @param threadPool the {@link AbstractThreadPool} being monitored
+     * @param worker the worker thread, which owns the queue
+     * @param queueDepth the number of tasks in the worker queue, including
+     *  the just queued one
+     *
+     * @since 2.4.3
+     */
+    default void onWorkerQueueDepthEvent(AbstractThreadPool threadPool, Thread worker,
+            int queueDepth) {}
+
+    /**
+     * <p>
+     * This event may be fired when an idle worker thread has taken a task
+     * from the queue of another worker thread.
+     * The default implementation does nothing.
+     * </p>
+     *
+     * @param threadPool the {@link AbstractThreadPool} being monitored
+     * @param task the stolen unit of work
+     *
+     * @since 2.4.3
+     */
+    default void onTaskStealEvent(AbstractThreadPool threadPool, Runnable task) {}
     
     
     // ---------------------------------------------------------- Nested Classes
@@ -237,6 +268,19 @@ public interface ThreadPoolProbe {
         @Override
         public void onTaskQueueOverflowEvent(AbstractThreadPool threadPool) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onWorkerQueueDepthEvent(AbstractThreadPool threadPool,
+                Thread worker, int queueDepth) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onTaskStealEvent(AbstractThreadPool threadPool, Runnable task) {}
+
     } // END Adapter
 
 }
@@ -40,15 +40,30 @@
 
 package org.glassfish.grizzly.utils;
 
-import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
+ * Executes {@link Worker} tasks for elements, whose timeout, as reported
+ * by the {@link Resolver}, has expired.
+ * 
+ * Each {@link DelayQueue} keeps its elements in a hierarchical timing wheel
+ * with tick equal to the check interval, so a check costs O(1) per tick
+ * plus the work for the elements that are actually due, instead of
+ * a scan of every registered element.
+ * 
+ * Element timeouts may still be changed directly via the {@link Resolver}.
+ * A timeout moved to a later time is observed once the previously observed
+ * timeout is reached. A timeout moved to an earlier time, or set for an
+ * element, which had no timeout ("forever" values beyond the wheel range),
+ * has to be reported via {@link DelayQueue#reschedule(Object)}, so the
+ * element is moved to its new slot; elements without a timeout are not
+ * checked until then.
  * 
  * @author Alexey Stashok
  */
@@ -128,42 +143,13 @@ public class DelayedExecutor {
 
     private class DelayedRunnable implements Runnable {
 
-        @SuppressWarnings("unchecked")
         @Override
         public void run() {
             while(isStarted) {
                 final long currentTimeMillis = System.currentTimeMillis();
                 
                 for (final DelayQueue delayQueue : queues) {
-                    if (delayQueue.queue.isEmpty()) continue;
-                    
-                    final Resolver resolver = delayQueue.resolver;
-
-                    for (Iterator it = delayQueue.queue.keySet().iterator(); it.hasNext(); ) {
-                        final Object element = it.next();
-                        final long timeoutMillis = resolver.getTimeoutMillis(element);
-                        
-                        if (timeoutMillis == UNSET_TIMEOUT) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {                                
-                                delayQueue.queue.put(element, delayQueue);
-                            }
-                        } else if (currentTimeMillis - timeoutMillis >= 0) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {
-                                delayQueue.queue.put(element, delayQueue);
-                            } else {
-                                try {
-                                    if (!delayQueue.worker.doWork(element)) {
-                                        delayQueue.queue.put(element, delayQueue);
-                                    }
-                                } catch (Exception ignored) {
-                                }
-                            }
-                        }
-                    }
+                    delayQueue.expire(currentTimeMillis);
                 }
 
                 synchronized(sync) {
@@ -179,14 +165,59 @@ public class DelayedExecutor {
     }
 
     public class DelayQueue<E> {
-        final ConcurrentMap<E, DelayQueue> queue = new ConcurrentHashMap<>();
+        // the root wheel covers the nearest 256 ticks, each of the upper
+        // levels 64 times more, 2^32 ticks in total.
+        private static final int ROOT_BITS = 8;
+        private static final int ROOT_SIZE = 1 << ROOT_BITS;
+        private static final int ROOT_MASK = ROOT_SIZE - 1;
+        private static final int LEVEL_BITS = 6;
+        private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+        private static final int LEVEL_MASK = LEVEL_SIZE - 1;
+        private static final int LEVELS_COUNT = 4;
+        private static final long MAX_TICKS = 1L << (ROOT_BITS + LEVELS_COUNT * LEVEL_BITS);
+        // the number of missed ticks (after a system clock change, for example),
+        // which makes it cheaper to rebuild the wheel than to catch up
+        private static final long REBUILD_TICKS = ROOT_SIZE * LEVEL_SIZE;
+        
+        final ConcurrentMap<E, Entry<E>> queue = new ConcurrentHashMap<>();
 
         final Worker<E> worker;
         final Resolver<E> resolver;
 
+        /**
+         * Elements, which were added or removed since the last check.
+         */
+        private final Queue<Entry<E>> updates = new ConcurrentLinkedQueue<>();
+        
+        // the fields below are guarded by "this" and accessed by the
+        // DelayedRunnable only
+        private final long originMillis;
+        private final long tickMillis;
+        
+        private final Entry<E>[] root = newSlots(ROOT_SIZE);
+        private final Entry<E>[][] levels = newLevels();
+        /**
+         * Elements, which timeout is beyond the wheel range, usually
+         * {@link Long#MAX_VALUE}-like "never" values. They're not checked
+         * on ticks, only when they're added or rescheduled.
+         */
+        private final Entry<E>[] parked = newSlots(1);
+        
+        /**
+         * The next tick to be processed.
+         */
+        private long currentTick;
+        /**
+         * The number of elements in the wheel (parked elements excluded).
+         */
+        private int wheelSize;
+
         public DelayQueue(final Worker<E> worker, final Resolver<E> resolver) {
             this.worker = worker;
             this.resolver = resolver;
+            
+            originMillis = System.currentTimeMillis();
+            tickMillis = Math.max(1, checkIntervalMillis);
         }
 
         public void add(final E elem, final long delay, final TimeUnit timeUnit) {
@@ -194,19 +225,328 @@ public class DelayedExecutor {
                 final long delayWithSysTime =
                         System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
                 resolver.setTimeoutMillis(elem, ((delayWithSysTime < 0) ? Long.MAX_VALUE : delayWithSysTime));
-                queue.put(elem, this);
+                
+                Entry<E> entry = queue.get(elem);
+                if (entry == null) {
+                    final Entry<E> newEntry = new Entry<E>(elem);
+                    entry = queue.putIfAbsent(elem, newEntry);
+                    if (entry == null) {
+                        entry = newEntry;
+                    }
+                }
+                
+                update(entry);
+            }
+        }
+
+        /**
+         * Makes the queue re-read the element timeout, which has been changed
+         * directly via the {@link Resolver}: the element is moved to its new
+         * slot by the next check, if the new timeout is earlier than the
+         * previously observed one.
+         * 
+         * @param elem the element, which timeout has been changed
+         */
+        public void reschedule(final E elem) {
+            final Entry<E> entry = queue.get(elem);
+            if (entry != null) {
+                update(entry);
             }
         }
 
         public void remove(final E elem) {
             resolver.removeTimeout(elem);
+            
+            final Entry<E> entry = queue.get(elem);
+            if (entry != null) {
+                update(entry);
+            }
         }
 
         public void destroy() {
             queues.remove(this);
         }
+
+        /**
+         * Schedules the entry to be re-checked by the next {@link #expire(long)}.
+         */
+        private void update(final Entry<E> entry) {
+            if (Entry.IS_UPDATED_UPDATER.compareAndSet(entry, 0, 1)) {
+                updates.offer(entry);
+            }
+        }
+        
+        synchronized void expire(final long currentTimeMillis) {
+            Entry<E> entry;
+            while ((entry = updates.poll()) != null) {
+                // reset the flag before reading the timeout, so a concurrent
+                // change will be queued again
+                entry.isUpdated = 0;
+                if (entry.isRemoved) {
+                    continue;
+                }
+                
+                final long timeoutMillis = resolver.getTimeoutMillis(entry.element);
+                final long tick = toTick(timeoutMillis);
+                
+                if (entry.slots != null) {
+                    if (entry.slots != parked && entry.expirationTick <= tick) {
+                        // will be checked at the earlier tick anyway
+                        continue;
+                    }
+                    
+                    unlink(entry);
+                }
+                
+                link(entry, tick);
+            }
+            
+            final long nowMillis = currentTimeMillis - originMillis;
+            final long nowTick = nowMillis >= 0 ? nowMillis / tickMillis : -1;
+            if (wheelSize == 0) {
+                currentTick = Math.max(currentTick, nowTick + 1);
+                return;
+            }
+            
+            if (nowTick - currentTick >= REBUILD_TICKS) {
+                rebuild(nowTick);
+            }
+            
+            while (currentTick <= nowTick) {
+                final int index = (int) (currentTick & ROOT_MASK);
+                if (index == 0) {
+                    cascade();
+                }
+                
+                Entry<E> expired = root[index];
+                root[index] = null;
+                currentTick++;
+                
+                while (expired != null) {
+                    final Entry<E> next = expired.next;
+                    expired.clear();
+                    wheelSize--;
+                    
+                    check(expired, currentTimeMillis);
+                    expired = next;
+                }
+            }
+        }
+        
+        /**
+         * Moves the elements of the upper level slots, which became current,
+         * down the hierarchy.
+         */
+        private void cascade() {
+            int shift = ROOT_BITS;
+            for (final Entry<E>[] level : levels) {
+                final int index = (int) ((currentTick >> shift) & LEVEL_MASK);
+                
+                Entry<E> entry = level[index];
+                level[index] = null;
+                while (entry != null) {
+                    final Entry<E> next = entry.next;
+                    entry.clear();
+                    wheelSize--;
+                    
+                    link(entry, entry.expirationTick);
+                    entry = next;
+                }
+                
+                if (index != 0) {
+                    return;
+                }
+                
+                shift += LEVEL_BITS;
+            }
+        }
+        
+        /**
+         * Re-links all the wheel elements relatively to the given tick.
+         */
+        private void rebuild(final long tick) {
+            Entry<E> all = null;
+            for (int i = -1; i < LEVELS_COUNT; i++) {
+                final Entry<E>[] slots = i < 0 ? root : levels[i];
+                for (int j = 0; j < slots.length; j++) {
+                    Entry<E> entry = slots[j];
+                    slots[j] = null;
+                    while (entry != null) {
+                        final Entry<E> next = entry.next;
+                        entry.clear();
+                        entry.next = all;
+                        all = entry;
+                        entry = next;
+                    }
+                }
+            }
+            
+            wheelSize = 0;
+            currentTick = tick;
+            
+            while (all != null) {
+                final Entry<E> next = all.next;
+                all.next = null;
+                link(all, all.expirationTick);
+                all = next;
+            }
+        }
+        
+        /**
+         * Checks the element, which previously observed timeout has been reached.
+         */
+        private void check(final Entry<E> entry, final long currentTimeMillis) {
+            final E element = entry.element;
+            final long timeoutMillis = resolver.getTimeoutMillis(element);
+
+            if (timeoutMillis == UNSET_TIMEOUT) {
+                drop(entry);
+                if (wasModified(timeoutMillis,
+                        resolver.getTimeoutMillis(element))) {
+                    reAdd(element);
+                }
+            } else if (currentTimeMillis - timeoutMillis >= 0) {
+                drop(entry);
+                if (wasModified(timeoutMillis,
+                        resolver.getTimeoutMillis(element))) {
+                    reAdd(element);
+                } else {
+                    try {
+                        if (!worker.doWork(element)) {
+                            reAdd(element);
+                        }
+                    } catch (Exception ignored) {
+                    }
+                }
+            } else {
+                link(entry, toTick(timeoutMillis));
+            }
+        }
+        
+        private void drop(final Entry<E> entry) {
+            entry.isRemoved = true;
+            queue.remove(entry.element, entry);
+        }
+        
+        private void reAdd(final E element) {
+            final Entry<E> newEntry = new Entry<E>(element);
+            final Entry<E> entry = queue.putIfAbsent(element, newEntry);
+            
+            update(entry != null ? entry : newEntry);
+        }
+        
+        /**
+         * Returns the first tick, which starts at or after the given time.
+         */
+        private long toTick(final long timeoutMillis) {
+            if (timeoutMillis == UNSET_TIMEOUT || timeoutMillis <= originMillis) {
+                return 0;
+            }
+            
+            final long millis = timeoutMillis - originMillis;
+            final long tick = millis / tickMillis;
+            
+            return millis % tickMillis == 0 ? tick : tick + 1;
+        }
+        
+        private void link(final Entry<E> entry, final long tick) {
+            final long expirationTick = Math.max(tick, currentTick);
+            final long delta = expirationTick - currentTick;
+
+            final Entry<E>[] slots;
+            final int index;
+            
+            if (delta < ROOT_SIZE) {
+                slots = root;
+                index = (int) (expirationTick & ROOT_MASK);
+            } else if (delta < MAX_TICKS) {
+                int level = 0;
+                int shift = ROOT_BITS + LEVEL_BITS;
+                while (delta >= 1L << shift) {
+                    level++;
+                    shift += LEVEL_BITS;
+                }
+                
+                slots = levels[level];
+                index = (int) ((expirationTick >> (shift - LEVEL_BITS)) & LEVEL_MASK);
+            } else {
+                slots = parked;
+                index = 0;
+            }
+            
+            final Entry<E> head = slots[index];
+            if (head != null) {
+                head.prev = entry;
+            }
+            
+            entry.next = head;
+            entry.slots = slots;
+            entry.index = index;
+            entry.expirationTick = expirationTick;
+            slots[index] = entry;
+            
+            if (slots != parked) {
+                wheelSize++;
+            }
+        }
+        
+        private void unlink(final Entry<E> entry) {
+            final Entry<E>[] slots = entry.slots;
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                slots[entry.index] = entry.next;
+            }
+            
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            
+            entry.clear();
+            
+            if (slots != parked) {
+                wheelSize--;
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private Entry<E>[] newSlots(final int size) {
+            return new Entry[size];
+        }
+        
+        @SuppressWarnings("unchecked")
+        private Entry<E>[][] newLevels() {
+            return new Entry[LEVELS_COUNT][LEVEL_SIZE];
+        }
     }
 
+    private static final class Entry<E> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entry> IS_UPDATED_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "isUpdated");
+        
+        private final E element;
+        
+        private volatile int isUpdated;
+        private volatile boolean isRemoved;
+        
+        // wheel links, accessed by DelayedRunnable only
+        private Entry<E> prev;
+        private Entry<E> next;
+        private Entry<E>[] slots;
+        private int index;
+        private long expirationTick;
+
+        private Entry(final E element) {
+            this.element = element;
+        }
+        
+        private void clear() {
+            prev = next = null;
+            slots = null;
+        }
+    }
+    
     public interface Worker<E> {
         /**
          * The method is executed by <tt>DelayExecutor</tt> once element's timeout expires.
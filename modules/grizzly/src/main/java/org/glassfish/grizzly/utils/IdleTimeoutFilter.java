@@ -298,8 +298,12 @@ public class IdleTimeoutFilter extends BaseFilter {
                             System.currentTimeMillis() + timeout;
                 }
 
-                IdleRecord.timeoutMillisUpdater.compareAndSet(
-                        idleRecord, FOREVER_SPECIAL, timeoutToSet);
+                if (IdleRecord.timeoutMillisUpdater.compareAndSet(
+                        idleRecord, FOREVER_SPECIAL, timeoutToSet)
+                        && timeoutToSet != FOREVER) {
+                    // the connection might be scheduled later or not at all
+                    queue.reschedule(connection);
+                }
             }
         }
     } // END ContextCompletionListener
@@ -0,0 +1,197 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.AdaptiveIOStrategy;
+import org.glassfish.grizzly.strategies.AdaptiveIOStrategyProbe;
+import org.glassfish.grizzly.threadpool.Threads;
+import org.glassfish.grizzly.utils.Charsets;
+import org.glassfish.grizzly.utils.StringFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link AdaptiveIOStrategy} test.
+ */
+public class AdaptiveIOStrategyTest {
+    private static final int PORT = 7790;
+    private static final long SLOW_REQUEST_MILLIS = 200;
+    
+    @Test
+    public void testConnectionScope() throws Exception {
+        doTestSwitch(new AdaptiveIOStrategy());
+    }
+
+    @Test
+    public void testTransportScope() throws Exception {
+        doTestSwitch(new AdaptiveIOStrategy(AdaptiveIOStrategy.Scope.TRANSPORT));
+    }
+    
+    private void doTestSwitch(final AdaptiveIOStrategy strategy)
+            throws Exception {
+        // the thresholds are high enough to not be affected by the slow
+        // test machines
+        strategy.setServiceTimeThresholds(10, 2, TimeUnit.MILLISECONDS);
+        
+        final BlockingQueue<Boolean> decisions = new LinkedBlockingQueue<Boolean>();
+        strategy.getMonitoringConfig().addProbes(new AdaptiveIOStrategyProbe.Adapter() {
+            @Override
+            public void onDispatchChangeEvent(AdaptiveIOStrategy strategy,
+                    Connection connection, boolean workerThread,
+                    long serviceTimeNanos, float blockingRatio) {
+                decisions.add(workerThread);
+            }
+        });
+        
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(strategy)
+                .build();
+        transport.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new StringFilter(Charsets.UTF8_CHARSET))
+                .add(new ServerFilter())
+                .build());
+        
+        final BlockingQueue<String> replies = new LinkedBlockingQueue<String>();
+        Connection connection = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+            
+            connection = TCPNIOConnectorHandler.builder(transport)
+                    .processor(FilterChainBuilder.stateless()
+                            .add(new TransportFilter())
+                            .add(new StringFilter(Charsets.UTF8_CHARSET))
+                            .add(new ClientFilter(replies))
+                            .build())
+                    .build()
+                    .connect(new InetSocketAddress("localhost", PORT))
+                    .get(10, TimeUnit.SECONDS);
+            
+            // fast requests are processed in the selector thread, let
+            // the cold code paths warm up first, they might be slow enough
+            // to move the processing to the worker thread for a while
+            for (int i = 0; i < 300; i++) {
+                request(connection, replies, "fast");
+            }
+            decisions.clear();
+            for (int i = 0; i < 5; i++) {
+                assertEquals("selector", request(connection, replies, "fast"));
+            }
+            assertTrue(decisions.isEmpty());
+            
+            // slow requests move the processing to the worker thread
+            request(connection, replies, "slow");
+            assertEquals(Boolean.TRUE, decisions.poll(10, TimeUnit.SECONDS));
+            assertEquals("worker", request(connection, replies, "slow"));
+
+            // hysteresis: the processing returns to the selector thread only
+            // after the average service time goes down enough
+            assertEquals("worker", request(connection, replies, "fast"));
+            for (int i = 0; i < 1000 && decisions.isEmpty(); i++) {
+                request(connection, replies, "fast");
+            }
+            assertEquals(Boolean.FALSE, decisions.poll(10, TimeUnit.SECONDS));
+            assertEquals("selector", request(connection, replies, "fast"));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            
+            transport.shutdownNow();
+        }
+    }
+
+    private static String request(final Connection connection,
+            final BlockingQueue<String> replies, final String request)
+            throws Exception {
+        connection.write(request);
+        final String reply = replies.poll(10, TimeUnit.SECONDS);
+        assertNotNull("Timeout waiting for the reply", reply);
+        return reply;
+    }
+    
+    private static final class ServerFilter extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            final String request = ctx.getMessage();
+            if ("slow".equals(request)) {
+                try {
+                    Thread.sleep(SLOW_REQUEST_MILLIS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+            
+            ctx.write(Threads.isService() ? "selector" : "worker");
+            return ctx.getStopAction();
+        }
+    }
+    
+    private static final class ClientFilter extends BaseFilter {
+        private final BlockingQueue<String> replies;
+
+        private ClientFilter(final BlockingQueue<String> replies) {
+            this.replies = replies;
+        }
+        
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            replies.add((String) ctx.getMessage());
+            return ctx.getStopAction();
+        }
+    }
+}
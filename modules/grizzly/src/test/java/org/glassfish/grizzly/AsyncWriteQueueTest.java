@@ -41,7 +41,12 @@
 package org.glassfish.grizzly;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -50,7 +55,9 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -68,6 +75,7 @@ import org.glassfish.grizzly.impl.SafeFutureImpl;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.NIOConnection;
+import org.glassfish.grizzly.nio.SelectorHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
@@ -578,6 +586,324 @@ public class AsyncWriteQueueTest {
         }
     }
     
+    @Test
+    public void testWriteQueueWatermarks() throws Exception {
+        final int highWatermark = 1024 * 1024;
+        final int lowWatermark = 256 * 1024;
+        final int responseSize = 256 * 1024;
+        final int requestsCount = 200;
+
+        final AtomicInteger serverRcvdBytes = new AtomicInteger();
+        final AtomicInteger serverSentResponses = new AtomicInteger();
+        final AtomicInteger maxQueueSize = new AtomicInteger();
+        final AtomicBoolean isReadsPausedNoticed = new AtomicBoolean();
+        final Semaphore serverReads = new Semaphore(0);
+        final FutureImpl<NIOConnection> serverConnectionFuture =
+                Futures.createSafeFuture();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleAccept(FilterChainContext ctx)
+                    throws IOException {
+                final NIOConnection connection =
+                        (NIOConnection) ctx.getConnection();
+                // the peer is slow - pause reading its requests
+                connection.setWriteQueueWatermarks(highWatermark,
+                        lowWatermark, null);
+                serverConnectionFuture.result(connection);
+                return ctx.getInvokeAction();
+            }
+
+            @Override
+            public NextAction handleRead(FilterChainContext ctx)
+                    throws IOException {
+                final NIOConnection connection =
+                        (NIOConnection) ctx.getConnection();
+                final Buffer request = ctx.getMessage();
+                serverRcvdBytes.addAndGet(request.remaining());
+                request.tryDispose();
+
+                // a fast producer: one large response per read
+                ctx.write(Buffers.wrap(connection.getMemoryManager(),
+                        new byte[responseSize]));
+                serverSentResponses.incrementAndGet();
+
+                final int queueSize =
+                        connection.getAsyncWriteQueue().spaceInBytes();
+                int max;
+                while ((max = maxQueueSize.get()) < queueSize
+                        && !maxQueueSize.compareAndSet(max, queueSize)) {
+                }
+                
+                if (connection.isReadsPaused()) {
+                    isReadsPausedNoticed.set(true);
+                }
+
+                serverReads.release();
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = createTransport(isOptimizedForMultiplexing);
+        transport.setProcessor(filterChainBuilder.build());
+        transport.getAsyncQueueIO().getWriter().setMaxPendingBytesPerConnection(-1);
+
+        final Socket socket = new Socket();
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket.connect(new InetSocketAddress("localhost", PORT));
+            socket.setSoTimeout(10000);
+            final NIOConnection serverConnection =
+                    serverConnectionFuture.get(10, TimeUnit.SECONDS);
+
+            // send the requests one read at a time without reading the
+            // responses, until the server pauses the reads
+            final OutputStream out = socket.getOutputStream();
+            int sentRequests = 0;
+            while (!serverConnection.isReadsPaused()) {
+                assertTrue(sentRequests < requestsCount);
+                out.write(sentRequests++);
+                out.flush();
+                assertTrue(serverReads.tryAcquire(10, TimeUnit.SECONDS));
+            }
+            
+            // the rest of the requests stay unread
+            while (sentRequests < requestsCount) {
+                out.write(sentRequests++);
+            }
+            out.flush();
+
+            assertTrue(isReadsPausedNoticed.get());
+            assertTrue(serverConnection.isReadsPaused());
+            assertTrue("maxQueueSize=" + maxQueueSize.get(),
+                    maxQueueSize.get() < highWatermark + responseSize);
+            assertTrue(serverRcvdBytes.get() < requestsCount);
+
+            // read the responses, so the server reads the rest of the requests
+            final InputStream in = socket.getInputStream();
+            final byte[] buf = new byte[64 * 1024];
+            long clientRcvdBytes = 0;
+            while (serverRcvdBytes.get() < requestsCount
+                    || clientRcvdBytes < (long) serverSentResponses.get() * responseSize) {
+                final int len = in.read(buf);
+                assertTrue(len > 0);
+                clientRcvdBytes += len;
+            }
+
+            assertFalse(serverConnection.isReadsPaused());
+            assertTrue("maxQueueSize=" + maxQueueSize.get(),
+                    maxQueueSize.get() < highWatermark + responseSize);
+        } finally {
+            socket.close();
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentPauseResumeReads() throws Exception {
+        final int iterations = 20000;
+        final FutureImpl<NIOConnection> serverConnectionFuture =
+                Futures.createSafeFuture();
+        final FutureImpl<Boolean> serverReadFuture =
+                Futures.createSafeFuture();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleAccept(FilterChainContext ctx)
+                    throws IOException {
+                serverConnectionFuture.result((NIOConnection) ctx.getConnection());
+                return ctx.getInvokeAction();
+            }
+
+            @Override
+            public NextAction handleRead(FilterChainContext ctx)
+                    throws IOException {
+                serverReadFuture.result(Boolean.TRUE);
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = createTransport(isOptimizedForMultiplexing);
+        transport.setProcessor(filterChainBuilder.build());
+
+        final Socket socket = new Socket();
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket.connect(new InetSocketAddress("localhost", PORT));
+            final NIOConnection connection =
+                    serverConnectionFuture.get(10, TimeUnit.SECONDS);
+
+            // the reads are paused and resumed from the selector thread and
+            // two other threads, like the write completion and write enqueue
+            // threads do
+            final FutureImpl<Boolean> selectorDoneFuture =
+                    Futures.createSafeFuture();
+            transport.getSelectorHandler().enque(connection.getSelectorRunner(),
+                    new SelectorHandler.Task() {
+                        private int i;
+
+                        @Override
+                        public boolean run() throws Exception {
+                            for (int j = 0; j < 100 && i < iterations; j++, i++) {
+                                connection.pauseReads();
+                                connection.resumeReads();
+                            }
+
+                            if (i < iterations) {
+                                transport.getSelectorHandler().enque(
+                                        connection.getSelectorRunner(), this, null);
+                            } else {
+                                selectorDoneFuture.result(Boolean.TRUE);
+                            }
+                            return true;
+                        }
+                    }, null);
+
+            final Callable<Void> pauseResume = new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < iterations; i++) {
+                        connection.pauseReads();
+                        if (i % 64 == 0) {
+                            Thread.yield();
+                        }
+                        connection.resumeReads();
+                    }
+                    return null;
+                }
+            };
+
+            final ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                final Future<Void> f1 = executor.submit(pauseResume);
+                final Future<Void> f2 = executor.submit(pauseResume);
+                f1.get(30, TimeUnit.SECONDS);
+                f2.get(30, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+            selectorDoneFuture.get(30, TimeUnit.SECONDS);
+
+            assertFalse(connection.isReadsPaused());
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) != 0);
+
+            // the reads are not stuck
+            socket.getOutputStream().write(1);
+            socket.getOutputStream().flush();
+            assertTrue(serverReadFuture.get(10, TimeUnit.SECONDS));
+
+            connection.pauseReads();
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) == 0);
+        } finally {
+            socket.close();
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testResumeReadsKeepsDisabledRead() throws Exception {
+        final FutureImpl<NIOConnection> serverConnectionFuture =
+                Futures.createSafeFuture();
+        final FutureImpl<Boolean> serverReadFuture =
+                Futures.createSafeFuture();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleAccept(FilterChainContext ctx)
+                    throws IOException {
+                serverConnectionFuture.result((NIOConnection) ctx.getConnection());
+                return ctx.getInvokeAction();
+            }
+
+            @Override
+            public NextAction handleRead(FilterChainContext ctx)
+                    throws IOException {
+                serverReadFuture.result(Boolean.TRUE);
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = createTransport(isOptimizedForMultiplexing);
+        transport.setProcessor(filterChainBuilder.build());
+
+        final Socket socket = new Socket();
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket.connect(new InetSocketAddress("localhost", PORT));
+            final NIOConnection connection =
+                    serverConnectionFuture.get(10, TimeUnit.SECONDS);
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) != 0);
+
+            // OP_READ is disabled, like the IOStrategy does while a read
+            // event is processed, so resuming the reads mustn't enable it
+            connection.disableIOEvent(IOEvent.READ);
+            connection.pauseReads();
+            connection.resumeReads();
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) == 0);
+
+            // OP_READ, enabled while the reads are paused, is registered
+            // once the reads are resumed
+            connection.pauseReads();
+            connection.enableIOEvent(IOEvent.READ);
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) == 0);
+            
+            connection.resumeReads();
+            awaitSelectorTasks(transport, connection);
+            assertTrue((connection.getSelectionKey().interestOps()
+                    & SelectionKey.OP_READ) != 0);
+
+            socket.getOutputStream().write(1);
+            socket.getOutputStream().flush();
+            assertTrue(serverReadFuture.get(10, TimeUnit.SECONDS));
+        } finally {
+            socket.close();
+            transport.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits until the tasks, scheduled to the connection's selector thread
+     * so far, are executed.
+     */
+    private static void awaitSelectorTasks(final TCPNIOTransport transport,
+            final NIOConnection connection) throws Exception {
+        final FutureImpl<Boolean> future = Futures.createSafeFuture();
+        transport.getSelectorHandler().execute(connection.getSelectorRunner(),
+                new SelectorHandler.Task() {
+                    @Override
+                    public boolean run() {
+                        future.result(Boolean.TRUE);
+                        return true;
+                    }
+                }, null);
+        future.get(10, TimeUnit.SECONDS);
+    }
+
     // ---------------------------------------------------------- Nested Classes
 
 
@@ -0,0 +1,251 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+
+/**
+ * Test {@link DelayedExecutor}
+ */
+public class DelayedExecutorTest extends GrizzlyTestCase {
+    private ExecutorService threadPool;
+    private DelayedExecutor delayedExecutor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        threadPool = Executors.newSingleThreadExecutor();
+        delayedExecutor = new DelayedExecutor(threadPool, 1, TimeUnit.MILLISECONDS);
+        delayedExecutor.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delayedExecutor.destroy();
+        threadPool.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testExpirationOrder() throws Exception {
+        final Queue<Element> expired = new ConcurrentLinkedQueue<Element>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                expired.add(element);
+                latch.countDown();
+                return true;
+            }
+        }, new ElementResolver());
+
+        final Element e1 = new Element();
+        final Element e2 = new Element();
+        final Element e3 = new Element();
+
+        final long start = System.currentTimeMillis();
+        // 600ms is beyond the first wheel level
+        queue.add(e3, 600, TimeUnit.MILLISECONDS);
+        queue.add(e1, 50, TimeUnit.MILLISECONDS);
+        queue.add(e2, 300, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 600);
+
+        assertSame(e1, expired.poll());
+        assertSame(e2, expired.poll());
+        assertSame(e3, expired.poll());
+    }
+
+    public void testRemove() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Element removed = new Element();
+        final Element kept = new Element();
+
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                if (element == removed) {
+                    counter.incrementAndGet();
+                }
+                latch.countDown();
+                return true;
+            }
+        }, new ElementResolver());
+
+        queue.add(removed, 100, TimeUnit.MILLISECONDS);
+        queue.add(kept, 200, TimeUnit.MILLISECONDS);
+        queue.remove(removed);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, counter.get());
+    }
+
+    public void testRescheduleViaResolver() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger timeoutReads = new AtomicInteger();
+        final ElementResolver resolver = new ElementResolver() {
+            @Override
+            public long getTimeoutMillis(final Element element) {
+                timeoutReads.incrementAndGet();
+                return super.getTimeoutMillis(element);
+            }
+        };
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                latch.countDown();
+                return true;
+            }
+        }, resolver);
+
+        final Element element = new Element();
+        queue.add(element, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+        // the element without a timeout isn't checked on every tick
+        assertTrue("timeoutReads=" + timeoutReads.get(),
+                timeoutReads.get() <= 2);
+
+        // update the timeout bypassing the queue, like IdleTimeoutFilter does
+        final long start = System.currentTimeMillis();
+        resolver.setTimeoutMillis(element, start + 100);
+        queue.reschedule(element);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+    }
+
+    public void testShortenViaResolver() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ElementResolver resolver = new ElementResolver();
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                latch.countDown();
+                return true;
+            }
+        }, resolver);
+
+        final Element element = new Element();
+        queue.add(element, 10, TimeUnit.SECONDS);
+
+        // move the timeout to an earlier time bypassing the queue
+        resolver.setTimeoutMillis(element, System.currentTimeMillis() + 50);
+        queue.reschedule(element);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testPostponeViaResolver() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final ElementResolver resolver = new ElementResolver();
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                counter.incrementAndGet();
+                return true;
+            }
+        }, resolver);
+
+        final Element element = new Element();
+        queue.add(element, 50, TimeUnit.MILLISECONDS);
+        resolver.setTimeoutMillis(element, System.currentTimeMillis() + 500);
+
+        Thread.sleep(200);
+        assertEquals(0, counter.get());
+
+        Thread.sleep(1000);
+        assertEquals(1, counter.get());
+    }
+
+    public void testReRegistration() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final DelayedExecutor.DelayQueue<Element> queue =
+                delayedExecutor.createDelayQueue(new DelayedExecutor.Worker<Element>() {
+            @Override
+            public boolean doWork(final Element element) {
+                latch.countDown();
+                // ask to be checked again, until the third attempt
+                return counter.incrementAndGet() >= 3;
+            }
+        }, new ElementResolver());
+
+        queue.add(new Element(), 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(3, counter.get());
+    }
+
+    private static final class Element {
+        private volatile long timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+    }
+
+    private static class ElementResolver implements DelayedExecutor.Resolver<Element> {
+
+        @Override
+        public boolean removeTimeout(final Element element) {
+            element.timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+            return true;
+        }
+
+        @Override
+        public long getTimeoutMillis(final Element element) {
+            return element.timeoutMillis;
+        }
+
+        @Override
+        public void setTimeoutMillis(final Element element, final long timeoutMillis) {
+            element.timeoutMillis = timeoutMillis;
+        }
+    }
+}
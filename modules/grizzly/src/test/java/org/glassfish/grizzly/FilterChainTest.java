@@ -43,18 +43,22 @@ package org.glassfish.grizzly;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
+import java.util.ListIterator;
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import junit.framework.TestCase;
 import org.glassfish.grizzly.asyncqueue.MessageCloner;
 import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
@@ -262,6 +266,105 @@ public class FilterChainTest extends TestCase {
         resultFuture.get(10, TimeUnit.SECONDS);
     }
 
+    public void testEventUpstreamSkipsNonOverridingFilters() throws Exception {
+        final Connection connection =
+                new TCPNIOConnection(TCPNIOTransportBuilder.newInstance().build(), null);
+
+        final FilterChain chain = FilterChainBuilder.stateless()
+                .add(new BaseFilter())
+                .add(new EventCounterFilter(0))
+                .add(new BaseFilter())
+                .add(new BaseFilter())
+                .add(new EventCounterFilter(1))
+                .add(new BaseFilter())
+                .build();
+
+        final AtomicInteger counter = new AtomicInteger(0);
+        counterAttr.set(connection, counter);
+        fireEventUpstream(chain, connection, INC_EVENT);
+        assertEquals(2, counter.get());
+
+        // the chain modification has to be reflected
+        final ListIterator<Filter> it = chain.listIterator(chain.size());
+        it.previous();
+        it.set(new EventCounterFilter(2));
+
+        counter.set(0);
+        fireEventUpstream(chain, connection, INC_EVENT);
+        assertEquals(3, counter.get());
+
+        chain.add(3, new EventCounterFilter(1));
+        chain.remove(5);
+
+        counter.set(0);
+        fireEventUpstream(chain, connection, INC_EVENT);
+        assertEquals(3, counter.get());
+    }
+
+    public void testConcurrentFilterSet() throws Exception {
+        final Connection connection =
+                new TCPNIOConnection(TCPNIOTransportBuilder.newInstance().build(), null);
+
+        final FilterChain chain = FilterChainBuilder.stateless()
+                .add(new BaseFilter())
+                .add(new BaseFilter())
+                .add(new EventCounterFilter(-1))
+                .build();
+
+        final AtomicInteger counter = new AtomicInteger(0);
+        counterAttr.set(connection, counter);
+
+        // set() doesn't change the chain size, an index table built for the
+        // previous filters and stored after set() mustn't be used afterwards
+        final AtomicBoolean isDone = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final Thread eventThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (!isDone.get()) {
+                        fireEventUpstream(chain, connection, INC_EVENT);
+                    }
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        };
+        eventThread.start();
+
+        try {
+            for (int i = 0; i < 2000; i++) {
+                chain.set(1, i % 2 == 0
+                        ? new EventCounterFilter(-1)
+                        : new BaseFilter());
+                if (i % 100 == 0) {
+                    Thread.yield();
+                }
+            }
+            chain.set(1, new EventCounterFilter(-1));
+        } finally {
+            isDone.set(true);
+            eventThread.join(10000);
+        }
+        assertNull(error.get());
+
+        counter.set(0);
+        fireEventUpstream(chain, connection, INC_EVENT);
+        assertEquals(2, counter.get());
+    }
+
+    private static void fireEventUpstream(final FilterChain chain,
+            final Connection connection, final FilterChainEvent event)
+            throws Exception {
+        final FutureImpl<FilterChainContext> resultFuture =
+                Futures.createSafeFuture();
+
+        chain.fireEventUpstream(connection, event,
+                Futures.toCompletionHandler(resultFuture));
+
+        resultFuture.get(10, TimeUnit.SECONDS);
+    }
+
     public void testFlush() throws Exception {
         final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
         final MemoryManager mm = transport.getMemoryManager();
@@ -712,6 +815,7 @@ public class FilterChainTest extends TestCase {
     }
     
     private static class EventCounterFilter extends BaseFilter {
+        // the expected counter value, -1 to not check it
         private final int checkValue;
 
         public EventCounterFilter(int checkValue) {
@@ -733,7 +837,7 @@ public class FilterChainTest extends TestCase {
                 throw new UnsupportedOperationException("Unsupported event");
             }
 
-            if (value != checkValue) {
+            if (checkValue >= 0 && value != checkValue) {
                 throw new IllegalStateException("Unexpected value. Expected=" + checkValue + " got=" + value);
             }
 
@@ -57,7 +57,9 @@ import org.glassfish.grizzly.utils.ChunkingFilter;
 import org.glassfish.grizzly.utils.DelayFilter;
 import org.glassfish.grizzly.utils.EchoFilter;
 import org.glassfish.grizzly.utils.StringFilter;
+import org.glassfish.grizzly.compression.zip.DeflaterPool;
 import org.glassfish.grizzly.compression.zip.GZipFilter;
+import org.glassfish.grizzly.compression.zip.InflaterPool;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.Arrays;
@@ -66,11 +68,15 @@ import java.util.Random;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test set for {@link GZipFilter}.
@@ -137,11 +143,74 @@ public class GZipTest {
         doTest(true, array);
     }
 
+    @Test
+    public void testPooledDeflatersAndInflaters() throws Exception {
+        final DeflaterPool deflaterPool = new DeflaterPool(
+                Deflater.BEST_SPEED, Deflater.FILTERED, 4);
+        final InflaterPool inflaterPool = new InflaterPool(4);
+
+        String[] array = new String[10];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = "Hello world #" + i;
+        }
+
+        doTest(false, inflaterPool, deflaterPool, array);
+
+        // each echoed message is compressed twice (client and server)
+        // and decompressed twice, one stream at a time
+        assertEquals(20, deflaterPool.getHits() + deflaterPool.getMisses());
+        assertTrue(deflaterPool.getHits() >= 18);
+        assertEquals(20, inflaterPool.getHits() + inflaterPool.getMisses());
+        assertTrue(inflaterPool.getHits() >= 18);
+        assertTrue(deflaterPool.getPoolSize() <= 4);
+        assertTrue(inflaterPool.getPoolSize() <= 4);
+
+        deflaterPool.clear();
+        inflaterPool.clear();
+        assertEquals(0, deflaterPool.getPoolSize());
+        assertEquals(0, inflaterPool.getPoolSize());
+    }
+
+    @Test
+    public void testDeflaterPoolOverflow() throws Exception {
+        final DeflaterPool deflaterPool = new DeflaterPool(
+                Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, 1);
+
+        final Deflater d1 = deflaterPool.acquire();
+        final Deflater d2 = deflaterPool.acquire();
+        assertEquals(2, deflaterPool.getMisses());
+
+        deflaterPool.release(d1);
+        deflaterPool.release(d2);
+        assertEquals(1, deflaterPool.getPoolSize());
+
+        // the first deflater is pooled, the second one has been ended
+        assertSame(d1, deflaterPool.acquire());
+        assertEquals(1, deflaterPool.getHits());
+        try {
+            d2.setInput(new byte[1]);
+            d2.deflate(new byte[16]);
+            fail("The deflater, which didn't fit the pool, is expected to be ended");
+        } catch (NullPointerException expected) {
+        }
+
+        try {
+            new DeflaterPool(10, Deflater.DEFAULT_STRATEGY, 1);
+            fail("IllegalArgumentException is expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
     void doTest(String... messages) throws Exception {
         doTest(false, messages);
     }
 
     void doTest(boolean applyChunking, String... messages) throws Exception {
+        doTest(applyChunking, null, null, messages);
+    }
+
+    void doTest(boolean applyChunking, InflaterPool inflaterPool,
+            DeflaterPool deflaterPool, String... messages) throws Exception {
         Connection connection = null;
 
         FilterChainBuilder serverChainBuilder = FilterChainBuilder.stateless();
@@ -151,7 +220,7 @@ public class GZipTest {
             serverChainBuilder.add(new DelayFilter(50, 50));
         }
         
-        serverChainBuilder.add(new GZipFilter());
+        serverChainBuilder.add(createGZipFilter(inflaterPool, deflaterPool));
         serverChainBuilder.add(new StringFilter());
         serverChainBuilder.add(new EchoFilter());
 
@@ -167,7 +236,7 @@ public class GZipTest {
             FutureImpl<Boolean> completeFuture = SafeFutureImpl.create();
             FilterChainBuilder clientChainBuilder = FilterChainBuilder.stateless();
             clientChainBuilder.add(new TransportFilter());
-            clientChainBuilder.add(new GZipFilter());
+            clientChainBuilder.add(createGZipFilter(inflaterPool, deflaterPool));
             clientChainBuilder.add(new StringFilter());
             clientChainBuilder.add(new ClientEchoCheckFilter(completeFuture, messages));
 
@@ -189,6 +258,13 @@ public class GZipTest {
         }
     }
 
+    private static GZipFilter createGZipFilter(final InflaterPool inflaterPool,
+            final DeflaterPool deflaterPool) {
+        return inflaterPool != null
+                ? new GZipFilter(512, 512, inflaterPool, deflaterPool)
+                : new GZipFilter();
+    }
+
     private static final class ClientEchoCheckFilter extends BaseFilter {
         private final String[] messages;
         private final FutureImpl<Boolean> future;
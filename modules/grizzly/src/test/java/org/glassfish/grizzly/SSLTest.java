@@ -76,10 +76,14 @@ import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.MemoryProbe;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.ssl.SSLContextConfigurator;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.ssl.SSLFilter;
+import org.glassfish.grizzly.ssl.SSLHandshakeExecutor;
+import org.glassfish.grizzly.ssl.SSLHandshakeStatistics;
 import org.glassfish.grizzly.ssl.SSLStreamReader;
 import org.glassfish.grizzly.ssl.SSLStreamWriter;
 import org.glassfish.grizzly.streams.StreamReader;
@@ -89,6 +93,7 @@ import org.glassfish.grizzly.utils.EchoFilter;
 import org.glassfish.grizzly.utils.StringFilter;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManager;
@@ -398,6 +403,431 @@ public class SSLTest {
     }
 
 
+    @Test
+    public void testHandshakeExecutor() throws Exception {
+
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        SSLEngineConfigurator clientSSLEngineConfigurator = null;
+        SSLEngineConfigurator serverSSLEngineConfigurator = null;
+
+        final SSLHandshakeExecutor handshakeExecutor =
+                new SSLHandshakeExecutor(1, 4);
+
+        if (sslContextConfigurator.validateConfiguration(true)) {
+            clientSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(true));
+            serverSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(true),
+                    false, false, false)
+                    .setHandshakeExecutor(handshakeExecutor);
+        } else {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+
+        final FutureImpl<String> responseFuture = Futures.createSafeFuture();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(serverSSLEngineConfigurator, null));
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        final SSLFilter clientSSLFilter =
+                new SSLFilter(null, clientSSLEngineConfigurator);
+        clientSSLFilter.setHandshakeExecutor(handshakeExecutor);
+
+        TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(clientSSLFilter);
+        clientChain.add(new StringFilter());
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                responseFuture.result((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            cTransport.start();
+
+            Future<Connection> future = cTransport.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+
+            assertNotNull(connection);
+
+            connection.write("message");
+
+            assertEquals("message", responseFuture.get(10, TimeUnit.SECONDS));
+
+            // both the client and the server have had delegated tasks to run
+            assertTrue(handshakeExecutor.getCompletedHandshakes() >= 2);
+            assertEquals(0, handshakeExecutor.getRejectedHandshakes());
+            assertEquals(0, handshakeExecutor.getActiveHandshakes());
+            assertEquals(0, handshakeExecutor.getQueuedHandshakes());
+
+            connection.closeSilently();
+            connection = null;
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+            handshakeExecutor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testHandshakeStatistics() throws Exception {
+
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        sslContextConfigurator.setSessionCacheShared(true);
+        sslContextConfigurator.setSessionCacheSize(16);
+        sslContextConfigurator.setSessionTimeout(60);
+
+        SSLEngineConfigurator clientSSLEngineConfigurator = null;
+        SSLEngineConfigurator serverSSLEngineConfigurator = null;
+
+        if (sslContextConfigurator.validateConfiguration(true)) {
+            final SSLContext serverSSLContext =
+                    sslContextConfigurator.createSSLContext(true);
+            // the shared context, and so its session cache, is reused
+            assertSame(serverSSLContext,
+                    sslContextConfigurator.createSSLContext(true));
+            assertEquals(16,
+                    serverSSLContext.getServerSessionContext().getSessionCacheSize());
+
+            clientSSLEngineConfigurator =
+                    new SSLEngineConfigurator(serverSSLContext);
+            serverSSLEngineConfigurator =
+                    new SSLEngineConfigurator(serverSSLContext,
+                    false, false, false);
+        } else {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+
+        final SSLHandshakeStatistics statistics = new SSLHandshakeStatistics();
+        final SSLFilter serverSSLFilter =
+                new SSLFilter(serverSSLEngineConfigurator, null);
+        serverSSLFilter.getMonitoringConfig().addProbes(statistics);
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(serverSSLFilter);
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        final int connectionsCount = 2;
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            for (int i = 0; i < connectionsCount; i++) {
+                final FutureImpl<String> responseFuture =
+                        Futures.createSafeFuture();
+
+                TCPNIOTransport cTransport =
+                        TCPNIOTransportBuilder.newInstance().build();
+                FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+                clientChain.add(new TransportFilter());
+                clientChain.add(new SSLFilter(null, clientSSLEngineConfigurator));
+                clientChain.add(new StringFilter());
+                clientChain.add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                        responseFuture.result((String) ctx.getMessage());
+                        return ctx.getStopAction();
+                    }
+                });
+                cTransport.setProcessor(clientChain.build());
+                cTransport.setMemoryManager(manager);
+
+                Connection connection = null;
+                try {
+                    cTransport.start();
+
+                    Future<Connection> future = cTransport.connect("localhost", PORT);
+                    connection = future.get(10, TimeUnit.SECONDS);
+                    assertNotNull(connection);
+
+                    connection.write("message" + i);
+                    assertEquals("message" + i,
+                            responseFuture.get(10, TimeUnit.SECONDS));
+                } finally {
+                    if (connection != null) {
+                        connection.closeSilently();
+                    }
+                    cTransport.shutdownNow();
+                }
+            }
+
+            assertEquals(0, statistics.getFailedHandshakes());
+            assertTrue(statistics.getFullHandshakes() >= 1);
+            assertEquals(connectionsCount, statistics.getFullHandshakes()
+                    + statistics.getResumedHandshakes());
+
+            long histogramTotal = 0;
+            for (long count : statistics.getHandshakeTimeHistogram()) {
+                histogramTotal += count;
+            }
+            assertEquals(connectionsCount, histogramTotal);
+
+            long protocolsTotal = 0;
+            for (long count : statistics.getProtocols().values()) {
+                protocolsTotal += count;
+            }
+            assertEquals(connectionsCount, protocolsTotal);
+            assertFalse(statistics.getCipherSuites().isEmpty());
+            assertTrue(statistics.getMaxHandshakeTime(TimeUnit.NANOSECONDS)
+                    >= statistics.getAverageHandshakeTime(TimeUnit.NANOSECONDS));
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testSSLParametersTemplate() throws Exception {
+
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        SSLEngineConfigurator clientSSLEngineConfigurator = null;
+        SSLEngineConfigurator serverSSLEngineConfigurator = null;
+
+        if (sslContextConfigurator.validateConfiguration(true)) {
+            final SSLContext sslContext =
+                    sslContextConfigurator.createSSLContext(true);
+            final String[] defaultCipherSuites =
+                    sslContext.createSSLEngine().getEnabledCipherSuites();
+            final String[] cipherSuites = Arrays.copyOf(defaultCipherSuites,
+                    defaultCipherSuites.length + 1);
+            cipherSuites[defaultCipherSuites.length] = "UNKNOWN_CIPHER_SUITE";
+            final String[] protocols = {"UNKNOWN_PROTOCOL", "TLSv1.2", "TLSv1.1"};
+
+            clientSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContext)
+                    .setEnabledCipherSuites(cipherSuites)
+                    .setEnabledProtocols(protocols)
+                    .setUseSSLParametersTemplate(true);
+            serverSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContext, false, false, true)
+                    .setEnabledCipherSuites(cipherSuites)
+                    .setEnabledProtocols(protocols)
+                    .setUseSSLParametersTemplate(true);
+
+            final SSLEngineConfigurator[] configurators = {
+                clientSSLEngineConfigurator, serverSSLEngineConfigurator
+            };
+            for (SSLEngineConfigurator configurator : configurators) {
+                final SSLEngine expected = configurator.copy()
+                        .setUseSSLParametersTemplate(false)
+                        .createSSLEngine("localhost", PORT);
+                // configure twice to check the template is reused
+                configurator.createSSLEngine();
+                final SSLEngine sslEngine =
+                        configurator.createSSLEngine("localhost", PORT);
+
+                assertEquals(expected.getUseClientMode(), sslEngine.getUseClientMode());
+                assertArrayEquals(expected.getEnabledCipherSuites(),
+                        sslEngine.getEnabledCipherSuites());
+                assertArrayEquals(expected.getEnabledProtocols(),
+                        sslEngine.getEnabledProtocols());
+                assertEquals(expected.getWantClientAuth(), sslEngine.getWantClientAuth());
+                assertEquals(expected.getNeedClientAuth(), sslEngine.getNeedClientAuth());
+                // the server name, derived from the peer host, is kept
+                assertEquals(expected.getSSLParameters().getServerNames(),
+                        sslEngine.getSSLParameters().getServerNames());
+            }
+        } else {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+
+        final FutureImpl<String> responseFuture = Futures.createSafeFuture();
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(serverSSLEngineConfigurator, null));
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(new SSLFilter(null, clientSSLEngineConfigurator));
+        clientChain.add(new StringFilter());
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                responseFuture.result((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            cTransport.start();
+
+            Future<Connection> future = cTransport.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+
+            assertNotNull(connection);
+
+            connection.write("message");
+
+            assertEquals("message", responseFuture.get(10, TimeUnit.SECONDS));
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testWrapMultipleRecords() throws Exception {
+
+        Connection connection = null;
+        SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        SSLEngineConfigurator clientSSLEngineConfigurator = null;
+        SSLEngineConfigurator serverSSLEngineConfigurator = null;
+
+        if (sslContextConfigurator.validateConfiguration(true)) {
+            clientSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(true));
+            serverSSLEngineConfigurator =
+                    new SSLEngineConfigurator(sslContextConfigurator.createSSLContext(true),
+                    false, false, false);
+        } else {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+
+        // spans several TLS records, so several records are wrapped into
+        // one network buffer
+        final byte[] message = new byte[200 * 1024 + 17];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+
+        final FutureImpl<Buffer> responseFuture = Futures.createSafeFuture();
+
+        // net buffers, which are not returned to the pool after the write,
+        // show up as buffers taken from the pool and never released
+        final AtomicInteger pooledBuffersInUse = new AtomicInteger();
+        final PooledMemoryManager pooledManager = new PooledMemoryManager();
+        pooledManager.getMonitoringConfig().addProbes(new MemoryProbe.Adapter() {
+            @Override
+            public void onBufferAllocateFromPoolEvent(int size) {
+                pooledBuffersInUse.incrementAndGet();
+            }
+
+            @Override
+            public void onBufferReleaseToPoolEvent(int size) {
+                pooledBuffersInUse.decrementAndGet();
+            }
+        });
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(serverSSLEngineConfigurator, null));
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(pooledManager);
+
+        TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(new SSLFilter(null, clientSSLEngineConfigurator));
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                if (buffer.remaining() < message.length) {
+                    return ctx.getStopAction(buffer);
+                }
+
+                responseFuture.result(buffer);
+                return ctx.getStopAction();
+            }
+        });
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(pooledManager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            cTransport.start();
+
+            Future<Connection> future = cTransport.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+
+            assertNotNull(connection);
+
+            connection.write(Buffers.wrap(pooledManager, message));
+
+            final Buffer response = responseFuture.get(10, TimeUnit.SECONDS);
+            final byte[] responseBytes = new byte[response.remaining()];
+            response.get(responseBytes);
+            response.tryDispose();
+
+            assertArrayEquals(message, responseBytes);
+
+            connection.closeSilently();
+            connection = null;
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+
+        // the connections are closed asynchronously, give them a moment
+        // to release their buffers
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (pooledBuffersInUse.get() != 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, pooledBuffersInUse.get());
+    }
+
+
     // ------------------------------------------------------- Protected Methods
 
 
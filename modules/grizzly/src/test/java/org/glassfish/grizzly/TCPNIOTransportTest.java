@@ -41,10 +41,15 @@
 package org.glassfish.grizzly;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
 import java.util.Arrays;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -64,12 +69,15 @@ import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
+import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
 import org.glassfish.grizzly.nio.AbstractNIOConnectionDistributor;
+import org.glassfish.grizzly.nio.DefaultSelectorHandler;
 import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.nio.NIOTransport;
 import org.glassfish.grizzly.nio.RegisterChannelResult;
 import org.glassfish.grizzly.nio.SelectorRunner;
+import org.glassfish.grizzly.nio.transport.AdaptiveReceiveBufferSizer;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOServerConnection;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
@@ -89,6 +97,7 @@ import org.junit.Test;
 
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
@@ -349,6 +358,234 @@ public class TCPNIOTransportTest {
         }
     }
 
+    @Test
+    public void testArraySelectedKeys() throws Exception {
+        final int connectionsCount = 16;
+        final BlockingQueue<String> echoQueue = new LinkedTransferQueue<>();
+        
+        final FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.stateless();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(new StringFilter());
+        serverFilterChainBuilder.add(new EchoFilter());
+
+        final FilterChainBuilder clientFilterChainBuilder = FilterChainBuilder.stateless();
+        clientFilterChainBuilder.add(new TransportFilter());
+        clientFilterChainBuilder.add(new StringFilter());
+        clientFilterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+                echoQueue.offer((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setSelectorHandler(new DefaultSelectorHandler(
+                        30, TimeUnit.SECONDS, true))
+                .setProcessor(serverFilterChainBuilder.build())
+                .build();
+        final TCPNIOTransport clientTransport = TCPNIOTransportBuilder.newInstance()
+                .setSelectorHandler(new DefaultSelectorHandler(
+                        30, TimeUnit.SECONDS, true))
+                .setProcessor(clientFilterChainBuilder.build())
+                .build();
+        
+        final Connection[] connections = new Connection[connectionsCount];
+        try {
+            transport.bind(PORT);
+            transport.start();
+            clientTransport.start();
+            
+            for (int i = 0; i < connectionsCount; i++) {
+                connections[i] = clientTransport.connect("localhost", PORT)
+                        .get(10, TimeUnit.SECONDS);
+            }
+            
+            for (int i = 0; i < connectionsCount; i++) {
+                //noinspection unchecked
+                connections[i].write("Hello " + i);
+            }
+            
+            final boolean[] echoed = new boolean[connectionsCount];
+            for (int i = 0; i < connectionsCount; i++) {
+                final String echo = echoQueue.poll(10, TimeUnit.SECONDS);
+                assertNotNull("Echo timeout", echo);
+                
+                final int idx = Integer.parseInt(echo.substring("Hello ".length()));
+                assertTrue(!echoed[idx]);
+                echoed[idx] = true;
+            }
+            
+            // the selected key set has to be replaced by the array-backed one
+            final NIOConnection nioConnection = (NIOConnection) connections[0];
+            final Set<SelectionKey> selectedKeys =
+                    nioConnection.getSelectorRunner().getSelector().selectedKeys();
+            assertEquals("org.glassfish.grizzly.nio.SelectedKeySet",
+                    selectedKeys.getClass().getName());
+            
+            // the array-backed set never looks the keys up
+            final SelectionKey key = nioConnection.getSelectionKey();
+            assertFalse(selectedKeys.contains(key));
+            assertFalse(selectedKeys.remove(key));
+        } finally {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    connection.closeSilently();
+                }
+            }
+            
+            clientTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAdaptiveReceiveBufferSize() throws Exception {
+        final AtomicInteger lastReceiveBufferSize = new AtomicInteger();
+        final AtomicInteger maxReceiveBufferSize = new AtomicInteger();
+        final AtomicInteger bytesReceived = new AtomicInteger();
+        
+        final FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.stateless();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                bytesReceived.addAndGet(buffer.remaining());
+                buffer.tryDispose();
+                
+                // ack every read
+                ctx.write(Buffers.wrap(ctx.getMemoryManager(), new byte[] {'k'}));
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setReceiveBufferSizer(new AdaptiveReceiveBufferSizer(64, 1024, 65536))
+                .setProcessor(serverFilterChainBuilder.build())
+                .build();
+        transport.getConnectionMonitoringConfig().addProbes(new ConnectionProbe.Adapter() {
+            @Override
+            public void onReceiveBufferSizeEvent(Connection connection, int size) {
+                lastReceiveBufferSize.set(size);
+                if (size > maxReceiveBufferSize.get()) {
+                    maxReceiveBufferSize.set(size);
+                }
+            }
+        });
+        
+        Socket socket = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+            
+            socket = new Socket("localhost", PORT);
+            socket.setSoTimeout(10000);
+            final OutputStream out = socket.getOutputStream();
+            final InputStream in = socket.getInputStream();
+            
+            // small request/response exchanges shrink the buffer to the minimum
+            final byte[] smallRequest = new byte[10];
+            for (int i = 0; i < 100; i++) {
+                out.write(smallRequest);
+                out.flush();
+                assertEquals('k', in.read());
+            }
+            
+            assertEquals(64, lastReceiveBufferSize.get());
+            assertEquals(1024, maxReceiveBufferSize.get());
+            
+            // bulk transfer grows it to the maximum
+            final int bulkSize = 1024 * 1024;
+            out.write(new byte[bulkSize]);
+            out.flush();
+            
+            final int expectedBytes = 100 * smallRequest.length + bulkSize;
+            for (int i = 0; i < 1000 && bytesReceived.get() < expectedBytes; i++) {
+                Thread.sleep(10);
+            }
+            
+            assertEquals(expectedBytes, bytesReceived.get());
+            assertEquals(65536, maxReceiveBufferSize.get());
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+            
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteCork() throws Exception {
+        final AtomicInteger queuedBytes = new AtomicInteger(-1);
+
+        final FilterChainBuilder serverFilterChainBuilder = FilterChainBuilder.stateless();
+        serverFilterChainBuilder.add(new TransportFilter());
+        serverFilterChainBuilder.add(new BaseFilter() {
+
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                buffer.tryDispose();
+
+                // three responses per read, like pipelined HTTP responses
+                for (int i = 0; i < 3; i++) {
+                    ctx.write(Buffers.wrap(ctx.getMemoryManager(),
+                            new byte[] {(byte) ('a' + i), (byte) ('a' + i)}));
+                }
+
+                // the corked responses are still queued
+                final NIOConnection connection = (NIOConnection) ctx.getConnection();
+                queuedBytes.set(connection.getAsyncWriteQueue().spaceInBytes());
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setWriteCorkSize(16384)
+                .setProcessor(serverFilterChainBuilder.build())
+                .build();
+        assertEquals(16384, transport.getWriteCorkSize());
+
+        Socket socket = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            socket = new Socket("localhost", PORT);
+            socket.setSoTimeout(10000);
+            final OutputStream out = socket.getOutputStream();
+            final InputStream in = socket.getInputStream();
+
+            for (int i = 0; i < 10; i++) {
+                out.write('r');
+                out.flush();
+
+                final byte[] response = new byte[6];
+                int offset = 0;
+                while (offset < response.length) {
+                    final int read = in.read(response, offset,
+                            response.length - offset);
+                    assertTrue(read > 0);
+                    offset += read;
+                }
+
+                assertEquals("aabbcc", new String(response, "ASCII"));
+                assertEquals(6, queuedBytes.get());
+            }
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
     @Test
     public void testConnectFutureCancel() throws Exception {
         TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance().build();
@@ -41,18 +41,30 @@
 package org.glassfish.grizzly;
 
 import org.glassfish.grizzly.threadpool.AbstractThreadPool;
+import org.glassfish.grizzly.threadpool.AffinityThreadPool;
 import org.glassfish.grizzly.threadpool.FixedThreadPool;
 import org.glassfish.grizzly.threadpool.SyncThreadPool;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.AffinityWorkerThreadIOStrategy;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
 
@@ -120,5 +132,208 @@ public class ThreadPoolsTest {
         } finally {
             tcpTransport.shutdownNow();
         }
-    }    
+    }
+
+    @Test
+    public void testAffinityThreadPoolSameKeySameWorker() throws Exception {
+        final List<Thread> poolThreads = new CopyOnWriteArrayList<Thread>();
+        final ThreadPoolConfig config = ThreadPoolConfig.defaultConfig().copy()
+                .setCorePoolSize(4).setMaxPoolSize(4)
+                .setThreadFactory(trackingThreadFactory(poolThreads));
+        final AffinityThreadPool pool = new AffinityThreadPool(config, 2);
+        try {
+            assertEquals(2, pool.getGroupsCount());
+            
+            for (int key = 0; key < 8; key++) {
+                final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+                for (int i = 0; i < 20; i++) {
+                    awaitParked(poolThreads);
+                    final CountDownLatch latch = new CountDownLatch(1);
+                    pool.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            threads.add(Thread.currentThread());
+                            latch.countDown();
+                        }
+                    }, key, key);
+                    // the pool is idle, so nobody steals the task
+                    assertTrue(latch.await(10, TimeUnit.SECONDS));
+                }
+
+                assertEquals("Key " + key + " tasks were processed by "
+                        + threads, 1, threads.size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAffinityThreadPoolWorkStealing() throws Exception {
+        final AtomicInteger stolenCount = new AtomicInteger();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        final List<Thread> poolThreads = new CopyOnWriteArrayList<Thread>();
+        final ThreadPoolConfig config = ThreadPoolConfig.defaultConfig().copy()
+                .setCorePoolSize(2).setMaxPoolSize(2)
+                .setThreadFactory(trackingThreadFactory(poolThreads));
+        config.getInitialMonitoringConfig().addProbes(new ThreadPoolProbe.Adapter() {
+            @Override
+            public void onTaskStealEvent(AbstractThreadPool threadPool,
+                    Runnable task) {
+                stolenCount.incrementAndGet();
+            }
+
+            @Override
+            public void onWorkerQueueDepthEvent(AbstractThreadPool threadPool,
+                    Thread worker, int queueDepth) {
+                maxDepth.set(Math.max(maxDepth.get(), queueDepth));
+            }
+        });
+        
+        // two groups with one worker each
+        final AffinityThreadPool pool = new AffinityThreadPool(config, 2);
+        try {
+            awaitParked(poolThreads);
+            final CountDownLatch blockerStarted = new CountDownLatch(1);
+            final CountDownLatch releaseBlocker = new CountDownLatch(1);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blockerStarted.countDown();
+                    try {
+                        releaseBlocker.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }, 0, "key");
+            assertTrue(blockerStarted.await(10, TimeUnit.SECONDS));
+            
+            // the group 0 worker is blocked, the tasks have to be stolen
+            // by the group 1 worker
+            final int tasksCount = 10;
+            final CountDownLatch tasksLatch = new CountDownLatch(tasksCount);
+            for (int i = 0; i < tasksCount; i++) {
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        tasksLatch.countDown();
+                    }
+                }, 0, "key");
+            }
+            
+            assertTrue(tasksLatch.await(10, TimeUnit.SECONDS));
+            assertEquals(tasksCount, stolenCount.get());
+            assertTrue(maxDepth.get() >= 1);
+            releaseBlocker.countDown();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAffinityThreadPoolShutdown() throws Exception {
+        final ThreadPoolConfig config = ThreadPoolConfig.defaultConfig().copy()
+                .setCorePoolSize(2).setMaxPoolSize(2);
+        final AffinityThreadPool pool = new AffinityThreadPool(config, 1);
+        
+        final CountDownLatch releaseBlockers = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        releaseBlockers.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            });
+        }
+        
+        final AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    completed.incrementAndGet();
+                }
+            }, 0, i);
+        }
+        
+        pool.shutdown();
+        releaseBlockers.countDown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        // shutdown() lets the queued tasks complete
+        assertEquals(5, completed.get());
+        
+        final AffinityThreadPool pool2 = new AffinityThreadPool(config, 1);
+        final CountDownLatch blockerStarted = new CountDownLatch(2);
+        final CountDownLatch releaseBlockers2 = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            pool2.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blockerStarted.countDown();
+                    try {
+                        releaseBlockers2.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            });
+        }
+        assertTrue(blockerStarted.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            pool2.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, 0, i);
+        }
+        
+        assertEquals(5, pool2.getQueue().size());
+        final List<Runnable> cancelled = pool2.shutdownNow();
+        assertEquals(5, cancelled.size());
+        assertTrue(pool2.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAffinityWorkerThreadStrategyThreadPool() throws Exception {
+        final TCPNIOTransport tcpTransport = TCPNIOTransportBuilder.newInstance()
+                .setReuseAddress(true)
+                .setIOStrategy(AffinityWorkerThreadIOStrategy.getInstance())
+                .setSelectorRunnersCount(2)
+                .build();
+        try {
+            tcpTransport.start();
+            assertTrue(tcpTransport.getWorkerThreadPool() instanceof AffinityThreadPool);
+            assertEquals(2, ((AffinityThreadPool) tcpTransport.getWorkerThreadPool())
+                    .getGroupsCount());
+        } finally {
+            tcpTransport.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory trackingThreadFactory(final List<Thread> threads) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r);
+                t.setDaemon(true);
+                threads.add(t);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * Waits until all the workers are parked, otherwise a worker, which is
+     * not parked yet, is considered busy and its task might be stolen.
+     */
+    private static void awaitParked(final List<Thread> threads)
+            throws InterruptedException {
+        for (Thread t : threads) {
+            while (t.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+    }
 }
@@ -41,14 +41,22 @@
 package org.glassfish.grizzly;
 
 import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.glassfish.grizzly.filterchain.*;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
 import org.glassfish.grizzly.nio.transport.UDPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.UDPNIOTransport;
 import org.glassfish.grizzly.nio.transport.UDPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -124,5 +132,75 @@ public class UDPNIOTransportTest {
         } finally {
             transport.shutdownNow();
         }
-    }    
+    }
+
+    @Test
+    public void testReadBatch() throws Exception {
+        final int datagramsNum = 10;
+
+        final UDPNIOTransport transport = UDPNIOTransportBuilder.newInstance()
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setReadBatchSize(16)
+                .build();
+        assertEquals(16, transport.getReadBatchSize());
+
+        final AtomicInteger readEventsCounter = new AtomicInteger();
+        transport.getConnectionMonitoringConfig().addProbes(
+                new ConnectionProbe.Adapter() {
+            @Override
+            public void onIOEventReadyEvent(Connection connection, IOEvent ioEvent) {
+                if (ioEvent == IOEvent.READ) {
+                    readEventsCounter.incrementAndGet();
+                }
+            }
+        });
+
+        final List<String> received = new CopyOnWriteArrayList<String>();
+        final List<SocketAddress> sources = new CopyOnWriteArrayList<SocketAddress>();
+        final CountDownLatch latch = new CountDownLatch(datagramsNum);
+
+        transport.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                received.add(buffer.toStringContent());
+                sources.add((SocketAddress) ctx.getAddress());
+                buffer.tryDispose();
+                latch.countDown();
+                return ctx.getStopAction();
+            }
+        }).build());
+
+        final DatagramSocket client = new DatagramSocket();
+        try {
+            transport.bind(PORT);
+
+            // the datagrams are queued before the channel is registered,
+            // so all of them are ready on the first READ event
+            final InetSocketAddress serverAddress =
+                    new InetSocketAddress("localhost", PORT);
+            for (int i = 0; i < datagramsNum; i++) {
+                final byte[] payload = ("datagram-" + i).getBytes();
+                client.send(new DatagramPacket(payload, payload.length,
+                        serverAddress));
+            }
+
+            transport.start();
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            for (int i = 0; i < datagramsNum; i++) {
+                assertEquals("datagram-" + i, received.get(i));
+                assertEquals(client.getLocalPort(),
+                        ((InetSocketAddress) sources.get(i)).getPort());
+            }
+
+            assertEquals(1, readEventsCounter.get());
+        } finally {
+            client.close();
+            transport.shutdownNow();
+        }
+    }
 }
@@ -744,15 +744,141 @@ public class PooledMemoryManagerTest {
         assertFalse(slice0.offer(slice0.allocate()));
     }
 
+    @Test
+    public void bulkPollOfferTest() {
+        final PooledMemoryManager mm = new PooledMemoryManager(
+                128, 1, 0, 1,
+                1024.0f / Runtime.getRuntime().maxMemory(),
+                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                isDirect);
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final PooledMemoryManager.PoolSlice slice0 = mm.getPools()[0].getSlices()[0];
+        final int elementCount = slice0.elementsCount();
+        assertEquals(16, elementCount);
+        
+        final PooledMemoryManager.PoolBuffer[] buffers1 =
+                new PooledMemoryManager.PoolBuffer[10];
+        final PooledMemoryManager.PoolBuffer[] buffers2 =
+                new PooledMemoryManager.PoolBuffer[elementCount];
+        assertEquals(10, slice0.poll(buffers1, 10));
+        assertEquals(elementCount - 10, slice0.elementsCount());
+        assertEquals(elementCount - 10, slice0.poll(buffers2, elementCount));
+        assertEquals(0, slice0.elementsCount());
+        assertEquals(0, slice0.poll(buffers2, elementCount));
+        
+        assertEquals(10, slice0.offer(buffers1, 10));
+        assertEquals(10, slice0.elementsCount());
+        
+        // only the free space is claimed
+        buffers2[elementCount - 10] = slice0.allocate();
+        assertEquals(elementCount - 10,
+                slice0.offer(buffers2, elementCount - 10 + 1));
+        assertEquals(elementCount, slice0.elementsCount());
+        assertEquals(0, slice0.offer(buffers2, 1));
+        
+        // bulk operations don't notify probes
+        assertEquals(0, probe.bufferAllocatedFromPool.get());
+        assertEquals(0, probe.bufferReleasedToPool.get());
+    }
+
+    @Test
+    public void threadCacheTest() {
+        final PooledMemoryManager mm = new PooledMemoryManager(
+                128, 1, 0, 1,
+                4096.0f / Runtime.getRuntime().maxMemory(),
+                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                isDirect, 4);
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final PooledMemoryManager.Pool pool = mm.getPools()[0];
+        final int elementCount = pool.elementsCount();
+        assertTrue(elementCount >= 16);
+        
+        final Buffer[] buffers = new Buffer[10];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(128);
+        }
+        
+        // 3 refills of 4 buffers
+        assertEquals(elementCount - 12, pool.elementsCount());
+        assertEquals(2, pool.threadCacheElementsCount());
+        assertEquals(10, probe.bufferAllocatedFromPool.get());
+        assertEquals(7, probe.bufferAllocatedFromThreadCache.get());
+        assertEquals(0, probe.bufferAllocated.get());
+        
+        for (Buffer buffer : buffers) {
+            assertTrue(buffer.tryDispose());
+        }
+        
+        // one full magazine has been flushed back to the pool
+        assertEquals(elementCount - 8, pool.elementsCount());
+        assertEquals(8, pool.threadCacheElementsCount());
+        assertEquals(10, probe.bufferReleasedToPool.get());
+        assertEquals(9, probe.bufferReleasedToThreadCache.get());
+    }
+
+    @Test
+    public void leakDetectionTest() throws Exception {
+        final PooledMemoryManager mm = new PooledMemoryManager(
+                128, 1, 0, 1,
+                1024.0f / Runtime.getRuntime().maxMemory(),
+                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE,
+                isDirect);
+        assertEquals(LeakDetector.Level.DISABLED, mm.getLeakDetectionLevel());
+        mm.setLeakDetectionLevel(LeakDetector.Level.PARANOID);
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        // the disposed buffers are not reported
+        for (int i = 0; i < 32; i++) {
+            mm.allocate(128).dispose();
+        }
+        
+        leakBuffer(mm);
+        
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (probe.bufferLeaked.get() == 0
+                && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+            // leaks are reported, when the next buffer is tracked
+            mm.allocate(128).dispose();
+        }
+        
+        assertEquals(1, probe.bufferLeaked.get());
+        final String records = probe.leakAccessRecords;
+        assertTrue(records, records.contains("Hint: test-hint"));
+        assertTrue(records, records.contains("Hint: Buffers.appendBuffers"));
+        assertTrue(records, records.contains("leakBuffer"));
+    }
+    
+    private static void leakBuffer(final PooledMemoryManager mm) {
+        final Buffer buffer = mm.allocate(128);
+        LeakDetector.touch(buffer, "test-hint");
+        Buffers.appendBuffers(mm, buffer, Buffers.wrap(mm, "appended"));
+    }
+
     @Test
     public void stressTest() {
+        stressTest(0);
+    }
+
+    @Test
+    public void threadCacheStressTest() {
+        stressTest(32);
+    }
+
+    private void stressTest(final int magazineSize) {
         final int poolsNum = 3;
         
         final int numTestThreads =
                 Runtime.getRuntime().availableProcessors() * 8;
         final PooledMemoryManager mm = new PooledMemoryManager(
                 4096, poolsNum, 1, Runtime.getRuntime().availableProcessors(), .10f,
-                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect);
+                DEFAULT_PREALLOCATED_BUFFERS_PERCENTAGE, isDirect, magazineSize);
         final ThreadFactory f =
                 new ThreadFactory() {
                     final AtomicInteger ii =
@@ -823,6 +949,13 @@ public class PooledMemoryManagerTest {
 
         for (int i = 0; i < poolsNum; i++) {
             PooledMemoryManager.Pool pool = mm.getPools()[i];
+            if (magazineSize > 0) {
+                // the buffers cached by the test threads are not in the pool
+                assertTrue("Pool[" + Integer.toHexString(pool.hashCode()) + "] at index " + i + ", has an incorrect size.  Expected at most: "
+                                 + expectedElementCount[i] + ", actual: " + pool.elementsCount() + "\npool: " + pool.toString(),
+                         pool.elementsCount() <= expectedElementCount[i]);
+                continue;
+            }
             assertEquals("Pool[" + Integer.toHexString(pool.hashCode()) + "] at index " + i + ", has an incorrect size.  Expected: "
                                  + expectedElementCount[i] + ", actual: " + pool.elementsCount() + "\npool: " + pool.toString(),
                          expectedElementCount[i],
@@ -839,6 +972,10 @@ public class PooledMemoryManagerTest {
         final AtomicInteger bufferAllocated = new AtomicInteger();
         final AtomicInteger bufferAllocatedFromPool = new AtomicInteger();
         final AtomicInteger bufferReleasedToPool = new AtomicInteger();
+        final AtomicInteger bufferAllocatedFromThreadCache = new AtomicInteger();
+        final AtomicInteger bufferReleasedToThreadCache = new AtomicInteger();
+        final AtomicInteger bufferLeaked = new AtomicInteger();
+        volatile String leakAccessRecords;
 
         @Override
         public void onBufferAllocateEvent(int size) {
@@ -854,5 +991,21 @@ public class PooledMemoryManagerTest {
         public void onBufferReleaseToPoolEvent(int size) {
             bufferReleasedToPool.incrementAndGet();
         }
+
+        @Override
+        public void onBufferAllocateFromThreadCacheEvent(int size) {
+            bufferAllocatedFromThreadCache.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferReleaseToThreadCacheEvent(int size) {
+            bufferReleasedToThreadCache.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferLeakEvent(int size, String accessRecords) {
+            leakAccessRecords = accessRecords;
+            bufferLeaked.incrementAndGet();
+        }
     }
 }
@@ -49,6 +49,7 @@ import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeHeaders;
 
 import java.util.Arrays;
@@ -179,6 +180,12 @@ public class CompressionEncodingFilter implements EncodingFilter {
         if (contentEncodingMB != null && !contentEncodingMB.isNull()) {
             return false;
         }
+        
+        // Partial content ranges refer to the identity encoded resource
+        if (response.getStatus() == HttpStatus.PARTIAL_CONTENT_206.getStatusCode()
+                || responseHeaders.contains(Header.ContentRange)) {
+            return false;
+        }
 
         if (!CompressionConfig.isClientSupportCompression(compressionConfig,
                 response.getRequest(), aliases)) {
@@ -43,6 +43,7 @@ package org.glassfish.grizzly.http.server;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,8 +65,11 @@ import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.filecache.FileCache.CacheType;
 import org.glassfish.grizzly.http.server.filecache.FileCacheEntry;
+import org.glassfish.grizzly.http.server.util.ByteRanges;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 /**
  *
@@ -108,6 +112,12 @@ public class FileCacheFilter extends BaseFilter {
                     return flush(ctx);
                 }
 
+                final ByteRanges ranges = fileCache.getRanges(cacheEntry, request);
+                if (ranges != null) {
+                    // the ranges are always served out of the plain content
+                    return sendRanges(ctx, response, cacheEntry, ranges);
+                }
+                
                 // check if we can send plain or compressed data back.
                 // depends on client request headers and file cache entry
                 final boolean isServeCompressed =
@@ -168,6 +178,7 @@ public class FileCacheFilter extends BaseFilter {
             throws IOException {
         response.addHeader(Header.ETag, entry.Etag);
         response.addHeader(Header.LastModified, entry.lastModifiedHeader);
+        response.addHeader(Header.AcceptRanges, "bytes");
 
         response.setContentLengthLong(entry.getFileSize(isServeCompressed));
         
@@ -176,6 +187,112 @@ public class FileCacheFilter extends BaseFilter {
         }
     }
 
+    /**
+     * Sends the requested ranges of the entry plain content: a single range
+     * as is, several ranges as a <tt>multipart/byteranges</tt> body.
+     * The ranges of the mapped entries are sliced out of the entry
+     * {@link ByteBuffer}, a single range of a {@link CacheType#FILE} entry is
+     * sent using send-file (if enabled).
+     */
+    private NextAction sendRanges(final FilterChainContext ctx,
+            final HttpResponsePacket response, final FileCacheEntry cacheEntry,
+            final ByteRanges ranges) throws IOException {
+        
+        response.addHeader(Header.ETag, cacheEntry.Etag);
+        response.addHeader(Header.LastModified, cacheEntry.lastModifiedHeader);
+        
+        if (!ranges.isSatisfiable()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.setHeader(Header.ContentRange,
+                    ranges.getUnsatisfiedContentRange());
+            response.setContentLength(0);
+            
+            ctx.write(HttpContent.builder(response)
+                    .content(Buffers.EMPTY_BUFFER)
+                    .last(true)
+                    .build());
+
+            return flush(ctx);
+        }
+        
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+        response.addHeader(Header.AcceptRanges, "bytes");
+        
+        final String partContentType = response.getContentType();
+        if (ranges.isMultipart()) {
+            response.setContentType(ranges.getMultipartContentType());
+            response.setContentLengthLong(
+                    ranges.getMultipartLength(partContentType));
+        } else {
+            response.setHeader(Header.ContentRange, ranges.getContentRange(0));
+            response.setContentLengthLong(ranges.getLength(0));
+        }
+        
+        if (cacheEntry.type != CacheType.FILE) {
+            final MemoryManager mm = ctx.getMemoryManager();
+            final ByteBuffer bb = cacheEntry.getByteBuffer(false);
+            final int base = bb.position();
+            
+            Buffer content = null;
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.isMultipart()) {
+                    content = Buffers.appendBuffers(mm, content,
+                            Buffers.wrap(mm, ranges.getPartHeader(i, partContentType)));
+                }
+                
+                final ByteBuffer slice = bb.duplicate();
+                slice.limit(base + (int) ranges.getEnd(i) + 1);
+                slice.position(base + (int) ranges.getStart(i));
+                content = Buffers.appendBuffers(mm, content,
+                        Buffers.wrap(mm, slice));
+            }
+            
+            if (ranges.isMultipart()) {
+                content = Buffers.appendBuffers(mm, content,
+                        Buffers.wrap(mm, ranges.getClosingDelimiter()));
+            }
+            
+            ctx.write(HttpContent.builder(response)
+                    .content(content)
+                    .last(true)
+                    .build());
+
+            return flush(ctx);
+        }
+        
+        if (!ranges.isMultipart()
+                && fileCache.isFileSendEnabled() && !response.getRequest().isSecure()) {
+            // flush response
+            ctx.write(response);
+
+            // send-file the range
+            final FileTransfer f = new FileTransfer(cacheEntry.getFile(false),
+                    ranges.getStart(0), ranges.getLength(0));
+            ctx.write(f, new EmptyCompletionHandler<WriteResult>() {
+                @Override
+                public void failed(Throwable throwable) {
+                    LOGGER.log(Level.FINE, "Error reported during file-send entry: " +
+                            cacheEntry, throwable);
+                }
+            });
+
+            return flush(ctx);
+        }
+        
+        try {
+            final FileSendEntry sendEntry = FileSendEntry.create(ctx, response,
+                    cacheEntry.getFile(false), ranges, partContentType);
+            
+            ctx.suspend();
+            sendEntry.send();
+            return ctx.getSuspendAction();
+        } catch (IOException e) {
+        }
+
+        // FAILURE
+        return ctx.getInvokeAction();
+    }
+    
     private NextAction sendFileUsingBuffers(final FilterChainContext ctx,
             final HttpResponsePacket response, final FileCacheEntry cacheEntry,
             final boolean isServeCompressed) {
@@ -258,6 +375,12 @@ public class FileCacheFilter extends BaseFilter {
         private final HttpResponsePacket response;
         private final OutputSink output;
         
+        // the ranges to be sent, or null to send the entire file
+        private final ByteRanges ranges;
+        private final String partContentType;
+        private int rangeIdx;
+        private boolean isPartStart;
+        
         private long remaining;
 
         public static FileSendEntry create(final FilterChainContext ctx,
@@ -267,19 +390,48 @@ public class FileCacheFilter extends BaseFilter {
             final FileInputStream fis = new FileInputStream(file);
             final FileChannel fc = fis.getChannel();
             
-            return new FileSendEntry(ctx, response, fis, fc, size);
+            return new FileSendEntry(ctx, response, fis, fc, size, null, null);
+        }
+        
+        public static FileSendEntry create(final FilterChainContext ctx,
+                final HttpResponsePacket response,
+                final File file, final ByteRanges ranges,
+                final String partContentType) throws IOException {
+            
+            final FileInputStream fis = new FileInputStream(file);
+            final FileChannel fc = fis.getChannel();
+            try {
+                fc.position(ranges.getStart(0));
+            } catch (IOException e) {
+                fis.close();
+                throw e;
+            }
+            
+            return new FileSendEntry(ctx, response, fis, fc,
+                    ranges.getLength(0), ranges, partContentType);
         }
         
         public FileSendEntry(final FilterChainContext ctx,
                 final HttpResponsePacket response,
                 final FileInputStream fis, final FileChannel fc,
                 final long size) {
+            this(ctx, response, fis, fc, size, null, null);
+        }
+        
+        private FileSendEntry(final FilterChainContext ctx,
+                final HttpResponsePacket response,
+                final FileInputStream fis, final FileChannel fc,
+                final long size, final ByteRanges ranges,
+                final String partContentType) {
 
             this.ctx = ctx;
             this.response = response;
             this.fis = fis;
             this.fc = fc;
             this.remaining = size;
+            this.ranges = ranges != null && ranges.isMultipart() ? ranges : null;
+            this.partContentType = partContentType;
+            this.isPartStart = this.ranges != null;
             
             final HttpContext httpContext = response.getProcessingState().getHttpContext();
             assert httpContext != null;
@@ -296,17 +448,44 @@ public class FileCacheFilter extends BaseFilter {
 
         private void send() {
             final int chunkSize = 8192;
+            final MemoryManager mm = ctx.getMemoryManager();
 
             try {
                 boolean isLast;
                 do {
-                    final Buffer buffer = ctx.getMemoryManager().allocate(chunkSize);
+                    Buffer buffer = mm.allocate(chunkSize);
                     buffer.allowBufferDispose(true);
+                    if (remaining < chunkSize) {
+                        buffer.limit((int) remaining);
+                    }
                     
                     final long readNow = Buffers.readFromFileChannel(fc, buffer);
                     isLast = readNow <= 0 || (remaining -= readNow) <= 0;
 
                     buffer.trim();
+                    
+                    if (ranges != null) {
+                        if (isPartStart) {
+                            buffer = Buffers.appendBuffers(mm, Buffers.wrap(mm,
+                                    ranges.getPartHeader(rangeIdx, partContentType)),
+                                    buffer);
+                            isPartStart = false;
+                        }
+                        
+                        if (isLast) {
+                            if (readNow > 0 && ++rangeIdx < ranges.size()) {
+                                // move on to the next part
+                                fc.position(ranges.getStart(rangeIdx));
+                                remaining = ranges.getLength(rangeIdx);
+                                isPartStart = true;
+                                isLast = false;
+                            } else {
+                                buffer = Buffers.appendBuffers(mm, buffer,
+                                        Buffers.wrap(mm, ranges.getClosingDelimiter()));
+                            }
+                        }
+                    }
+                    
                     ctx.write(HttpContent.builder(response)
                             .content(buffer)
                             .last(isLast)
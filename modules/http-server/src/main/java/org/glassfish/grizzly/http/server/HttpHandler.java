@@ -58,6 +58,7 @@ import org.glassfish.grizzly.http.server.util.HtmlHelper;
 import org.glassfish.grizzly.http.server.util.MappingData;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.http.util.RequestURIRef;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.utils.Charsets;
@@ -80,6 +81,9 @@ public abstract class HttpHandler {
     
     private final static RequestExecutorProvider DEFAULT_REQUEST_EXECUTOR_PROVIDER =
             new RequestExecutorProvider.WorkerThreadProvider();
+
+    private final static PreEncodedHeader[] NO_RESPONSE_HEADERS =
+            new PreEncodedHeader[0];
     
     /**
      * Allow request that uses encoded slash.
@@ -101,6 +105,11 @@ public abstract class HttpHandler {
      */
     private boolean allowCustomStatusMessage = true;
 
+    /**
+     * The headers every response starts from
+     */
+    private PreEncodedHeader[] responseHeaders = NO_RESPONSE_HEADERS;
+
     /**
      * HttpHandler name
      */
@@ -172,6 +181,10 @@ public abstract class HttpHandler {
 
             response.getResponse().setAllowCustomReasonPhrase(
                     allowCustomStatusMessage);
+
+            for (final PreEncodedHeader header : responseHeaders) {
+                response.setHeader(header);
+            }
             
             // Parse request URL and if there is an HTTP session parameter -
             // extract it from the request URL and store for future use
@@ -302,6 +315,35 @@ public abstract class HttpHandler {
         this.allowCustomStatusMessage = allowCustomStatusMessage;
     }
 
+    /**
+     * Returns the headers, which are set on every response before it's passed
+     * to {@link #service(Request, Response)}.
+     *
+     * @return the response headers template of this <tt>HttpHandler</tt>
+     *
+     * @since 2.4.3
+     */
+    public PreEncodedHeader[] getResponseHeaders() {
+        return responseHeaders.clone();
+    }
+
+    /**
+     * Sets the headers, which are set on every response before it's passed
+     * to {@link #service(Request, Response)}, like <tt>Server</tt>,
+     * <tt>Cache-Control</tt> or the CORS headers. The headers are encoded
+     * once, and copied as is into every response, which doesn't change or
+     * remove them.
+     *
+     * @param headers the response headers template of this <tt>HttpHandler</tt>
+     *
+     * @since 2.4.3
+     */
+    public void setResponseHeaders(final PreEncodedHeader... headers) {
+        this.responseHeaders = headers != null && headers.length > 0
+                ? headers.clone()
+                : NO_RESPONSE_HEADERS;
+    }
+
     /**
      * Is HTTP URL request allowed to contains encoded slash.
      * @return Is HTTP URL request allowed to contains encoded slash.
@@ -66,6 +66,8 @@ import org.glassfish.grizzly.Processor;
 import org.glassfish.grizzly.Transport;
 import org.glassfish.grizzly.TransportProbe;
 import org.glassfish.grizzly.attributes.AttributeBuilder;
+import org.glassfish.grizzly.compression.zip.DeflaterPool;
+import org.glassfish.grizzly.compression.zip.InflaterPool;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.FilterChainEvent;
@@ -237,6 +239,8 @@ public class HttpServer {
                     }
                 }
             }
+            
+            listener.getFileCache().destroy();
         }
         return listener;
 
@@ -766,6 +770,10 @@ public class HttpServer {
             final ContentEncoding gzipContentEncoding = new GZipContentEncoding(
                 GZipContentEncoding.DEFAULT_IN_BUFFER_SIZE,
                 GZipContentEncoding.DEFAULT_OUT_BUFFER_SIZE,
+                new InflaterPool(),
+                new DeflaterPool(compressionConfig.getCompressionLevel(),
+                    compressionConfig.getCompressionStrategy(),
+                    DeflaterPool.DEFAULT_MAX_POOL_SIZE),
                 new CompressionEncodingFilter(compressionConfig,
                     GZipContentEncoding.getGzipAliases()));
             final ContentEncoding lzmaEncoding = new LZMAContentEncoding(
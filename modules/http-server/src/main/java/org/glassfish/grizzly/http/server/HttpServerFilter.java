@@ -199,6 +199,7 @@ public class HttpServerFilter extends BaseFilter
                 
                 handlerRequest = Request.create();
                 handlerRequest.parameters.setLimit(config.getMaxRequestParameters());
+                handlerRequest.parameters.setLazyDecoding(config.isLazyParameterDecoding());
                 httpRequestInProgress.set(context, handlerRequest);
                 final Response handlerResponse = handlerRequest.getResponse();
 
@@ -80,6 +80,7 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
 import org.glassfish.grizzly.nio.transport.TCPNIOServerConnection;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.ssl.SSLBaseFilter;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
@@ -225,6 +226,10 @@ public class NetworkListener {
      * {@link HttpCodecFilter} associated with this listener.
      */
     private HttpCodecFilter httpCodecFilter;
+    /**
+     * {@link SSLBaseFilter} associated with this listener.
+     */
+    private SSLBaseFilter sslBaseFilter;
     /**
      * {@link CompressionConfig}
      */
@@ -959,6 +964,24 @@ public class NetworkListener {
         }
         return httpCodecFilter;
 
+    }
+
+    /**
+     * @return the {@link SSLBaseFilter} of the listener's filter chain, or
+     * <tt>null</tt> if the listener isn't secured
+     * @since 2.4.3
+     */
+    public SSLBaseFilter getSSLBaseFilter() {
+        if (sslBaseFilter == null) {
+            final int idx = filterChain.indexOfType(SSLBaseFilter.class);
+            if (idx == -1) {
+                return null;
+            }
+            
+            sslBaseFilter = (SSLBaseFilter) filterChain.get(idx);
+        }
+        return sslBaseFilter;
+
     }
     // --------------------------------------------------------- Private Methods
 
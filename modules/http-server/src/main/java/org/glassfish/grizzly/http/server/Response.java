@@ -107,6 +107,7 @@ import org.glassfish.grizzly.http.util.HeaderValue;
 import org.glassfish.grizzly.http.util.HttpRequestURIDecoder;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.http.util.UEncoder;
 import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.utils.DelayedExecutor;
@@ -1268,6 +1269,21 @@ public class Response {
         response.addHeader(header, value);
     }
 
+    /**
+     * Add the specified pre-encoded header.
+     *
+     * @param header the {@link PreEncodedHeader} to add
+     *
+     * @since 2.4.3
+     */
+    public void addHeader(final PreEncodedHeader header) {
+        checkResponse();
+        if (isCommitted())
+            return;
+
+        response.addHeader(header);
+    }
+
     /**
      * Add the specified integer header to the specified value.
      *
@@ -1578,6 +1594,21 @@ public class Response {
         response.setHeader(header, value);
     }
 
+    /**
+     * Set the specified pre-encoded header.
+     *
+     * @param header the {@link PreEncodedHeader} to set
+     *
+     * @since 2.4.3
+     */
+    public void setHeader(final PreEncodedHeader header) {
+        checkResponse();
+        if (isCommitted())
+            return;
+
+        response.setHeader(header);
+    }
+
     /**
      * Set the specified integer header to the specified value.
      *
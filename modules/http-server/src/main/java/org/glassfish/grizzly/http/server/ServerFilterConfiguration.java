@@ -43,6 +43,7 @@ package org.glassfish.grizzly.http.server;
 import java.nio.charset.Charset;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.utils.JdkVersion;
+import org.glassfish.grizzly.http.util.Parameters;
 
 /**
  * {@link HttpServerFilter} configuration.
@@ -61,6 +62,7 @@ public class ServerFilterConfiguration {
     private boolean traceEnabled;
     private boolean passTraceRequest;
     private int maxRequestParameters = MAX_REQUEST_PARAMETERS;
+    private boolean isLazyParameterDecoding;
     
     private long maxPostSize = -1L;
     private int maxFormPostSize = 2 * 1024 * 1024;
@@ -115,6 +117,7 @@ public class ServerFilterConfiguration {
         this.traceEnabled = configuration.traceEnabled;
         this.passTraceRequest = configuration.passTraceRequest;
         this.maxRequestParameters = configuration.maxRequestParameters;
+        this.isLazyParameterDecoding = configuration.isLazyParameterDecoding;
         this.maxFormPostSize = configuration.maxFormPostSize;
         this.maxBufferedPostSize = configuration.maxBufferedPostSize;
         this.defaultQueryEncoding = configuration.defaultQueryEncoding;
@@ -347,6 +350,32 @@ public class ServerFilterConfiguration {
         }
     }
 
+    /**
+     * Returns <tt>true</tt> if the request parameters are decoded only when
+     * they are looked up, see {@link Parameters#setLazyDecoding(boolean)}.
+     *
+     * @since 2.4.3
+     */
+    public boolean isLazyParameterDecoding() {
+        return isLazyParameterDecoding;
+    }
+
+    /**
+     * If <tt>true</tt>, the query string and form post parameters are only
+     * indexed when the request parameters are parsed, and each parameter
+     * gets decoded the first time it is looked up, so the handlers, which
+     * read a few parameters of large forms, don't pay for decoding all of them.
+     * Enumerating the parameter names still decodes all the parameters.
+     * The default value is <tt>false</tt>.
+     *
+     * @see Parameters#setLazyDecoding(boolean)
+     *
+     * @since 2.4.3
+     */
+    public void setLazyParameterDecoding(final boolean isLazyParameterDecoding) {
+        this.isLazyParameterDecoding = isLazyParameterDecoding;
+    }
+
     /**
      * Returns the "reuse session IDs when creating sessions"
      * 
@@ -53,9 +53,12 @@ import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.Method;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.io.NIOOutputStream;
 import org.glassfish.grizzly.http.io.OutputBuffer;
+import org.glassfish.grizzly.http.server.util.ByteRanges;
+import org.glassfish.grizzly.http.server.util.SimpleDateFormats;
 import org.glassfish.grizzly.http.util.MimeType;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
@@ -113,6 +116,12 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         this.isFileCacheEnabled = isFileCacheEnabled;
     }
     
+    /**
+     * Sends the file to the client.
+     * If the GET request has a <tt>Range</tt> header (and the <tt>If-Range</tt>
+     * validator, if any, matches the file) - only the requested ranges
+     * are sent in a <tt>206 Partial Content</tt> response.
+     */
     public static void sendFile(final Response response, final File file)
             throws IOException {
         response.setStatus(HttpStatus.OK_200);
@@ -121,16 +130,85 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         pickupContentType(response, file.getPath());
 
         final long length = file.length();
-        response.setContentLengthLong(length);
         response.addDateHeader(Header.Date, System.currentTimeMillis());
+        response.setHeader(Header.AcceptRanges, "bytes");
+        
+        final ByteRanges ranges = getRanges(response.getRequest(), file, length);
+        if (ranges != null) {
+            sendRanges(response, file, ranges);
+            return;
+        }
+        
+        response.setContentLengthLong(length);
         if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
-            sendUsingBuffers(response, file);
+            sendUsingBuffers(response, file, null, null);
         } else {
             sendZeroCopy(response, file);
         }
     }
 
-    private static void sendUsingBuffers(final Response response, final File file)
+    private static ByteRanges getRanges(final Request request, final File file,
+            final long length) {
+        if (!Method.GET.equals(request.getMethod())) {
+            return null;
+        }
+        
+        final String rangeHeader = request.getHeader(Header.Range);
+        if (rangeHeader == null) {
+            return null;
+        }
+        
+        final long lastModified = file.lastModified();
+        final SimpleDateFormats formats = SimpleDateFormats.create();
+        try {
+            if (!ByteRanges.isIfRangeSatisfied(request.getHeader(Header.IfRange),
+                    getETag(length, lastModified), lastModified, formats)) {
+                return null;
+            }
+        } finally {
+            formats.recycle();
+        }
+        
+        return ByteRanges.parse(rangeHeader, length);
+    }
+    
+    private static void sendRanges(final Response response, final File file,
+            final ByteRanges ranges) throws IOException {
+        if (!ranges.isSatisfiable()) {
+            response.setStatus(HttpStatus.REQUEST_RANGE_NOT_SATISFIABLE_416);
+            response.setHeader(Header.ContentRange,
+                    ranges.getUnsatisfiedContentRange());
+            response.setContentLength(0);
+            return;
+        }
+        
+        response.setStatus(HttpStatus.PARTIAL_CONTENT_206);
+        
+        if (ranges.isMultipart()) {
+            final String partContentType = response.getContentType();
+            response.setContentType(ranges.getMultipartContentType());
+            response.setContentLengthLong(
+                    ranges.getMultipartLength(partContentType));
+            
+            // only one file transfer is allowed per request, so the parts
+            // are always sent using buffers
+            sendUsingBuffers(response, file, ranges, partContentType);
+            return;
+        }
+        
+        response.setHeader(Header.ContentRange, ranges.getContentRange(0));
+        response.setContentLengthLong(ranges.getLength(0));
+        if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
+            sendUsingBuffers(response, file, ranges, null);
+        } else {
+            final OutputBuffer outputBuffer = response.getOutputBuffer();
+            outputBuffer.sendfile(file, ranges.getStart(0),
+                    ranges.getLength(0), null);
+        }
+    }
+    
+    private static void sendUsingBuffers(final Response response, final File file,
+            final ByteRanges ranges, final String partContentType)
             throws FileNotFoundException, IOException {
         final int chunkSize = 8192;
         
@@ -140,7 +218,7 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         
         outputStream.notifyCanWrite(
                 new NonBlockingDownloadHandler(response, outputStream,
-                        file, chunkSize));
+                        file, chunkSize, ranges, partContentType));
 
     }
 
@@ -290,23 +368,32 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
 
     protected static void addCachingHeaders(final Response response,
                                           final File file) {
-        final StringBuilder sb = new StringBuilder();
-
         final long fileLength = file.length();
         final long lastModified = file.lastModified();
         if ((fileLength >= 0) || (lastModified >= 0)) {
-            sb.append('"').append(fileLength).append('-').
-                    append(lastModified).append('"');
-            response.setHeader(Header.ETag, sb.toString());
+            response.setHeader(Header.ETag, getETag(fileLength, lastModified));
         }
         response.addDateHeader(Header.LastModified, lastModified);
 
     }
     
+    private static String getETag(final long fileLength, final long lastModified) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('"').append(fileLength).append('-').
+                append(lastModified).append('"');
+        return sb.toString();
+    }
+    
     private static class NonBlockingDownloadHandler implements WriteHandler {
         // keep the remaining size
         private volatile long size;
         
+        // the multipart/byteranges parts to be sent, or null
+        private final ByteRanges ranges;
+        private final String partContentType;
+        private int rangeIdx;
+        private boolean isPartStart;
+        
         private final Response response;
         private final NIOOutputStream outputStream;
         private final FileChannel fileChannel;
@@ -315,15 +402,24 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         
         NonBlockingDownloadHandler(final Response response,
                 final NIOOutputStream outputStream, final File file,
-                final int chunkSize) {
+                final int chunkSize, final ByteRanges ranges,
+                final String partContentType) {
             
             try {
                 fileChannel = new FileInputStream(file).getChannel();
+                if (ranges != null) {
+                    fileChannel.position(ranges.getStart(0));
+                }
             } catch (FileNotFoundException e) {
                 throw new IllegalStateException("File should have existed", e);
+            } catch (IOException e) {
+                throw new IllegalStateException("File can't be read", e);
             }
             
-            size = file.length();
+            size = ranges != null ? ranges.getLength(0) : file.length();
+            this.ranges = ranges != null && ranges.isMultipart() ? ranges : null;
+            this.partContentType = partContentType;
+            isPartStart = this.ranges != null;
             
             this.response = response;
             this.outputStream = outputStream;
@@ -354,10 +450,19 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
          * Send next CHUNK_SIZE of file
          */
         private boolean sendChunk() throws IOException {
+            if (isPartStart) {
+                outputStream.write(ranges.getPartHeader(rangeIdx, partContentType));
+                isPartStart = false;
+            }
+            
             // allocate Buffer
             final Buffer buffer = mm.allocate(chunkSize);
             // mark it available for disposal after content is written
             buffer.allowBufferDispose(true);
+            if (size < chunkSize) {
+                // don't read past the end of the range
+                buffer.limit((int) size);
+            }
 
             // read file to the Buffer
             final int justReadBytes = (int) Buffers.readFromFileChannel(
@@ -377,6 +482,18 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
 
             // check the remaining size here to avoid extra onWritePossible() invocation
             if (size <= 0) {
+                if (ranges != null) {
+                    if (++rangeIdx < ranges.size()) {
+                        // move on to the next part
+                        fileChannel.position(ranges.getStart(rangeIdx));
+                        size = ranges.getLength(rangeIdx);
+                        isPartStart = true;
+                        return true;
+                    }
+                    
+                    outputStream.write(ranges.getClosingDelimiter());
+                }
+                
                 complete(false);
                 return false;
             }
@@ -0,0 +1,90 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * The compressed representation of a cached file. It's immutable, so it's
+ * published to the {@link FileCacheEntry} at once, when the compression
+ * is completed.
+ * 
+ * @since 2.4.3
+ */
+final class CompressedFile {
+    final File file;
+    final long size;
+    // the file content for HEAP and MAPPED entries, null otherwise
+    final ByteBuffer bb;
+    
+    // the plain file state the compressed file has been created from
+    final long plainLastModified;
+    final long plainFileSize;
+    
+    // true if the file has been created by the FileCache warm-up, and might be
+    // shared by several entries
+    final boolean isPrecompressed;
+
+    CompressedFile(final File file, final long size, final ByteBuffer bb,
+            final long plainLastModified, final long plainFileSize,
+            final boolean isPrecompressed) {
+        this.file = file;
+        this.size = size;
+        this.bb = bb;
+        this.plainLastModified = plainLastModified;
+        this.plainFileSize = plainFileSize;
+        this.isPrecompressed = isPrecompressed;
+    }
+    
+    /**
+     * @return <tt>true</tt> if the compressed file has been created from the
+     *         current version of the plain file
+     */
+    boolean isUpToDate(final long lastModified, final long fileSize) {
+        return plainLastModified == lastModified && plainFileSize == fileSize;
+    }
+    
+    CompressedFile withBuffer(final ByteBuffer bb) {
+        return new CompressedFile(file, size, bb, plainLastModified,
+                plainFileSize, isPrecompressed);
+    }
+}
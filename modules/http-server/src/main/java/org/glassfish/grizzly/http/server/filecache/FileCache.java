@@ -43,11 +43,13 @@ package org.glassfish.grizzly.http.server.filecache;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.server.util.ByteRanges;
 import org.glassfish.grizzly.http.server.util.SimpleDateFormats;
 import org.glassfish.grizzly.http.util.FastHttpDateFormat;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.http.util.MimeType;
 import org.glassfish.grizzly.utils.DelayedExecutor;
 
 import java.io.File;
@@ -59,9 +61,21 @@ import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -88,6 +102,8 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             new File(System.getProperty("java.io.tmpdir"));
     
     final static String[] COMPRESSION_ALIASES = {"gzip"};
+    
+    private static final long WATCHER_POLL_INTERVAL_MILLIS = 1000;
 
     public enum CacheType {
         HEAP, MAPPED, FILE, TIMESTAMP
@@ -115,6 +131,11 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             new ConcurrentHashMap<>();
     
     private final FileCacheEntry NULL_CACHE_ENTRY = new FileCacheEntry(this);
+    
+    /**
+     * The admission and eviction policy.
+     */
+    private final TinyLfuPolicy policy = new TinyLfuPolicy(this);
 
     /**
      * Specifies the maximum time in seconds a resource may be cached.
@@ -163,10 +184,37 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     
     private DelayedExecutor.DelayQueue<FileCacheEntry> delayQueue;
 
+    /**
+     * Is the cached files modification watching enabled.
+     */
+    private boolean fileWatchEnabled;
+    
+    /**
+     * Invalidates the entries, whose files have been changed, if the
+     * file watching is enabled.
+     */
+    private volatile FileCacheWatcher watcher;
+    
+    private DelayedExecutor.DelayQueue<FileCacheWatcher> watcherQueue;
+
     /**
      * Folder to store compressed cached files
      */
     private volatile File compressedFilesFolder = TMP_DIR;
+    
+    /**
+     * The number of threads compressing the cached files in background
+     */
+    private int compressionThreadsCount = 1;
+    
+    private volatile ExecutorService compressionExecutor;
+    
+    /**
+     * The files compressed by {@link #precompress(java.io.File)}
+     */
+    private final ConcurrentMap<File, CompressedFile> precompressedFiles =
+            new ConcurrentHashMap<>();
+    
     /**
      * Compression configuration, used to decide if cached resource
      * has to be compressed or not
@@ -198,6 +246,39 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     public void initialize(final DelayedExecutor delayedExecutor) {
         delayQueue = delayedExecutor.createDelayQueue(new EntryWorker(),
                 new EntryResolver());
+        
+        if (fileWatchEnabled) {
+            final FileCacheWatcher localWatcher = new FileCacheWatcher(this);
+            watcherQueue = delayedExecutor.createDelayQueue(new WatcherWorker(),
+                    new WatcherResolver());
+            watcherQueue.add(localWatcher, WATCHER_POLL_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+            watcher = localWatcher;
+        }
+    }
+    
+    /**
+     * Releases the resources held by the <tt>FileCache</tt>, like the file
+     * watcher.
+     * 
+     * @since 2.4.3
+     */
+    public void destroy() {
+        final FileCacheWatcher localWatcher = watcher;
+        if (localWatcher != null) {
+            watcher = null;
+            watcherQueue.remove(localWatcher);
+            watcherQueue.destroy();
+            watcherQueue = null;
+            localWatcher.close();
+        }
+        
+        synchronized (this) {
+            if (compressionExecutor != null) {
+                compressionExecutor.shutdownNow();
+                compressionExecutor = null;
+            }
+        }
     }
 
     /**
@@ -241,10 +322,9 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             return CacheResult.FAILED_ENTRY_EXISTS;
         }
 
-        final int size = cacheSize.incrementAndGet();
+        final int hash = key.hashCode();
         // cache is full.
-        if (size > getMaxCacheEntries()) {
-            cacheSize.decrementAndGet();
+        if (!policy.reserveEntry(hash, cacheSize, getMaxCacheEntries())) {
             fileCacheMap.remove(key);
             key.recycle();
             return CacheResult.FAILED_CACHE_FULL;
@@ -265,6 +345,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
 
         entry.key = key;
+        entry.policyHash = hash;
         entry.requestURI = requestURI;
 
         entry.lastModified = lastModified;
@@ -277,6 +358,7 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         entry.server = headers.getHeader(Header.Server);
 
         fileCacheMap.put(key, entry);
+        policy.onAdded(entry);
         
         notifyProbesEntryAdded(this, entry);
         
@@ -285,6 +367,19 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             delayQueue.add(entry, secondsMaxAgeLocal, TimeUnit.SECONDS);
         }
 
+        final FileCacheWatcher localWatcher = watcher;
+        if (localWatcher != null && entry.plainFile != null) {
+            if (!localWatcher.watch(entry)) {
+                // the file has been changed while being cached
+                invalidate(entry);
+            }
+            
+            if (!isCached(entry)) {
+                // the entry has been removed before it got watched
+                localWatcher.unwatch(entry);
+            }
+        }
+
         return ((entry.type == CacheType.TIMESTAMP)
                     ? CacheResult.OK_CACHED_TIMESTAMP
                     : CacheResult.OK_CACHED);
@@ -301,9 +396,12 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
         final LazyFileCacheKey key = LazyFileCacheKey.create(request);
         final FileCacheEntry entry = fileCacheMap.get(key);
+        final int hash = key.hashCode();
         key.recycle();
         try {
             if (entry != null && entry != NULL_CACHE_ENTRY) {
+                policy.recordHit(entry);
+                
                 // determine if we need to send the cache entry bytes
                 // to the user-agent
                 final HttpStatus httpStatus = checkIfHeaders(entry, request);
@@ -321,6 +419,10 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 return entry;
             }
             
+            if (entry == null) {
+                policy.recordMiss(hash);
+            }
+            
             notifyProbesEntryMissed(this, request);
         } catch (Exception e) {
             notifyProbesError(this, e);
@@ -333,9 +435,36 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return null;
     }
 
+    /**
+     * Returns the {@link ByteRanges} requested by the <tt>Range</tt> header
+     * of the request, or <tt>null</tt> if the entire entry has to be sent,
+     * because there is no (valid) <tt>Range</tt> header or the <tt>If-Range</tt>
+     * validator doesn't match the entry.
+     * 
+     * @since 2.4.3
+     */
+    public ByteRanges getRanges(final FileCacheEntry entry,
+            final HttpRequestPacket request) {
+        final String rangeHeader = request.getHeader(Header.Range);
+        if (rangeHeader == null || !checkIfRange(entry, request)) {
+            return null;
+        }
+        
+        return ByteRanges.parse(rangeHeader, entry.getFileSize(false));
+    }
+    
     protected void remove(final FileCacheEntry entry) {
-        if (fileCacheMap.remove(entry.key) != null) {
-            cacheSize.decrementAndGet();
+        // the entry might have been evicted and expired concurrently
+        if (!fileCacheMap.remove(entry.key, entry)) {
+            return;
+        }
+        
+        cacheSize.decrementAndGet();
+        policy.onRemoved(entry);
+        
+        final FileCacheWatcher localWatcher = watcher;
+        if (localWatcher != null && entry.plainFile != null) {
+            localWatcher.unwatch(entry);
         }
 
         if (entry.type == FileCache.CacheType.MAPPED) {
@@ -346,6 +475,32 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
 
         notifyProbesEntryRemoved(this, entry);
     }
+    
+    /**
+     * Evicts the entry to make room for a more popular resource.
+     */
+    void evict(final FileCacheEntry entry) {
+        invalidate(entry);
+        notifyProbesEntryEvicted(this, entry);
+    }
+    
+    /**
+     * Removes the entry, whose file has been changed, before it expires.
+     */
+    void invalidate(final FileCacheEntry entry) {
+        if (delayQueue != null) {
+            delayQueue.remove(entry);
+        }
+        
+        remove(entry);
+    }
+    
+    /**
+     * @return <tt>true</tt> if the entry is (still) in the cache
+     */
+    boolean isCached(final FileCacheEntry entry) {
+        return fileCacheMap.get(entry.key) == entry;
+    }
 
     protected Object createJmxManagementObject() {
         return MonitoringUtils.loadJmxObject(
@@ -381,28 +536,28 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
         
         final CacheType type;
+        if (size > getMinEntrySize()) {
+            if (!policy.reserveBytes(CacheType.MAPPED,
+                    mappedMemorySize, getMaxLargeFileCacheSize(), size)) {
+                // Cache full
+                return null;
+            }
+
+            type = CacheType.MAPPED;
+        } else {
+            if (!policy.reserveBytes(CacheType.HEAP,
+                    heapSize, getMaxSmallFileCacheSize(), size)) {
+                // Cache full
+                return null;
+            }
+
+            type = CacheType.HEAP;
+        }
+        
         final ByteBuffer bb;
         FileChannel fileChannel = null;
         FileInputStream stream = null;
         try {
-            if (size > getMinEntrySize()) {
-                if (addMappedMemorySize(size) > getMaxLargeFileCacheSize()) {
-                    // Cache full
-                    subMappedMemorySize(size);
-                    return null;
-                }
-                
-                type = CacheType.MAPPED;
-            } else {
-                if (addHeapSize(size) > getMaxSmallFileCacheSize()) {
-                    // Cache full
-                    subHeapSize(size);
-                    return null;
-                }
-
-                type = CacheType.HEAP;
-            }
-
             stream = new FileInputStream(file);
             fileChannel = stream.getChannel();
 
@@ -412,6 +567,13 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 ((MappedByteBuffer) bb).load();
             }    
         } catch (Exception e) {
+            // release the reserved memory
+            if (type == CacheType.MAPPED) {
+                subMappedMemorySize(size);
+            } else {
+                subHeapSize(size);
+            }
+            
             notifyProbesError(this, e);
             return null;
         } finally {
@@ -590,6 +752,62 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         this.enabled = enabled;
     }
 
+    /**
+     * @return <code>true</code> if cached files are watched for changes,
+     *  otherwise <code>false</code>
+     * 
+     * @since 2.4.3
+     */
+    public boolean isFileWatchEnabled() {
+        return fileWatchEnabled;
+    }
+
+    /**
+     * Enables/disables watching of cached files for changes. If enabled,
+     * the directories of cached files are registered with a
+     * {@link java.nio.file.WatchService} and the entries are removed from
+     * the cache as soon as their files get modified or deleted, so cached
+     * files may be served without {@link #setSecondsMaxAge(int) max age}
+     * and still be up to date. By default, the file watching is disabled.
+     * 
+     * The setting takes effect, when the <tt>FileCache</tt> is initialized.
+     *
+     * @param fileWatchEnabled <code>true</code> to watch cached files.
+     * 
+     * @since 2.4.3
+     */
+    public void setFileWatchEnabled(boolean fileWatchEnabled) {
+        this.fileWatchEnabled = fileWatchEnabled;
+    }
+
+    /**
+     * @return the number of threads, which compress cached files in
+     *  background.
+     * 
+     * @since 2.4.3
+     */
+    public int getCompressionThreadsCount() {
+        return compressionThreadsCount;
+    }
+
+    /**
+     * Sets the number of threads, which compress cached files in background.
+     * The setting takes effect, if it's set before the first file gets
+     * compressed. By default, one thread is used.
+     *
+     * @param compressionThreadsCount the number of compression threads.
+     * 
+     * @since 2.4.3
+     */
+    public void setCompressionThreadsCount(final int compressionThreadsCount) {
+        if (compressionThreadsCount < 1) {
+            throw new IllegalArgumentException(
+                    "compressionThreadsCount can't be less than 1");
+        }
+        
+        this.compressionThreadsCount = compressionThreadsCount;
+    }
+
     /**
      * Returns the <tt>FileCache</tt> compression configuration settings.
      */
@@ -656,23 +874,146 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
     }
     
     /**
-     * Creates a temporary compressed representation of the given cache entry.
+     * Compresses, in background, the files of the given directory tree,
+     * which could be served compressed, so that the compressed
+     * representation of a file is available as soon as the file gets cached.
+     * The method is meant to be called at startup, before the files are
+     * requested.
+     *
+     * @param directory the root of the directory tree to compress
+     * @return the {@link Future}, which is completed with the number of
+     *  compressed files, once the directory tree has been processed
+     * 
+     * @since 2.4.3
+     */
+    public Future<Integer> precompress(final File directory) {
+        return getCompressionExecutor().submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return precompressTree(directory.toPath());
+            }
+        });
+    }
+
+    /**
+     * Initiates the creation of the compressed representation of the given
+     * cache entry. The compression runs in background and the entry is served
+     * uncompressed until it completes.
      */
     protected void compressFile(final FileCacheEntry entry) {
+        final CompressedFile precompressed = getPrecompressedFile(entry.plainFile);
+        if (precompressed != null
+                && publishCompressedFile(entry, precompressed)) {
+            return;
+        }
+        
+        try {
+            getCompressionExecutor().execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    // the entry might have been removed while waiting
+                    if (!isCached(entry)) {
+                        return;
+                    }
+                    
+                    final CompressedFile compressed =
+                            createCompressedFile(entry.plainFile, false);
+                    if (compressed != null
+                            && !publishCompressedFile(entry, compressed)) {
+                        deleteCompressedFile(compressed);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // too many files are being compressed, try again later
+            entry.resetCompression();
+        }
+    }
+    
+    /**
+     * Sets the compressed representation of the entry, if it's been created
+     * from the same version of the file as the cached one.
+     * 
+     * @return <tt>true</tt> if the compressed file has been published,
+     *         or <tt>false</tt> otherwise
+     */
+    private boolean publishCompressedFile(final FileCacheEntry entry,
+            final CompressedFile compressed) {
+        if (!compressed.isUpToDate(entry.lastModified, entry.plainFileSize)) {
+            return false;
+        }
+        
+        try {
+            switch (entry.type) {
+                case HEAP:
+                case MAPPED: {
+                    final FileInputStream cFis =
+                            new FileInputStream(compressed.file);
+
+                    try {
+                        final FileChannel cFileChannel = cFis.getChannel();
+
+                        final MappedByteBuffer compressedBb = cFileChannel.map(
+                                FileChannel.MapMode.READ_ONLY, 0, compressed.size);
+
+                        if (entry.type == CacheType.HEAP) {
+                            compressedBb.load();
+                        }
+
+                        entry.compressed = compressed.withBuffer(compressedBb);
+                    } finally {
+                        cFis.close();
+                    }
+
+                    break;
+                }
+                case FILE: {
+                    entry.compressed = compressed;
+                    break;
+                }
+
+                default: throw new IllegalStateException("The type is not supported: " + entry.type);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can not map compressed file: " + compressed.file, e);
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Creates a temporary compressed representation of the given file.
+     * 
+     * @return the {@link CompressedFile}, or <tt>null</tt> if the file
+     *         couldn't be compressed
+     */
+    private CompressedFile createCompressedFile(final File plainFile,
+            final boolean isPrecompressed) {
+        final long plainLastModified = plainFile.lastModified();
+        final long plainFileSize = plainFile.length();
+        
         try {
             final File tmpCompressedFile = File.createTempFile(
-                    String.valueOf(entry.plainFile.hashCode()),
+                    String.valueOf(plainFile.hashCode()),
                     ".tmpzip", compressedFilesFolder);
             tmpCompressedFile.deleteOnExit();
 
             InputStream in = null;
             OutputStream out = null;
             try {
-                in = new FileInputStream(entry.plainFile);
+                in = new FileInputStream(plainFile);
                 out = new GZIPOutputStream(
-                        new FileOutputStream(tmpCompressedFile));
+                        new FileOutputStream(tmpCompressedFile)) {
+                    {
+                        def.setLevel(compressionConfig.getCompressionLevel());
+                        def.setStrategy(compressionConfig.getCompressionStrategy());
+                    }
+                };
                 
-                final byte[] tmp = new byte[1024];
+                final byte[] tmp = new byte[8192];
                 
                 do {
                     final int readNow = in.read(tmp);
@@ -697,43 +1038,138 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
                 }
             }
             
-            final long size = tmpCompressedFile.length();
+            final CompressedFile compressed = new CompressedFile(
+                    tmpCompressedFile, tmpCompressedFile.length(), null,
+                    plainLastModified, plainFileSize, isPrecompressed);
             
-            switch (entry.type) {
-                case HEAP:
-                case MAPPED: {
-                    final FileInputStream cFis =
-                            new FileInputStream(tmpCompressedFile);
-                    
-                    try {
-                        final FileChannel cFileChannel = cFis.getChannel();
-
-                        final MappedByteBuffer compressedBb = cFileChannel.map(
-                                FileChannel.MapMode.READ_ONLY, 0, size);
+            if (!compressed.isUpToDate(plainFile.lastModified(),
+                    plainFile.length())) {
+                // the file has been changed while being compressed
+                deleteCompressedFile(compressed);
+                return null;
+            }
+            
+            return compressed;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Can not compress file: " + plainFile, e);
+            return null;
+        }
+    }
+    
+    private static void deleteCompressedFile(final CompressedFile compressed) {
+        if (!compressed.file.delete()) {
+            compressed.file.deleteOnExit();
+        }
+    }
+    
+    /**
+     * @return the up to date {@link CompressedFile} created by
+     *         {@link #precompress(java.io.File)}, or <tt>null</tt>
+     */
+    private CompressedFile getPrecompressedFile(final File plainFile) {
+        if (precompressedFiles.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            final CompressedFile compressed =
+                    precompressedFiles.get(plainFile.getCanonicalFile());
+            return compressed != null
+                    && compressed.isUpToDate(plainFile.lastModified(),
+                            plainFile.length())
+                    ? compressed
+                    : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private int precompressTree(final Path root) throws IOException {
+        final int[] counter = new int[1];
+        
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
 
-                        if (entry.type == CacheType.HEAP) {
-                            compressedBb.load();
-                        }
-                        
-                        entry.compressedBb = compressedBb;
-                    } finally {
-                        cFis.close();
+            @Override
+            public FileVisitResult visitFile(final Path path,
+                    final BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                final File file = path.toFile().getCanonicalFile();
+                final CompressedFile existing = precompressedFiles.get(file);
+                if (existing != null && existing.isUpToDate(
+                        file.lastModified(), file.length())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                final String contentType = MimeType.getByFilename(file.getName());
+                final CompressedFile compressed = (contentType == null
+                        ? compressionConfig.getCompressionMode() != CompressionConfig.CompressionMode.FORCE
+                        : !canBeCompressed(file, contentType))
+                        ? null
+                        : createCompressedFile(file, true);
+                
+                if (compressed != null) {
+                    final CompressedFile replaced =
+                            precompressedFiles.put(file, compressed);
+                    if (replaced != null) {
+                        deleteCompressedFile(replaced);
                     }
                     
-                    break;
-                }
-                case FILE: {
-                    break;
+                    counter[0]++;
+                } else if (existing != null
+                        && precompressedFiles.remove(file, existing)) {
+                    // the stale compressed file can't be refreshed
+                    deleteCompressedFile(existing);
                 }
+                
+                return FileVisitResult.CONTINUE;
+            }
 
-                default: throw new IllegalStateException("The type is not supported: " + entry.type);
+            @Override
+            public FileVisitResult visitFileFailed(final Path path,
+                    final IOException e) throws IOException {
+                LOGGER.log(Level.FINE, "Can not precompress file: " + path, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        
+        return counter[0];
+    }
+    
+    private ExecutorService getCompressionExecutor() {
+        ExecutorService localExecutor = compressionExecutor;
+        if (localExecutor == null) {
+            synchronized (this) {
+                localExecutor = compressionExecutor;
+                if (localExecutor == null) {
+                    // every entry is compressed at most once, so there is
+                    // no need to queue more tasks than there are entries
+                    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                            compressionThreadsCount, compressionThreadsCount,
+                            60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(getMaxCacheEntries()),
+                            new ThreadFactory() {
+                                private final AtomicInteger counter = new AtomicInteger();
+
+                                @Override
+                                public Thread newThread(final Runnable r) {
+                                    final Thread thread = new Thread(r,
+                                            "Grizzly-FileCache-Compression("
+                                            + counter.incrementAndGet() + ")");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    executor.allowCoreThreadTimeOut(true);
+                    
+                    compressionExecutor = localExecutor = executor;
+                }
             }
-            
-            entry.compressedFileSize = size;
-            entry.compressedFile = tmpCompressedFile;
-        } catch (IOException e) {
-            LOGGER.log(Level.FINE, "Can not compress file: " + entry.plainFile, e);
         }
+        
+        return localExecutor;
     }
     
     // ---------------------------------------------------- Monitoring --------//
@@ -956,6 +1392,33 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         return null;
     }
 
+    /**
+     * Check if the if-range condition is satisfied, so the requested
+     * ranges have to be sent instead of the entire entry.
+     */
+    private boolean checkIfRange(final FileCacheEntry entry,
+            final HttpRequestPacket request) {
+        final String headerValue = request.getHeader(Header.IfRange);
+        if (headerValue == null) {
+            return true;
+        }
+        
+        // optimization - assume the String value sent in the
+        // client's If-Range header is the same as what was originally sent
+        if (headerValue.equals(entry.Etag)
+                || headerValue.equals(entry.lastModifiedHeader)) {
+            return true;
+        }
+        
+        final SimpleDateFormats formats = SimpleDateFormats.create();
+        try {
+            return ByteRanges.isIfRangeSatisfied(headerValue, entry.Etag,
+                    entry.lastModified, formats);
+        } finally {
+            formats.recycle();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -998,6 +1461,23 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
         }
     }
 
+    /**
+     * Notify registered {@link FileCacheProbe}s about the "entry evicted" event.
+     *
+     * @param fileCache the <tt>FileCache</tt> event occurred on.
+     * @param entry entry been evicted
+     */
+    protected static void notifyProbesEntryEvicted(final FileCache fileCache,
+            final FileCacheEntry entry) {
+        final FileCacheProbe[] probes =
+                fileCache.monitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (FileCacheProbe probe : probes) {
+                probe.onEntryEvictedEvent(fileCache, entry);
+            }
+        }
+    }
+
     /**
      * Notify registered {@link FileCacheProbe}s about the "entry hit event.
      *
@@ -1100,4 +1580,43 @@ public class FileCache implements MonitoringAware<FileCacheProbe> {
             element.timeoutMillis = timeoutMillis;
         }
     }
+
+    private static class WatcherWorker implements DelayedExecutor.Worker<FileCacheWatcher> {
+        @Override
+        public boolean doWork(final FileCacheWatcher element) {
+            try {
+                element.poll();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Unable to check cached files", e);
+            }
+            
+            // poll again after the interval
+            element.timeoutMillis = System.currentTimeMillis()
+                    + WATCHER_POLL_INTERVAL_MILLIS;
+            return false;
+        }        
+    }
+
+    private static class WatcherResolver implements DelayedExecutor.Resolver<FileCacheWatcher> {
+
+        @Override
+        public boolean removeTimeout(FileCacheWatcher element) {
+            if (element.timeoutMillis != -1) {
+                element.timeoutMillis = -1;
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public long getTimeoutMillis(FileCacheWatcher element) {
+            return element.timeoutMillis;
+        }
+
+        @Override
+        public void setTimeoutMillis(FileCacheWatcher element, long timeoutMillis) {
+            element.timeoutMillis = timeoutMillis;
+        }
+    }
 }
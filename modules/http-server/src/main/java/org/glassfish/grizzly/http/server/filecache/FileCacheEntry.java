@@ -72,9 +72,8 @@ public final class FileCacheEntry implements Runnable {
     
     private boolean canBeCompressed;
     private AtomicBoolean isCompressed;
-    volatile File compressedFile;
-    ByteBuffer compressedBb;
-    long compressedFileSize = -1;
+    // null until the compressed representation is ready
+    volatile CompressedFile compressed;
     
     public String xPoweredBy;
     public FileCache.CacheType type;
@@ -84,6 +83,12 @@ public final class FileCacheEntry implements Runnable {
     public String server;
 
     public volatile long timeoutMillis;
+    
+    // TinyLfuPolicy state, guarded by the policy lock
+    int policyHash;
+    int policySegment;
+    FileCacheEntry policyPrev;
+    FileCacheEntry policyNext;
 
     private final FileCache fileCache;
 
@@ -121,9 +126,17 @@ public final class FileCacheEntry implements Runnable {
             fileCache.compressFile(this);
         }
         
-        // compressedFile could be still "null" if the file compression was
-        // initiated by other request and it is still not completed
-        return compressedFile != null;
+        // compressed could be still "null" if the file compression is
+        // still in progress, the plain file will be served meanwhile
+        return compressed != null;
+    }
+    
+    /**
+     * Allows the next request to initiate the file compression again,
+     * if it couldn't be scheduled.
+     */
+    void resetCompression() {
+        isCompressed.set(false);
     }
     
     /**
@@ -133,7 +146,7 @@ public final class FileCacheEntry implements Runnable {
      * @return the entry file size
      */
     public long getFileSize(final boolean isCompressed) {
-        return isCompressed ? compressedFileSize : plainFileSize;
+        return isCompressed ? compressed.size : plainFileSize;
     }
     
     /**
@@ -144,7 +157,7 @@ public final class FileCacheEntry implements Runnable {
      * @return the entry's {@link File} reference
      */
     public File getFile(final boolean isCompressed) {
-        return isCompressed ? compressedFile : plainFile;
+        return isCompressed ? compressed.file : plainFile;
     }
     
     /**
@@ -155,7 +168,7 @@ public final class FileCacheEntry implements Runnable {
      * @return the entry's {@link ByteBuffer} reference
      */
     public ByteBuffer getByteBuffer(final boolean isCompressed) {
-        return isCompressed ? compressedBb : bb;
+        return isCompressed ? compressed.bb : bb;
     }
     
     @Override
@@ -174,7 +187,8 @@ public final class FileCacheEntry implements Runnable {
         sb.append(", type=").append(type);
         sb.append(", plainFileSize=").append(plainFileSize);
         sb.append(", canBeCompressed=").append(canBeCompressed);
-        sb.append(", compressedFileSize=").append(compressedFileSize);
+        sb.append(", compressedFileSize=").append(
+                compressed != null ? compressed.size : -1);
         sb.append(", timeoutMillis=").append(timeoutMillis);
         sb.append(", fileCache=").append(fileCache);
         sb.append(", server=").append(server);
@@ -184,7 +198,10 @@ public final class FileCacheEntry implements Runnable {
 
     @Override
     protected void finalize() throws Throwable {
-        if (compressedFile != null) {
+        // the precompressed files are shared and deleted upon VM exit
+        final CompressedFile localCompressed = compressed;
+        if (localCompressed != null && !localCompressed.isPrecompressed) {
+            final File compressedFile = localCompressed.file;
             if (!compressedFile.delete()) {
                 if (LOGGER.isLoggable(Level.FINE)) {
                     LOGGER.log(Level.FINE,
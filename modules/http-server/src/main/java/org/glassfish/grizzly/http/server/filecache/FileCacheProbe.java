@@ -64,6 +64,20 @@ public interface FileCacheProbe {
      */
     void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry);
 
+    /**
+     * Method will be called, when file cache entry gets evicted to make
+     * room for a more frequently requested resource.
+     * The {@link #onEntryRemovedEvent(FileCache, FileCacheEntry)} is called
+     * for the evicted entry as well.
+     * The default implementation does nothing.
+     *
+     * @param fileCache {@link FileCache}, the event belongs to.
+     * @param entry {@link FileCacheEntry} been evicted.
+     *
+     * @since 2.4.3
+     */
+    default void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {}
+
     /**
      * Method will be called, when file cache entry gets hit.
      *
@@ -116,6 +130,12 @@ public interface FileCacheProbe {
         @Override
         public void onEntryRemovedEvent(FileCache fileCache, FileCacheEntry entry) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {}
+
         /**
          * {@inheritDoc}
          */
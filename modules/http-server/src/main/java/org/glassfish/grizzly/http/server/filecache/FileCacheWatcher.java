@@ -0,0 +1,312 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Invalidates {@link FileCacheEntry}s as soon as their files get modified or
+ * deleted, so the entries may stay in the {@link FileCache} without a TTL.
+ * 
+ * The parent directory of every cached file is registered with a
+ * {@link WatchService}, which is polled periodically by the {@link FileCache}
+ * {@link org.glassfish.grizzly.utils.DelayedExecutor}. If the watch events
+ * have been lost (overflow), or the directory can't be watched at all,
+ * the files are checked by comparing their last-modified time and size
+ * with the cached ones.
+ * 
+ * @since 2.4.3
+ */
+final class FileCacheWatcher {
+    private static final Logger LOGGER = Grizzly.logger(FileCacheWatcher.class);
+    
+    private final FileCache fileCache;
+    
+    // null if the file system doesn't support watching
+    private final WatchService watchService;
+    
+    // watched directory -> its cached files, guarded by "this"
+    private final Map<Path, WatchedDir> watchedDirs =
+            new HashMap<Path, WatchedDir>();
+    
+    // the time the watcher has to be polled next, used by the delay queue
+    volatile long timeoutMillis = -1;
+
+    private boolean isClosed;
+    
+    FileCacheWatcher(final FileCache fileCache) {
+        this.fileCache = fileCache;
+        
+        WatchService ws = null;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.log(Level.WARNING,
+                    "Unable to create the file cache WatchService, cached"
+                    + " files will be checked periodically", e);
+        }
+        
+        watchService = ws;
+    }
+
+    /**
+     * Starts watching the file of the entry.
+     * 
+     * @return <tt>false</tt>, if the file has been changed after it has been
+     *         cached, so the entry has to be invalidated right away
+     */
+    boolean watch(final FileCacheEntry entry) {
+        final Path file = entry.plainFile.getAbsoluteFile().toPath();
+        final Path dir = file.getParent();
+        if (dir == null) {
+            return true;
+        }
+        
+        synchronized (this) {
+            if (isClosed) {
+                return true;
+            }
+            
+            WatchedDir watchedDir = watchedDirs.get(dir);
+            if (watchedDir == null) {
+                watchedDir = new WatchedDir(register(dir));
+                watchedDirs.put(dir, watchedDir);
+            }
+            
+            watchedDir.add(file.getFileName(), entry);
+        }
+        
+        // the file might have been changed before its directory was registered
+        return !isModified(entry);
+    }
+    
+    /**
+     * Stops watching the file of the entry.
+     */
+    synchronized void unwatch(final FileCacheEntry entry) {
+        final Path file = entry.plainFile.getAbsoluteFile().toPath();
+        final Path dir = file.getParent();
+        final WatchedDir watchedDir = dir != null ? watchedDirs.get(dir) : null;
+        if (watchedDir == null) {
+            return;
+        }
+        
+        if (watchedDir.remove(file.getFileName(), entry)
+                && watchedDir.files.isEmpty()) {
+            watchedDirs.remove(dir);
+            if (watchedDir.key != null) {
+                watchedDir.key.cancel();
+            }
+        }
+    }
+    
+    /**
+     * Processes the pending watch events and invalidates the entries,
+     * whose files have been changed.
+     */
+    void poll() {
+        final List<FileCacheEntry> modified = new ArrayList<FileCacheEntry>();
+        
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            
+            if (watchService != null) {
+                pollEvents(modified);
+            }
+            
+            // directories, which couldn't be registered, are checked every time
+            for (WatchedDir watchedDir : watchedDirs.values()) {
+                if (watchedDir.key == null) {
+                    watchedDir.collectModified(modified);
+                }
+            }
+        }
+        
+        for (FileCacheEntry entry : modified) {
+            fileCache.invalidate(entry);
+        }
+    }
+
+    synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+        
+        isClosed = true;
+        watchedDirs.clear();
+        
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+    
+    private void pollEvents(final List<FileCacheEntry> modified) {
+        try {
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                final Path dir = (Path) key.watchable();
+                final WatchedDir watchedDir = watchedDirs.get(dir);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (watchedDir == null || watchedDir.key != key) {
+                        continue;
+                    }
+                    
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        watchedDir.collectModified(modified);
+                    } else {
+                        final List<FileCacheEntry> entries =
+                                watchedDir.files.get((Path) event.context());
+                        if (entries != null) {
+                            modified.addAll(entries);
+                        }
+                    }
+                }
+
+                if (!key.reset() && watchedDir != null
+                        && watchedDir.key == key) {
+                    // the directory has been deleted or became inaccessible
+                    watchedDirs.remove(dir);
+                    watchedDir.collectAll(modified);
+                }
+            }
+        } catch (ClosedWatchServiceException ignored) {
+        }
+    }
+    
+    private WatchKey register(final Path dir) {
+        if (watchService == null) {
+            return null;
+        }
+        
+        try {
+            return dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Unable to watch directory " + dir
+                        + ", cached files will be checked periodically", e);
+            }
+            
+            return null;
+        }
+    }
+    
+    private static boolean isModified(final FileCacheEntry entry) {
+        final File file = entry.plainFile;
+        return file.lastModified() != entry.lastModified
+                || file.length() != entry.plainFileSize;
+    }
+    
+    private static final class WatchedDir {
+        // null if the directory is checked periodically
+        private final WatchKey key;
+        // file name -> the entries, which cache the file
+        private final Map<Path, List<FileCacheEntry>> files =
+                new HashMap<Path, List<FileCacheEntry>>();
+
+        private WatchedDir(final WatchKey key) {
+            this.key = key;
+        }
+
+        private void add(final Path fileName, final FileCacheEntry entry) {
+            List<FileCacheEntry> entries = files.get(fileName);
+            if (entries == null) {
+                entries = new ArrayList<FileCacheEntry>(1);
+                files.put(fileName, entries);
+            }
+            
+            entries.add(entry);
+        }
+        
+        private boolean remove(final Path fileName, final FileCacheEntry entry) {
+            final List<FileCacheEntry> entries = files.get(fileName);
+            if (entries == null || !entries.remove(entry)) {
+                return false;
+            }
+            
+            if (entries.isEmpty()) {
+                files.remove(fileName);
+            }
+            
+            return true;
+        }
+        
+        private void collectModified(final List<FileCacheEntry> modified) {
+            for (List<FileCacheEntry> entries : files.values()) {
+                for (FileCacheEntry entry : entries) {
+                    if (isModified(entry)) {
+                        modified.add(entry);
+                    }
+                }
+            }
+        }
+        
+        private void collectAll(final List<FileCacheEntry> modified) {
+            for (List<FileCacheEntry> entries : files.values()) {
+                modified.addAll(entries);
+            }
+        }
+    }
+}
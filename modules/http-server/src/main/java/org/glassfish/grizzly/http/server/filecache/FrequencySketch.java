@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+/**
+ * Count-Min sketch of the {@link FileCache} resource access frequencies,
+ * each resource has four 4-bit counters (so the max frequency is 15) spread
+ * over the table of <tt>long</tt>s.
+ * Once the number of recorded accesses reaches the sample size (10 times the
+ * max number of cache entries) all the counters are halved, so the sketch
+ * ages out the resources, which used to be popular.
+ * 
+ * The sketch is not thread-safe, the {@link TinyLfuPolicy} guards it.
+ * 
+ * @since 2.4.3
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+        0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    
+    // masks out the high bit of each counter after the halving shift
+    private static final long RESET_MASK = 0x7777777777777777L;
+    // the low bit of each counter
+    private static final long ONE_MASK = 0x1111111111111111L;
+    
+    // the min number of entries the sketch is sized for, so small caches
+    // don't get their frequencies polluted by collisions and aged too often
+    private static final int MIN_CAPACITY = 64;
+    
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Resizes the sketch (dropping the collected frequencies), if it's too
+     * small for the given number of entries.
+     */
+    void ensureCapacity(final int maxEntries) {
+        final int capacity = Math.max(MIN_CAPACITY, Math.min(maxEntries, 1 << 30));
+        if (table != null && table.length >= capacity) {
+            return;
+        }
+        
+        // round up to the power of two
+        table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = capacity <= Integer.MAX_VALUE / 10
+                ? capacity * 10
+                : Integer.MAX_VALUE;
+        size = 0;
+    }
+    
+    /**
+     * @return the estimated number of times the resource with the given hash
+     *         has been accessed (at most 15)
+     */
+    int frequency(final int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final long counters = table[indexOf(hash, i)];
+            final int count = (int) ((counters >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        
+        return frequency;
+    }
+    
+    /**
+     * Records an access to the resource with the given hash.
+     */
+    void increment(final int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(final int idx, final int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((table[idx] & mask) != mask) {
+            table[idx] += 1L << offset;
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Halves all the counters.
+     */
+    private void reset() {
+        int oddCounters = 0;
+        for (int i = 0; i < table.length; i++) {
+            oddCounters += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        
+        size = (size >>> 1) - (oddCounters >>> 2);
+    }
+    
+    private int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+    
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.server.filecache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * W-TinyLFU admission and eviction policy of the {@link FileCache}.
+ * 
+ * The entries are kept in three LRU ordered segments: the new entries are
+ * added to the small <tt>window</tt> segment (1% of the max entries),
+ * the entries pushed out of the window go to the <tt>probation</tt> segment,
+ * and the probation entries get promoted to the <tt>protected</tt> segment
+ * (80% of the max entries) once they are hit.
+ * 
+ * When the cache is full, either by the number of entries or by the
+ * heap/mapped bytes, the least recently used window entry (the candidate)
+ * competes with the least recently used probation entry (the victim), and
+ * the one, which has been requested less often, is evicted. The access
+ * frequencies are estimated by the {@link FrequencySketch}, which counts
+ * the requests of the resources, which are not cached, as well.
+ * So popular resources stay in the cache, while a scan over many rarely
+ * requested resources passes through the window only.
+ * 
+ * The cache hits are recorded only if the policy lock isn't contended,
+ * which makes the frequencies a bit less precise under load, but doesn't
+ * make the cache hits wait for each other.
+ * 
+ * @since 2.4.3
+ */
+final class TinyLfuPolicy {
+    static final int NONE = 0;
+    static final int WINDOW = 1;
+    static final int PROBATION = 2;
+    static final int PROTECTED = 3;
+    
+    private final FileCache fileCache;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // the fields below are guarded by the lock
+    private final FrequencySketch sketch = new FrequencySketch();
+    
+    private final Segment window = new Segment(WINDOW);
+    private final Segment probation = new Segment(PROBATION);
+    private final Segment protectedSegment = new Segment(PROTECTED);
+    
+    // the heap and mapped bytes of the entries in the segments
+    private long heapBytes;
+    private long mappedBytes;
+    
+    TinyLfuPolicy(final FileCache fileCache) {
+        this.fileCache = fileCache;
+    }
+    
+    /**
+     * Records the request of the resource, which is not cached.
+     */
+    void recordMiss(final int hash) {
+        if (lock.tryLock()) {
+            try {
+                sketch.ensureCapacity(fileCache.getMaxCacheEntries());
+                sketch.increment(hash);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Records the cache entry hit.
+     */
+    void recordHit(final FileCacheEntry entry) {
+        if (lock.tryLock()) {
+            try {
+                sketch.ensureCapacity(fileCache.getMaxCacheEntries());
+                sketch.increment(entry.policyHash);
+                
+                switch (entry.policySegment) {
+                    case WINDOW: {
+                        window.moveToTail(entry);
+                        break;
+                    }
+                    case PROBATION: {
+                        probation.unlink(entry);
+                        protectedSegment.linkTail(entry);
+                        
+                        if (protectedSegment.size > protectedMax()) {
+                            final FileCacheEntry demoted = protectedSegment.head;
+                            protectedSegment.unlink(demoted);
+                            probation.linkTail(demoted);
+                        }
+                        break;
+                    }
+                    case PROTECTED: {
+                        protectedSegment.moveToTail(entry);
+                        break;
+                    }
+                    default: // the entry is being added or has been removed
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Reserves the cache slot for the new resource, evicting an entry if
+     * the cache is full.
+     * 
+     * @return <tt>true</tt> if the slot has been reserved, or <tt>false</tt>
+     *         if there is no entry to be evicted
+     */
+    boolean reserveEntry(final int hash, final AtomicInteger entriesCount,
+            final int maxEntries) {
+        lock.lock();
+        try {
+            sketch.ensureCapacity(maxEntries);
+            sketch.increment(hash);
+            
+            while (entriesCount.get() >= maxEntries) {
+                if (!evictOne(null)) {
+                    return false;
+                }
+            }
+            
+            entriesCount.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Reserves the heap or mapped memory for the new resource, evicting
+     * entries of the same type if there is not enough memory.
+     * 
+     * @return <tt>true</tt> if the memory has been reserved, or <tt>false</tt>
+     *         if it can't be freed
+     */
+    boolean reserveBytes(final FileCache.CacheType type,
+            final AtomicLong bytesCount, final long maxBytes, final long size) {
+        if (size > maxBytes) {
+            return false;
+        }
+        
+        lock.lock();
+        try {
+            final long evictableBytes = type == FileCache.CacheType.HEAP
+                    ? heapBytes
+                    : mappedBytes;
+            if (bytesCount.get() - evictableBytes + size > maxBytes) {
+                // the memory is reserved by the entries being added
+                return false;
+            }
+            
+            while (bytesCount.get() + size > maxBytes) {
+                if (!evictOne(type)) {
+                    return false;
+                }
+            }
+            
+            bytesCount.addAndGet(size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Adds the new entry to the window segment.
+     */
+    void onAdded(final FileCacheEntry entry) {
+        lock.lock();
+        try {
+            // the entry might have been removed already
+            if (entry.policySegment != NONE || !fileCache.isCached(entry)) {
+                return;
+            }
+            
+            window.linkTail(entry);
+            if (window.size > windowMax()) {
+                final FileCacheEntry first = window.head;
+                window.unlink(first);
+                probation.linkTail(first);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes the entry from the policy segments.
+     */
+    void onRemoved(final FileCacheEntry entry) {
+        lock.lock();
+        try {
+            switch (entry.policySegment) {
+                case WINDOW: window.unlink(entry); break;
+                case PROBATION: probation.unlink(entry); break;
+                case PROTECTED: protectedSegment.unlink(entry); break;
+                default:
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Evicts the less frequently requested entry out of the least recently
+     * used window entry and the least recently used main (probation, or
+     * protected if the probation is empty) entry of the given type
+     * (any type if <tt>null</tt>).
+     * 
+     * @return <tt>false</tt> if there is no entry of the type to be evicted
+     */
+    private boolean evictOne(final FileCache.CacheType type) {
+        final FileCacheEntry candidate = window.first(type);
+        FileCacheEntry victim = probation.first(type);
+        if (victim == null) {
+            victim = protectedSegment.first(type);
+        }
+        
+        final FileCacheEntry evicted;
+        if (candidate == null || victim == null) {
+            evicted = candidate != null ? candidate : victim;
+            if (evicted == null) {
+                return false;
+            }
+        } else {
+            // the candidate has to be more popular to replace the victim
+            evicted = sketch.frequency(candidate.policyHash)
+                    > sketch.frequency(victim.policyHash)
+                    ? victim
+                    : candidate;
+        }
+        
+        fileCache.evict(evicted);
+        return true;
+    }
+    
+    private int windowMax() {
+        return Math.max(1, fileCache.getMaxCacheEntries() / 100);
+    }
+
+    private int protectedMax() {
+        return (int) ((fileCache.getMaxCacheEntries() - windowMax()) * 8L / 10);
+    }
+    
+    private void updateBytes(final FileCacheEntry entry, final int sign) {
+        if (entry.type == FileCache.CacheType.HEAP) {
+            heapBytes += sign * entry.bb.remaining();
+        } else if (entry.type == FileCache.CacheType.MAPPED) {
+            mappedBytes += sign * entry.bb.remaining();
+        }
+    }
+    
+    /**
+     * LRU ordered list of entries, the head is the least recently used one.
+     */
+    private final class Segment {
+        private final int id;
+        private FileCacheEntry head;
+        private FileCacheEntry tail;
+        private int size;
+
+        Segment(final int id) {
+            this.id = id;
+        }
+        
+        /**
+         * @return the least recently used entry of the type (any type if
+         *         <tt>null</tt>), or <tt>null</tt> if there is no such entry
+         */
+        FileCacheEntry first(final FileCache.CacheType type) {
+            FileCacheEntry e = head;
+            while (e != null && type != null && e.type != type) {
+                e = e.policyNext;
+            }
+            
+            return e;
+        }
+        
+        void linkTail(final FileCacheEntry entry) {
+            entry.policySegment = id;
+            entry.policyPrev = tail;
+            entry.policyNext = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.policyNext = entry;
+            }
+            tail = entry;
+            size++;
+            updateBytes(entry, 1);
+        }
+        
+        void unlink(final FileCacheEntry entry) {
+            final FileCacheEntry prev = entry.policyPrev;
+            final FileCacheEntry next = entry.policyNext;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.policyNext = next;
+            }
+            
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.policyPrev = prev;
+            }
+            
+            entry.policyPrev = entry.policyNext = null;
+            entry.policySegment = NONE;
+            size--;
+            updateBytes(entry, -1);
+        }
+        
+        void moveToTail(final FileCacheEntry entry) {
+            if (entry != tail) {
+                unlink(entry);
+                linkTail(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.server.util;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ThreadLocalRandom;
+import org.glassfish.grizzly.utils.Charsets;
+import org.glassfish.grizzly.http.util.FastHttpDateFormat;
+
+/**
+ * The byte ranges requested by the <tt>Range</tt> header of a request,
+ * resolved against the length of the resource they are served from.
+ * 
+ * A single range is served as a <tt>206 Partial Content</tt> response with
+ * a <tt>Content-Range</tt> header, several ranges as a
+ * <tt>multipart/byteranges</tt> body, where each range is preceded by its
+ * part header (see {@link #getPartHeader(int, String)}) and the body ends
+ * with {@link #getClosingDelimiter()}.
+ *
+ * @since 2.4.3
+ */
+public final class ByteRanges {
+    private static final Charset ASCII_CHARSET = Charsets.ASCII_CHARSET;
+
+    /**
+     * The max number of ranges a single request may ask for, the <tt>Range</tt>
+     * header of the requests asking for more is ignored.
+     */
+    public static final int MAX_RANGES = 64;
+    
+    private static final String BYTES_UNIT = "bytes";
+    
+    private final long totalLength;
+    private final long[] starts;
+    private final long[] ends;
+    private final int count;
+    
+    private String boundary;
+    
+    private ByteRanges(final long totalLength, final long[] starts,
+            final long[] ends, final int count) {
+        this.totalLength = totalLength;
+        this.starts = starts;
+        this.ends = ends;
+        this.count = count;
+    }
+
+    /**
+     * Parses the <tt>Range</tt> header value against the resource of the
+     * given length.
+     * 
+     * @param rangeHeader the <tt>Range</tt> header value
+     * @param totalLength the resource length
+     * @return the {@link ByteRanges}, which might be not
+     *         {@link #isSatisfiable() satisfiable}, or <tt>null</tt> if the
+     *         header is malformed, asks for more than {@link #MAX_RANGES}
+     *         ranges or for more bytes than the resource has, so it has to
+     *         be ignored and the entire resource sent.
+     */
+    public static ByteRanges parse(final String rangeHeader,
+            final long totalLength) {
+        if (rangeHeader == null) {
+            return null;
+        }
+        
+        final int eqIdx = rangeHeader.indexOf('=');
+        if (eqIdx == -1
+                || !BYTES_UNIT.equalsIgnoreCase(rangeHeader.substring(0, eqIdx).trim())) {
+            return null;
+        }
+        
+        final long[] starts = new long[4];
+        final long[] ends = new long[4];
+        long[] s = starts;
+        long[] e = ends;
+        int count = 0;
+        int specs = 0;
+        long requestedBytes = 0;
+        
+        int offset = eqIdx + 1;
+        final int len = rangeHeader.length();
+        while (offset <= len) {
+            int commaIdx = rangeHeader.indexOf(',', offset);
+            if (commaIdx == -1) {
+                commaIdx = len;
+            }
+            
+            final String spec = rangeHeader.substring(offset, commaIdx).trim();
+            offset = commaIdx + 1;
+            
+            if (spec.isEmpty()) {
+                continue;
+            }
+            
+            if (++specs > MAX_RANGES) {
+                return null;
+            }
+            
+            final int dashIdx = spec.indexOf('-');
+            if (dashIdx == -1) {
+                return null;
+            }
+            
+            final long start;
+            final long end;
+            
+            try {
+                if (dashIdx == 0) {
+                    // suffix-byte-range-spec
+                    final long suffixLength = parseNumber(spec, 1, spec.length());
+                    if (suffixLength == 0 || totalLength == 0) {
+                        continue;
+                    }
+                    
+                    start = Math.max(0, totalLength - suffixLength);
+                    end = totalLength - 1;
+                } else {
+                    start = parseNumber(spec, 0, dashIdx);
+                    final long lastPos = dashIdx == spec.length() - 1
+                            ? Long.MAX_VALUE
+                            : parseNumber(spec, dashIdx + 1, spec.length());
+                    if (lastPos < start) {
+                        return null;
+                    }
+                    
+                    if (start >= totalLength) {
+                        continue;
+                    }
+                    
+                    end = Math.min(lastPos, totalLength - 1);
+                }
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+            
+            requestedBytes += end - start + 1;
+            if (requestedBytes > totalLength) {
+                // overlapping ranges, which ask for more than the
+                // entire resource - don't amplify, send it once
+                return null;
+            }
+            
+            if (count == s.length) {
+                final long[] newS = new long[count * 2];
+                final long[] newE = new long[count * 2];
+                System.arraycopy(s, 0, newS, 0, count);
+                System.arraycopy(e, 0, newE, 0, count);
+                s = newS;
+                e = newE;
+            }
+            
+            s[count] = start;
+            e[count] = end;
+            count++;
+        }
+        
+        if (specs == 0) {
+            return null;
+        }
+        
+        return new ByteRanges(totalLength, s, e, count);
+    }
+    
+    /**
+     * Checks the <tt>If-Range</tt> header value against the current entity
+     * tag and the last modification time of the resource.
+     * 
+     * @param ifRangeHeader the <tt>If-Range</tt> header value,
+     *        might be <tt>null</tt>
+     * @param eTag the current resource entity tag
+     * @param lastModified the resource last modification time in millis
+     * @param formats the date formats to parse the HTTP-date with
+     * @return <tt>true</tt> if there is no <tt>If-Range</tt> header or its
+     *         validator matches the resource, so the <tt>Range</tt> header
+     *         has to be applied, or <tt>false</tt> if the entire resource
+     *         has to be sent
+     */
+    public static boolean isIfRangeSatisfied(final String ifRangeHeader,
+            final String eTag, final long lastModified,
+            final SimpleDateFormats formats) {
+        if (ifRangeHeader == null) {
+            return true;
+        }
+        
+        final String value = ifRangeHeader.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            // weak entity tags never match (strong comparison)
+            return value.equals(eTag);
+        }
+        
+        final long date = FastHttpDateFormat.parseDate(value,
+                formats.getFormats());
+        return date != -1 && date / 1000 == lastModified / 1000;
+    }
+    
+    /**
+     * @return <tt>true</tt> if at least one of the requested ranges
+     *         overlaps the resource, or <tt>false</tt> if the
+     *         <tt>416 Requested Range Not Satisfiable</tt> has to be sent
+     */
+    public boolean isSatisfiable() {
+        return count > 0;
+    }
+
+    /**
+     * @return <tt>true</tt> if more than one range has been requested and
+     *         they have to be sent as a <tt>multipart/byteranges</tt> body
+     */
+    public boolean isMultipart() {
+        return count > 1;
+    }
+    
+    /**
+     * @return the number of satisfiable ranges
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the length of the resource the ranges were resolved against
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+    
+    /**
+     * @return the first byte position of the range
+     */
+    public long getStart(final int idx) {
+        checkIndex(idx);
+        return starts[idx];
+    }
+
+    /**
+     * @return the last byte position of the range (inclusive)
+     */
+    public long getEnd(final int idx) {
+        checkIndex(idx);
+        return ends[idx];
+    }
+
+    /**
+     * @return the number of bytes in the range
+     */
+    public long getLength(final int idx) {
+        checkIndex(idx);
+        return ends[idx] - starts[idx] + 1;
+    }
+
+    /**
+     * @return the <tt>Content-Range</tt> value for the range
+     */
+    public String getContentRange(final int idx) {
+        checkIndex(idx);
+        return BYTES_UNIT + ' ' + starts[idx] + '-' + ends[idx] + '/' + totalLength;
+    }
+
+    /**
+     * @return the <tt>Content-Range</tt> value to be sent with
+     *         <tt>416 Requested Range Not Satisfiable</tt>
+     */
+    public String getUnsatisfiedContentRange() {
+        return BYTES_UNIT + " */" + totalLength;
+    }
+    
+    /**
+     * @return the <tt>Content-Type</tt> of the <tt>multipart/byteranges</tt> body
+     */
+    public String getMultipartContentType() {
+        return "multipart/byteranges; boundary=" + getBoundary();
+    }
+
+    /**
+     * Returns the <tt>multipart/byteranges</tt> header of the part, which
+     * carries the range.
+     * 
+     * @param idx the range index
+     * @param contentType the resource content type, might be <tt>null</tt>
+     */
+    public byte[] getPartHeader(final int idx, final String contentType) {
+        final StringBuilder sb = new StringBuilder(96);
+        sb.append("\r\n--").append(getBoundary()).append("\r\n");
+        if (contentType != null) {
+            sb.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        sb.append("Content-Range: ").append(getContentRange(idx)).append("\r\n\r\n");
+        
+        return sb.toString().getBytes(ASCII_CHARSET);
+    }
+    
+    /**
+     * @return the delimiter, which closes the <tt>multipart/byteranges</tt> body
+     */
+    public byte[] getClosingDelimiter() {
+        return ("\r\n--" + getBoundary() + "--\r\n").getBytes(ASCII_CHARSET);
+    }
+
+    /**
+     * @param contentType the resource content type, might be <tt>null</tt>
+     * @return the <tt>multipart/byteranges</tt> body length
+     */
+    public long getMultipartLength(final String contentType) {
+        long length = getClosingDelimiter().length;
+        for (int i = 0; i < count; i++) {
+            length += getPartHeader(i, contentType).length + getLength(i);
+        }
+        
+        return length;
+    }
+    
+    private String getBoundary() {
+        if (boundary == null) {
+            boundary = Long.toHexString(
+                    ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        }
+        
+        return boundary;
+    }
+
+    private void checkIndex(final int idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("index=" + idx + " size=" + count);
+        }
+    }
+    
+    private static long parseNumber(final String s, final int start,
+            final int end) {
+        if (start >= end || end - start > 18) {
+            throw new NumberFormatException(s);
+        }
+        
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(s);
+            }
+            
+            result = result * 10 + (c - '0');
+        }
+        
+        return result;
+    }
+}
@@ -67,6 +67,8 @@ import org.glassfish.grizzly.memory.CompositeBuffer;
  * 
  * Please note, this addon is not thread-safe, so it can't be used with HTTP
  * requests, that require asynchronous processing.
+ * The transport level alternative, which doesn't have this limitation, is
+ * {@link org.glassfish.grizzly.nio.transport.TCPNIOTransport#setWriteCorkSize(int)}.
  * 
  * @author Alexey Stashok
  */
@@ -54,6 +54,8 @@ import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.filterchain.*;
 import org.glassfish.grizzly.http.*;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.http.util.UEncoder;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
@@ -120,6 +122,40 @@ public class BasicConfigTest {
         }
     }
     
+    @Test
+    public void testResponseHeaders() throws Exception {
+        final HttpHandler httpHandler = new HttpHandler() {
+
+            @Override
+            public void service(Request request, Response response) throws Exception {
+                response.setHeader("X-Frame-Options", "SAMEORIGIN");
+                response.getWriter().write("ok");
+            }
+        };
+        httpHandler.setResponseHeaders(
+                PreEncodedHeader.newPreEncodedHeader(Header.CacheControl, "no-cache"),
+                PreEncodedHeader.newPreEncodedHeader("X-Frame-Options", "DENY"),
+                PreEncodedHeader.newPreEncodedHeader(Header.ContentType, "text/plain"));
+
+        final HttpServer server = createWebServer(httpHandler);
+
+        try {
+            server.start();
+
+            for (int i = 0; i < 2; i++) {
+                final HttpContent response = doTest(createRequest("/test", null), 10);
+                final HttpHeader header = response.getHttpHeader();
+
+                assertEquals("ok", response.getContent().toStringContent());
+                assertEquals("no-cache", header.getHeader(Header.CacheControl));
+                assertEquals("SAMEORIGIN", header.getHeader("X-Frame-Options"));
+                assertTrue(header.getContentType().startsWith("text/plain"));
+            }
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private HttpContent doTest(
             final HttpPacket request,
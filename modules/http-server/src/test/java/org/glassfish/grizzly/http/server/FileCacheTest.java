@@ -74,6 +74,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -90,6 +91,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
 
 import org.glassfish.grizzly.http.server.filecache.FileCacheProbe;
+import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.MimeType;
 import org.junit.After;
 import org.junit.Before;
@@ -517,13 +519,12 @@ public class FileCacheTest {
                 .header("Host", "localhost")
                 .build();
 
-        final HttpRequestPacket request2 = HttpRequestPacket.builder()
+        final HttpRequestPacket.Builder request2Builder = HttpRequestPacket.builder()
                 .method("GET")
                 .uri("/somedata")
                 .protocol("HTTP/1.1")
                 .header("Host", "localhost")
-                .header("Accept-Encoding", "gzip")
-                .build();
+                .header("Accept-Encoding", "gzip");
 
         final HttpRequestPacket request3 = HttpRequestPacket.builder()
                 .method("GET")
@@ -550,11 +551,20 @@ public class FileCacheTest {
             fis.close();
 
             final String pattern = new String(data);
-            responseFuture.reset();
-            c.write(request2);
-            final HttpContent response2 = responseFuture.get(10, TimeUnit.SECONDS);
+            
+            // the file is compressed in background, meanwhile it's served
+            // uncompressed
+            final long deadline = System.currentTimeMillis() + 10000;
+            HttpContent response2;
+            do {
+                responseFuture.reset();
+                c.write(request2Builder.build());
+                response2 = responseFuture.get(10, TimeUnit.SECONDS);
+                assertEquals("Cached data mismatch\n" + probe, pattern, response2.getContent().toStringContent());
+            } while (response2.getHttpHeader().getHeader("Content-Encoding") == null
+                    && System.currentTimeMillis() < deadline);
+            
             assertEquals(probe.toString(), "gzip", response2.getHttpHeader().getHeader("Content-Encoding"));
-            assertEquals("Cached data mismatch\n" + probe, pattern, response2.getContent().toStringContent());
             
             responseFuture.reset();
             c.write(request3);
@@ -1067,6 +1077,341 @@ public class FileCacheTest {
         assertTrue("non-empty body is expected", response2.getContent().hasRemaining());
     }
 
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    @Test
+    public void testRange() throws Exception {
+        final File file = createTempFile();
+        final String fileName = file.getName();
+        final String requestPath = "/" + fileName;
+        startHttpServer(new StaticHttpHandler(file.getParent()) {
+        });
+
+        InputStream fis = new FileInputStream(file);
+        byte[] data = new byte[(int) file.length()];
+        fis.read(data);
+        fis.close();
+
+        final String pattern = new String(data);
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .build());
+        final HttpContent response1 = responseFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(pattern, response1.getContent().toStringContent());
+        
+        final String eTag = response1.getHttpHeader().getHeader(Header.ETag);
+        final String lastModified = response1.getHttpHeader().getHeader(Header.LastModified);
+        assertEquals("bytes", response1.getHttpHeader().getHeader(Header.AcceptRanges));
+
+        // single range, If-Range matches either validator
+        for (String ifRange : new String[] {eTag, lastModified}) {
+            responseFuture.reset();
+            c.write(HttpRequestPacket.builder()
+                    .method("GET")
+                    .uri(requestPath)
+                    .protocol("HTTP/1.1")
+                    .header("Host", "localhost")
+                    .header(Header.Range, "bytes=10-29")
+                    .header(Header.IfRange, ifRange)
+                    .build());
+            final HttpContent response2 = responseFuture.get(10, TimeUnit.SECONDS);
+            final HttpResponsePacket responsePacket2 =
+                    (HttpResponsePacket) response2.getHttpHeader();
+
+            assertEquals("206 is expected", 206, responsePacket2.getStatus());
+            assertEquals("bytes 10-29/" + data.length,
+                    responsePacket2.getHeader(Header.ContentRange));
+            assertEquals(pattern.substring(10, 30),
+                    response2.getContent().toStringContent());
+        }
+        
+        // stale If-Range
+        responseFuture.reset();
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .header(Header.Range, "bytes=10-29")
+                .header(Header.IfRange, "\"0-0\"")
+                .build());
+        final HttpContent response3 = responseFuture.get(10, TimeUnit.SECONDS);
+        assertEquals("200 is expected", 200,
+                ((HttpResponsePacket) response3.getHttpHeader()).getStatus());
+        assertEquals(pattern, response3.getContent().toStringContent());
+        
+        // multiple ranges
+        responseFuture.reset();
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .header(Header.Range, "bytes=0-4,-5")
+                .build());
+        final HttpContent response4 = responseFuture.get(10, TimeUnit.SECONDS);
+        final HttpResponsePacket responsePacket4 =
+                (HttpResponsePacket) response4.getHttpHeader();
+        assertEquals("206 is expected", 206, responsePacket4.getStatus());
+        
+        final String contentType = responsePacket4.getHeader(Header.ContentType);
+        assertTrue(contentType, contentType.startsWith("multipart/byteranges; boundary="));
+        final String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        assertEquals("\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-4/" + data.length + "\r\n\r\n"
+                + pattern.substring(0, 5)
+                + "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes " + (data.length - 5) + "-"
+                + (data.length - 1) + "/" + data.length + "\r\n\r\n"
+                + pattern.substring(data.length - 5)
+                + "\r\n--" + boundary + "--\r\n",
+                response4.getContent().toStringContent());
+        
+        // not satisfiable range
+        responseFuture.reset();
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri(requestPath)
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .header(Header.Range, "bytes=" + data.length + "-")
+                .build());
+        final HttpContent response5 = responseFuture.get(10, TimeUnit.SECONDS);
+        final HttpResponsePacket responsePacket5 =
+                (HttpResponsePacket) response5.getHttpHeader();
+        assertEquals("416 is expected", 416, responsePacket5.getStatus());
+        assertEquals("bytes */" + data.length,
+                responsePacket5.getHeader(Header.ContentRange));
+    }
+
+    @Test
+    public void testScanDoesNotEvictPopularEntry() throws Exception {
+        final File hotFile = createTempFile();
+        final File[] scanFiles = new File[8];
+        for (int i = 0; i < scanFiles.length; i++) {
+            scanFiles[i] = createTempFile();
+        }
+        
+        final StatsCacheProbe cacheProbe = new StatsCacheProbe();
+        final org.glassfish.grizzly.http.server.filecache.FileCache fileCache =
+                httpServer.getListener("grizzly").getFileCache();
+        fileCache.setMaxCacheEntries(2);
+        fileCache.getMonitoringConfig().addProbes(cacheProbe);
+        
+        startHttpServer(new StaticHttpHandler(hotFile.getParent()) {
+        });
+
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        
+        // make the hot file popular
+        for (int i = 0; i < 4; i++) {
+            responseFuture.reset();
+            c.write(HttpRequestPacket.builder()
+                    .method("GET")
+                    .uri("/" + hotFile.getName())
+                    .protocol("HTTP/1.1")
+                    .header("Host", "localhost")
+                    .build());
+            responseFuture.get(10, TimeUnit.SECONDS);
+        }
+        
+        assertEquals(cacheProbe.toString(), 3, cacheProbe.getEntryHitCounter());
+        
+        // request each of the scan files once
+        for (File scanFile : scanFiles) {
+            responseFuture.reset();
+            c.write(HttpRequestPacket.builder()
+                    .method("GET")
+                    .uri("/" + scanFile.getName())
+                    .protocol("HTTP/1.1")
+                    .header("Host", "localhost")
+                    .build());
+            final HttpContent response = responseFuture.get(10, TimeUnit.SECONDS);
+            assertEquals(200, ((HttpResponsePacket) response.getHttpHeader()).getStatus());
+        }
+        
+        assertEquals(cacheProbe.toString(), scanFiles.length - 1,
+                cacheProbe.getEntryEvictedCounter());
+        assertTrue(cacheProbe.toString(),
+                fileCache.getMaxCacheEntries() >= cacheProbe.getEntryAddedCounter()
+                        - cacheProbe.getEntryRemovedCounter());
+        
+        // the hot file is still cached
+        responseFuture.reset();
+        c.write(HttpRequestPacket.builder()
+                .method("GET")
+                .uri("/" + hotFile.getName())
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost")
+                .build());
+        responseFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(cacheProbe.toString(), 4, cacheProbe.getEntryHitCounter());
+    }
+
+    @Test
+    public void testPrecompress() throws Exception {
+        final File dir = Files.createTempDirectory("grizzly-file-cache").toFile();
+        dir.deleteOnExit();
+        final File file = new File(dir, "precompressed.txt");
+        file.deleteOnExit();
+        final File binFile = new File(dir, "plain.bin");
+        binFile.deleteOnExit();
+        
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.write("precompressed content ".getBytes());
+            }
+        } finally {
+            out.close();
+        }
+        
+        assertTrue(binFile.createNewFile());
+        
+        final StatsCacheProbe cacheProbe = new StatsCacheProbe();
+        final org.glassfish.grizzly.http.server.filecache.FileCache fileCache =
+                httpServer.getListener("grizzly").getFileCache();
+        fileCache.getCompressionConfig().setCompressionMode(CompressionMode.ON);
+        fileCache.getCompressionConfig().setCompressionMinSize(1);
+        fileCache.getCompressionConfig().setCompressableMimeTypes("text/plain");
+        fileCache.getMonitoringConfig().addProbes(cacheProbe);
+        
+        // the .bin file isn't compressible
+        assertEquals(1, fileCache.precompress(dir).get(10, TimeUnit.SECONDS).intValue());
+        
+        startHttpServer(new StaticHttpHandler(dir.getAbsolutePath()) {
+        });
+
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        
+        HttpContent response = null;
+        for (int i = 0; i < 2; i++) {
+            responseFuture.reset();
+            c.write(HttpRequestPacket.builder()
+                    .method("GET")
+                    .uri("/" + file.getName())
+                    .protocol("HTTP/1.1")
+                    .header("Host", "localhost")
+                    .header("Accept-Encoding", "gzip")
+                    .build());
+            response = responseFuture.get(10, TimeUnit.SECONDS);
+        }
+        
+        // the first cache hit is served compressed right away
+        assertEquals(cacheProbe.toString(), 1, cacheProbe.getEntryHitCounter());
+        assertEquals("gzip", response.getHttpHeader().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void testPrecompressDeletesStaleFile() throws Exception {
+        final File dir = Files.createTempDirectory("grizzly-file-cache").toFile();
+        dir.deleteOnExit();
+        final File compressedDir =
+                Files.createTempDirectory("grizzly-file-cache-gz").toFile();
+        compressedDir.deleteOnExit();
+        final File file = new File(dir, "precompressed.txt");
+        file.deleteOnExit();
+        
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.write("precompressed content ".getBytes());
+            }
+        } finally {
+            out.close();
+        }
+        
+        final org.glassfish.grizzly.http.server.filecache.FileCache fileCache =
+                httpServer.getListener("grizzly").getFileCache();
+        fileCache.setCompressedFilesFolder(compressedDir);
+        fileCache.getCompressionConfig().setCompressionMode(CompressionMode.ON);
+        fileCache.getCompressionConfig().setCompressionMinSize(1);
+        fileCache.getCompressionConfig().setCompressableMimeTypes("text/plain");
+        
+        assertEquals(1, fileCache.precompress(dir).get(10, TimeUnit.SECONDS).intValue());
+        assertEquals(1, compressedDir.listFiles().length);
+        
+        // the refreshed file replaces the stale one
+        final FileOutputStream appendOut = new FileOutputStream(file, true);
+        try {
+            appendOut.write("more content".getBytes());
+        } finally {
+            appendOut.close();
+        }
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        
+        assertEquals(1, fileCache.precompress(dir).get(10, TimeUnit.SECONDS).intValue());
+        final File[] compressedFiles = compressedDir.listFiles();
+        assertEquals(1, compressedFiles.length);
+        compressedFiles[0].deleteOnExit();
+    }
+
+    @Test
+    public void testFileWatchInvalidatesModifiedEntry() throws Exception {
+        final File file = createTempFile();
+        
+        final StatsCacheProbe cacheProbe = new StatsCacheProbe();
+        final org.glassfish.grizzly.http.server.filecache.FileCache fileCache =
+                httpServer.getListener("grizzly").getFileCache();
+        fileCache.setFileWatchEnabled(true);
+        fileCache.getMonitoringConfig().addProbes(cacheProbe);
+        
+        startHttpServer(new StaticHttpHandler(file.getParent()) {
+        });
+
+        final HttpRequestPacket.Builder builder = HttpRequestPacket.builder()
+                .method("GET")
+                .uri("/" + file.getName())
+                .protocol("HTTP/1.1")
+                .header("Host", "localhost");
+        
+        final ReusableFuture<HttpContent> responseFuture =
+                new ReusableFuture<HttpContent>();
+        final Connection c = getConnection("localhost", PORT, responseFuture);
+        
+        // cache the file and serve it from the cache
+        for (int i = 0; i < 2; i++) {
+            responseFuture.reset();
+            c.write(builder.build());
+            responseFuture.get(10, TimeUnit.SECONDS);
+        }
+        
+        assertEquals(cacheProbe.toString(), 1, cacheProbe.getEntryHitCounter());
+        
+        final String newContent = "new content";
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(newContent.getBytes());
+        } finally {
+            out.close();
+        }
+        
+        // the entry has no max age, so only the watcher may remove it
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (cacheProbe.getEntryRemovedCounter() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        
+        assertEquals(cacheProbe.toString(), 1, cacheProbe.getEntryRemovedCounter());
+        
+        responseFuture.reset();
+        c.write(builder.build());
+        final HttpContent response = responseFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(newContent, response.getContent().toStringContent());
+    }
+
     @SuppressWarnings("ResultOfMethodCallIgnored")
     @Test
     public void test304NonCachedFile() throws Exception {
@@ -1314,6 +1659,7 @@ public class FileCacheTest {
 
         final AtomicInteger entryAddedCounter = new AtomicInteger();
         final AtomicInteger entryRemovedCounter = new AtomicInteger();
+        final AtomicInteger entryEvictedCounter = new AtomicInteger();
         final AtomicInteger entryHitCounter = new AtomicInteger();
         final AtomicInteger entryMissedCounter = new AtomicInteger();
         final AtomicInteger entryErrorCounter = new AtomicInteger();
@@ -1328,6 +1674,11 @@ public class FileCacheTest {
             entryRemovedCounter.incrementAndGet();
         }
 
+        @Override
+        public void onEntryEvictedEvent(FileCache fileCache, FileCacheEntry entry) {
+            entryEvictedCounter.incrementAndGet();
+        }
+
         @Override
         public void onEntryHitEvent(FileCache fileCache, FileCacheEntry entry) {
             entryHitCounter.incrementAndGet();
@@ -1350,6 +1701,9 @@ public class FileCacheTest {
         public int getEntryRemovedCounter() {
             return entryRemovedCounter.get();
         }
+        public int getEntryEvictedCounter() {
+            return entryEvictedCounter.get();
+        }
         public int getEntryHitCounter() {
             return entryHitCounter.get();
         }
@@ -1365,6 +1719,7 @@ public class FileCacheTest {
             final StringBuilder sb = new StringBuilder("file-cache-stats[added=")
             .append(getEntryAddedCounter())
             .append(", removed=").append(getEntryRemovedCounter())
+            .append(", evicted=").append(getEntryEvictedCounter())
             .append(", hit=").append(getEntryHitCounter())
             .append(", missed=").append(getEntryMissedCounter())
             .append(", error=").append(getEntryErrorCounter())
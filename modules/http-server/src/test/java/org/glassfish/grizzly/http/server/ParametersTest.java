@@ -85,7 +85,18 @@ public class ParametersTest {
      */
     @Test
     public void testPostBodyChunked() throws Exception {
+        doTestPostBodyChunked(false);
+    }
+
+    @Test
+    public void testPostBodyChunkedLazyDecoding() throws Exception {
+        doTestPostBodyChunked(true);
+    }
+
+    private void doTestPostBodyChunked(final boolean isLazyDecoding)
+            throws Exception {
         final HttpServer server = createServer();
+        server.getServerConfiguration().setLazyParameterDecoding(isLazyDecoding);
         final String body = generatePostBody(1024 * 3);
         final String[][] paramParts = getParts(body);
         final FutureImpl<Boolean> resultFuture = Futures.createSafeFuture();
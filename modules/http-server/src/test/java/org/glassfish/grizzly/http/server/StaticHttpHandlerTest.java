@@ -235,6 +235,132 @@ public class StaticHttpHandlerTest {
         }        
     }
     
+    @Test
+    public void testSingleRange() throws Exception {
+        final int fileSize = 128 * 1024;
+        final File control = generateTempFile(fileSize);
+        final byte[] controlBytes = Files.readAllBytes(control.toPath());
+        
+        // the first request is served by the StaticHttpHandler,
+        // the second one - by the FileCacheFilter
+        for (int i = 0; i < 2; i++) {
+            File fResult = requestRange(control, "bytes=1000-5999", null,
+                    new ResponseValidator() {
+                @Override
+                public void validate(HttpResponsePacket response) {
+                    assertEquals(206, response.getStatus());
+                    assertEquals("bytes 1000-5999/" + fileSize,
+                            response.getHeader(Header.ContentRange));
+                    assertEquals("5000", response.getHeader(Header.ContentLength));
+                }
+            });
+            assertArrayEquals(Arrays.copyOfRange(controlBytes, 1000, 6000),
+                    Files.readAllBytes(fResult.toPath()));
+        }
+        
+        File fResult = requestRange(control, "bytes=-100", null,
+                new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(206, response.getStatus());
+                assertEquals("bytes " + (fileSize - 100) + "-" + (fileSize - 1)
+                        + "/" + fileSize, response.getHeader(Header.ContentRange));
+            }
+        });
+        assertArrayEquals(Arrays.copyOfRange(controlBytes, fileSize - 100, fileSize),
+                Files.readAllBytes(fResult.toPath()));
+        
+        requestRange(control, "bytes=" + fileSize + "-", null,
+                new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(416, response.getStatus());
+                assertEquals("bytes */" + fileSize,
+                        response.getHeader(Header.ContentRange));
+            }
+        });
+        
+        // If-Range doesn't match - the entire file has to be sent
+        fResult = requestRange(control, "bytes=1000-5999", "\"stale\"",
+                new ResponseValidator() {
+            @Override
+            public void validate(HttpResponsePacket response) {
+                assertEquals(200, response.getStatus());
+                assertEquals(Integer.toString(fileSize),
+                        response.getHeader(Header.ContentLength));
+            }
+        });
+        assertEquals(fileSize, fResult.length());
+    }
+    
+    @Test
+    public void testMultipleRanges() throws Exception {
+        final int fileSize = 128 * 1024;
+        final File control = generateTempFile(fileSize);
+        final byte[] controlBytes = Files.readAllBytes(control.toPath());
+        final long[][] ranges = {{0, 99}, {10000, 29999}, {fileSize - 10, fileSize - 1}};
+        
+        for (int i = 0; i < 2; i++) {
+            final File fResult = requestRange(control, "bytes=0-99,10000-29999,-10",
+                    null, new ResponseValidator() {
+                @Override
+                public void validate(HttpResponsePacket response) {
+                    assertEquals(206, response.getStatus());
+                    assertTrue(response.getHeader(Header.ContentType)
+                            .startsWith("multipart/byteranges; boundary="));
+                    assertNull(response.getHeader(Header.ContentRange));
+                }
+            });
+            
+            final byte[] body = Files.readAllBytes(fResult.toPath());
+            final String bodyStr = new String(body, "ISO-8859-1");
+            assertTrue(bodyStr.endsWith("--\r\n"));
+            
+            for (long[] range : ranges) {
+                final String partHeader = "Content-Range: bytes " + range[0] + "-"
+                        + range[1] + "/" + fileSize + "\r\n\r\n";
+                final int idx = bodyStr.indexOf(partHeader);
+                assertTrue(partHeader, idx != -1);
+                
+                final int partStart = idx + partHeader.length();
+                assertArrayEquals(
+                        Arrays.copyOfRange(controlBytes, (int) range[0], (int) range[1] + 1),
+                        Arrays.copyOfRange(body, partStart,
+                                partStart + (int) (range[1] - range[0] + 1)));
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private File requestRange(final File control, final String range,
+            final String ifRange, final ResponseValidator validator)
+            throws Exception {
+        final FutureImpl<File> result = Futures.createSafeFuture();
+
+        TCPNIOTransport client = createClient(result, validator, isSslEnabled);
+        try {
+            client.start();
+            Connection c = client.connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+            
+            HttpRequestPacket.Builder builder =
+                    HttpRequestPacket.builder().uri("/" + control.getName())
+                        .method(Method.GET)
+                        .protocol(Protocol.HTTP_1_1)
+                        .header("Host", "localhost:" + PORT)
+                        .header(Header.Range, range);
+            if (ifRange != null) {
+                builder.header(Header.IfRange, ifRange);
+            }
+            c.write(builder.build());
+            File fResult = result.get(20, TimeUnit.SECONDS);
+            
+            c.close();
+            return fResult;
+        } finally {
+            client.shutdownNow();
+        }
+    }
+    
     private static TCPNIOTransport createClient(final FutureImpl<File> result,
             final ResponseValidator validator,
             final boolean isSslEnabled) throws Exception {
@@ -43,6 +43,7 @@ package org.glassfish.grizzly.http;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
+import java.util.zip.Deflater;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpUtils;
@@ -103,6 +104,10 @@ public final class CompressionConfig {
             new ArraySet<String>(String.class);
     // Allow decompression of incoming data
     private boolean decompressionEnabled;
+    // the deflate compression level
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    // the deflate compression strategy
+    private int compressionStrategy = Deflater.DEFAULT_STRATEGY;
     
     public CompressionConfig() {
         compressionMode = CompressionMode.OFF;
@@ -154,6 +159,8 @@ public final class CompressionConfig {
         setCompressibleMimeTypes(compression.compressibleMimeTypes);
         setNoCompressionUserAgents(compression.noCompressionUserAgents);
         decompressionEnabled = compression.isDecompressionEnabled();
+        compressionLevel = compression.compressionLevel;
+        compressionStrategy = compression.compressionStrategy;
     }
     
     /**
@@ -337,6 +344,62 @@ public final class CompressionConfig {
         this.decompressionEnabled = decompressionEnabled;
     }
 
+    /**
+     * Returns the deflate compression level, {@link Deflater#DEFAULT_COMPRESSION}
+     * by default.
+     *
+     * @since 2.4.3
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the deflate compression level: {@link Deflater#DEFAULT_COMPRESSION},
+     * or a value from {@link Deflater#NO_COMPRESSION} (0) to
+     * {@link Deflater#BEST_COMPRESSION} (9). Lower levels trade compression
+     * ratio for CPU.
+     *
+     * @since 2.4.3
+     */
+    public void setCompressionLevel(final int compressionLevel) {
+        if ((compressionLevel < Deflater.NO_COMPRESSION
+                || compressionLevel > Deflater.BEST_COMPRESSION)
+                && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException(
+                    "Invalid compression level: " + compressionLevel);
+        }
+        
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns the deflate compression strategy, {@link Deflater#DEFAULT_STRATEGY}
+     * by default.
+     *
+     * @since 2.4.3
+     */
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    /**
+     * Sets the deflate compression strategy: {@link Deflater#DEFAULT_STRATEGY},
+     * {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+     *
+     * @since 2.4.3
+     */
+    public void setCompressionStrategy(final int compressionStrategy) {
+        if (compressionStrategy != Deflater.DEFAULT_STRATEGY
+                && compressionStrategy != Deflater.FILTERED
+                && compressionStrategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException(
+                    "Invalid compression strategy: " + compressionStrategy);
+        }
+        
+        this.compressionStrategy = compressionStrategy;
+    }
+
     /**
      * Returns <tt>true</tt> if a client, based on its {@link HttpRequestPacket},
      * could be responded with compressed data, or <tt>false</tt> otherwise.
@@ -44,8 +44,10 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.TransformationResult;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.compression.zip.DeflaterPool;
 import org.glassfish.grizzly.compression.zip.GZipDecoder;
 import org.glassfish.grizzly.compression.zip.GZipEncoder;
+import org.glassfish.grizzly.compression.zip.InflaterPool;
 
 /**
  * GZip {@link ContentEncoding} implementation, which compresses/decompresses
@@ -92,8 +94,29 @@ public class GZipContentEncoding implements ContentEncoding {
      */
     public GZipContentEncoding(int inBufferSize, int outBufferSize,
             EncodingFilter encoderFilter) {
-        this.decoder = new GZipDecoder(inBufferSize);
-        this.encoder = new GZipEncoder(outBufferSize);
+        this(inBufferSize, outBufferSize, new InflaterPool(),
+                new DeflaterPool(), encoderFilter);
+    }
+
+    /**
+     * Construct <tt>GZipContentEncoding</tt> using specific buffer sizes and
+     * {@link java.util.zip.Inflater}/{@link java.util.zip.Deflater} pools.
+     * The {@link DeflaterPool} defines the compression level and strategy.
+     * 
+     * @param inBufferSize input buffer size
+     * @param outBufferSize output buffer size
+     * @param inflaterPool {@link InflaterPool} used to decompress the content
+     * @param deflaterPool {@link DeflaterPool} used to compress the content
+     * @param encoderFilter {@link EncodingFilter}, which will decide if
+     *          <tt>GZipContentEncoding</tt> should be applied to encode specific
+     *          {@link HttpHeader} packet.
+     * @since 2.4.3
+     */
+    public GZipContentEncoding(int inBufferSize, int outBufferSize,
+            InflaterPool inflaterPool, DeflaterPool deflaterPool,
+            EncodingFilter encoderFilter) {
+        this.decoder = new GZipDecoder(inBufferSize, inflaterPool);
+        this.encoder = new GZipEncoder(outBufferSize, deflaterPool);
 
         if (encoderFilter != null) {
             this.encoderFilter = encoderFilter;
@@ -126,6 +149,22 @@ public class GZipContentEncoding implements ContentEncoding {
         return ALIASES.clone();
     }
 
+    /**
+     * @return the {@link InflaterPool} used to decompress the content
+     * @since 2.4.3
+     */
+    public InflaterPool getInflaterPool() {
+        return decoder.getInflaterPool();
+    }
+
+    /**
+     * @return the {@link DeflaterPool} used to compress the content
+     * @since 2.4.3
+     */
+    public DeflaterPool getDeflaterPool() {
+        return encoder.getDeflaterPool();
+    }
+
     @Override
     public final boolean wantDecode(final HttpHeader header) {
         return encoderFilter.applyDecoding(header);
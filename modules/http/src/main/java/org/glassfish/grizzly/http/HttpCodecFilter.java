@@ -43,6 +43,8 @@ package org.glassfish.grizzly.http;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
@@ -58,6 +60,8 @@ import org.glassfish.grizzly.http.util.Constants;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
+import org.glassfish.grizzly.http.util.SwarUtils;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.CompositeBuffer.DisposeOrder;
@@ -107,6 +111,13 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
      */
     static final byte[] CRLF_BYTES = {(byte) '\r', (byte) '\n'};
 
+    /**
+     * The Content-Encoding header lines for a single content encoding applied,
+     * by the encoding name.
+     */
+    private static final ConcurrentMap<String, PreEncodedHeader> CONTENT_ENCODING_HEADERS =
+            new ConcurrentHashMap<>();
+
     /**
      * Close bytes.
      */
@@ -886,31 +897,22 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         
         final int limit = Math.min(end, arrayOffs + parsingState.packetLimit);
         final int start = arrayOffs + parsingState.start;
-        int offset = arrayOffs + parsingState.offset;
+        final int offset = arrayOffs + parsingState.offset;
 
-        while(offset < limit) {
-            byte b = input[offset];
-            if (b == Constants.COLON) {
-
-                parsingState.headerValueStorage =
-                        mimeHeaders.addValue(input, start, offset - start);
-                parsingState.offset = offset + 1 - arrayOffs;
-                finalizeKnownHeaderNames(httpHeader, parsingState, input,
-                        start, offset);
-
-                return true;
-            } else if ((b >= Constants.A) && (b <= Constants.Z)) {
-                if (!preserveHeaderCase) {
-                    b -= Constants.LC_OFFSET;
-                }
-                input[offset] =  b;
-            }
-
-            offset++;
+        final int colonIdx = SwarUtils.scanHeaderName(input, offset, limit,
+                !preserveHeaderCase);
+        if (colonIdx == -1) {
+            parsingState.offset = Math.max(offset, limit) - arrayOffs;
+            return false;
         }
 
-        parsingState.offset = offset - arrayOffs;
-        return false;
+        parsingState.headerValueStorage =
+                mimeHeaders.addValue(input, start, colonIdx - start);
+        parsingState.offset = colonIdx + 1 - arrayOffs;
+        finalizeKnownHeaderNames(httpHeader, parsingState, input,
+                start, colonIdx);
+
+        return true;
     }
 
     protected static int parseHeaderValue(final HttpHeader httpHeader,
@@ -925,6 +927,31 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         final boolean hasShift = (offset != (arrayOffs + parsingState.checkpoint));
         
         while (offset < limit) {
+            if (!hasShift) {
+                // skip the value bytes up to the next CR or LF at once
+                final int crLfIdx = SwarUtils.indexOfCrLf(input, offset, limit);
+                final int valueEnd = crLfIdx != -1 ? crLfIdx : limit;
+                if (valueEnd > offset) {
+                    parsingState.checkpoint += valueEnd - offset;
+                    
+                    int lastNonSpace = valueEnd - 1;
+                    while (lastNonSpace >= offset
+                            && input[lastNonSpace] == Constants.SP) {
+                        lastNonSpace--;
+                    }
+                    
+                    if (lastNonSpace >= offset) {
+                        parsingState.checkpoint2 = parsingState.checkpoint
+                                - (valueEnd - 1 - lastNonSpace);
+                    }
+                    
+                    offset = valueEnd;
+                    if (offset == limit) {
+                        break;
+                    }
+                }
+            }
+            
             final byte b = input[offset];
             if (b == Constants.CR) {
             } else if (b == Constants.LF) {
@@ -1165,31 +1192,22 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
             final Buffer input) {
         final int limit = Math.min(input.limit(), parsingState.packetLimit);
         final int start = parsingState.start;
-        int offset = parsingState.offset;
-
-        while(offset < limit) {
-            byte b = input.get(offset);
-            if (b == Constants.COLON) {
-
-                parsingState.headerValueStorage =
-                        mimeHeaders.addValue(input, start, offset - start);
-                parsingState.offset = offset + 1;
-                finalizeKnownHeaderNames(httpHeader, parsingState, input,
-                        start, offset);
+        final int offset = parsingState.offset;
 
-                return true;
-            } else if ((b >= Constants.A) && (b <= Constants.Z)) {
-                if (!preserveHeaderCase) {
-                    b -= Constants.LC_OFFSET;
-                }
-                input.put(offset, b);
-            }
-
-            offset++;
+        final int colonIdx = SwarUtils.scanHeaderName(input, offset, limit,
+                !preserveHeaderCase);
+        if (colonIdx == -1) {
+            parsingState.offset = Math.max(offset, limit);
+            return false;
         }
 
-        parsingState.offset = offset;
-        return false;
+        parsingState.headerValueStorage =
+                mimeHeaders.addValue(input, start, colonIdx - start);
+        parsingState.offset = colonIdx + 1;
+        finalizeKnownHeaderNames(httpHeader, parsingState, input,
+                start, colonIdx);
+
+        return true;
     }
 
     protected static int parseHeaderValue(final HttpHeader httpHeader,
@@ -1202,6 +1220,31 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         final boolean hasShift = (offset != parsingState.checkpoint);
         
         while(offset < limit) {
+            if (!hasShift) {
+                // skip the value bytes up to the next CR or LF at once
+                final int crLfIdx = SwarUtils.indexOfCrLf(input, offset, limit);
+                final int valueEnd = crLfIdx != -1 ? crLfIdx : limit;
+                if (valueEnd > offset) {
+                    parsingState.checkpoint += valueEnd - offset;
+                    
+                    int lastNonSpace = valueEnd - 1;
+                    while (lastNonSpace >= offset
+                            && input.get(lastNonSpace) == Constants.SP) {
+                        lastNonSpace--;
+                    }
+                    
+                    if (lastNonSpace >= offset) {
+                        parsingState.checkpoint2 = parsingState.checkpoint
+                                - (valueEnd - 1 - lastNonSpace);
+                    }
+                    
+                    offset = valueEnd;
+                    if (offset == limit) {
+                        break;
+                    }
+                }
+            }
+            
             final byte b = input.get(offset);
             if (b == Constants.CR) {
             } else if (b == Constants.LF) {
@@ -1691,6 +1734,11 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         name.setBytes(Header.ContentEncoding.toByteArray());
         value.reset();
         httpHeader.extractContentEncoding(value);
+        if (value.isNull() && packetContentEncodings.size() == 1) {
+            return put(memoryManager, buffer, getContentEncodingHeader(
+                    packetContentEncodings.get(0).getName()).getByteArray());
+        }
+
         boolean needComma = !value.isNull();
         final byte[] tempBuffer = httpHeader.getTempHeaderEncodingBuffer();
         
@@ -1709,6 +1757,21 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
         return buffer;
     }
     
+    private static PreEncodedHeader getContentEncodingHeader(final String encoding) {
+        PreEncodedHeader header = CONTENT_ENCODING_HEADERS.get(encoding);
+        if (header == null) {
+            header = PreEncodedHeader.newPreEncodedHeader(
+                    Header.ContentEncoding, encoding);
+            final PreEncodedHeader existing =
+                    CONTENT_ENCODING_HEADERS.putIfAbsent(encoding, header);
+            if (existing != null) {
+                header = existing;
+            }
+        }
+
+        return header;
+    }
+
     protected static Buffer encodeMimeHeaders(final MemoryManager memoryManager,
                                               Buffer buffer,
                                               final MimeHeaders mimeHeaders,
@@ -1717,6 +1780,12 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
 
         for (int i = 0; i < mimeHeadersNum; i++) {
             if (!mimeHeaders.setSerialized(i, true)) {
+                final byte[] preEncoded = mimeHeaders.getPreEncoded(i);
+                if (preEncoded != null) {
+                    buffer = put(memoryManager, buffer, preEncoded);
+                    continue;
+                }
+
                 final DataChunk value = mimeHeaders.getValue(i);
                 if (!value.isNull()) {
                     buffer = encodeMimeHeader(memoryManager,
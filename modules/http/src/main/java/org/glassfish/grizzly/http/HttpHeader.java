@@ -56,6 +56,7 @@ import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HeaderValue;
 import org.glassfish.grizzly.http.util.HttpUtils;
 import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.utils.Charsets;
 
 /**
@@ -760,6 +761,47 @@ public abstract class HttpHeader extends HttpPacket
         value.serializeToDataChunk(headers.setValue(header));
     }
 
+    /**
+     * Set the {@link PreEncodedHeader}, replacing the existing headers with
+     * the same name. The header line is serialized as pre-encoded, unless it
+     * is one of the headers, which are kept as the message properties, like
+     * <tt>Content-Type</tt> or <tt>Content-Length</tt>.
+     *
+     * @param header the {@link PreEncodedHeader}
+     *
+     * @since 2.4.3
+     */
+    public void setHeader(final PreEncodedHeader header) {
+        if (header == null) {
+            return;
+        }
+        if (handleSetSpecialHeaders(header.getName(), header.getValue())) {
+            return;
+        }
+
+        headers.setValue(header);
+    }
+
+    /**
+     * Add the {@link PreEncodedHeader}. The header line is serialized as
+     * pre-encoded, unless it is one of the headers, which are kept as the
+     * message properties, like <tt>Content-Type</tt> or <tt>Content-Length</tt>.
+     *
+     * @param header the {@link PreEncodedHeader}
+     *
+     * @since 2.4.3
+     */
+    public void addHeader(final PreEncodedHeader header) {
+        if (header == null) {
+            return;
+        }
+        if (handleSetSpecialHeaders(header.getName(), header.getValue())) {
+            return;
+        }
+
+        headers.addValue(header);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,6 +54,7 @@ import org.glassfish.grizzly.http.util.FastHttpDateFormat;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.utils.DelayedExecutor;
 
@@ -95,6 +96,18 @@ public class HttpServerFilter extends HttpCodecFilter {
     private String defaultResponseContentType;
     private byte[] defaultResponseContentTypeBytes;
     private byte[] defaultResponseContentTypeBytesNoCharset;
+    private PreEncodedHeader defaultResponseContentTypeHeader;
+
+    private static final PreEncodedHeader CONNECTION_CLOSE_HEADER =
+            PreEncodedHeader.newPreEncodedHeader(Header.Connection, "close");
+    private static final PreEncodedHeader CONNECTION_KEEPALIVE_HEADER =
+            PreEncodedHeader.newPreEncodedHeader(Header.Connection, "keep-alive");
+
+    /**
+     * The Date header of the current date, encoded again once the date
+     * changes, i.e. once a second.
+     */
+    private volatile PreEncodedHeader dateHeader;
     
     private final boolean allowKeepAlive;
     private final int maxRequestHeaders;
@@ -233,9 +246,12 @@ public class HttpServerFilter extends HttpCodecFilter {
             defaultResponseContentTypeBytes = toCheckedByteArray(contentType);
             defaultResponseContentTypeBytesNoCharset =
                     ContentType.removeCharset(defaultResponseContentTypeBytes);
+            defaultResponseContentTypeHeader = PreEncodedHeader.newPreEncodedHeader(
+                    Header.ContentType, contentType);
         } else {
             defaultResponseContentTypeBytes =
                     defaultResponseContentTypeBytesNoCharset = null;
+            defaultResponseContentTypeHeader = null;
         }
     }
 
@@ -954,7 +970,7 @@ public class HttpServerFilter extends HttpCodecFilter {
                 if (contenTypeValue.isNull()) {
                     final String ce = response.getCharacterEncoding();
                     if (ce == null) {
-                        contenTypeValue.setBytes(defaultResponseContentTypeBytes);
+                        headers.setValue(defaultResponseContentTypeHeader);
                     } else {
                         final byte[] array = ContentType.compose(
                                 defaultResponseContentTypeBytesNoCharset, ce);
@@ -965,8 +981,7 @@ public class HttpServerFilter extends HttpCodecFilter {
         }
 
         if (!response.containsHeader(Header.Date)) {
-            response.getHeaders().addValue(Header.Date)
-                    .setBytes(FastHttpDateFormat.getCurrentDateBytes());
+            response.getHeaders().addValue(getDateHeader());
         }
 
         final ProcessingState state = response.getProcessingState();
@@ -998,13 +1013,24 @@ public class HttpServerFilter extends HttpCodecFilter {
         }
 
         if (!state.keepAlive) {
-            headers.setValue(Header.Connection).setBytes(CLOSE_BYTES);
+            headers.setValue(CONNECTION_CLOSE_HEADER);
         } else if (!isHttp11 && !state.error) {
-            headers.setValue(Header.Connection).setBytes(KEEPALIVE_BYTES);
+            headers.setValue(CONNECTION_KEEPALIVE_HEADER);
         }
 
         return encodedHttpContent;
-    }        
+    }
+
+    private PreEncodedHeader getDateHeader() {
+        final String date = FastHttpDateFormat.getCurrentDate();
+        PreEncodedHeader header = dateHeader;
+        if (header == null || header.getValue() != date) {
+            header = PreEncodedHeader.newPreEncodedHeader(Header.Date, date);
+            dateHeader = header;
+        }
+
+        return header;
+    }
     
     @Override
     Buffer encodeInitialLine(HttpPacket httpPacket, Buffer output, MemoryManager memoryManager) {
@@ -95,9 +95,13 @@ an overhead that is not needed in most cases )
 Apache seems to be using a similar method for storing and manipulating
 headers.
 
+Only when there are many headers, the names are hashed the first time
+a header is requested, and the lookups go through the hash index, which
+is then kept up to date with the added headers ( see updateIndex() ).
+The hash is taken from the name length and a few of its characters,
+so hashing doesn't cost more than a couple of linear lookups.
+
 Future enhancements:
-- hash the headers the first time a header is requested ( i.e. if the
-servlet needs direct access to headers).
 - scan "common" values ( length, cookies, etc ) during the parse
 ( addHeader hook )
 
@@ -114,6 +118,10 @@ servlet needs direct access to headers).
  *  to avoid inside tomcat. The goal is to use _only_ DataChunk-based Fields,
  *  and reduce to 0 the memory overhead of tomcat.
  *
+ *  The header names must not be changed via {@link #getName(int)}, the
+ *  name lookups of large header sets rely on the hashes of the names
+ *  added.
+ *
  *  TODO:
  *  XXX one-buffer parsing - for HTTP ( other protocols don't need that )
  *  XXX remove unused methods
@@ -156,6 +164,18 @@ servlet needs direct access to headers).
         Arrays.sort(INVALID_TRAILER_NAMES);
     }
 
+    /**
+     * The name hashes of the {@link Header}s, by {@link Header#ordinal()}.
+     */
+    private static final int[] HEADER_NAME_HASHES;
+    static {
+        final Header[] knownHeaders = Header.values();
+        HEADER_NAME_HASHES = new int[knownHeaders.length];
+        for (final Header header : knownHeaders) {
+            HEADER_NAME_HASHES[header.ordinal()] = nameHash(header.getLowerCase());
+        }
+    }
+
     public static final int MAX_NUM_HEADERS_UNBOUNDED = -1;
 
     public static final int MAX_NUM_HEADERS_DEFAULT = 100;
@@ -167,6 +187,12 @@ servlet needs direct access to headers).
 
     public static DataChunk NOOP_CHUNK = new DataChunk.Immutable(null);
 
+    /**
+     * The number of headers, starting from which the name lookups use the
+     * hash index rather than scanning all the header fields.
+     */
+    static final int INDEX_THRESHOLD = 16;
+
     /**
      * The header fields.
      */
@@ -180,6 +206,17 @@ servlet needs direct access to headers).
 
     private int maxNumHeaders = MAX_NUM_HEADERS_DEFAULT;
 
+    /**
+     * The hash index over the header names: the case-insensitive hash of
+     * each indexed header name, the chains of the headers with the same
+     * bucket, linked from the bucket heads in descending index order, and
+     * the number of indexed headers.
+     */
+    private int[] nameHashes;
+    private int[] nextInBucket;
+    private int[] buckets;
+    private int indexedCount;
+
     /**
      * The header names {@link Iterable}.
      */
@@ -222,7 +259,7 @@ servlet needs direct access to headers).
         count = 0;
         mark = 0;
         marked = false;
-
+        indexedCount = 0;
     }
 
     /**
@@ -250,6 +287,7 @@ servlet needs direct access to headers).
         }
         this.maxNumHeaders = source.maxNumHeaders;
         this.count = source.count;
+        this.indexedCount = 0;
         if (headers.length < count) {
             MimeHeaderField tmp[] = new MimeHeaderField[count * 2];
             System.arraycopy(headers, 0, tmp, 0, headers.length);
@@ -277,6 +315,7 @@ servlet needs direct access to headers).
             } else {
                 f.valueB.set(sourceField.valueB);
             }
+            f.preEncoded = sourceField.preEncoded;
         }
 
     }
@@ -324,6 +363,18 @@ servlet needs direct access to headers).
         return n >= 0 && n < count ? headers[n].getValue() : null;
     }
 
+    /**
+     * Returns the Nth header line pre-encoded by the {@link PreEncodedHeader}
+     * the header has been set from, or null if the header hasn't been set from
+     * a {@link PreEncodedHeader}, or its name or value has been changed since.
+     *
+     * @param n the header index
+     * @return the pre-encoded header line, including the trailing CRLF
+     */
+    public byte[] getPreEncoded(int n) {
+        return n >= 0 && n < count ? headers[n].getPreEncoded() : null;
+    }
+
     /**
      * Get the header's "serialized" flag.
      *
@@ -363,13 +414,20 @@ servlet needs direct access to headers).
      * Find the index of a header with the given name.
      */
     public int indexOf(String name, int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an  overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
+        // The number of headers is small (4-5 ?) most of the time,
+        // so the hash index pays off only for the large header sets
+        if (count >= INDEX_THRESHOLD) {
+            final int hash = nameHash(name);
+            int found = -1;
+            for (int i = bucketHead(hash); i >= fromIndex; i = nextInBucket[i]) {
+                if (nameHashes[i] == hash
+                        && headers[i].getName().equalsIgnoreCase(name)) {
+                    found = i;
+                }
+            }
+            return found;
+        }
 
-        // A custom search tree may be better
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCase(name)) {
                 return i;
@@ -382,14 +440,19 @@ servlet needs direct access to headers).
      * Find the index of a header with the given name.
      */
     public int indexOf(final Header header, final int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an  overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
-
-        // A custom search tree may be better
         final byte[] bytes = header.getLowerCaseBytes();
+        if (count >= INDEX_THRESHOLD) {
+            final int hash = HEADER_NAME_HASHES[header.ordinal()];
+            int found = -1;
+            for (int i = bucketHead(hash); i >= fromIndex; i = nextInBucket[i]) {
+                if (nameHashes[i] == hash
+                        && headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
+                    found = i;
+                }
+            }
+            return found;
+        }
+
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
                 return i;
@@ -407,6 +470,108 @@ servlet needs direct access to headers).
         return (indexOf(header, 0) >= 0);
     }
 
+    /**
+     * Returns the index of the last header in the hash index bucket of the
+     * given hash, the bucket chain goes on via {@link #nextInBucket} down to
+     * <tt>-1</tt>.
+     */
+    private int bucketHead(final int hash) {
+        if (indexedCount != count) {
+            updateIndex();
+        }
+        return buckets[(hash ^ (hash >>> 16)) & (buckets.length - 1)] - 1;
+    }
+
+    /**
+     * Adds the headers, which have been added since the last update, to the
+     * hash index, or builds the index from scratch if headers have been
+     * removed (the index is reset then) or the buckets are getting full.
+     * The index arrays are kept when the headers are recycled.
+     */
+    private void updateIndex() {
+        if (buckets == null || buckets.length < count * 2) {
+            buckets = new int[Integer.highestOneBit(count * 4 - 1)];
+            indexedCount = 0;
+        } else if (indexedCount == 0) {
+            Arrays.fill(buckets, 0);
+        }
+
+        if (nameHashes == null || nameHashes.length < count) {
+            nameHashes = Arrays.copyOf(nameHashes != null ? nameHashes : new int[0],
+                    headers.length);
+            nextInBucket = Arrays.copyOf(nextInBucket != null ? nextInBucket : new int[0],
+                    headers.length);
+        }
+
+        final int mask = buckets.length - 1;
+        for (int i = indexedCount; i < count; i++) {
+            final int hash = nameHash(headers[i].getName());
+            final int bucket = (hash ^ (hash >>> 16)) & mask;
+            nameHashes[i] = hash;
+            nextInBucket[i] = buckets[bucket] - 1;
+            buckets[bucket] = i + 1;
+        }
+        indexedCount = count;
+    }
+
+    /**
+     * Returns the case-insensitive hash of the header name, made of its
+     * length and its first, middle and two last characters.
+     */
+    private static int nameHash(final DataChunk name) {
+        final int len = name.getLength();
+        if (len == 0) {
+            return 0;
+        }
+
+        final int mid = len >>> 1;
+        final int beforeLast = Math.max(len - 2, 0);
+        switch (name.getType()) {
+            case Bytes: {
+                final ByteChunk bc = name.getByteChunk();
+                final byte[] b = bc.getBuffer();
+                final int start = bc.getStart();
+                return nameHash(len, b[start], b[start + mid],
+                        b[start + beforeLast], b[start + len - 1]);
+            }
+            case Buffer: {
+                final BufferChunk bc = name.getBufferChunk();
+                final Buffer b = bc.getBuffer();
+                final int start = bc.getStart();
+                return nameHash(len, b.get(start), b.get(start + mid),
+                        b.get(start + beforeLast), b.get(start + len - 1));
+            }
+            case Chars: {
+                final CharChunk cc = name.getCharChunk();
+                final char[] c = cc.getBuffer();
+                final int start = cc.getStart();
+                return nameHash(len, c[start], c[start + mid],
+                        c[start + beforeLast], c[start + len - 1]);
+            }
+            default:
+                return nameHash(name.toString());
+        }
+    }
+
+    private static int nameHash(final String name) {
+        final int len = name.length();
+        if (len == 0) {
+            return 0;
+        }
+
+        return nameHash(len, name.charAt(0), name.charAt(len >>> 1),
+                name.charAt(Math.max(len - 2, 0)), name.charAt(len - 1));
+    }
+
+    private static int nameHash(final int len, final int first,
+            final int mid, final int beforeLast, final int last) {
+        int hash = len;
+        hash = hash * 31 + Ascii.toLower(first);
+        hash = hash * 31 + Ascii.toLower(mid);
+        hash = hash * 31 + Ascii.toLower(beforeLast);
+        return hash * 31 + Ascii.toLower(last);
+    }
+
     // -------------------- --------------------
     /**
      * Returns an enumeration of strings representing the header field names.
@@ -537,6 +702,18 @@ servlet needs direct access to headers).
         return mhf.getValue();
     }
 
+    /** Create a new header from the {@link PreEncodedHeader}, return the
+    DataChunk container for its value
+     */
+    public DataChunk addValue(final PreEncodedHeader header) {
+        if (!isValidName(header.getName())) {
+            return NOOP_CHUNK;
+        }
+        MimeHeaderField mh = createHeader();
+        mh.setPreEncoded(header);
+        return mh.getValue();
+    }
+
     /**
      * Allow "set" operations -
      * return a DataChunk container for the
@@ -547,15 +724,14 @@ servlet needs direct access to headers).
         if (!isValidName(name)) {
             return NOOP_CHUNK;
         }
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
-                for (int j = i + 1; j < count; j++) {
-                    if (headers[j].getName().equalsIgnoreCase(name)) {
-                        removeHeader(j--);
-                    }
+        final int i = indexOf(name, 0);
+        if (i >= 0) {
+            for (int j = i + 1; j < count; j++) {
+                if (headers[j].getName().equalsIgnoreCase(name)) {
+                    removeHeader(j--);
                 }
-                return headers[i].getValue();
             }
+            return headers[i].getValue();
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setString(name);
@@ -572,16 +748,15 @@ servlet needs direct access to headers).
         if (!isValidName(header)) {
             return NOOP_CHUNK;
         }
-        final byte[] bytes = header.getLowerCaseBytes();
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
-                for (int j = i + 1; j < count; j++) {
-                    if (headers[j].getName().equalsIgnoreCaseLowerCase(bytes)) {
-                        removeHeader(j--);
-                    }
+        final int i = indexOf(header, 0);
+        if (i >= 0) {
+            final byte[] bytes = header.getLowerCaseBytes();
+            for (int j = i + 1; j < count; j++) {
+                if (headers[j].getName().equalsIgnoreCaseLowerCase(bytes)) {
+                    removeHeader(j--);
                 }
-                return headers[i].getValue();
             }
+            return headers[i].getValue();
         }
         MimeHeaderField mh = createHeader();
         mh.getName().setBytes(header.toByteArray());
@@ -589,6 +764,32 @@ servlet needs direct access to headers).
         return mh.getValue();
     }
 
+    /**
+     * Set the header from the {@link PreEncodedHeader}, replacing
+     * the existing headers with the same name, return the DataChunk
+     * container for its value.
+     */
+    public DataChunk setValue(final PreEncodedHeader header) {
+        final String name = header.getName();
+        if (!isValidName(name)) {
+            return NOOP_CHUNK;
+        }
+        final int i = indexOf(name, 0);
+        final MimeHeaderField mh;
+        if (i >= 0) {
+            for (int j = i + 1; j < count; j++) {
+                if (headers[j].getName().equalsIgnoreCase(name)) {
+                    removeHeader(j--);
+                }
+            }
+            mh = headers[i];
+        } else {
+            mh = createHeader();
+        }
+        mh.setPreEncoded(header);
+        return mh.getValue();
+    }
+
     //-------------------- Getting headers --------------------
     /**
      * Finds and returns a header field with the given name.  If no such
@@ -596,12 +797,8 @@ servlet needs direct access to headers).
      * in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(String name) {
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCase(name)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int i = indexOf(name, 0);
+        return i >= 0 ? headers[i].getValue() : null;
     }
 
     /**
@@ -610,13 +807,8 @@ servlet needs direct access to headers).
      * in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(final Header header) {
-        final byte[] bytes = header.getLowerCaseBytes();
-        for (int i = 0; i < count; i++) {
-            if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
-                return headers[i].getValue();
-            }
-        }
-        return null;
+        final int i = indexOf(header, 0);
+        return i >= 0 ? headers[i].getValue() : null;
     }
 
     // bad shortcut - it'll convert to string ( too early probably,
@@ -727,6 +919,7 @@ servlet needs direct access to headers).
         headers[idx] = headers[count - 1];
         headers[count - 1] = mh;
         count--;
+        indexedCount = 0;
     }
 
 
@@ -897,6 +1090,8 @@ final class MimeHeaderField {
     protected final DataChunk valueB = DataChunk.newInstance();
 
     private boolean isSerialized;
+
+    PreEncodedHeader preEncoded;
     /**
      * Creates a new, uninitialized header field.
      */
@@ -905,10 +1100,34 @@ final class MimeHeaderField {
 
     public void recycle() {
         isSerialized = false;
+        preEncoded = null;
         nameB.recycle();
         valueB.recycle();
     }
 
+    void setPreEncoded(final PreEncodedHeader header) {
+        nameB.setString(header.getName());
+        valueB.setString(header.getValue());
+        preEncoded = header;
+    }
+
+    /**
+     * Returns the pre-encoded header line, if the name and value are still
+     * the very {@link String}s the {@link PreEncodedHeader} has set.
+     */
+    byte[] getPreEncoded() {
+        final PreEncodedHeader header = preEncoded;
+        if (header != null
+                && nameB.getType() == DataChunk.Type.String
+                && nameB.toString() == header.getName()
+                && valueB.getType() == DataChunk.Type.String
+                && valueB.toString() == header.getValue()) {
+            return header.getByteArray();
+        }
+
+        return null;
+    }
+
     public DataChunk getName() {
         return nameB;
     }
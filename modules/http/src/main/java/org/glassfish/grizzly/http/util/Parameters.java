@@ -62,6 +62,7 @@ import java.io.CharConversionException;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Set;
@@ -72,6 +73,7 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Grizzly;
 
 import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.utils.Charsets;
 
 /**
  * @author Costin Manolache
@@ -108,6 +110,30 @@ public final class Parameters {
     private int limit = -1;
     private int parameterCount = 0;
 
+    // Lazy decoding: the parameters processed from a Buffer are indexed over
+    // a copy of their raw bytes, and decoded only when they are looked up.
+    // The indexed parameters always come after the ones in paramHashValues.
+    private static final int DECODE_NAME = 1;
+    private static final int DECODE_VALUE = 2;
+    private static final int COMPARE_DECODED_NAME = 4;
+    private static final int DECODE_FAILED = 8;
+
+    // The raw bytes array bigger than that is not kept for the next request
+    private static final int MAX_RETAINED_RAW_SIZE = 8192;
+
+    private boolean isLazyDecoding;
+    private byte[] rawBytes = new byte[0];
+    private int rawLength;
+    private int indexedCount;
+    // name start, name end, value start (-1 if there is no '='), value end
+    private int[] indexedBounds = new int[INITIAL_SIZE * 4];
+    private byte[] indexedFlags = new byte[INITIAL_SIZE];
+    private Charset[] indexedCharsets = new Charset[INITIAL_SIZE];
+    private String[] decodedNames = new String[INITIAL_SIZE];
+    private String[] decodedValues = new String[INITIAL_SIZE];
+    private int lazyDecodeFailCount;
+    private final ByteChunk tmpBytes = new ByteChunk();
+
     public void setQuery(final DataChunk queryBC) {
         this.queryDC = queryBC;
     }
@@ -143,6 +169,36 @@ public final class Parameters {
         return queryStringEncoding;
     }
 
+    /**
+     * @return <tt>true</tt> if the parameters processed from a {@link Buffer}
+     *  are decoded only when they are looked up, or <tt>false</tt> otherwise.
+     *
+     * @since 2.4.3
+     */
+    public boolean isLazyDecoding() {
+        return isLazyDecoding;
+    }
+
+    /**
+     * If <tt>true</tt>, {@link #processParameters(Buffer, int, int, Charset)}
+     * only indexes the parameter names and values over a copy of the raw bytes,
+     * and {@link #getParameter(String)} and {@link #getParameterValues(String)}
+     * URL-decode just the parameters they return (the names are compared
+     * undecoded whenever possible). The decoded names and values are cached.
+     * All the parameters are decoded the first time they are enumerated, merged
+     * or new parameters are added.
+     *
+     * The default value is <tt>false</tt>: all the parameters are decoded,
+     * when processed.
+     *
+     * @param isLazyDecoding <tt>true</tt> to decode the parameters on demand
+     *
+     * @since 2.4.3
+     */
+    public void setLazyDecoding(final boolean isLazyDecoding) {
+        this.isLazyDecoding = isLazyDecoding;
+    }
+
     public void recycle() {
 
         paramHashValues.clear();
@@ -153,6 +209,11 @@ public final class Parameters {
         queryStringEncoding = null;
         parameterCount = 0;
         decodedQuery.recycle();
+        resetIndex();
+        lazyDecodeFailCount = 0;
+        if (rawBytes.length > MAX_RETAINED_RAW_SIZE) {
+            rawBytes = new byte[0];
+        }
 
     }
     // -------------------- Sub-request support --------------------
@@ -217,6 +278,7 @@ public final class Parameters {
         if (key == null) {
             return;
         }
+        decodeIndexed();
         ArrayList<String> values;
         if (paramHashValues.containsKey(key)) {
             values = paramHashValues.get(key);
@@ -238,12 +300,16 @@ public final class Parameters {
         } else {
             // no "facade"
             values = paramHashValues.get(name);
+            if (indexedCount > 0) {
+                return getIndexedValues(name, values);
+            }
         }
         return ((values != null) ? values.toArray(new String[values.size()]) : null);
     }
 
     public Set<String> getParameterNames() {
         handleQueryParameters();
+        decodeIndexed();
         // Slow - the original code
         if (currentChild != null) {
             currentChild.merge();
@@ -276,6 +342,7 @@ public final class Parameters {
 
         // Local parameters first - they take precedence as in spec.
         handleQueryParameters();
+        decodeIndexed();
         // we already merged with the parent
         if (didMerge) {
             return;
@@ -307,6 +374,8 @@ public final class Parameters {
                 return "";
             }
             return values.get(0);
+        } else if (indexedCount > 0) {
+            return getIndexedValue(name);
         } else {
             return null;
         }
@@ -378,6 +447,7 @@ public final class Parameters {
             return;
         }
 
+        decodeIndexed();
         parameterCount++;
         if (limit > -1 && parameterCount > limit) {
             // Processing this parameter will push us over the limit. ISE is
@@ -431,6 +501,11 @@ public final class Parameters {
                                buffer.toStringContent(enc, start, start + len)
                        });
         }
+
+        if (isLazyDecoding) {
+            indexParameters(buffer, start, len, enc);
+            return;
+        }
         
         int decodeFailCount = 0;
 
@@ -614,6 +689,283 @@ public final class Parameters {
         return result;
     }
 
+    // -------------------- Lazy decoding --------------------
+
+    /**
+     * Copies the raw bytes and indexes the parameters over them.
+     */
+    private void indexParameters(final Buffer buffer, final int start,
+            final int len, final Charset enc) {
+        final int offset = rawLength;
+        final int end = offset + len;
+        if (end > rawBytes.length) {
+            final byte[] newRawBytes = new byte[Math.max(end, rawBytes.length * 2)];
+            System.arraycopy(rawBytes, 0, newRawBytes, 0, offset);
+            rawBytes = newRawBytes;
+        }
+
+        final byte[] raw = rawBytes;
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + start,
+                    raw, offset, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                raw[offset + i] = buffer.get(start + i);
+            }
+        }
+        rawLength = end;
+
+        // the names can be compared undecoded only if they are ASCII
+        // in an ASCII compatible charset
+        final Charset charset = enc != null ? enc : DEFAULT_CHARSET;
+        final int nameFlags = isAsciiCompatible(charset)
+                ? 0 : COMPARE_DECODED_NAME;
+
+        int pos = offset;
+        while (pos < end) {
+            if (limit > -1 && parameterCount >= limit) {
+                LOGGER.warning(LogMessages.WARNING_GRIZZLY_HTTP_SEVERE_GRIZZLY_HTTP_PARAMETERS_MAX_COUNT_FAIL(limit));
+                break;
+            }
+            final int nameStart = pos;
+            int nameEnd = -1;
+            int valueStart = -1;
+            int flags = nameFlags;
+
+            for (; pos < end; pos++) {
+                final byte b = raw[pos];
+                if (b == '&') {
+                    break;
+                } else if (b == '=') {
+                    if (nameEnd == -1) {
+                        // Name finished. Value starts from next character
+                        nameEnd = pos;
+                        valueStart = pos + 1;
+                    }
+                } else if (b == '+' || b == '%') {
+                    // Decoding required
+                    flags |= nameEnd == -1 ? DECODE_NAME : DECODE_VALUE;
+                } else if (b < 0 && nameEnd == -1) {
+                    flags |= COMPARE_DECODED_NAME;
+                }
+            }
+
+            final int valueEnd = pos++;
+            if (nameEnd == -1) {
+                // No value
+                nameEnd = valueEnd;
+            }
+
+            if (nameEnd <= nameStart) {
+                continue;
+                // invalid chunk - it's better to ignore
+            }
+
+            addIndexed(nameStart, nameEnd, valueStart, valueEnd, flags, charset);
+        }
+    }
+
+    private void addIndexed(final int nameStart, final int nameEnd,
+            final int valueStart, final int valueEnd, final int flags,
+            final Charset charset) {
+        final int idx = indexedCount;
+        if (idx == indexedFlags.length) {
+            final int newSize = idx * 2;
+            indexedBounds = Arrays.copyOf(indexedBounds, newSize * 4);
+            indexedFlags = Arrays.copyOf(indexedFlags, newSize);
+            indexedCharsets = Arrays.copyOf(indexedCharsets, newSize);
+            decodedNames = Arrays.copyOf(decodedNames, newSize);
+            decodedValues = Arrays.copyOf(decodedValues, newSize);
+        }
+
+        final int b = idx * 4;
+        indexedBounds[b] = nameStart;
+        indexedBounds[b + 1] = nameEnd;
+        indexedBounds[b + 2] = valueStart;
+        indexedBounds[b + 3] = valueEnd;
+        indexedFlags[idx] = (byte) flags;
+        indexedCharsets[idx] = charset;
+        indexedCount = idx + 1;
+        parameterCount++;
+    }
+
+    private String getIndexedValue(final String name) {
+        for (int i = 0; i < indexedCount; i++) {
+            if (isIndexedName(i, name)) {
+                final String value = decodeIndexedValue(i);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private String[] getIndexedValues(final String name,
+            final ArrayList<String> values) {
+        ArrayList<String> result = values;
+        for (int i = 0; i < indexedCount; i++) {
+            if (isIndexedName(i, name)) {
+                final String value = decodeIndexedValue(i);
+                if (value != null) {
+                    if (result == values) {
+                        result = values != null
+                                ? new ArrayList<String>(values)
+                                : new ArrayList<String>(1);
+                    }
+                    result.add(value);
+                }
+            }
+        }
+
+        return ((result != null) ? result.toArray(new String[result.size()]) : null);
+    }
+
+    /**
+     * Checks if the indexed parameter has the given name. The plain ASCII
+     * names are compared with their raw bytes, the others get decoded.
+     */
+    private boolean isIndexedName(final int idx, final String name) {
+        final int flags = indexedFlags[idx];
+        if ((flags & DECODE_FAILED) != 0) {
+            return false;
+        }
+
+        final String decodedName = decodedNames[idx];
+        if (decodedName != null) {
+            return decodedName.equals(name);
+        }
+
+        if ((flags & (DECODE_NAME | COMPARE_DECODED_NAME)) == 0) {
+            final int start = indexedBounds[idx * 4];
+            final int len = indexedBounds[idx * 4 + 1] - start;
+            if (len != name.length()) {
+                return false;
+            }
+
+            final byte[] raw = rawBytes;
+            for (int i = 0; i < len; i++) {
+                if (raw[start + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return name.equals(decodeIndexedName(idx));
+    }
+
+    private String decodeIndexedName(final int idx) {
+        String name = decodedNames[idx];
+        if (name == null && (indexedFlags[idx] & DECODE_FAILED) == 0) {
+            final int b = idx * 4;
+            name = decodeIndexed(idx, indexedBounds[b], indexedBounds[b + 1],
+                    DECODE_NAME);
+            decodedNames[idx] = name;
+        }
+
+        return name;
+    }
+
+    private String decodeIndexedValue(final int idx) {
+        String value = decodedValues[idx];
+        if (value == null && (indexedFlags[idx] & DECODE_FAILED) == 0) {
+            final int b = idx * 4;
+            value = indexedBounds[b + 2] == -1
+                    ? ""
+                    : decodeIndexed(idx, indexedBounds[b + 2],
+                            indexedBounds[b + 3], DECODE_VALUE);
+            decodedValues[idx] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Decodes the name or value of the indexed parameter. The URL-decoding
+     * is done in place, so each of them is decoded at most once.
+     *
+     * @return the decoded String, or <tt>null</tt> if the decoding failed
+     */
+    private String decodeIndexed(final int idx, final int start, final int end,
+            final int decodeFlag) {
+        final ByteChunk bc = tmpBytes;
+        try {
+            bc.setBytes(rawBytes, start, end - start);
+            if ((indexedFlags[idx] & decodeFlag) != 0) {
+                URLDecoder.decode(bc, true);
+            }
+            return new String(rawBytes, bc.getStart(), bc.getLength(),
+                    indexedCharsets[idx]);
+        } catch (Exception e) {
+            indexedFlags[idx] |= DECODE_FAILED;
+            if (++lazyDecodeFailCount == 1 && LOGGER.isLoggable(Level.INFO)) {
+                final int b = idx * 4;
+                LOGGER.log(Level.INFO,
+                        LogMessages.INFO_GRIZZLY_HTTP_PARAMETERS_DECODE_FAIL_INFO(
+                                e.getMessage(),
+                                new String(rawBytes, indexedBounds[b],
+                                        indexedBounds[b + 1] - indexedBounds[b],
+                                        DEFAULT_CHARSET),
+                                decodeFlag == DECODE_VALUE
+                                        ? new String(rawBytes, start, end - start,
+                                                DEFAULT_CHARSET)
+                                        : "unavailable"));
+                LOGGER.log(Level.FINE, "Decoding stacktrace.", e);
+            }
+            return null;
+        } finally {
+            bc.recycle();
+        }
+    }
+
+    /**
+     * Decodes all the indexed parameters into the parameter map, keeping
+     * their order.
+     */
+    private void decodeIndexed() {
+        final int count = indexedCount;
+        if (count == 0) {
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final String name = decodeIndexedName(i);
+            if (name == null) {
+                continue;
+            }
+            final String value = decodeIndexedValue(i);
+            if (value == null) {
+                continue;
+            }
+
+            ArrayList<String> values = paramHashValues.get(name);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                paramHashValues.put(name, values);
+            }
+            values.add(value);
+        }
+
+        resetIndex();
+    }
+
+    private void resetIndex() {
+        Arrays.fill(indexedCharsets, 0, indexedCount, null);
+        Arrays.fill(decodedNames, 0, indexedCount, null);
+        Arrays.fill(decodedValues, 0, indexedCount, null);
+        indexedCount = 0;
+        rawLength = 0;
+    }
+
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return charset.equals(DEFAULT_CHARSET)
+                || charset.equals(Charsets.UTF8_CHARSET)
+                || charset.equals(Charsets.ASCII_CHARSET);
+    }
+
     public void processParameters(char chars[], int start, int len) {
         int end = start + len;
         int pos = start;
@@ -758,6 +1110,7 @@ public final class Parameters {
      * Debug purpose
      */
     public String paramsAsString() {
+        decodeIndexed();
         StringBuilder sb = new StringBuilder();
         for (final String s : paramHashValues.keySet()) {
             // END PWC 6057385
@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import static org.glassfish.grizzly.http.util.HttpCodecUtils.*;
+
+/**
+ * An HTTP header, which is encoded once as a complete header line,
+ * <tt>name: value\r\n</tt>, and then copied as is into every HTTP message
+ * it's set on, instead of encoding the header name and value for each
+ * message separately.
+ *
+ * This is useful for the headers, which stay the same over and over for
+ * different responses, like <tt>Server</tt>, <tt>Cache-Control</tt> or
+ * the CORS headers. The header name and value are encoded the same way
+ * the serializer encodes {@link String}s: unprintable US-ASCII symbols are
+ * replaced with spaces.
+ *
+ * The line is used for as long as the header name and value stay the ones
+ * the <tt>PreEncodedHeader</tt> has set, once either of them is changed, the
+ * header is encoded as a regular one.
+ *
+ * @see MimeHeaders#setValue(PreEncodedHeader)
+ * @see MimeHeaders#addValue(PreEncodedHeader)
+ *
+ * @since 2.4.3
+ */
+public final class PreEncodedHeader {
+    private final String name;
+    private final String value;
+    private final byte[] encoded;
+
+    /**
+     * Creates a {@link PreEncodedHeader} for the given {@link Header}.
+     *
+     * @param header the {@link Header}
+     * @param value the header value
+     * @return the {@link PreEncodedHeader}
+     */
+    public static PreEncodedHeader newPreEncodedHeader(final Header header,
+            final String value) {
+        if (header == null) {
+            throw new IllegalArgumentException("header can not be null");
+        }
+
+        return newPreEncodedHeader(header.toString(), value);
+    }
+
+    /**
+     * Creates a {@link PreEncodedHeader} for the given header name.
+     *
+     * @param name the header name
+     * @param value the header value
+     * @return the {@link PreEncodedHeader}
+     */
+    public static PreEncodedHeader newPreEncodedHeader(final String name,
+            final String value) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name can not be null or empty");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("value can not be null");
+        }
+
+        return new PreEncodedHeader(name, value);
+    }
+
+    private PreEncodedHeader(final String name, final String value) {
+        this.name = name;
+        this.value = value;
+
+        final int nameLength = name.length();
+        final int valueLength = value.length();
+        encoded = new byte[nameLength + valueLength + 4];
+        toCheckedByteArray(name, encoded, 0);
+        encoded[nameLength] = Constants.COLON;
+        encoded[nameLength + 1] = Constants.SP;
+        toCheckedByteArray(value, encoded, nameLength + 2);
+        encoded[encoded.length - 2] = Constants.CR;
+        encoded[encoded.length - 1] = Constants.LF;
+    }
+
+    /**
+     * @return the header name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the header value
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the encoded header line, including the trailing CRLF.
+     *         The returned array must not be modified.
+     */
+    public byte[] getByteArray() {
+        return encoded;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + value;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.utils.JdkVersion;
+
+/**
+ * Word-at-a-time (SWAR, SIMD within a register) scanning of HTTP header
+ * bytes. Eight bytes are read as one <tt>long</tt> and matched against the
+ * delimiters at once, the byte by byte scan is used only for the bytes
+ * at the end of the input, which don't make up a word, and for composite
+ * {@link Buffer}s. Byte arrays are scanned word-at-a-time on JDK 9 and later
+ * only: before JDK 9 {@link ByteBuffer#getLong(int)} of a heap buffer reads
+ * the word byte by byte, which makes the scan slower than the plain loop.
+ *
+ * The words are little-endian, so the lowest byte of the word is the first
+ * byte in the input, and the index of the first matching byte is the number
+ * of trailing zero bits of the match mask divided by eight.
+ *
+ * @since 2.4.3
+ */
+public final class SwarUtils {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long CR_WORD = ONES * Constants.CR;
+    private static final long LF_WORD = ONES * Constants.LF;
+    private static final long COLON_WORD = ONES * Constants.COLON;
+    
+    // high bit is set for the bytes >= 'A' and > 'Z' respectively
+    private static final long GE_UPPER_A = ONES * (0x80 - 'A');
+    private static final long GT_UPPER_Z = ONES * (0x80 - 'Z' - 1);
+
+    private static final boolean IS_ARRAY_WORD_SCAN =
+            JdkVersion.getJdkVersion().compareTo("1.9.0") >= 0;
+
+    private SwarUtils() {
+    }
+
+    /**
+     * Finds the first CR or LF byte.
+     *
+     * @return the index of the first CR or LF byte in [offset, limit),
+     *         or <tt>-1</tt> if there is none
+     */
+    public static int indexOfCrLf(final byte[] input, final int offset,
+            final int limit) {
+        return indexOfCrLf(input, offset, limit, IS_ARRAY_WORD_SCAN);
+    }
+
+    static int indexOfCrLf(final byte[] input, int offset, final int limit,
+            final boolean isWordScan) {
+        if (isWordScan) {
+            for (; offset + 8 <= limit; offset += 8) {
+                final long word = getLongLE(input, offset);
+                final long match = zeroBytes(word ^ CR_WORD)
+                        | zeroBytes(word ^ LF_WORD);
+                if (match != 0) {
+                    return offset + (Long.numberOfTrailingZeros(match) >>> 3);
+                }
+            }
+        }
+
+        for (; offset < limit; offset++) {
+            final byte b = input[offset];
+            if (b == Constants.CR || b == Constants.LF) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the first CR or LF byte.
+     *
+     * @return the index of the first CR or LF byte in [offset, limit),
+     *         or <tt>-1</tt> if there is none
+     */
+    public static int indexOfCrLf(final Buffer input, int offset,
+            final int limit) {
+        if (!input.isComposite()) {
+            final boolean isBigEndian = input.order() == ByteOrder.BIG_ENDIAN;
+            for (; offset + 8 <= limit; offset += 8) {
+                final long word = getLongLE(input, offset, isBigEndian);
+                final long match = zeroBytes(word ^ CR_WORD)
+                        | zeroBytes(word ^ LF_WORD);
+                if (match != 0) {
+                    return offset + (Long.numberOfTrailingZeros(match) >>> 3);
+                }
+            }
+        }
+
+        for (; offset < limit; offset++) {
+            final byte b = input.get(offset);
+            if (b == Constants.CR || b == Constants.LF) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the colon, which terminates a header name, and, if
+     * <tt>toLowerCase</tt> is <tt>true</tt>, converts the ASCII upper-case
+     * letters preceding it to lower case.
+     *
+     * @return the index of the first colon in [offset, limit), or <tt>-1</tt>
+     *         if there is none, in which case all the bytes in
+     *         [offset, limit) have been processed
+     */
+    public static int scanHeaderName(final byte[] input, final int offset,
+            final int limit, final boolean toLowerCase) {
+        return scanHeaderName(input, offset, limit, toLowerCase,
+                IS_ARRAY_WORD_SCAN);
+    }
+
+    static int scanHeaderName(final byte[] input, int offset, final int limit,
+            final boolean toLowerCase, final boolean isWordScan) {
+        if (isWordScan) {
+            for (; offset + 8 <= limit; offset += 8) {
+                final long word = getLongLE(input, offset);
+                final long colon = zeroBytes(word ^ COLON_WORD);
+                long upper = toLowerCase ? upperCaseBytes(word) : 0;
+                if (colon != 0) {
+                    // only the letters before the colon belong to the name
+                    upper &= (colon & -colon) - 1;
+                }
+
+                while (upper != 0) {
+                    final int idx = offset + (Long.numberOfTrailingZeros(upper) >>> 3);
+                    input[idx] -= Constants.LC_OFFSET;
+                    upper &= upper - 1;
+                }
+
+                if (colon != 0) {
+                    return offset + (Long.numberOfTrailingZeros(colon) >>> 3);
+                }
+            }
+        }
+
+        for (; offset < limit; offset++) {
+            final byte b = input[offset];
+            if (b == Constants.COLON) {
+                return offset;
+            } else if (toLowerCase && b >= Constants.A && b <= Constants.Z) {
+                input[offset] = (byte) (b - Constants.LC_OFFSET);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the colon, which terminates a header name, and, if
+     * <tt>toLowerCase</tt> is <tt>true</tt>, converts the ASCII upper-case
+     * letters preceding it to lower case.
+     *
+     * @return the index of the first colon in [offset, limit), or <tt>-1</tt>
+     *         if there is none, in which case all the bytes in
+     *         [offset, limit) have been processed
+     */
+    public static int scanHeaderName(final Buffer input, int offset,
+            final int limit, final boolean toLowerCase) {
+        if (!input.isComposite()) {
+            final boolean isBigEndian = input.order() == ByteOrder.BIG_ENDIAN;
+            for (; offset + 8 <= limit; offset += 8) {
+                final long word = getLongLE(input, offset, isBigEndian);
+                final long colon = zeroBytes(word ^ COLON_WORD);
+                long upper = toLowerCase ? upperCaseBytes(word) : 0;
+                if (colon != 0) {
+                    // only the letters before the colon belong to the name
+                    upper &= (colon & -colon) - 1;
+                }
+
+                while (upper != 0) {
+                    final int idx = offset + (Long.numberOfTrailingZeros(upper) >>> 3);
+                    input.put(idx, (byte) (input.get(idx) - Constants.LC_OFFSET));
+                    upper &= upper - 1;
+                }
+
+                if (colon != 0) {
+                    return offset + (Long.numberOfTrailingZeros(colon) >>> 3);
+                }
+            }
+        }
+
+        for (; offset < limit; offset++) {
+            final byte b = input.get(offset);
+            if (b == Constants.COLON) {
+                return offset;
+            } else if (toLowerCase && b >= Constants.A && b <= Constants.Z) {
+                input.put(offset, (byte) (b - Constants.LC_OFFSET));
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the word with the high bit set in every zero byte of the given
+     *         word, and all the other bits clear
+     */
+    private static long zeroBytes(final long word) {
+        // unlike (word - ONES) & ~word & HIGH_BITS, there are no false
+        // positives caused by the borrow
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /**
+     * @return the word with the high bit set in every ASCII upper-case letter
+     *         byte of the given word, and all the other bits clear
+     */
+    private static long upperCaseBytes(final long word) {
+        final long ascii = word & LOW_BITS;
+        return (ascii + GE_UPPER_A) & ~(ascii + GT_UPPER_Z) & ~word & HIGH_BITS;
+    }
+
+    private static long getLongLE(final Buffer input, final int offset,
+            final boolean isBigEndian) {
+        final long word = input.getLong(offset);
+        return isBigEndian ? Long.reverseBytes(word) : word;
+    }
+    
+    private static long getLongLE(final byte[] input, final int offset) {
+        // the wrapper doesn't escape, and the read is a single unaligned load
+        return ByteBuffer.wrap(input).order(ByteOrder.LITTLE_ENDIAN)
+                .getLong(offset);
+    }
+}
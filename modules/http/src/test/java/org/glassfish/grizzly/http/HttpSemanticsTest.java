@@ -75,6 +75,7 @@ import java.util.logging.Logger;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.http.HttpRequestPacket.Builder;
 import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.PreEncodedHeader;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnection;
 
@@ -874,6 +875,51 @@ public class HttpSemanticsTest extends TestCase {
         assertFalse(response.getProcessingState().isKeepAlive());
     }
     
+    public void testPreEncodedHeaders() throws Throwable {
+        final TCPNIOConnection connection = new TCPNIOConnection(
+                TCPNIOTransportBuilder.newInstance().build(), null);
+
+        Buffer requestBuf = Buffers.wrap(connection.getMemoryManager(),
+                "GET /path HTTP/1.0\n"
+                        + "Host: localhost:" + PORT + '\n'
+                        + "Connection: keep-alive\n"
+                        + '\n');
+
+        FilterChainContext ctx = FilterChainContext.create(connection);
+        ctx.setMessage(requestBuf);
+        httpServerFilter.handleRead(ctx);
+
+        final HttpRequestPacket request =
+                (HttpRequestPacket) ((HttpContent) ctx.getMessage())
+                        .getHttpHeader();
+        final HttpResponsePacket response = request.getResponse();
+        response.setContentLength(0);
+        response.setHeader(PreEncodedHeader.newPreEncodedHeader(
+                Header.CacheControl, "no-cache"));
+        response.addHeader(PreEncodedHeader.newPreEncodedHeader(
+                "X-Mode", "fast"));
+        response.setHeader(PreEncodedHeader.newPreEncodedHeader(
+                Header.ContentType, "application/json"));
+        // the changed header is encoded as a regular one
+        response.setHeader("X-Mode", "slow");
+
+        assertEquals("application/json", response.getContentType());
+        assertNotNull(response.getHeaders().getPreEncoded(0));
+        assertNull(response.getHeaders().getPreEncoded(1));
+
+        final Buffer encoded = httpServerFilter.encodeHttpPacket(ctx, response);
+        final String headers = encoded.toStringContent();
+
+        assertTrue(headers, headers.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(headers, headers.contains("\r\nCache-Control: no-cache\r\n"));
+        assertTrue(headers, headers.contains("\r\nX-Mode: slow\r\n"));
+        assertTrue(headers, headers.contains("\r\nContent-Type: application/json\r\n"));
+        assertTrue(headers, headers.contains("\r\nConnection: keep-alive\r\n"));
+        assertTrue(headers, headers.contains("\r\nDate: "));
+        assertFalse(headers, headers.contains("fast"));
+        assertTrue(headers, headers.endsWith("\r\n\r\n"));
+    }
+
     // --------------------------------------------------------- Private Methods
 
 
@@ -60,8 +60,10 @@ package org.glassfish.grizzly.http;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
+import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.http.util.Constants;
 
 import org.glassfish.grizzly.http.util.DataChunk;
@@ -122,6 +124,82 @@ public class ParametersTest {
                 SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
     }
 
+    @Test
+    public void testProcessParametersByteArrayIntIntLazy() {
+        doTestProcessParametersByteArrayIntInt(-1, true,
+                SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY, UTF8);
+        doTestProcessParametersByteArrayIntInt(-1, true,
+                UTF8, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY);
+        doTestProcessParametersByteArrayIntInt(2, true,
+                SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
+        doTestProcessParametersByteArrayIntInt(4, true,
+                SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
+    }
+
+    @Test
+    public void testLazyDecoding() {
+        final Parameters p = new Parameters();
+        p.setLazyDecoding(true);
+        p.setEncoding(Charsets.UTF8_CHARSET);
+        p.setQueryStringEncoding(Charsets.UTF8_CHARSET);
+
+        final DataChunk query = DataChunk.newInstance();
+        final byte[] queryBytes = "b=q&c=x".getBytes(Charsets.ASCII_CHARSET);
+        query.setBuffer(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                queryBytes), 0, queryBytes.length);
+        p.setQuery(query);
+        p.handleQueryParameters();
+
+        final byte[] body = ("a=1&b=2&%C3%A9t%C3%A9=summer&sp+ace=%26%3D"
+                + "&bad%G=1&b=3&noeq&c=%zz").getBytes(Charsets.ASCII_CHARSET);
+        final Buffer buffer = Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                body);
+        p.processParameters(buffer, 0, body.length);
+        // the raw bytes are copied, the buffer may be released
+        Arrays.fill(body, (byte) 0);
+
+        assertEquals("1", p.getParameter("a"));
+        assertEquals("q", p.getParameter("b"));
+        assertEquals("summer", p.getParameter("\u00e9t\u00e9"));
+        assertEquals("&=", p.getParameter("sp ace"));
+        assertEquals("", p.getParameter("noeq"));
+        assertNull(p.getParameter("bad%G"));
+        assertNull(p.getParameter("d"));
+        // the decoded values are cached
+        assertSame(p.getParameter("a"), p.getParameter("a"));
+        assertArrayEquals(new String[] {"q", "2", "3"},
+                p.getParameterValues("b"));
+        assertArrayEquals(new String[] {"x"}, p.getParameterValues("c"));
+        assertNull(p.getParameterValues("d"));
+
+        // the parameters added later follow the indexed ones
+        p.addParameter("a", "4");
+        assertArrayEquals(new String[] {"1", "4"}, p.getParameterValues("a"));
+
+        final Iterator<String> names = p.getParameterNames().iterator();
+        assertEquals("b", names.next());
+        assertEquals("c", names.next());
+        assertEquals("a", names.next());
+        assertEquals("\u00e9t\u00e9", names.next());
+        assertEquals("sp ace", names.next());
+        assertEquals("noeq", names.next());
+        assertFalse(names.hasNext());
+        assertArrayEquals(new String[] {"q", "2", "3"},
+                p.getParameterValues("b"));
+
+        p.recycle();
+        p.setQuery(null);
+        assertNull(p.getParameter("a"));
+        assertTrue(p.getParameterNames().isEmpty());
+
+        p.setEncoding(Charsets.UTF8_CHARSET);
+        final byte[] body2 = "x=y".getBytes(Charsets.ASCII_CHARSET);
+        p.processParameters(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                body2), 0, body2.length);
+        assertEquals("y", p.getParameter("x"));
+        assertNull(p.getParameter("a"));
+    }
+
     // Make sure the inner Parameter class behaves correctly
     @Test
     public void testInternal() {
@@ -193,6 +271,11 @@ public class ParametersTest {
 
     private long doTestProcessParametersByteArrayIntInt(int limit,
             Parameter... parameters) {
+        return doTestProcessParametersByteArrayIntInt(limit, false, parameters);
+    }
+
+    private long doTestProcessParametersByteArrayIntInt(int limit,
+            boolean isLazyDecoding, Parameter... parameters) {
 
         // Build the byte array
         StringBuilder input = new StringBuilder();
@@ -211,6 +294,7 @@ public class ParametersTest {
         Parameters p = new Parameters();
         p.setEncoding(Charsets.UTF8_CHARSET);
         p.setLimit(limit);
+        p.setLazyDecoding(isLazyDecoding);
 
         long start = System.nanoTime();
         p.processParameters(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, data), 0, data.length);
@@ -40,6 +40,7 @@
 
 package org.glassfish.grizzly.http.util;
 
+import org.glassfish.grizzly.utils.Charsets;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -167,4 +168,50 @@ public class MimeHeadersTest {
         Assert.assertArrayEquals(expectedValuesSet2, list.toArray(new String[list.size()]));
     }
 
+    @Test
+    public void testIndexedLookups() throws Exception {
+        final MimeHeaders headers = new MimeHeaders();
+        headers.setMaxNumHeaders(MimeHeaders.MAX_NUM_HEADERS_UNBOUNDED);
+        final int n = MimeHeaders.INDEX_THRESHOLD * 4;
+        for (int i = 0; i < n; i++) {
+            final byte[] name = ("X-Header-" + i).getBytes(Charsets.ASCII_CHARSET);
+            headers.addValue(name, 0, name.length).setString("value-" + i);
+        }
+        headers.addValue(Header.Host).setString("localhost");
+        headers.addValue("set-cookie").setString("a=1");
+        headers.addValue("Set-Cookie").setString("b=2");
+
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals("value-" + i, headers.getHeader("x-HEADER-" + i));
+        }
+        Assert.assertEquals("localhost", headers.getHeader("HOST"));
+        Assert.assertEquals("localhost", headers.getHeader(Header.Host));
+        Assert.assertTrue(headers.contains(Header.Host));
+        Assert.assertFalse(headers.contains(Header.ContentLength));
+        Assert.assertFalse(headers.contains("X-Header-" + n));
+
+        final int first = headers.indexOf(Header.SetCookie, 0);
+        Assert.assertEquals(n + 1, first);
+        Assert.assertEquals(n + 2, headers.indexOf("SET-COOKIE", first + 1));
+        Assert.assertEquals(-1, headers.indexOf(Header.SetCookie, n + 3));
+
+        // the headers, added and removed after the index is built
+        headers.addValue(Header.ContentLength).setString("10");
+        Assert.assertEquals("10", headers.getHeader("content-length"));
+        headers.removeHeader("X-Header-0");
+        Assert.assertNull(headers.getHeader("X-Header-0"));
+        Assert.assertEquals("10", headers.getHeader(Header.ContentLength));
+        Assert.assertEquals("a=1", headers.setValue(Header.SetCookie).toString());
+        Assert.assertEquals(-1, headers.indexOf("set-cookie",
+                headers.indexOf("set-cookie", 0) + 1));
+
+        headers.recycle();
+        Assert.assertNull(headers.getHeader(Header.Host));
+        for (int i = 0; i < n; i++) {
+            headers.addValue("Y-Header-" + i).setString("value-" + i);
+        }
+        Assert.assertNull(headers.getHeader("X-Header-1"));
+        Assert.assertEquals("value-" + (n - 1), headers.getHeader("y-header-" + (n - 1)));
+    }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SwarUtilsTest {
+    
+    private static final byte[] HEADER_NAME_BYTES =
+            "X-Forwarded-For-Zz@[`{".getBytes();
+
+    @Test
+    public void testIndexOfCrLf() throws Exception {
+        for (int len = 0; len < 20; len++) {
+            for (int pos = 0; pos <= len; pos++) {
+                for (byte delimiter : new byte[] {Constants.CR, Constants.LF}) {
+                    // pos == len means no delimiter
+                    final byte[] bytes = valueBytes(len, pos, delimiter);
+                    final int expected = pos < len ? pos : -1;
+                    
+                    for (int from = 0; from <= len; from++) {
+                        final int expectedFrom = from <= pos ? expected : -1;
+                        Assert.assertEquals(expectedFrom,
+                                SwarUtils.indexOfCrLf(bytes, from, len, true));
+                        Assert.assertEquals(expectedFrom,
+                                SwarUtils.indexOfCrLf(bytes, from, len, false));
+                        Assert.assertEquals(expectedFrom,
+                                SwarUtils.indexOfCrLf(directBuffer(bytes), from, len));
+                        Assert.assertEquals(expectedFrom,
+                                SwarUtils.indexOfCrLf(compositeBuffer(bytes), from, len));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testIndexOfCrLfNonAscii() throws Exception {
+        final byte[] bytes = new byte[16];
+        Arrays.fill(bytes, (byte) 0x8D); // CR with the high bit set
+        bytes[11] = Constants.LF;
+        
+        Assert.assertEquals(11, SwarUtils.indexOfCrLf(bytes, 0, bytes.length, true));
+        Assert.assertEquals(11, SwarUtils.indexOfCrLf(directBuffer(bytes), 0, bytes.length));
+    }
+
+    @Test
+    public void testScanHeaderName() throws Exception {
+        for (int colon = 0; colon < HEADER_NAME_BYTES.length; colon++) {
+            for (boolean toLowerCase : new boolean[] {true, false}) {
+                final byte[] expected = HEADER_NAME_BYTES.clone();
+                final byte[] bytes = HEADER_NAME_BYTES.clone();
+                final byte[] bytes2 = HEADER_NAME_BYTES.clone();
+                final Buffer direct = directBuffer(bytes);
+                final Buffer composite = compositeBuffer(bytes);
+                
+                expected[colon] = bytes[colon] = bytes2[colon] = Constants.COLON;
+                direct.put(colon, Constants.COLON);
+                composite.put(colon, Constants.COLON);
+                if (toLowerCase) {
+                    for (int i = 0; i < colon; i++) {
+                        if (expected[i] >= 'A' && expected[i] <= 'Z') {
+                            expected[i] += 'a' - 'A';
+                        }
+                    }
+                }
+                
+                final int len = bytes.length;
+                Assert.assertEquals(colon, SwarUtils.scanHeaderName(bytes, 0, len, toLowerCase, true));
+                Assert.assertEquals(colon, SwarUtils.scanHeaderName(bytes2, 0, len, toLowerCase, false));
+                Assert.assertEquals(colon, SwarUtils.scanHeaderName(direct, 0, len, toLowerCase));
+                Assert.assertEquals(colon, SwarUtils.scanHeaderName(composite, 0, len, toLowerCase));
+                
+                Assert.assertArrayEquals(expected, bytes);
+                Assert.assertArrayEquals(expected, bytes2);
+                Assert.assertArrayEquals(expected, toArray(direct));
+                Assert.assertArrayEquals(expected, toArray(composite));
+            }
+        }
+    }
+
+    @Test
+    public void testScanHeaderNameNoColon() throws Exception {
+        final byte[] bytes = HEADER_NAME_BYTES.clone();
+        final Buffer direct = directBuffer(bytes);
+        final byte[] expected = new String(HEADER_NAME_BYTES).toLowerCase().getBytes();
+        
+        Assert.assertEquals(-1, SwarUtils.scanHeaderName(bytes, 0, bytes.length, true, true));
+        Assert.assertEquals(-1, SwarUtils.scanHeaderName(direct, 0, bytes.length, true));
+        Assert.assertArrayEquals(expected, bytes);
+        Assert.assertArrayEquals(expected, toArray(direct));
+    }
+
+    private static byte[] valueBytes(final int len, final int pos,
+            final byte delimiter) {
+        final byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+
+        if (pos < len) {
+            bytes[pos] = delimiter;
+        }
+
+        return bytes;
+    }
+
+    private static Buffer directBuffer(final byte[] bytes) {
+        final ByteBuffer bb = ByteBuffer.allocateDirect(bytes.length);
+        bb.put(bytes).flip();
+        return Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, bb);
+    }
+
+    private static Buffer compositeBuffer(final byte[] bytes) {
+        final int half = bytes.length / 2;
+        final CompositeBuffer composite = CompositeBuffer.newBuffer(
+                MemoryManager.DEFAULT_MEMORY_MANAGER);
+        composite.append(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                Arrays.copyOfRange(bytes, 0, half)));
+        composite.append(Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER,
+                Arrays.copyOfRange(bytes, half, bytes.length)));
+        return composite;
+    }
+
+    private static byte[] toArray(final Buffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(buffer.position() + i);
+        }
+        return bytes;
+    }
+}
@@ -66,6 +66,9 @@ public class MemoryManager extends JmxObject {
     private final AtomicLong realAllocatedBytes = new AtomicLong();
     private final AtomicLong poolAllocatedBytes = new AtomicLong();
     private final AtomicLong poolReleasedBytes = new AtomicLong();
+    private final AtomicLong threadCacheAllocatedBytes = new AtomicLong();
+    private final AtomicLong threadCacheReleasedBytes = new AtomicLong();
+    private final AtomicLong leakedBytes = new AtomicLong();
     
     public MemoryManager(org.glassfish.grizzly.memory.MemoryManager memoryManager) {
         this.memoryManager = memoryManager;
@@ -118,6 +121,24 @@ public class MemoryManager extends JmxObject {
         return poolReleasedBytes.get();
     }
 
+    @ManagedAttribute(id="thread-cache-allocated-bytes")
+    @Description("Total number of bytes allocated from memory pool thread local caches (part of pool-allocated-bytes)")
+    public long getThreadCacheAllocatedBytes() {
+        return threadCacheAllocatedBytes.get();
+    }
+
+    @ManagedAttribute(id="thread-cache-released-bytes")
+    @Description("Total number of bytes released to memory pool thread local caches (part of pool-released-bytes)")
+    public long getThreadCacheReleasedBytes() {
+        return threadCacheReleasedBytes.get();
+    }
+
+    @ManagedAttribute(id="leaked-bytes")
+    @Description("Total number of bytes in the detected pooled buffer leaks")
+    public long getLeakedBytes() {
+        return leakedBytes.get();
+    }
+
     private class JmxMemoryProbe implements MemoryProbe {
 
         @Override
@@ -137,5 +158,20 @@ public class MemoryManager extends JmxObject {
             poolReleasedBytes.addAndGet(size);
         }
 
+        @Override
+        public void onBufferAllocateFromThreadCacheEvent(int size) {
+            threadCacheAllocatedBytes.addAndGet(size);
+        }
+
+        @Override
+        public void onBufferReleaseToThreadCacheEvent(int size) {
+            threadCacheReleasedBytes.addAndGet(size);
+        }
+
+        @Override
+        public void onBufferLeakEvent(int size, String accessRecords) {
+            leakedBytes.addAndGet(size);
+        }
+
     }
 }
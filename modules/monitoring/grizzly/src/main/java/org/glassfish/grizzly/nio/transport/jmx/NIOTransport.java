@@ -78,6 +78,8 @@ public class NIOTransport extends JmxObject {
 
     private final AtomicLong bytesRead = new AtomicLong();
     private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong receiveBufferSizesSum = new AtomicLong();
+    private final AtomicLong receiveBufferSizesCount = new AtomicLong();
     
     private volatile EventDate stateEvent;
     private volatile EventDate lastErrorEvent;
@@ -214,6 +216,12 @@ public class NIOTransport extends JmxObject {
         return bytesWritten.get();
     }
 
+    @ManagedAttribute(id="average-receive-buffer-size")
+    public long getAverageReceiveBufferSize() {
+        final long count = receiveBufferSizesCount.get();
+        return count > 0 ? receiveBufferSizesSum.get() / count : 0;
+    }
+
     @ManagedAttribute(id="bound-addresses")
     public String getBoundAddresses() {
         return boundAddresses.toString();
@@ -413,5 +421,11 @@ public class NIOTransport extends JmxObject {
         @Override
         public void onIOEventDisableEvent(Connection connection, IOEvent ioEvent) {
         }
+
+        @Override
+        public void onReceiveBufferSizeEvent(Connection connection, int size) {
+            receiveBufferSizesSum.addAndGet(size);
+            receiveBufferSizesCount.incrementAndGet();
+        }
     }
 }
@@ -0,0 +1,202 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.ssl.jmx;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.jmxbase.GrizzlyJmxManager;
+import org.glassfish.grizzly.monitoring.jmx.JmxObject;
+import org.glassfish.grizzly.ssl.SSLHandshakeStatistics;
+import org.glassfish.gmbal.Description;
+import org.glassfish.gmbal.GmbalMBean;
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedObject;
+
+/**
+ * JMX management object for the {@link org.glassfish.grizzly.ssl.SSLBaseFilter}.
+ *
+ * @since 2.4.3
+ */
+@ManagedObject
+@Description("This Filter is responsible for the TLS handshake and the encryption/decryption of the connection data.")
+public class SSLBaseFilter extends JmxObject {
+
+    private final org.glassfish.grizzly.ssl.SSLBaseFilter sslFilter;
+
+    private final SSLHandshakeStatistics probe = new SSLHandshakeStatistics();
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public SSLBaseFilter(org.glassfish.grizzly.ssl.SSLBaseFilter sslFilter) {
+        this.sslFilter = sslFilter;
+    }
+
+
+    // -------------------------------------------------- Methods from JmxObject
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getJmxName() {
+        return "SSLFilter";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onRegister(GrizzlyJmxManager mom, GmbalMBean bean) {
+        sslFilter.getMonitoringConfig().addProbes(probe);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onDeregister(GrizzlyJmxManager mom) {
+        sslFilter.getMonitoringConfig().removeProbes(probe);
+    }
+
+
+    // -------------------------------------------------------------- Attributes
+
+
+    /**
+     * @return the number of full TLS handshakes.
+     */
+    @ManagedAttribute(id="ssl-full-handshakes")
+    @Description("The number of full TLS handshakes.")
+    public long getFullHandshakes() {
+        return probe.getFullHandshakes();
+    }
+
+    /**
+     * @return the number of abbreviated TLS handshakes.
+     */
+    @ManagedAttribute(id="ssl-resumed-handshakes")
+    @Description("The number of abbreviated TLS handshakes, which resumed a cached session.")
+    public long getResumedHandshakes() {
+        return probe.getResumedHandshakes();
+    }
+
+    /**
+     * @return the number of failed TLS handshakes.
+     */
+    @ManagedAttribute(id="ssl-failed-handshakes")
+    @Description("The number of failed TLS handshakes.")
+    public long getFailedHandshakes() {
+        return probe.getFailedHandshakes();
+    }
+
+    /**
+     * @return the average TLS handshake duration in microseconds.
+     */
+    @ManagedAttribute(id="ssl-avg-handshake-time-micros")
+    @Description("The average TLS handshake duration in microseconds.")
+    public long getAverageHandshakeTime() {
+        return probe.getAverageHandshakeTime(TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @return the longest TLS handshake duration in microseconds.
+     */
+    @ManagedAttribute(id="ssl-max-handshake-time-micros")
+    @Description("The longest TLS handshake duration in microseconds.")
+    public long getMaxHandshakeTime() {
+        return probe.getMaxHandshakeTime(TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @return the TLS handshake duration histogram.
+     */
+    @ManagedAttribute(id="ssl-handshake-time-histogram")
+    @Description("The number of TLS handshakes per duration bucket, the bucket bounds are in milliseconds.")
+    public String getHandshakeTimeHistogram() {
+        final long[] bounds = SSLHandshakeStatistics.getHandshakeTimeHistogramBounds();
+        final long[] counts = probe.getHandshakeTimeHistogram();
+        
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            
+            if (i < bounds.length) {
+                sb.append("<=").append(bounds[i]);
+            } else {
+                sb.append('>').append(bounds[bounds.length - 1]);
+            }
+            sb.append('=').append(counts[i]);
+        }
+        
+        return sb.toString();
+    }
+
+    /**
+     * @return the number of TLS handshakes per negotiated protocol.
+     */
+    @ManagedAttribute(id="ssl-protocols")
+    @Description("The number of complete TLS handshakes per negotiated protocol.")
+    public String getProtocols() {
+        return probe.getProtocols().toString();
+    }
+
+    /**
+     * @return the number of TLS handshakes per negotiated cipher suite.
+     */
+    @ManagedAttribute(id="ssl-cipher-suites")
+    @Description("The number of complete TLS handshakes per negotiated cipher suite.")
+    public String getCipherSuites() {
+        return probe.getCipherSuites().toString();
+    }
+
+    /**
+     * @return the number of failed TLS handshakes per failure reason.
+     */
+    @ManagedAttribute(id="ssl-handshake-failure-reasons")
+    @Description("The number of failed TLS handshakes per failure reason.")
+    public String getFailureReasons() {
+        return probe.getFailureReasons().toString();
+    }
+}
@@ -68,6 +68,8 @@ public class ThreadPool extends JmxObject {
     private final AtomicInteger busyThreadsCount = new AtomicInteger();
     private final AtomicLong totalCompletedTasksCount = new AtomicLong();
     private final AtomicInteger totalTaskQueueOverflowCount = new AtomicInteger();
+    private final AtomicInteger maxWorkerQueueDepth = new AtomicInteger();
+    private final AtomicLong totalStolenTasksCount = new AtomicLong();
 
 
     // ------------------------------------------------------------ Constructors
@@ -208,6 +210,28 @@ public class ThreadPool extends JmxObject {
         return totalTaskQueueOverflowCount.get();
     }
 
+    /**
+     * @return the max number of tasks observed in a single worker queue,
+     *  applicable to the thread pools with per-worker queues.
+     * @since 2.4.3
+     */
+    @ManagedAttribute(id="thread-pool-max-worker-queue-depth")
+    @Description("The max number of tasks observed in a single worker queue of this thread pool.")
+    public int getMaxWorkerQueueDepth() {
+        return maxWorkerQueueDepth.get();
+    }
+
+    /**
+     * @return the total number of tasks, which have been stolen by idle
+     *  workers from the queues of the other workers.
+     * @since 2.4.3
+     */
+    @ManagedAttribute(id="thread-pool-total-stolen-tasks-count")
+    @Description("The total number of tasks stolen by idle workers from the queues of the other workers.")
+    public long getTotalStolenTasksCount() {
+        return totalStolenTasksCount.get();
+    }
+
     // ---------------------------------------------------------- Nested Classes
 
 
@@ -242,6 +266,22 @@ public class ThreadPool extends JmxObject {
         public void onTaskQueueOverflowEvent(AbstractThreadPool threadPool) {
             totalTaskQueueOverflowCount.incrementAndGet();
         }
+
+        @Override
+        public void onWorkerQueueDepthEvent(AbstractThreadPool threadPool,
+                Thread worker, int queueDepth) {
+            int max;
+            while (queueDepth > (max = maxWorkerQueueDepth.get())) {
+                if (maxWorkerQueueDepth.compareAndSet(max, queueDepth)) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void onTaskStealEvent(AbstractThreadPool threadPool, Runnable task) {
+            totalStolenTasksCount.incrementAndGet();
+        }
         
         private void decBusyThreadCount() {
             final int val = busyThreadsCount.decrementAndGet();
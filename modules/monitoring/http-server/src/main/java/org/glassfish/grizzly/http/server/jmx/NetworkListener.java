@@ -46,6 +46,7 @@ import org.glassfish.grizzly.http.KeepAlive;
 import org.glassfish.grizzly.http.server.filecache.FileCache;
 import org.glassfish.grizzly.http.server.HttpServerFilter;
 import org.glassfish.grizzly.monitoring.jmx.JmxObject;
+import org.glassfish.grizzly.ssl.SSLBaseFilter;
 import org.glassfish.gmbal.Description;
 import org.glassfish.gmbal.GmbalMBean;
 import org.glassfish.gmbal.ManagedAttribute;
@@ -76,6 +77,9 @@ public class NetworkListener extends JmxObject {
     
     private HttpCodecFilter currentHttpCodecFilter;
     private Object httpCodecFilterJmx;
+    
+    private SSLBaseFilter currentSSLBaseFilter;
+    private Object sslBaseFilterJmx;
 
     private GrizzlyJmxManager mom;
 
@@ -316,6 +320,24 @@ public class NetworkListener extends JmxObject {
                 httpCodecFilterJmx = jmx;
             }
         }
+
+        final SSLBaseFilter sslFilter = listener.getSSLBaseFilter();
+        if (currentSSLBaseFilter != sslFilter) {
+            if (currentSSLBaseFilter != null) {
+                mom.deregister(sslBaseFilterJmx);
+
+                currentSSLBaseFilter = null;
+                sslBaseFilterJmx = null;
+            }
+
+            if (sslFilter != null) {
+                final Object jmx = sslFilter
+                        .getMonitoringConfig().createManagementObject();
+                mom.register(this, jmx);
+                currentSSLBaseFilter = sslFilter;
+                sslBaseFilterJmx = jmx;
+            }
+        }
         
     }
 